@@ -54,6 +54,23 @@ public class Config {
          */
         public static int SAMPLE_N_PER_3_SECS = -1;
 
+        /**
+         * Negative or zero means off, by default. The target of the sampled segments per second, shared by the
+         * endpoints, and lowered when the agent drops segments. {@link #SAMPLE_N_PER_3_SECS} is ignored when it is on.
+         */
+        public static int SAMPLE_SEGMENTS_PER_SECOND = -1;
+
+        /**
+         * The endpoints whose segments are slower than this, in milliseconds, or have errors, get priority in the
+         * adaptive sampling.
+         */
+        public static long SAMPLE_SLOW_THRESHOLD = 1000;
+
+        /**
+         * The max number of the endpoints with their own quotas in the adaptive sampling, the others share one.
+         */
+        public static int SAMPLE_ENDPOINTS_LIMIT = 1000;
+
         /**
          * If the operation name of the first span is included in this set, this segment should be ignored.
          */
@@ -70,6 +87,24 @@ public class Config {
          * Skywalking team may ask for these files in order to resolve compatible problem.
          */
         public static boolean IS_OPEN_DEBUGGING_CLASS = false;
+
+        /**
+         * If true, the spans and the tracing contexts are reused after the segments are sent, to reduce the
+         * allocation. Don't active it when any plugin keeps a span after it is stopped.
+         */
+        public static boolean RECYCLE_SPAN = false;
+
+        /**
+         * The max number of the idle spans of each type kept for reusing.
+         */
+        public static int SPAN_POOL_SIZE = 1000;
+
+        /**
+         * If true, the context is propagated in the compact binary format, which is smaller and faster to parse than
+         * the legacy one. Both formats are read in any case, so active it after all agents of the services are able
+         * to read it.
+         */
+        public static boolean COMPACT_HEADER = false;
     }
 
     public static class Collector {
@@ -85,6 +120,21 @@ public class Config {
          * Collector skywalking trace receiver service addresses.
          */
         public static String BACKEND_SERVICE = "";
+        /**
+         * If true, the trace segments are sent through one long-lived stream as they are consumed, and the stream is
+         * reopened only on error. Otherwise a stream is opened for each batch, and waits for the collector response.
+         */
+        public static boolean PERSISTENT_SEGMENT_STREAM = false;
+        /**
+         * The max milliseconds waiting for the flow control of the persistent segment stream, the stream is reopened
+         * after that, and the segments of the batch not sent are abandoned.
+         */
+        public static long SEGMENT_STREAM_READY_TIMEOUT = 3000;
+        /**
+         * The milliseconds the persistent segment stream is kept open. The collector acknowledges the segments of a
+         * stream only when it is completed, so it is completed and reopened at this interval.
+         */
+        public static long SEGMENT_STREAM_ACK_INTERVAL = 30 * 1000;
     }
 
     public static class Jvm {
@@ -92,14 +142,54 @@ public class Config {
          * The buffer size of collected JVM info.
          */
         public static int BUFFER_SIZE = 60 * 10;
+
+        /**
+         * The seconds of the JVM samples merged into one reported metric.
+         */
+        public static int RESOLUTION = 1;
     }
 
     public static class Buffer {
+        /**
+         * The channels of the trace segment buffer, the segments are dropped when all the channels are full.
+         */
         public static int CHANNEL_SIZE = 5;
 
+        /**
+         * The size of each channel of the trace segment buffer.
+         */
         public static int BUFFER_SIZE = 300;
     }
 
+    public static class Spool {
+        /**
+         * If true, the trace segments are spooled to the local disk while the backend is unreachable or the buffer is
+         * full, and replayed after reconnection.
+         */
+        public static boolean ACTIVE = false;
+
+        /**
+         * Spool files directory. Default is blank string, means, use the "spool" folder in the agent package.
+         */
+        public static String DIR = "";
+
+        /**
+         * The size of each memory-mapped spool file.
+         */
+        public static int FILE_SIZE = 8 * 1024 * 1024;
+
+        /**
+         * The max size of all spool files. If the size is bigger than this, the oldest file is evicted with its
+         * segments.
+         */
+        public static long MAX_SIZE = 256 * 1024 * 1024;
+
+        /**
+         * The max number of the spooled segments replayed per second.
+         */
+        public static int REPLAY_RATE = 300;
+    }
+
     public static class Dictionary {
         /**
          * The buffer size of application codes and peer
@@ -132,6 +222,18 @@ public class Config {
          * The log level. Default is debug.
          */
         public static LogLevel LEVEL = LogLevel.DEBUG;
+
+        /**
+         * The size of the ring buffer of the log file writer, rounded up to a power of 2. The messages are dropped,
+         * and counted, when it is full, so the application threads never wait for the writer.
+         */
+        public static int BUFFER_SIZE = 1024;
+
+        /**
+         * The max number of the messages of the same format written in a second, the others are suppressed and
+         * counted. Negative or zero means no limit.
+         */
+        public static int MAX_REPEATS_PER_SECOND = 100;
     }
 
     public static class Plugin {
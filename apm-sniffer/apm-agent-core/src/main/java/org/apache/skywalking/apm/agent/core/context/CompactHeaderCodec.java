@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import org.apache.skywalking.apm.agent.core.context.ids.ID;
+
+/**
+ * The <code>CompactHeaderCodec</code> writes and reads the compact format of the {@link ContextCarrier}, the binary
+ * fields in the URL safe base64 without padding. The first byte is the {@link #VERSION}, the ids are three varint
+ * longs, the integers are varints, and a name is a tag byte followed by an integer id, or by the length and the
+ * modified UTF-8 bytes of a name. The parts of an id are varints rather than fixed-width, as the first two are small
+ * numbers, and would take more bytes than their decimal text otherwise.
+ *
+ * The base64 is decoded while reading the fields, so parsing allocates nothing but the values of the carrier. A codec
+ * isn't thread safe, {@link #get()} returns the one of the current thread.
+ */
+final class CompactHeaderCodec {
+    private static final int VERSION = 1;
+    /**
+     * The first char of the compact format, which is the base64 of the {@link #VERSION}. The legacy format never starts
+     * with a letter.
+     */
+    private static final char MARK = 'A';
+
+    private static final int TAG_ID = 0;
+    private static final int TAG_NAME = 1;
+
+    /**
+     * The buffers bigger than this aren't kept after use, avoid holding memory in the application threads.
+     */
+    private static final int MAX_KEPT_BUFFER = 4096;
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] INDEX = new int[128];
+
+    static {
+        for (int i = 0; i < INDEX.length; i++) {
+            INDEX[i] = -1;
+        }
+        for (int i = 0; i < ALPHABET.length; i++) {
+            INDEX[ALPHABET[i]] = i;
+        }
+    }
+
+    private static final ThreadLocal<CompactHeaderCodec> CODEC = new ThreadLocal<CompactHeaderCodec>() {
+        @Override
+        protected CompactHeaderCodec initialValue() {
+            return new CompactHeaderCodec();
+        }
+    };
+
+    private byte[] bytes = new byte[128];
+    private int length;
+    private char[] chars = new char[256];
+
+    private String text;
+    private int position;
+    private int bits;
+    private int bitCount;
+
+    private CompactHeaderCodec() {
+    }
+
+    static CompactHeaderCodec get() {
+        return CODEC.get();
+    }
+
+    static boolean isCompact(String text) {
+        return text.length() > 0 && text.charAt(0) == MARK;
+    }
+
+    void beginWrite() {
+        length = 0;
+        writeByte(VERSION);
+    }
+
+    void writeId(ID id) {
+        writeLong(id.getPart1());
+        writeLong(id.getPart2());
+        writeLong(id.getPart3());
+    }
+
+    void writeInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * Write a name of the carrier, which is a '#' followed by the name, or an id registered in the backend.
+     */
+    void writeName(String name) {
+        if (name.length() > 0 && name.charAt(0) == '#') {
+            writeByte(TAG_NAME);
+            writeInt(utfLength(name));
+            for (int i = 1; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c > 0 && c < 0x80) {
+                    writeByte(c);
+                } else if (c < 0x800) {
+                    writeByte(0xC0 | (c >> 6));
+                    writeByte(0x80 | (c & 0x3F));
+                } else {
+                    writeByte(0xE0 | (c >> 12));
+                    writeByte(0x80 | ((c >> 6) & 0x3F));
+                    writeByte(0x80 | (c & 0x3F));
+                }
+            }
+        } else {
+            writeByte(TAG_ID);
+            writeInt(Integer.parseInt(name));
+        }
+    }
+
+    String endWrite() {
+        int charLength = (length * 4 + 2) / 3;
+        if (chars.length < charLength) {
+            chars = new char[charLength];
+        }
+        int c = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int group = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+            chars[c++] = ALPHABET[group >>> 18];
+            chars[c++] = ALPHABET[(group >>> 12) & 0x3F];
+            chars[c++] = ALPHABET[(group >>> 6) & 0x3F];
+            chars[c++] = ALPHABET[group & 0x3F];
+        }
+        if (i < length) {
+            int group = (bytes[i] & 0xFF) << 16 | (i + 1 < length ? (bytes[i + 1] & 0xFF) << 8 : 0);
+            chars[c++] = ALPHABET[group >>> 18];
+            chars[c++] = ALPHABET[(group >>> 12) & 0x3F];
+            if (i + 1 < length) {
+                chars[c++] = ALPHABET[(group >>> 6) & 0x3F];
+            }
+        }
+        String encoded = new String(chars, 0, c);
+        release();
+        return encoded;
+    }
+
+    /**
+     * @return false if the text isn't in the supported version of the compact format.
+     */
+    boolean beginRead(String text) {
+        this.text = text;
+        this.position = 0;
+        this.bits = 0;
+        this.bitCount = 0;
+        return readByte() == VERSION;
+    }
+
+    ID readId() {
+        return new ID(readLong(), readLong(), readLong());
+    }
+
+    int readInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in the compact header.");
+    }
+
+    /**
+     * @return the name in the same form as {@link #writeName(String)} takes.
+     */
+    String readName() {
+        int tag = readByte();
+        if (tag == TAG_ID) {
+            return String.valueOf(readInt());
+        } else if (tag != TAG_NAME) {
+            throw new IllegalArgumentException("Unknown name tag " + tag + " in the compact header.");
+        }
+
+        int utfLength = readInt();
+        if (utfLength < 0 || utfLength > text.length()) {
+            throw new IllegalArgumentException("Malformed name length in the compact header.");
+        }
+        if (chars.length < utfLength + 1) {
+            chars = new char[utfLength + 1];
+        }
+        chars[0] = '#';
+        int c = 1;
+        int read = 0;
+        while (read < utfLength) {
+            int b = readByte();
+            if (b < 0x80) {
+                chars[c++] = (char)b;
+                read++;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[c++] = (char)((b & 0x1F) << 6 | (readByte() & 0x3F));
+                read += 2;
+            } else {
+                int b2 = readByte();
+                chars[c++] = (char)((b & 0x0F) << 12 | (b2 & 0x3F) << 6 | (readByte() & 0x3F));
+                read += 3;
+            }
+        }
+        return new String(chars, 0, c);
+    }
+
+    void endRead() {
+        text = null;
+        release();
+    }
+
+    private void writeByte(int b) {
+        if (length == bytes.length) {
+            byte[] newBytes = new byte[bytes.length * 2];
+            System.arraycopy(bytes, 0, newBytes, 0, length);
+            bytes = newBytes;
+        }
+        bytes[length++] = (byte)b;
+    }
+
+    private void writeLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int)value);
+    }
+
+    private long readLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in the compact header.");
+    }
+
+    private int readByte() {
+        while (bitCount < 8) {
+            if (position >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of the compact header.");
+            }
+            char c = text.charAt(position++);
+            int digit = c < INDEX.length ? INDEX[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Illegal char " + c + " in the compact header.");
+            }
+            bits = bits << 6 | digit;
+            bitCount += 6;
+        }
+        bitCount -= 8;
+        return (bits >>> bitCount) & 0xFF;
+    }
+
+    /**
+     * @return the length of the modified UTF-8 bytes of the name, without the leading '#'.
+     */
+    private static int utfLength(String name) {
+        int utfLength = 0;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c > 0 && c < 0x80) {
+                utfLength++;
+            } else if (c < 0x800) {
+                utfLength += 2;
+            } else {
+                utfLength += 3;
+            }
+        }
+        return utfLength;
+    }
+
+    private void release() {
+        if (bytes.length > MAX_KEPT_BUFFER) {
+            bytes = new byte[128];
+        }
+        if (chars.length > MAX_KEPT_BUFFER) {
+            chars = new char[256];
+        }
+    }
+}
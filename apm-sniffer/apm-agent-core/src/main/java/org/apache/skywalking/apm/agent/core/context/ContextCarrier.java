@@ -21,6 +21,7 @@ package org.apache.skywalking.apm.agent.core.context;
 
 import java.io.Serializable;
 import java.util.List;
+import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.context.ids.DistributedTraceId;
 import org.apache.skywalking.apm.agent.core.context.ids.ID;
 import org.apache.skywalking.apm.agent.core.context.ids.PropagatedTraceId;
@@ -35,6 +36,12 @@ import org.apache.skywalking.apm.util.StringUtil;
  * Created by wusheng on 2017/2/17.
  */
 public class ContextCarrier implements Serializable {
+    /**
+     * The serialization of a carrier from a context not sampled, so the downstream doesn't sample either. It isn't a
+     * valid carrier for the agents not knowing it.
+     */
+    static final String UNSAMPLED = "-";
+
     /**
      * {@link TraceSegment#traceSegmentId}
      */
@@ -78,6 +85,11 @@ public class ContextCarrier implements Serializable {
      */
     private DistributedTraceId primaryDistributedTraceId;
 
+    /**
+     * True if the upstream context isn't sampled.
+     */
+    private boolean unsampled = false;
+
     public CarrierItem items() {
         SW3CarrierItem carrierItem = new SW3CarrierItem(this, null);
         CarrierItemHead head = new CarrierItemHead(carrierItem);
@@ -85,13 +97,16 @@ public class ContextCarrier implements Serializable {
     }
 
     /**
-     * Serialize this {@link ContextCarrier} to a {@link String},
-     * with '|' split.
+     * Serialize this {@link ContextCarrier} to a {@link String}, in the compact format if {@link
+     * Config.Agent#COMPACT_HEADER} is true, otherwise with '|' split.
      *
      * @return the serialization string.
      */
     String serialize() {
         if (this.isValid()) {
+            if (Config.Agent.COMPACT_HEADER) {
+                return serializeCompact();
+            }
             return StringUtil.join('|',
                 this.getTraceSegmentId().encode(),
                 this.getSpanId() + "",
@@ -101,18 +116,38 @@ public class ContextCarrier implements Serializable {
                 this.getEntryOperationName(),
                 this.getParentOperationName(),
                 this.getPrimaryDistributedTraceId().encode());
+        } else if (unsampled) {
+            return UNSAMPLED;
         } else {
             return "";
         }
     }
 
+    private String serializeCompact() {
+        CompactHeaderCodec codec = CompactHeaderCodec.get();
+        codec.beginWrite();
+        codec.writeId(this.getTraceSegmentId());
+        codec.writeInt(this.getSpanId());
+        codec.writeInt(this.getParentApplicationInstanceId());
+        codec.writeInt(this.getEntryApplicationInstanceId());
+        codec.writeName(this.getPeerHost());
+        codec.writeName(this.getEntryOperationName());
+        codec.writeName(this.getParentOperationName());
+        codec.writeId(this.getPrimaryDistributedTraceId().getId());
+        return codec.endWrite();
+    }
+
     /**
-     * Initialize fields with the given text.
+     * Initialize fields with the given text, in the compact format or the legacy one.
      *
      * @param text carries {@link #traceSegmentId} and {@link #spanId}, with '|' split.
      */
     ContextCarrier deserialize(String text) {
-        if (text != null) {
+        if (UNSAMPLED.equals(text)) {
+            this.unsampled = true;
+        } else if (text != null && CompactHeaderCodec.isCompact(text)) {
+            deserializeCompact(text);
+        } else if (text != null) {
             String[] parts = text.split("\\|", 8);
             if (parts.length == 8) {
                 try {
@@ -132,6 +167,26 @@ public class ContextCarrier implements Serializable {
         return this;
     }
 
+    private void deserializeCompact(String text) {
+        CompactHeaderCodec codec = CompactHeaderCodec.get();
+        try {
+            if (codec.beginRead(text)) {
+                this.traceSegmentId = codec.readId();
+                this.spanId = codec.readInt();
+                this.parentApplicationInstanceId = codec.readInt();
+                this.entryApplicationInstanceId = codec.readInt();
+                this.peerHost = codec.readName();
+                this.entryOperationName = codec.readName();
+                this.parentOperationName = codec.readName();
+                this.primaryDistributedTraceId = new PropagatedTraceId(codec.readId());
+            }
+        } catch (IllegalArgumentException e) {
+
+        } finally {
+            codec.endRead();
+        }
+    }
+
     /**
      * Make sure this {@link ContextCarrier} has been initialized.
      *
@@ -149,6 +204,17 @@ public class ContextCarrier implements Serializable {
             && primaryDistributedTraceId != null;
     }
 
+    /**
+     * @return true if the upstream context isn't sampled, and this carrier is not valid.
+     */
+    public boolean isUnsampled() {
+        return unsampled && !isValid();
+    }
+
+    void setUnsampled() {
+        this.unsampled = true;
+    }
+
     public String getEntryOperationName() {
         return entryOperationName;
     }
@@ -73,6 +73,18 @@ public class ContextManager implements TracingContextListener, BootService, Igno
         return context;
     }
 
+    /**
+     * Follow the decision of the upstream, which doesn't sample this trace.
+     */
+    private static AbstractTracerContext getOrCreateUnsampled() {
+        AbstractTracerContext context = CONTEXT.get();
+        if (context == null) {
+            context = new IgnoredTracerContext(true);
+            CONTEXT.set(context);
+        }
+        return context;
+    }
+
     private static AbstractTracerContext get() {
         return CONTEXT.get();
     }
@@ -98,6 +110,9 @@ public class ContextManager implements TracingContextListener, BootService, Igno
             context = getOrCreate(operationName, true);
             span = context.createEntrySpan(operationName);
             context.extract(carrier);
+        } else if (carrier != null && carrier.isUnsampled()) {
+            context = getOrCreateUnsampled();
+            span = context.createEntrySpan(operationName);
         } else {
             context = getOrCreate(operationName, false);
             span = context.createEntrySpan(operationName);
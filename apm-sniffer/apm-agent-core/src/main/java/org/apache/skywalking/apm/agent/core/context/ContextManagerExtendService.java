@@ -29,6 +29,11 @@ import org.apache.skywalking.apm.agent.core.sampling.SamplingService;
  */
 @DefaultImplementor
 public class ContextManagerExtendService implements BootService {
+    /**
+     * The finished {@link TracingContext} of each thread, reused when {@link Config.Agent#RECYCLE_SPAN} is true.
+     */
+    private static final ThreadLocal<TracingContext> IDLE_CONTEXT = new ThreadLocal<TracingContext>();
+
     @Override public void prepare() {
 
     }
@@ -57,13 +62,30 @@ public class ContextManagerExtendService implements BootService {
             context = new IgnoredTracerContext();
         } else {
             SamplingService samplingService = ServiceManager.INSTANCE.findService(SamplingService.class);
-            if (forceSampling || samplingService.trySampling()) {
-                context = new TracingContext();
+            if (forceSampling || samplingService.trySampling(operationName)) {
+                context = newTracingContext();
             } else {
-                context = new IgnoredTracerContext();
+                context = new IgnoredTracerContext(true);
             }
         }
 
         return context;
     }
+
+    /**
+     * Only called when no context is active in the current thread, so the last context of the thread has finished.
+     */
+    private TracingContext newTracingContext() {
+        if (!Config.Agent.RECYCLE_SPAN) {
+            return new TracingContext();
+        }
+        TracingContext context = IDLE_CONTEXT.get();
+        if (context == null) {
+            context = new TracingContext();
+            IDLE_CONTEXT.set(context);
+        } else {
+            context.reset();
+        }
+        return context;
+    }
 }
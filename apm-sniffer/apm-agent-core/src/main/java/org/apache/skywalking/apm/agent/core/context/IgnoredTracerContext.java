@@ -37,13 +37,25 @@ public class IgnoredTracerContext implements AbstractTracerContext {
 
     private int stackDepth;
 
+    /**
+     * True if the context is ignored by the sampling, which is propagated to the downstream.
+     */
+    private boolean unsampled;
+
     public IgnoredTracerContext() {
+        this(false);
+    }
+
+    public IgnoredTracerContext(boolean unsampled) {
         this.stackDepth = 0;
+        this.unsampled = unsampled;
     }
 
     @Override
     public void inject(ContextCarrier carrier) {
-
+        if (unsampled) {
+            carrier.setUnsampled();
+        }
     }
 
     @Override
@@ -18,8 +18,10 @@
 
 package org.apache.skywalking.apm.agent.core.context;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
@@ -29,6 +31,7 @@ import org.apache.skywalking.apm.agent.core.context.trace.ExitSpan;
 import org.apache.skywalking.apm.agent.core.context.trace.LocalSpan;
 import org.apache.skywalking.apm.agent.core.context.trace.NoopExitSpan;
 import org.apache.skywalking.apm.agent.core.context.trace.NoopSpan;
+import org.apache.skywalking.apm.agent.core.context.trace.SpanPool;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegmentRef;
 import org.apache.skywalking.apm.agent.core.context.trace.WithPeerInfo;
@@ -68,17 +71,30 @@ public class TracingContext implements AbstractTracerContext {
     private TraceSegment segment;
 
     /**
-     * Active spans stored in a Stack, usually called 'ActiveSpanStack'. This {@link LinkedList} is the in-memory
-     * storage-structure. <p> I use {@link LinkedList#removeLast()}, {@link LinkedList#addLast(Object)} and {@link
-     * LinkedList#last} instead of {@link #pop()}, {@link #push(AbstractSpan)}, {@link #peek()}
+     * Active spans stored in a Stack, usually called 'ActiveSpanStack'. This array is the in-memory storage-structure,
+     * growing when it is full, and {@link #activeSpanCount} is the depth of the stack. <p> Use {@link #pop()}, {@link
+     * #push(AbstractSpan)}, {@link #peek()} to access it.
      */
-    private LinkedList<AbstractSpan> activeSpanStack = new LinkedList<AbstractSpan>();
+    private AbstractSpan[] activeSpanStack = new AbstractSpan[8];
+
+    private int activeSpanCount;
 
     /**
      * A counter for the next span.
      */
     private int spanIdGenerator;
 
+    /**
+     * The operation name of the first span, which is the endpoint in the sampling.
+     */
+    private String firstOperationName;
+
+    /**
+     * True if this context has been injected into a {@link ContextCarrier} or captured by a {@link ContextSnapshot},
+     * then the segment is a part of the distributed trace, and must not be dropped.
+     */
+    private boolean propagated;
+
     /**
      * Initialize all fields with default value.
      */
@@ -90,6 +106,18 @@ public class TracingContext implements AbstractTracerContext {
         }
     }
 
+    /**
+     * Reset this finished context as a new one, to be reused in the same thread.
+     */
+    void reset() {
+        Arrays.fill(activeSpanStack, 0, activeSpanCount, null);
+        this.activeSpanCount = 0;
+        this.segment = new TraceSegment();
+        this.spanIdGenerator = 0;
+        this.firstOperationName = null;
+        this.propagated = false;
+    }
+
     /**
      * Inject the context into the given carrier, only when the active span is an exit one.
      *
@@ -149,6 +177,7 @@ public class TracingContext implements AbstractTracerContext {
         }
 
         carrier.setDistributedTraceIds(this.segment.getRelatedGlobalTraces());
+        this.propagated = true;
     }
 
     /**
@@ -207,6 +236,7 @@ public class TracingContext implements AbstractTracerContext {
         } else {
             snapshot.setParentOperationId(firstSpan.getOperationId());
         }
+        this.propagated = true;
         return snapshot;
     }
 
@@ -241,6 +271,9 @@ public class TracingContext implements AbstractTracerContext {
      */
     @Override
     public AbstractSpan createEntrySpan(final String operationName) {
+        if (firstOperationName == null) {
+            firstOperationName = operationName;
+        }
         if (isLimitMechanismWorking()) {
             NoopSpan span = new NoopSpan();
             return push(span);
@@ -266,11 +299,11 @@ public class TracingContext implements AbstractTracerContext {
                 .findOnly(segment.getApplicationId(), operationName)
                 .doInCondition(new PossibleFound.FoundAndObtain() {
                     @Override public Object doProcess(int operationId) {
-                        return new EntrySpan(spanIdGenerator++, parentSpanId, operationId);
+                        return SpanPool.newEntrySpan(spanIdGenerator++, parentSpanId, null, operationId);
                     }
                 }, new PossibleFound.NotFoundAndObtain() {
                     @Override public Object doProcess() {
-                        return new EntrySpan(spanIdGenerator++, parentSpanId, operationName);
+                        return SpanPool.newEntrySpan(spanIdGenerator++, parentSpanId, operationName, DictionaryUtil.nullValue());
                     }
                 });
             entrySpan.start();
@@ -287,6 +320,9 @@ public class TracingContext implements AbstractTracerContext {
      */
     @Override
     public AbstractSpan createLocalSpan(final String operationName) {
+        if (firstOperationName == null) {
+            firstOperationName = operationName;
+        }
         if (isLimitMechanismWorking()) {
             NoopSpan span = new NoopSpan();
             return push(span);
@@ -298,12 +334,12 @@ public class TracingContext implements AbstractTracerContext {
             .doInCondition(new PossibleFound.FoundAndObtain() {
                 @Override
                 public Object doProcess(int operationId) {
-                    return new LocalSpan(spanIdGenerator++, parentSpanId, operationId);
+                    return SpanPool.newLocalSpan(spanIdGenerator++, parentSpanId, null, operationId);
                 }
             }, new PossibleFound.NotFoundAndObtain() {
                 @Override
                 public Object doProcess() {
-                    return new LocalSpan(spanIdGenerator++, parentSpanId, operationName);
+                    return SpanPool.newLocalSpan(spanIdGenerator++, parentSpanId, operationName, DictionaryUtil.nullValue());
                 }
             });
         span.start();
@@ -320,6 +356,9 @@ public class TracingContext implements AbstractTracerContext {
      */
     @Override
     public AbstractSpan createExitSpan(final String operationName, final String remotePeer) {
+        if (firstOperationName == null) {
+            firstOperationName = operationName;
+        }
         AbstractSpan exitSpan;
         AbstractSpan parentSpan = peek();
         if (parentSpan != null && parentSpan.isExit()) {
@@ -341,12 +380,12 @@ public class TracingContext implements AbstractTracerContext {
                                     new PossibleFound.FoundAndObtain() {
                                         @Override
                                         public Object doProcess(int operationId) {
-                                            return new ExitSpan(spanIdGenerator++, parentSpanId, operationId, peerId);
+                                            return SpanPool.newExitSpan(spanIdGenerator++, parentSpanId, null, operationId, null, peerId);
                                         }
                                     }, new PossibleFound.NotFoundAndObtain() {
                                         @Override
                                         public Object doProcess() {
-                                            return new ExitSpan(spanIdGenerator++, parentSpanId, operationName, peerId);
+                                            return SpanPool.newExitSpan(spanIdGenerator++, parentSpanId, operationName, DictionaryUtil.nullValue(), null, peerId);
                                         }
                                     });
                         }
@@ -364,12 +403,12 @@ public class TracingContext implements AbstractTracerContext {
                                     new PossibleFound.FoundAndObtain() {
                                         @Override
                                         public Object doProcess(int operationId) {
-                                            return new ExitSpan(spanIdGenerator++, parentSpanId, operationId, remotePeer);
+                                            return SpanPool.newExitSpan(spanIdGenerator++, parentSpanId, null, operationId, remotePeer, DictionaryUtil.nullValue());
                                         }
                                     }, new PossibleFound.NotFoundAndObtain() {
                                         @Override
                                         public Object doProcess() {
-                                            return new ExitSpan(spanIdGenerator++, parentSpanId, operationName, remotePeer);
+                                            return SpanPool.newExitSpan(spanIdGenerator++, parentSpanId, operationName, DictionaryUtil.nullValue(), remotePeer, DictionaryUtil.nullValue());
                                         }
                                     });
                         }
@@ -414,8 +453,8 @@ public class TracingContext implements AbstractTracerContext {
             throw new IllegalStateException("Stopping the unexpected span = " + span);
         }
 
-        if (activeSpanStack.isEmpty()) {
-            this.finish();
+        if (activeSpanCount == 0) {
+            this.finish(lastSpan);
         }
     }
 
@@ -423,19 +462,24 @@ public class TracingContext implements AbstractTracerContext {
      * Finish this context, and notify all {@link TracingContextListener}s, managed by {@link
      * TracingContext.ListenerManager}
      */
-    private void finish() {
+    private void finish(AbstractSpan rootSpan) {
         TraceSegment finishedSegment = segment.finish(isLimitMechanismWorking());
         /**
          * Recheck the segment if the segment contains only one span.
          * Because in the runtime, can't sure this segment is part of distributed trace.
+         * Unless it has been propagated, the downstream keeps its part of the trace.
          *
          * @see {@link #createSpan(String, long, boolean)}
          */
-        if (!segment.hasRef() && segment.isSingleSpanSegment()) {
-            if (!samplingService.trySampling()) {
+        if (!segment.hasRef() && segment.isSingleSpanSegment() && !propagated) {
+            if (!samplingService.trySampling(firstOperationName)) {
                 finishedSegment.setIgnore(true);
             }
         }
+        if (!finishedSegment.isIgnore() && rootSpan instanceof AbstractTracingSpan) {
+            AbstractTracingSpan span = (AbstractTracingSpan)rootSpan;
+            samplingService.finished(firstOperationName, span.getDuration(), span.isErrorOccurred());
+        }
         TracingContext.ListenerManager.notifyFinish(finishedSegment);
     }
 
@@ -481,7 +525,9 @@ public class TracingContext implements AbstractTracerContext {
      * @return the top element of 'ActiveSpanStack', and remove it.
      */
     private AbstractSpan pop() {
-        return activeSpanStack.removeLast();
+        AbstractSpan span = activeSpanStack[--activeSpanCount];
+        activeSpanStack[activeSpanCount] = null;
+        return span;
     }
 
     /**
@@ -490,7 +536,10 @@ public class TracingContext implements AbstractTracerContext {
      * @param span
      */
     private AbstractSpan push(AbstractSpan span) {
-        activeSpanStack.addLast(span);
+        if (activeSpanCount == activeSpanStack.length) {
+            activeSpanStack = Arrays.copyOf(activeSpanStack, activeSpanStack.length * 2);
+        }
+        activeSpanStack[activeSpanCount++] = span;
         return span;
     }
 
@@ -498,14 +547,17 @@ public class TracingContext implements AbstractTracerContext {
      * @return the top element of 'ActiveSpanStack' only.
      */
     private AbstractSpan peek() {
-        if (activeSpanStack.isEmpty()) {
+        if (activeSpanCount == 0) {
             return null;
         }
-        return activeSpanStack.getLast();
+        return activeSpanStack[activeSpanCount - 1];
     }
 
     private AbstractSpan first() {
-        return activeSpanStack.getFirst();
+        if (activeSpanCount == 0) {
+            throw new NoSuchElementException();
+        }
+        return activeSpanStack[0];
     }
 
     private boolean isLimitMechanismWorking() {
@@ -54,6 +54,10 @@ public abstract class DistributedTraceId {
         return id.toString();
     }
 
+    public ID getId() {
+        return id;
+    }
+
     public UniqueId toUniqueId() {
         return id.transform();
     }
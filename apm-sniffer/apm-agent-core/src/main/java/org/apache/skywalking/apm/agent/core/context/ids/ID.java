@@ -38,24 +38,53 @@ public class ID {
         this.isValid = true;
     }
 
+    /**
+     * Parse the id from its encoding, "part1.part2.part3", without splitting it.
+     */
     public ID(String encodingString) {
-        String[] idParts = encodingString.split("\\.", 3);
-        this.isValid = true;
-        for (int part = 0; part < 3; part++) {
-            try {
-                if (part == 0) {
-                    part1 = Long.parseLong(idParts[part]);
-                } else if (part == 1) {
-                    part2 = Long.parseLong(idParts[part]);
-                } else {
-                    part3 = Long.parseLong(idParts[part]);
-                }
-            } catch (NumberFormatException e) {
-                this.isValid = false;
-                break;
-            }
+        int first = encodingString.indexOf('.');
+        int second = first < 0 ? -1 : encodingString.indexOf('.', first + 1);
+        if (second < 0) {
+            this.isValid = false;
+            return;
+        }
+        try {
+            this.part1 = parseLong(encodingString, 0, first);
+            this.part2 = parseLong(encodingString, first + 1, second);
+            this.part3 = parseLong(encodingString, second + 1, encodingString.length());
+            this.isValid = true;
+        } catch (NumberFormatException e) {
+            this.isValid = false;
+        }
+    }
 
+    private static long parseLong(String text, int from, int to) {
+        if (from >= to) {
+            throw new NumberFormatException(text);
+        }
+        boolean negative = text.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 19) {
+            throw new NumberFormatException(text);
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(text);
+            }
+            value = value * 10 - digit;
+            if (value > 0) {
+                throw new NumberFormatException(text);
+            }
         }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException(text);
+            }
+            value = -value;
+        }
+        return value;
     }
 
     public String encode() {
@@ -91,6 +120,18 @@ public class ID {
         return result;
     }
 
+    public long getPart1() {
+        return part1;
+    }
+
+    public long getPart2() {
+        return part2;
+    }
+
+    public long getPart3() {
+        return part3;
+    }
+
     public boolean isValid() {
         return isValid;
     }
@@ -18,7 +18,7 @@
 
 package org.apache.skywalking.apm.agent.core.context.trace;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.apache.skywalking.apm.agent.core.context.util.KeyValuePair;
@@ -83,6 +83,34 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
         this.parentSpanId = parentSpanId;
     }
 
+    /**
+     * Reset this span as a new one, when it is reused from {@link SpanPool}. The tag, log and ref lists are kept, but
+     * cleared.
+     *
+     * @param operationName null if the operation id is known.
+     */
+    protected void reset(int spanId, int parentSpanId, String operationName, int operationId) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.operationName = operationName;
+        this.operationId = operationId;
+        this.layer = null;
+        this.startTime = 0;
+        this.endTime = 0;
+        this.errorOccurred = false;
+        this.componentId = 0;
+        this.componentName = null;
+        if (tags != null) {
+            tags.clear();
+        }
+        if (logs != null) {
+            logs.clear();
+        }
+        if (refs != null) {
+            refs.clear();
+        }
+    }
+
     /**
      * Set a key:value tag on the Span.
      *
@@ -91,7 +119,7 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
     @Override
     public AbstractTracingSpan tag(String key, String value) {
         if (tags == null) {
-            tags = new LinkedList<KeyValuePair>();
+            tags = new ArrayList<KeyValuePair>(4);
         }
         tags.add(new KeyValuePair(key, value));
         return this;
@@ -124,7 +152,7 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
     @Override
     public AbstractTracingSpan log(Throwable t) {
         if (logs == null) {
-            logs = new LinkedList<LogDataEntity>();
+            logs = new ArrayList<LogDataEntity>(2);
         }
         logs.add(new LogDataEntity.Builder()
             .add(new KeyValuePair("event", "error"))
@@ -144,7 +172,7 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
     @Override
     public AbstractTracingSpan log(long timestampMicroseconds, Map<String, ?> fields) {
         if (logs == null) {
-            logs = new LinkedList<LogDataEntity>();
+            logs = new ArrayList<LogDataEntity>(2);
         }
         LogDataEntity.Builder builder = new LogDataEntity.Builder();
         for (Map.Entry<String, ?> entry : fields.entrySet()) {
@@ -198,6 +226,17 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
         return spanId;
     }
 
+    /**
+     * @return the milliseconds between start and end of this span, only meaningful after it is finished.
+     */
+    public long getDuration() {
+        return endTime - startTime;
+    }
+
+    public boolean isErrorOccurred() {
+        return errorOccurred;
+    }
+
     @Override
     public int getOperationId() {
         return operationId;
@@ -295,7 +334,7 @@ public abstract class AbstractTracingSpan implements AbstractSpan {
 
     @Override public void ref(TraceSegmentRef ref) {
         if (refs == null) {
-            refs = new LinkedList<TraceSegmentRef>();
+            refs = new ArrayList<TraceSegmentRef>(1);
         }
         if (!refs.contains(ref)) {
             refs.add(ref);
@@ -47,6 +47,12 @@ public class EntrySpan extends StackBasedTracingSpan {
         this.currentMaxDepth = 0;
     }
 
+    @Override
+    protected void reset(int spanId, int parentSpanId, String operationName, int operationId) {
+        super.reset(spanId, parentSpanId, operationName, operationId);
+        this.currentMaxDepth = 0;
+    }
+
     /**
      * Set the {@link #startTime}, when the first start, which means the first service provided.
      */
@@ -130,7 +136,11 @@ public class EntrySpan extends StackBasedTracingSpan {
         this.componentId = DictionaryUtil.nullValue();
         this.componentName = null;
         this.layer = null;
-        this.logs = null;
-        this.tags = null;
+        if (this.logs != null) {
+            this.logs.clear();
+        }
+        if (this.tags != null) {
+            this.tags.clear();
+        }
     }
 }
@@ -65,6 +65,17 @@ public class ExitSpan extends StackBasedTracingSpan implements WithPeerInfo {
         this.peerId = peerId;
     }
 
+    /**
+     * Reset this span as a new one, when it is reused from {@link SpanPool}.
+     *
+     * @param peer null if the peer id is known.
+     */
+    void reset(int spanId, int parentSpanId, String operationName, int operationId, String peer, int peerId) {
+        super.reset(spanId, parentSpanId, operationName, operationId);
+        this.peer = peer;
+        this.peerId = peerId;
+    }
+
     /**
      * Set the {@link #startTime}, when the first start, which means the first service provided.
      */
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.context.util.KeyValuePair;
+import org.apache.skywalking.apm.agent.core.dictionary.DictionaryUtil;
+import org.apache.skywalking.apm.network.language.agent.KeyWithStringValue;
+import org.apache.skywalking.apm.network.language.agent.LogMessage;
+import org.apache.skywalking.apm.network.language.agent.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.SpanType;
+import org.apache.skywalking.apm.network.language.agent.TraceSegmentObject;
+import org.apache.skywalking.apm.network.language.agent.TraceSegmentReference;
+import org.apache.skywalking.apm.network.language.agent.UniqueId;
+
+/**
+ * The <code>SegmentEncoder</code> writes a finished {@link TraceSegment} in the wire format of {@link
+ * TraceSegmentObject} directly, without building the {@link SpanObject}s, and the output is the same bytes as the
+ * built messages. The fields are written in the order of their numbers, and the default values are skipped, as the
+ * generated messages do.
+ *
+ * The sizes of the spans are computed before writing them into the reused buffer. An encoder isn't thread safe, {@link
+ * TraceSegment} keeps one for each thread.
+ */
+class SegmentEncoder {
+    /**
+     * The buffer bigger than this isn't kept after encoding, avoid holding memory in the application threads.
+     */
+    private static final int MAX_KEPT_BUFFER_SIZE = 64 * 1024;
+
+    private byte[] buffer = new byte[4096];
+    private int[] spanSizes = new int[32];
+
+    ByteString encode(UniqueId traceSegmentId, List<AbstractTracingSpan> spans, int applicationId,
+        int applicationInstanceId, boolean isSizeLimited) throws IOException {
+        if (spanSizes.length < spans.size()) {
+            spanSizes = new int[spans.size()];
+        }
+
+        int size = CodedOutputStream.computeMessageSize(TraceSegmentObject.TRACESEGMENTID_FIELD_NUMBER, traceSegmentId);
+        for (int i = 0; i < spans.size(); i++) {
+            int spanSize = spanSize(spans.get(i));
+            spanSizes[i] = spanSize;
+            size += lengthDelimitedSize(TraceSegmentObject.SPANS_FIELD_NUMBER, spanSize);
+        }
+        if (applicationId != 0) {
+            size += CodedOutputStream.computeInt32Size(TraceSegmentObject.APPLICATIONID_FIELD_NUMBER, applicationId);
+        }
+        if (applicationInstanceId != 0) {
+            size += CodedOutputStream.computeInt32Size(TraceSegmentObject.APPLICATIONINSTANCEID_FIELD_NUMBER, applicationInstanceId);
+        }
+        if (isSizeLimited) {
+            size += CodedOutputStream.computeBoolSize(TraceSegmentObject.ISSIZELIMITED_FIELD_NUMBER, true);
+        }
+
+        byte[] output = buffer.length >= size ? buffer : new byte[size];
+        CodedOutputStream stream = CodedOutputStream.newInstance(output, 0, size);
+        stream.writeMessage(TraceSegmentObject.TRACESEGMENTID_FIELD_NUMBER, traceSegmentId);
+        for (int i = 0; i < spans.size(); i++) {
+            stream.writeTag(TraceSegmentObject.SPANS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            stream.writeUInt32NoTag(spanSizes[i]);
+            writeSpan(stream, spans.get(i));
+        }
+        if (applicationId != 0) {
+            stream.writeInt32(TraceSegmentObject.APPLICATIONID_FIELD_NUMBER, applicationId);
+        }
+        if (applicationInstanceId != 0) {
+            stream.writeInt32(TraceSegmentObject.APPLICATIONINSTANCEID_FIELD_NUMBER, applicationInstanceId);
+        }
+        if (isSizeLimited) {
+            stream.writeBool(TraceSegmentObject.ISSIZELIMITED_FIELD_NUMBER, true);
+        }
+        stream.checkNoSpaceLeft();
+
+        if (output != buffer && output.length <= MAX_KEPT_BUFFER_SIZE) {
+            buffer = output;
+        }
+        return ByteString.copyFrom(output, 0, size);
+    }
+
+    private int spanSize(AbstractTracingSpan span) {
+        int size = 0;
+        if (span.spanId != 0) {
+            size += CodedOutputStream.computeInt32Size(SpanObject.SPANID_FIELD_NUMBER, span.spanId);
+        }
+        if (span.parentSpanId != 0) {
+            size += CodedOutputStream.computeInt32Size(SpanObject.PARENTSPANID_FIELD_NUMBER, span.parentSpanId);
+        }
+        if (span.startTime != 0) {
+            size += CodedOutputStream.computeInt64Size(SpanObject.STARTTIME_FIELD_NUMBER, span.startTime);
+        }
+        if (span.endTime != 0) {
+            size += CodedOutputStream.computeInt64Size(SpanObject.ENDTIME_FIELD_NUMBER, span.endTime);
+        }
+        if (span.refs != null) {
+            for (int i = 0; i < span.refs.size(); i++) {
+                size += CodedOutputStream.computeMessageSize(SpanObject.REFS_FIELD_NUMBER, span.refs.get(i).transform());
+            }
+        }
+        if (span.operationId != DictionaryUtil.nullValue()) {
+            size += CodedOutputStream.computeInt32Size(SpanObject.OPERATIONNAMEID_FIELD_NUMBER, span.operationId);
+        } else if (!isEmpty(span.operationName)) {
+            size += CodedOutputStream.computeStringSize(SpanObject.OPERATIONNAME_FIELD_NUMBER, span.operationName);
+        }
+        if (span instanceof ExitSpan) {
+            ExitSpan exitSpan = (ExitSpan)span;
+            if (exitSpan.getPeerId() != DictionaryUtil.nullValue()) {
+                size += CodedOutputStream.computeInt32Size(SpanObject.PEERID_FIELD_NUMBER, exitSpan.getPeerId());
+            } else if (!isEmpty(exitSpan.getPeer())) {
+                size += CodedOutputStream.computeStringSize(SpanObject.PEER_FIELD_NUMBER, exitSpan.getPeer());
+            }
+        }
+        int spanType = spanType(span);
+        if (spanType != 0) {
+            size += CodedOutputStream.computeEnumSize(SpanObject.SPANTYPE_FIELD_NUMBER, spanType);
+        }
+        if (span.layer != null && span.layer.getCode() != 0) {
+            size += CodedOutputStream.computeEnumSize(SpanObject.SPANLAYER_FIELD_NUMBER, span.layer.getCode());
+        }
+        if (span.componentId != DictionaryUtil.nullValue()) {
+            size += CodedOutputStream.computeInt32Size(SpanObject.COMPONENTID_FIELD_NUMBER, span.componentId);
+        } else if (!isEmpty(span.componentName)) {
+            size += CodedOutputStream.computeStringSize(SpanObject.COMPONENT_FIELD_NUMBER, span.componentName);
+        }
+        if (span.errorOccurred) {
+            size += CodedOutputStream.computeBoolSize(SpanObject.ISERROR_FIELD_NUMBER, true);
+        }
+        if (span.tags != null) {
+            for (int i = 0; i < span.tags.size(); i++) {
+                size += lengthDelimitedSize(SpanObject.TAGS_FIELD_NUMBER, keyValueSize(span.tags.get(i)));
+            }
+        }
+        if (span.logs != null) {
+            for (int i = 0; i < span.logs.size(); i++) {
+                size += lengthDelimitedSize(SpanObject.LOGS_FIELD_NUMBER, logSize(span.logs.get(i)));
+            }
+        }
+        return size;
+    }
+
+    private void writeSpan(CodedOutputStream stream, AbstractTracingSpan span) throws IOException {
+        if (span.spanId != 0) {
+            stream.writeInt32(SpanObject.SPANID_FIELD_NUMBER, span.spanId);
+        }
+        if (span.parentSpanId != 0) {
+            stream.writeInt32(SpanObject.PARENTSPANID_FIELD_NUMBER, span.parentSpanId);
+        }
+        if (span.startTime != 0) {
+            stream.writeInt64(SpanObject.STARTTIME_FIELD_NUMBER, span.startTime);
+        }
+        if (span.endTime != 0) {
+            stream.writeInt64(SpanObject.ENDTIME_FIELD_NUMBER, span.endTime);
+        }
+        if (span.refs != null) {
+            for (int i = 0; i < span.refs.size(); i++) {
+                TraceSegmentReference ref = span.refs.get(i).transform();
+                stream.writeMessage(SpanObject.REFS_FIELD_NUMBER, ref);
+            }
+        }
+        if (span.operationId != DictionaryUtil.nullValue()) {
+            stream.writeInt32(SpanObject.OPERATIONNAMEID_FIELD_NUMBER, span.operationId);
+        } else if (!isEmpty(span.operationName)) {
+            stream.writeString(SpanObject.OPERATIONNAME_FIELD_NUMBER, span.operationName);
+        }
+        if (span instanceof ExitSpan) {
+            ExitSpan exitSpan = (ExitSpan)span;
+            if (exitSpan.getPeerId() != DictionaryUtil.nullValue()) {
+                stream.writeInt32(SpanObject.PEERID_FIELD_NUMBER, exitSpan.getPeerId());
+            } else if (!isEmpty(exitSpan.getPeer())) {
+                stream.writeString(SpanObject.PEER_FIELD_NUMBER, exitSpan.getPeer());
+            }
+        }
+        int spanType = spanType(span);
+        if (spanType != 0) {
+            stream.writeEnum(SpanObject.SPANTYPE_FIELD_NUMBER, spanType);
+        }
+        if (span.layer != null && span.layer.getCode() != 0) {
+            stream.writeEnum(SpanObject.SPANLAYER_FIELD_NUMBER, span.layer.getCode());
+        }
+        if (span.componentId != DictionaryUtil.nullValue()) {
+            stream.writeInt32(SpanObject.COMPONENTID_FIELD_NUMBER, span.componentId);
+        } else if (!isEmpty(span.componentName)) {
+            stream.writeString(SpanObject.COMPONENT_FIELD_NUMBER, span.componentName);
+        }
+        if (span.errorOccurred) {
+            stream.writeBool(SpanObject.ISERROR_FIELD_NUMBER, true);
+        }
+        if (span.tags != null) {
+            for (int i = 0; i < span.tags.size(); i++) {
+                KeyValuePair tag = span.tags.get(i);
+                stream.writeTag(SpanObject.TAGS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                stream.writeUInt32NoTag(keyValueSize(tag));
+                writeKeyValue(stream, tag);
+            }
+        }
+        if (span.logs != null) {
+            for (int i = 0; i < span.logs.size(); i++) {
+                LogDataEntity log = span.logs.get(i);
+                stream.writeTag(SpanObject.LOGS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                stream.writeUInt32NoTag(logSize(log));
+                if (log.getTimestamp() != 0) {
+                    stream.writeInt64(LogMessage.TIME_FIELD_NUMBER, log.getTimestamp());
+                }
+                List<KeyValuePair> data = log.getLogs();
+                for (int j = 0; j < data.size(); j++) {
+                    stream.writeTag(LogMessage.DATA_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                    stream.writeUInt32NoTag(keyValueSize(data.get(j)));
+                    writeKeyValue(stream, data.get(j));
+                }
+            }
+        }
+    }
+
+    private int logSize(LogDataEntity log) {
+        int size = 0;
+        if (log.getTimestamp() != 0) {
+            size += CodedOutputStream.computeInt64Size(LogMessage.TIME_FIELD_NUMBER, log.getTimestamp());
+        }
+        List<KeyValuePair> data = log.getLogs();
+        for (int i = 0; i < data.size(); i++) {
+            size += lengthDelimitedSize(LogMessage.DATA_FIELD_NUMBER, keyValueSize(data.get(i)));
+        }
+        return size;
+    }
+
+    private int keyValueSize(KeyValuePair keyValue) {
+        int size = 0;
+        if (!isEmpty(keyValue.getKey())) {
+            size += CodedOutputStream.computeStringSize(KeyWithStringValue.KEY_FIELD_NUMBER, keyValue.getKey());
+        }
+        if (!isEmpty(keyValue.getValue())) {
+            size += CodedOutputStream.computeStringSize(KeyWithStringValue.VALUE_FIELD_NUMBER, keyValue.getValue());
+        }
+        return size;
+    }
+
+    private void writeKeyValue(CodedOutputStream stream, KeyValuePair keyValue) throws IOException {
+        if (!isEmpty(keyValue.getKey())) {
+            stream.writeString(KeyWithStringValue.KEY_FIELD_NUMBER, keyValue.getKey());
+        }
+        if (!isEmpty(keyValue.getValue())) {
+            stream.writeString(KeyWithStringValue.VALUE_FIELD_NUMBER, keyValue.getValue());
+        }
+    }
+
+    private static int spanType(AbstractTracingSpan span) {
+        if (span.isEntry()) {
+            return SpanType.Entry.getNumber();
+        } else if (span.isExit()) {
+            return SpanType.Exit.getNumber();
+        } else {
+            return SpanType.Local.getNumber();
+        }
+    }
+
+    private static int lengthDelimitedSize(int fieldNumber, int size) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.length() == 0;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+
+/**
+ * The <code>SpanPool</code> keeps the finished spans for reusing, when {@link Config.Agent#RECYCLE_SPAN} is true. The
+ * spans are released by {@link TraceSegment#recycle()} in the consumer thread, after the segment is transformed, and
+ * reused by the application threads in batches through a thread local cache, so most creations don't touch the shared
+ * queues.
+ */
+public class SpanPool {
+    private static final int BATCH_SIZE = 16;
+
+    private static final ArrayBlockingQueue<EntrySpan> ENTRY_SPANS = new ArrayBlockingQueue<EntrySpan>(Math.max(1, Config.Agent.SPAN_POOL_SIZE));
+    private static final ArrayBlockingQueue<ExitSpan> EXIT_SPANS = new ArrayBlockingQueue<ExitSpan>(Math.max(1, Config.Agent.SPAN_POOL_SIZE));
+    private static final ArrayBlockingQueue<LocalSpan> LOCAL_SPANS = new ArrayBlockingQueue<LocalSpan>(Math.max(1, Config.Agent.SPAN_POOL_SIZE));
+
+    private static final ThreadLocal<Cache> CACHE = new ThreadLocal<Cache>() {
+        @Override
+        protected Cache initialValue() {
+            return new Cache();
+        }
+    };
+
+    /**
+     * @param operationName null if the operation id is known.
+     */
+    public static EntrySpan newEntrySpan(int spanId, int parentSpanId, String operationName, int operationId) {
+        EntrySpan span = Config.Agent.RECYCLE_SPAN ? poll(ENTRY_SPANS, CACHE.get().entrySpans) : null;
+        if (span != null) {
+            span.reset(spanId, parentSpanId, operationName, operationId);
+            return span;
+        }
+        return operationName == null ? new EntrySpan(spanId, parentSpanId, operationId) : new EntrySpan(spanId, parentSpanId, operationName);
+    }
+
+    /**
+     * @param operationName null if the operation id is known.
+     */
+    public static LocalSpan newLocalSpan(int spanId, int parentSpanId, String operationName, int operationId) {
+        LocalSpan span = Config.Agent.RECYCLE_SPAN ? poll(LOCAL_SPANS, CACHE.get().localSpans) : null;
+        if (span != null) {
+            span.reset(spanId, parentSpanId, operationName, operationId);
+            return span;
+        }
+        return operationName == null ? new LocalSpan(spanId, parentSpanId, operationId) : new LocalSpan(spanId, parentSpanId, operationName);
+    }
+
+    /**
+     * @param operationName null if the operation id is known.
+     * @param peer null if the peer id is known.
+     */
+    public static ExitSpan newExitSpan(int spanId, int parentSpanId, String operationName, int operationId,
+        String peer, int peerId) {
+        ExitSpan span = Config.Agent.RECYCLE_SPAN ? poll(EXIT_SPANS, CACHE.get().exitSpans) : null;
+        if (span != null) {
+            span.reset(spanId, parentSpanId, operationName, operationId, peer, peerId);
+            return span;
+        }
+        if (operationName == null) {
+            return peer == null ? new ExitSpan(spanId, parentSpanId, operationId, peerId) : new ExitSpan(spanId, parentSpanId, operationId, peer);
+        } else {
+            return peer == null ? new ExitSpan(spanId, parentSpanId, operationName, peerId) : new ExitSpan(spanId, parentSpanId, operationName, peer);
+        }
+    }
+
+    /**
+     * Release the finished spans, which must not be used after that. The spans beyond the pool size are left to GC.
+     */
+    static void recycle(List<AbstractTracingSpan> spans) {
+        for (int i = 0; i < spans.size(); i++) {
+            AbstractTracingSpan span = spans.get(i);
+            if (span instanceof EntrySpan) {
+                ENTRY_SPANS.offer((EntrySpan)span);
+            } else if (span instanceof ExitSpan) {
+                EXIT_SPANS.offer((ExitSpan)span);
+            } else if (span instanceof LocalSpan) {
+                LOCAL_SPANS.offer((LocalSpan)span);
+            }
+        }
+    }
+
+    private static <T> T poll(ArrayBlockingQueue<T> queue, ArrayList<T> cache) {
+        if (cache.isEmpty()) {
+            queue.drainTo(cache, BATCH_SIZE);
+            if (cache.isEmpty()) {
+                return null;
+            }
+        }
+        return cache.remove(cache.size() - 1);
+    }
+
+    private static class Cache {
+        private final ArrayList<EntrySpan> entrySpans = new ArrayList<EntrySpan>(BATCH_SIZE);
+        private final ArrayList<ExitSpan> exitSpans = new ArrayList<ExitSpan>(BATCH_SIZE);
+        private final ArrayList<LocalSpan> localSpans = new ArrayList<LocalSpan>(BATCH_SIZE);
+    }
+}
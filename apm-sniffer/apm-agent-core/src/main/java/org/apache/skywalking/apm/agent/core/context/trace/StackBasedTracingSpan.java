@@ -42,6 +42,12 @@ public abstract class StackBasedTracingSpan extends AbstractTracingSpan {
         this.stackDepth = 0;
     }
 
+    @Override
+    protected void reset(int spanId, int parentSpanId, String operationName, int operationId) {
+        super.reset(spanId, parentSpanId, operationName, operationId);
+        this.stackDepth = 0;
+    }
+
     @Override
     public boolean finish(TraceSegment owner) {
         if (--stackDepth == 0) {
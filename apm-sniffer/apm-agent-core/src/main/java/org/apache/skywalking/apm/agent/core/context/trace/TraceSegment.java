@@ -19,8 +19,10 @@
 
 package org.apache.skywalking.apm.agent.core.context.trace;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.RemoteDownstreamConfig;
 import org.apache.skywalking.apm.agent.core.context.ids.DistributedTraceId;
 import org.apache.skywalking.apm.agent.core.context.ids.DistributedTraceIds;
@@ -71,12 +73,19 @@ public class TraceSegment {
 
     private boolean isSizeLimited = false;
 
+    private static final ThreadLocal<SegmentEncoder> ENCODER = new ThreadLocal<SegmentEncoder>() {
+        @Override
+        protected SegmentEncoder initialValue() {
+            return new SegmentEncoder();
+        }
+    };
+
     /**
      * Create a default/empty trace segment, with current time as start time, and generate a new segment id.
      */
     public TraceSegment() {
         this.traceSegmentId = GlobalIdGenerator.generate();
-        this.spans = new LinkedList<AbstractTracingSpan>();
+        this.spans = new ArrayList<AbstractTracingSpan>();
         this.relatedGlobalTraces = new DistributedTraceIds();
         this.relatedGlobalTraces.append(new NewDistributedTraceId());
     }
@@ -88,7 +97,7 @@ public class TraceSegment {
      */
     public void ref(TraceSegmentRef refSegment) {
         if (refs == null) {
-            refs = new LinkedList<TraceSegmentRef>();
+            refs = new ArrayList<TraceSegmentRef>(1);
         }
         if (!refs.contains(refSegment)) {
             refs.add(refSegment);
@@ -153,7 +162,8 @@ public class TraceSegment {
     }
 
     /**
-     * This is a high CPU cost method, only called when sending to collector or test cases.
+     * This is a high CPU cost method, only called when sending to collector or test cases. The spans are encoded into
+     * the {@link TraceSegmentObject} bytes by {@link SegmentEncoder} directly.
      *
      * @return the segment as GRPC service parameter
      */
@@ -162,25 +172,28 @@ public class TraceSegment {
         for (DistributedTraceId distributedTraceId : getRelatedGlobalTraces()) {
             upstreamBuilder = upstreamBuilder.addGlobalTraceIds(distributedTraceId.toUniqueId());
         }
-        TraceSegmentObject.Builder traceSegmentBuilder = TraceSegmentObject.newBuilder();
-        /**
-         * Trace Segment
-         */
-        traceSegmentBuilder.setTraceSegmentId(this.traceSegmentId.transform());
         // Don't serialize TraceSegmentReference
-
-        // SpanObject
-        for (AbstractTracingSpan span : this.spans) {
-            traceSegmentBuilder.addSpans(span.transform());
+        try {
+            upstreamBuilder.setSegment(ENCODER.get().encode(this.traceSegmentId.transform(), this.spans,
+                RemoteDownstreamConfig.Agent.APPLICATION_ID, RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID,
+                this.isSizeLimited));
+        } catch (IOException e) {
+            throw new IllegalStateException("Encode trace segment fail.", e);
         }
-        traceSegmentBuilder.setApplicationId(RemoteDownstreamConfig.Agent.APPLICATION_ID);
-        traceSegmentBuilder.setApplicationInstanceId(RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID);
-        traceSegmentBuilder.setIsSizeLimited(this.isSizeLimited);
-
-        upstreamBuilder.setSegment(traceSegmentBuilder.build().toByteString());
         return upstreamBuilder.build();
     }
 
+    /**
+     * Release the spans into {@link SpanPool} for reusing, if {@link Config.Agent#RECYCLE_SPAN} is true. Only called
+     * by the last user of this segment, after {@link #transform()}.
+     */
+    public void recycle() {
+        if (Config.Agent.RECYCLE_SPAN) {
+            SpanPool.recycle(spans);
+            spans.clear();
+        }
+    }
+
     @Override
     public String toString() {
         return "TraceSegment{" +
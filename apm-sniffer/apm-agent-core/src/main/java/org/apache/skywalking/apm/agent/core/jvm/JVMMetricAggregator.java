@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.jvm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.skywalking.apm.network.language.agent.CPU;
+import org.apache.skywalking.apm.network.language.agent.GC;
+import org.apache.skywalking.apm.network.language.agent.GCPhrase;
+import org.apache.skywalking.apm.network.language.agent.JVMMetric;
+import org.apache.skywalking.apm.network.language.agent.Memory;
+import org.apache.skywalking.apm.network.language.agent.MemoryPool;
+import org.apache.skywalking.apm.network.language.agent.PoolType;
+
+/**
+ * The <code>JVMMetricAggregator</code> merges the samples of every resolution seconds into one {@link JVMMetric}, so
+ * the backend receives and stores less of them.
+ *
+ * The cpu usage, the memories and the memory pools are averaged. The gc counts are summed, and the gc times are
+ * averaged per sample, which keeps them comparable with the metrics reported at the default resolution.
+ *
+ * Not thread safe, only used by the producer thread of the {@link JVMService}.
+ */
+class JVMMetricAggregator {
+    private final int resolution;
+    private int samples;
+    private long time;
+    private double cpuUsagePercent;
+    private final Map<Boolean, long[]> memories = new LinkedHashMap<Boolean, long[]>();
+    private final Map<PoolType, long[]> memoryPools = new LinkedHashMap<PoolType, long[]>();
+    private final Map<GCPhrase, long[]> gcs = new LinkedHashMap<GCPhrase, long[]>();
+
+    JVMMetricAggregator(int resolution) {
+        this.resolution = Math.max(1, resolution);
+    }
+
+    /**
+     * @return the aggregated metric when the given sample completes the resolution, or null.
+     */
+    JVMMetric add(JVMMetric metric) {
+        if (resolution == 1) {
+            return metric;
+        }
+
+        time = metric.getTime();
+        cpuUsagePercent += metric.getCpu().getUsagePercent();
+        for (Memory memory : metric.getMemoryList()) {
+            add(memories, memory.getIsHeap(), memory.getInit(), memory.getMax(), memory.getUsed(), memory.getCommitted());
+        }
+        for (MemoryPool memoryPool : metric.getMemoryPoolList()) {
+            add(memoryPools, memoryPool.getType(), memoryPool.getInit(), memoryPool.getMax(), memoryPool.getUsed(), memoryPool.getCommited());
+        }
+        for (GC gc : metric.getGcList()) {
+            add(gcs, gc.getPhrase(), gc.getCount(), gc.getTime());
+        }
+
+        if (++samples < resolution) {
+            return null;
+        }
+        return build();
+    }
+
+    private JVMMetric build() {
+        JVMMetric.Builder builder = JVMMetric.newBuilder();
+        builder.setTime(time);
+        builder.setCpu(CPU.newBuilder().setUsagePercent(cpuUsagePercent / samples));
+        for (Map.Entry<Boolean, long[]> entry : memories.entrySet()) {
+            long[] values = entry.getValue();
+            builder.addMemory(Memory.newBuilder().setIsHeap(entry.getKey())
+                .setInit(values[0] / samples)
+                .setMax(values[1] / samples)
+                .setUsed(values[2] / samples)
+                .setCommitted(values[3] / samples));
+        }
+        for (Map.Entry<PoolType, long[]> entry : memoryPools.entrySet()) {
+            long[] values = entry.getValue();
+            builder.addMemoryPool(MemoryPool.newBuilder().setType(entry.getKey())
+                .setInit(values[0] / samples)
+                .setMax(values[1] / samples)
+                .setUsed(values[2] / samples)
+                .setCommited(values[3] / samples));
+        }
+        for (Map.Entry<GCPhrase, long[]> entry : gcs.entrySet()) {
+            long[] values = entry.getValue();
+            builder.addGc(GC.newBuilder().setPhrase(entry.getKey())
+                .setCount(values[0])
+                .setTime(values[1] / samples));
+        }
+
+        samples = 0;
+        cpuUsagePercent = 0;
+        memories.clear();
+        memoryPools.clear();
+        gcs.clear();
+        return builder.build();
+    }
+
+    private static <K> void add(Map<K, long[]> sums, K key, long... values) {
+        long[] sum = sums.get(key);
+        if (sum == null) {
+            sum = new long[values.length];
+            sums.put(key, sum);
+        }
+        for (int i = 0; i < values.length; i++) {
+            sum[i] += values[i];
+        }
+    }
+}
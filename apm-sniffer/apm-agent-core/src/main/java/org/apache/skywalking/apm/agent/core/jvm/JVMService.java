@@ -19,6 +19,7 @@
 package org.apache.skywalking.apm.agent.core.jvm;
 
 import io.grpc.Channel;
+import io.grpc.stub.StreamObserver;
 import org.apache.skywalking.apm.agent.core.boot.BootService;
 import org.apache.skywalking.apm.agent.core.boot.DefaultImplementor;
 import org.apache.skywalking.apm.agent.core.boot.DefaultNamedThreadFactory;
@@ -43,12 +44,17 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The <code>JVMService</code> represents a timer,
  * which collectors JVM cpu, memory, memorypool and gc info,
  * and send the collected info to Collector through the channel provided by {@link GRPCChannelManager}
  *
+ * The samples are merged at the {@link Config.Jvm#RESOLUTION}, and sent without blocking the scheduler. A batch isn't
+ * sent while the previous one is in flight, the metrics keep buffered until then, and the oldest are dropped when the
+ * buffer is full.
+ *
  * @author wusheng
  */
 @DefaultImplementor
@@ -58,10 +64,12 @@ public class JVMService implements BootService, Runnable {
     private volatile ScheduledFuture<?> collectMetricFuture;
     private volatile ScheduledFuture<?> sendMetricFuture;
     private Sender sender;
+    private JVMMetricAggregator aggregator;
 
     @Override
     public void prepare() throws Throwable {
         queue = new LinkedBlockingQueue(Config.Jvm.BUFFER_SIZE);
+        aggregator = new JVMMetricAggregator(Config.Jvm.RESOLUTION);
         sender = new Sender();
         ServiceManager.INSTANCE.findService(GRPCChannelManager.class).addChannelListener(sender);
     }
@@ -110,7 +118,10 @@ public class JVMService implements BootService, Runnable {
                 jvmBuilder.addAllMemoryPool(MemoryPoolProvider.INSTANCE.getMemoryPoolMetricList());
                 jvmBuilder.addAllGc(GCProvider.INSTANCE.getGCList());
 
-                JVMMetric jvmMetric = jvmBuilder.build();
+                JVMMetric jvmMetric = aggregator.add(jvmBuilder.build());
+                if (jvmMetric == null) {
+                    return;
+                }
                 if (!queue.offer(jvmMetric)) {
                     queue.poll();
                     queue.offer(jvmMetric);
@@ -122,25 +133,43 @@ public class JVMService implements BootService, Runnable {
     }
 
     private class Sender implements Runnable, GRPCChannelListener {
+        private static final int TIMEOUT = 30 * 1000;
         private volatile GRPCChannelStatus status = GRPCChannelStatus.DISCONNECT;
-        private volatile JVMMetricsServiceGrpc.JVMMetricsServiceBlockingStub stub = null;
+        private volatile JVMMetricsServiceGrpc.JVMMetricsServiceStub stub = null;
+        private final AtomicBoolean sending = new AtomicBoolean(false);
 
         @Override
         public void run() {
             if (RemoteDownstreamConfig.Agent.APPLICATION_ID != DictionaryUtil.nullValue()
                 && RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID != DictionaryUtil.nullValue()
                 ) {
-                if (status == GRPCChannelStatus.CONNECTED) {
+                if (status == GRPCChannelStatus.CONNECTED && queue.size() > 0 && sending.compareAndSet(false, true)) {
                     try {
                         JVMMetrics.Builder builder = JVMMetrics.newBuilder();
                         LinkedList<JVMMetric> buffer = new LinkedList<JVMMetric>();
                         queue.drainTo(buffer);
-                        if (buffer.size() > 0) {
-                            builder.addAllMetrics(buffer);
-                            builder.setApplicationInstanceId(RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID);
-                            stub.collect(builder.build());
-                        }
+                        builder.addAllMetrics(buffer);
+                        builder.setApplicationInstanceId(RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID);
+                        stub.withDeadlineAfter(TIMEOUT, TimeUnit.MILLISECONDS).collect(builder.build(), new StreamObserver<Downstream>() {
+                            @Override
+                            public void onNext(Downstream downstream) {
+
+                            }
+
+                            @Override
+                            public void onError(Throwable throwable) {
+                                sending.set(false);
+                                logger.error(throwable, "send JVM metrics to Collector fail.");
+                                ServiceManager.INSTANCE.findService(GRPCChannelManager.class).reportError(throwable);
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                sending.set(false);
+                            }
+                        });
                     } catch (Throwable t) {
+                        sending.set(false);
                         logger.error(t, "send JVM metrics to Collector fail.");
                     }
                 }
@@ -151,7 +180,7 @@ public class JVMService implements BootService, Runnable {
         public void statusChanged(GRPCChannelStatus status) {
             if (GRPCChannelStatus.CONNECTED.equals(status)) {
                 Channel channel = ServiceManager.INSTANCE.findService(GRPCChannelManager.class).getChannel();
-                stub = JVMMetricsServiceGrpc.newBlockingStub(channel);
+                stub = JVMMetricsServiceGrpc.newStub(channel);
             }
             this.status = status;
         }
@@ -23,7 +23,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.regex.Matcher;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.Constants;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
@@ -36,6 +35,13 @@ import org.apache.skywalking.apm.util.StringUtil;
  */
 public class EasyLogger implements ILog {
 
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSS");
+        }
+    };
+
     private Class targetClass;
 
     public EasyLogger(Class targetClass) {
@@ -43,30 +49,54 @@ public class EasyLogger implements ILog {
     }
 
     protected void logger(LogLevel level, String message, Throwable e) {
-        WriterFactory.getLogWriter().write(format(level, message, e));
+        IWriter writer = WriterFactory.getLogWriter();
+        if (writer instanceof FileWriter) {
+            ((FileWriter)writer).write(this, level, message, null, e);
+        } else {
+            writer.write(format(level, message, e));
+        }
+    }
+
+    /**
+     * The {@link FileWriter} formats the message in its own thread, the others get the formatted one.
+     */
+    private void logger(LogLevel level, String format, Object[] arguments, Throwable e) {
+        IWriter writer = WriterFactory.getLogWriter();
+        if (writer instanceof FileWriter) {
+            ((FileWriter)writer).write(this, level, format, arguments, e);
+        } else {
+            logger(level, replaceParam(format, arguments), e);
+        }
     }
 
-    private String replaceParam(String message, Object... parameters) {
+    String replaceParam(String message, Object... parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return message;
+        }
+        StringBuilder builder = null;
         int startSize = 0;
         int parametersIndex = 0;
         int index;
-        String tmpMessage = message;
-        while ((index = message.indexOf("{}", startSize)) != -1) {
-            if (parametersIndex >= parameters.length) {
-                break;
+        while (parametersIndex < parameters.length && (index = message.indexOf("{}", startSize)) != -1) {
+            if (builder == null) {
+                builder = new StringBuilder(message.length() + 32);
             }
-            /**
-             * @Fix the Illegal group reference issue
-             */
-            tmpMessage = tmpMessage.replaceFirst("\\{\\}", Matcher.quoteReplacement(String.valueOf(parameters[parametersIndex++])));
+            builder.append(message, startSize, index).append(String.valueOf(parameters[parametersIndex++]));
             startSize = index + 2;
         }
-        return tmpMessage;
+        if (builder == null) {
+            return message;
+        }
+        return builder.append(message, startSize, message.length()).toString();
     }
 
     String format(LogLevel level, String message, Throwable t) {
+        return format(level, System.currentTimeMillis(), message, t);
+    }
+
+    String format(LogLevel level, long timestamp, String message, Throwable t) {
         return StringUtil.join(' ', level.name(),
-            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSS").format(new Date()),
+            DATE_FORMAT.get().format(new Date(timestamp)),
             targetClass.getSimpleName(),
             ": ",
             message,
@@ -96,19 +126,19 @@ public class EasyLogger implements ILog {
     @Override
     public void info(String format, Object... arguments) {
         if (isInfoEnable())
-            logger(LogLevel.INFO, replaceParam(format, arguments), null);
+            logger(LogLevel.INFO, format, arguments, null);
     }
 
     @Override
     public void warn(String format, Object... arguments) {
         if (isWarnEnable())
-            logger(LogLevel.WARN, replaceParam(format, arguments), null);
+            logger(LogLevel.WARN, format, arguments, null);
     }
 
     @Override
     public void warn(Throwable e, String format, Object... arguments) {
         if (isWarnEnable())
-            logger(LogLevel.WARN, replaceParam(format, arguments), e);
+            logger(LogLevel.WARN, format, arguments, e);
     }
 
     @Override
@@ -120,7 +150,7 @@ public class EasyLogger implements ILog {
     @Override
     public void error(Throwable e, String format, Object... arguments) {
         if (isErrorEnable())
-            logger(LogLevel.ERROR, replaceParam(format, arguments), e);
+            logger(LogLevel.ERROR, format, arguments, e);
     }
 
     @Override
@@ -153,7 +183,7 @@ public class EasyLogger implements ILog {
     @Override
     public void debug(String format, Object... arguments) {
         if (isDebugEnable()) {
-            logger(LogLevel.DEBUG, replaceParam(format, arguments), null);
+            logger(LogLevel.DEBUG, format, arguments, null);
         }
     }
 
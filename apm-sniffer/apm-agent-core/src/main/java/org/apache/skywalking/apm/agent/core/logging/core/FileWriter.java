@@ -21,33 +21,53 @@ package org.apache.skywalking.apm.agent.core.logging.core;
 
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.util.DaemonThreadFactory;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.Constants;
 
 /**
  * The <code>FileWriter</code> support async file output, by using a queue as buffer.
  *
+ * The messages of {@link EasyLogger} are formatted by the writer thread. The application threads never wait: the
+ * messages are dropped when the buffer is full, and the messages of the same format with arguments beyond {@link
+ * Config.Logging#MAX_REPEATS_PER_SECOND} in a second are suppressed, both are counted and reported in the file. The
+ * file is written through a buffer, which is flushed at the end of each batch.
+ *
  * @author wusheng
  */
 public class FileWriter implements IWriter, EventHandler<LogMessageHolder> {
     private static FileWriter INSTANCE;
     private static final Object CREATE_LOCK = new Object();
+    private static final int WRITE_BUFFER_SIZE = 32 * 1024;
+    /**
+     * The limit of the formats counted by {@link #tryAcquire(String)}, the formats beyond it aren't counted, so the
+     * counters of the repeating formats are kept.
+     */
+    private static final int MAX_COUNTED_FORMATS = 1000;
+
     private Disruptor<LogMessageHolder> disruptor;
     private RingBuffer<LogMessageHolder> buffer;
-    private FileOutputStream fileOutputStream;
+    private OutputStream fileOutputStream;
     private volatile boolean started = false;
-    private volatile int fileSize;
-    private volatile int lineNum;
+    private volatile long fileSize;
+    private final EasyLogger reporter = new EasyLogger(FileWriter.class);
+    private final AtomicLong droppedCounter = new AtomicLong();
+    private final AtomicLong suppressedCounter = new AtomicLong();
+    private final ConcurrentHashMap<String, RepeatCounter> repeatCounters = new ConcurrentHashMap<String, RepeatCounter>();
 
     public static FileWriter get() {
         if (INSTANCE == null) {
@@ -61,35 +81,54 @@ public class FileWriter implements IWriter, EventHandler<LogMessageHolder> {
     }
 
     private FileWriter() {
+        int bufferSize = 1;
+        while (bufferSize < Config.Logging.BUFFER_SIZE) {
+            bufferSize <<= 1;
+        }
         disruptor = new Disruptor<LogMessageHolder>(new EventFactory<LogMessageHolder>() {
             @Override
             public LogMessageHolder newInstance() {
                 return new LogMessageHolder();
             }
-        }, 1024, DaemonThreadFactory.INSTANCE);
+        }, bufferSize, DaemonThreadFactory.INSTANCE);
         disruptor.handleEventsWith(this);
         buffer = disruptor.getRingBuffer();
-        lineNum = 0;
         disruptor.start();
     }
 
     @Override
     public void onEvent(LogMessageHolder event, long sequence, boolean endOfBatch) throws Exception {
-        if (hasWriteStream()) {
-            try {
-                lineNum++;
-                write(event.getMessage() + Constants.LINE_SEPARATOR, endOfBatch);
-            } finally {
-                event.setMessage(null);
+        try {
+            if (hasWriteStream()) {
+                write(event.format() + Constants.LINE_SEPARATOR, endOfBatch);
+                if (endOfBatch) {
+                    reportLostMessages();
+                }
             }
+        } catch (RuntimeException e) {
+            // A message failed to format, which shouldn't stop the writer thread.
+            e.printStackTrace();
+        } finally {
+            event.clear();
+        }
+    }
+
+    private void reportLostMessages() {
+        long dropped = droppedCounter.getAndSet(0);
+        long suppressed = suppressedCounter.getAndSet(0);
+        if ((dropped > 0 || suppressed > 0) && hasWriteStream()) {
+            String message = reporter.format(LogLevel.WARN, dropped + " log messages are dropped as the buffer is full, "
+                + suppressed + " repeated log messages are suppressed.", null);
+            write(message + Constants.LINE_SEPARATOR, true);
         }
     }
 
     private void write(String message, boolean forceFlush) {
         try {
-            fileOutputStream.write(message.getBytes());
-            fileSize += message.length();
-            if (forceFlush || lineNum % 20 == 0) {
+            byte[] bytes = message.getBytes();
+            fileOutputStream.write(bytes);
+            fileSize += bytes.length;
+            if (forceFlush) {
                 fileOutputStream.flush();
             }
         } catch (IOException e) {
@@ -155,8 +194,9 @@ public class FileWriter implements IWriter, EventHandler<LogMessageHolder> {
                 System.err.println("Log dir(" + Config.Logging.DIR + ") is not a directory.");
             }
             try {
-                fileOutputStream = new FileOutputStream(new File(logFilePath, Config.Logging.FILE_NAME), true);
-                fileSize = Long.valueOf(new File(logFilePath, Config.Logging.FILE_NAME).length()).intValue();
+                File logFile = new File(logFilePath, Config.Logging.FILE_NAME);
+                fileOutputStream = new BufferedOutputStream(new FileOutputStream(logFile, true), WRITE_BUFFER_SIZE);
+                fileSize = logFile.length();
             } catch (FileNotFoundException e) {
                 e.printStackTrace();
             }
@@ -168,7 +208,13 @@ public class FileWriter implements IWriter, EventHandler<LogMessageHolder> {
 
     @Override
     public void write(String message) {
-        long next = buffer.next();
+        long next;
+        try {
+            next = buffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            droppedCounter.incrementAndGet();
+            return;
+        }
         try {
             LogMessageHolder messageHolder = buffer.get(next);
             messageHolder.setMessage(message);
@@ -176,4 +222,112 @@ public class FileWriter implements IWriter, EventHandler<LogMessageHolder> {
             buffer.publish(next);
         }
     }
+
+    /**
+     * Write the message of the {@link EasyLogger}, which is formatted by the writer thread. The arguments which may
+     * change are converted to {@link String}s here, so the writer thread doesn't read them while the application
+     * changes them. The conversions go to a copy, the array of the caller is left as it was.
+     *
+     * Only the messages with arguments are limited by their format. A message without arguments may be built by the
+     * caller, so it isn't a format shared by the repeated messages.
+     */
+    void write(EasyLogger logger, LogLevel level, String format, Object[] arguments, Throwable throwable) {
+        if (arguments != null && arguments.length > 0 && !tryAcquire(format)) {
+            suppressedCounter.incrementAndGet();
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        Object[] messageArguments = arguments;
+        if (arguments != null) {
+            for (int i = 0; i < arguments.length; i++) {
+                if (!isImmutable(arguments[i])) {
+                    if (messageArguments == arguments) {
+                        messageArguments = arguments.clone();
+                    }
+                    messageArguments[i] = String.valueOf(arguments[i]);
+                }
+            }
+        }
+
+        long next;
+        try {
+            next = buffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            droppedCounter.incrementAndGet();
+            return;
+        }
+        try {
+            LogMessageHolder messageHolder = buffer.get(next);
+            messageHolder.setMessage(logger, level, timestamp, format, messageArguments, throwable);
+        } finally {
+            buffer.publish(next);
+        }
+    }
+
+    /**
+     * @return false if the messages of the format in the current second are beyond the limit.
+     */
+    boolean tryAcquire(String format) {
+        return tryAcquire(format, System.currentTimeMillis() / 1000);
+    }
+
+    boolean tryAcquire(String format, long currentSecond) {
+        int maxRepeats = Config.Logging.MAX_REPEATS_PER_SECOND;
+        if (maxRepeats <= 0 || format == null) {
+            return true;
+        }
+        RepeatCounter counter = repeatCounters.get(format);
+        if (counter == null) {
+            if (repeatCounters.size() >= MAX_COUNTED_FORMATS) {
+                return true;
+            }
+            RepeatCounter newCounter = new RepeatCounter();
+            counter = repeatCounters.putIfAbsent(format, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter.tryAcquire(currentSecond, maxRepeats);
+    }
+
+    private static boolean isImmutable(Object argument) {
+        return argument == null
+            || argument instanceof String
+            || argument instanceof Integer
+            || argument instanceof Long
+            || argument instanceof Boolean
+            || argument instanceof Character
+            || argument instanceof Short
+            || argument instanceof Byte
+            || argument instanceof Double
+            || argument instanceof Float
+            || argument instanceof Enum
+            || argument instanceof Class;
+    }
+
+    /**
+     * The second is kept in the high 32 bits and the count of the second in the low 32 bits, so both are moved by one
+     * CAS, and a new second can't be counted with the messages of the last one.
+     */
+    private static class RepeatCounter {
+        private final AtomicLong secondAndCount = new AtomicLong();
+
+        private boolean tryAcquire(long currentSecond, int maxRepeats) {
+            while (true) {
+                long current = secondAndCount.get();
+                long next;
+                if (current >>> 32 == currentSecond) {
+                    if ((int)current >= maxRepeats) {
+                        return false;
+                    }
+                    next = current + 1;
+                } else {
+                    next = currentSecond << 32 | 1;
+                }
+                if (secondAndCount.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
 }
@@ -23,11 +23,20 @@ package org.apache.skywalking.apm.agent.core.logging.core;
  * The <code>LogMessageHolder</code> is a {@link String} holder,
  * in order to in-process propagation String across the disruptor queue.
  *
+ * A message logged by {@link EasyLogger} is held unformatted, and formatted by the writer thread.
+ *
  * @author wusheng
  */
 public class LogMessageHolder {
     private String message;
 
+    private EasyLogger logger;
+    private LogLevel level;
+    private long timestamp;
+    private String format;
+    private Object[] arguments;
+    private Throwable throwable;
+
     public String getMessage() {
         return message;
     }
@@ -35,4 +44,33 @@ public class LogMessageHolder {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    void setMessage(EasyLogger logger, LogLevel level, long timestamp, String format, Object[] arguments,
+        Throwable throwable) {
+        this.logger = logger;
+        this.level = level;
+        this.timestamp = timestamp;
+        this.format = format;
+        this.arguments = arguments;
+        this.throwable = throwable;
+    }
+
+    /**
+     * @return the message, formatted in the current thread if it is held unformatted.
+     */
+    String format() {
+        if (message != null || logger == null) {
+            return message;
+        }
+        return logger.format(level, timestamp, logger.replaceParam(format, arguments), throwable);
+    }
+
+    void clear() {
+        message = null;
+        logger = null;
+        level = null;
+        format = null;
+        arguments = null;
+        throwable = null;
+    }
 }
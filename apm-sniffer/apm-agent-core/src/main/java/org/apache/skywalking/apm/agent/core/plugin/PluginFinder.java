@@ -16,35 +16,59 @@
  *
  */
 
-
 package org.apache.skywalking.apm.agent.core.plugin;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import net.bytebuddy.description.NamedElement;
+import java.util.Set;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDefinition;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 import org.apache.skywalking.apm.agent.core.plugin.bytebuddy.AbstractJunction;
+import org.apache.skywalking.apm.agent.core.plugin.match.ClassAnnotationMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.ClassMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.HierarchyMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.IndirectMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.MethodAnnotationMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.MultiClassNameMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.NameMatch;
 import org.apache.skywalking.apm.agent.core.plugin.match.ProtectiveShieldMatcher;
 
-import static net.bytebuddy.matcher.ElementMatchers.isInterface;
-import static net.bytebuddy.matcher.ElementMatchers.not;
-
 /**
  * The <code>PluginFinder</code> represents a finder , which assist to find the one
  * from the given {@link AbstractClassEnhancePluginDefine} list.
  *
+ * The plugins are indexed by the class names, the annotation names and the parent type names of their matches, so a
+ * type is looked up once in the index, instead of being matched by every plugin. Only the indexed candidates are
+ * checked by {@link IndirectMatch#isMatch(TypeDescription)}, and the other {@link IndirectMatch}es are checked one by
+ * one as before.
+ *
+ * The plugins found for a type by the matcher of {@link #buildMatch()} are kept for {@link #find(TypeDescription,
+ * ClassLoader)} of the same type in the same thread, as byte-buddy transforms the type right after it is matched.
+ *
  * @author wusheng
  */
 public class PluginFinder {
     private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> nameMatchDefine = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
     private final List<AbstractClassEnhancePluginDefine> signatureMatchDefine = new LinkedList<AbstractClassEnhancePluginDefine>();
 
+    private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> multiNameIndex = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
+    private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> classAnnotationIndex = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
+    private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> methodAnnotationIndex = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
+    private final Map<String, LinkedList<AbstractClassEnhancePluginDefine>> hierarchyIndex = new HashMap<String, LinkedList<AbstractClassEnhancePluginDefine>>();
+    /**
+     * The junctions of the {@link IndirectMatch}es which can't be indexed.
+     */
+    private final Map<AbstractClassEnhancePluginDefine, ElementMatcher.Junction> otherMatchDefine = new HashMap<AbstractClassEnhancePluginDefine, ElementMatcher.Junction>();
+
+    private final ThreadLocal<MatchedType> lastMatched = new ThreadLocal<MatchedType>();
+
     public PluginFinder(List<AbstractClassEnhancePluginDefine> plugins) {
         for (AbstractClassEnhancePluginDefine plugin : plugins) {
             ClassMatch match = plugin.enhanceClass();
@@ -55,50 +79,158 @@ public class PluginFinder {
 
             if (match instanceof NameMatch) {
                 NameMatch nameMatch = (NameMatch)match;
-                LinkedList<AbstractClassEnhancePluginDefine> pluginDefines = nameMatchDefine.get(nameMatch.getClassName());
-                if (pluginDefines == null) {
-                    pluginDefines = new LinkedList<AbstractClassEnhancePluginDefine>();
-                    nameMatchDefine.put(nameMatch.getClassName(), pluginDefines);
-                }
-                pluginDefines.add(plugin);
+                index(nameMatchDefine, nameMatch.getClassName(), plugin);
             } else {
                 signatureMatchDefine.add(plugin);
+                if (match instanceof MultiClassNameMatch) {
+                    for (String className : ((MultiClassNameMatch)match).getClassNames()) {
+                        index(multiNameIndex, className, plugin);
+                    }
+                } else if (match instanceof ClassAnnotationMatch) {
+                    // A class matches only if it has all the annotations, any one of them is enough for the index.
+                    index(classAnnotationIndex, ((ClassAnnotationMatch)match).getAnnotations()[0], plugin);
+                } else if (match instanceof MethodAnnotationMatch) {
+                    index(methodAnnotationIndex, ((MethodAnnotationMatch)match).getAnnotations()[0], plugin);
+                } else if (match instanceof HierarchyMatch) {
+                    index(hierarchyIndex, ((HierarchyMatch)match).getParentTypes()[0], plugin);
+                } else if (match instanceof IndirectMatch) {
+                    otherMatchDefine.put(plugin, ((IndirectMatch)match).buildJunction());
+                }
             }
         }
     }
 
     public List<AbstractClassEnhancePluginDefine> find(TypeDescription typeDescription,
         ClassLoader classLoader) {
+        MatchedType matched = lastMatched.get();
+        if (matched != null) {
+            lastMatched.remove();
+            if (matched.typeDescription == typeDescription) {
+                return matched.plugins;
+            }
+        }
+        return match(typeDescription);
+    }
+
+    public ElementMatcher<? super TypeDescription> buildMatch() {
+        ElementMatcher.Junction judge = new AbstractJunction<TypeDescription>() {
+            @Override
+            public boolean matches(TypeDescription target) {
+                lastMatched.remove();
+                List<AbstractClassEnhancePluginDefine> plugins = match(target);
+                if (plugins.isEmpty()) {
+                    return false;
+                }
+                lastMatched.set(new MatchedType(target, plugins));
+                return true;
+            }
+        };
+        return new ProtectiveShieldMatcher(judge);
+    }
+
+    /**
+     * Find the plugins of the given type. As the junctions did, the interfaces are only matched by {@link
+     * MultiClassNameMatch} and the not indexed {@link IndirectMatch}es.
+     */
+    private List<AbstractClassEnhancePluginDefine> match(TypeDescription typeDescription) {
         List<AbstractClassEnhancePluginDefine> matchedPlugins = new LinkedList<AbstractClassEnhancePluginDefine>();
         String typeName = typeDescription.getTypeName();
-        if (nameMatchDefine.containsKey(typeName)) {
-            matchedPlugins.addAll(nameMatchDefine.get(typeName));
+        boolean isInterface = typeDescription.isInterface();
+        if (!isInterface) {
+            addAll(matchedPlugins, nameMatchDefine.get(typeName));
+        }
+
+        if (signatureMatchDefine.isEmpty()) {
+            return matchedPlugins;
+        }
+
+        Set<AbstractClassEnhancePluginDefine> candidates = new HashSet<AbstractClassEnhancePluginDefine>();
+        addAll(candidates, multiNameIndex.get(typeName));
+        if (!isInterface) {
+            if (!classAnnotationIndex.isEmpty()) {
+                for (AnnotationDescription annotation : typeDescription.getDeclaredAnnotations()) {
+                    addAll(candidates, classAnnotationIndex.get(annotation.getAnnotationType().getActualName()));
+                }
+            }
+            if (!methodAnnotationIndex.isEmpty()) {
+                for (MethodDescription.InDefinedShape method : typeDescription.getDeclaredMethods()) {
+                    for (AnnotationDescription annotation : method.getDeclaredAnnotations()) {
+                        addAll(candidates, methodAnnotationIndex.get(annotation.getAnnotationType().getActualName()));
+                    }
+                }
+            }
+            if (!hierarchyIndex.isEmpty()) {
+                findParentTypes(typeDescription, candidates, new HashSet<String>());
+            }
+        }
+        if (candidates.isEmpty() && otherMatchDefine.isEmpty()) {
+            return matchedPlugins;
         }
 
         for (AbstractClassEnhancePluginDefine pluginDefine : signatureMatchDefine) {
             IndirectMatch match = (IndirectMatch)pluginDefine.enhanceClass();
-            if (match.isMatch(typeDescription)) {
-                matchedPlugins.add(pluginDefine);
+            if (candidates.contains(pluginDefine)) {
+                if (match.isMatch(typeDescription)) {
+                    matchedPlugins.add(pluginDefine);
+                }
+            } else {
+                ElementMatcher.Junction junction = otherMatchDefine.get(pluginDefine);
+                if (junction != null && junction.matches(typeDescription) && match.isMatch(typeDescription)) {
+                    matchedPlugins.add(pluginDefine);
+                }
             }
         }
-
         return matchedPlugins;
     }
 
-    public ElementMatcher<? super TypeDescription> buildMatch() {
-        ElementMatcher.Junction judge = new AbstractJunction<NamedElement>() {
-            @Override
-            public boolean matches(NamedElement target) {
-                return nameMatchDefine.containsKey(target.getActualName());
-            }
-        };
-        judge = judge.and(not(isInterface()));
-        for (AbstractClassEnhancePluginDefine define : signatureMatchDefine) {
-            ClassMatch match = define.enhanceClass();
-            if (match instanceof IndirectMatch) {
-                judge = judge.or(((IndirectMatch)match).buildJunction());
-            }
+    /**
+     * Walk the super classes and the interfaces once, for the plugins of {@link HierarchyMatch}.
+     */
+    private void findParentTypes(TypeDefinition type, Set<AbstractClassEnhancePluginDefine> candidates,
+        Set<String> visited) {
+        for (TypeDescription.Generic implInterface : type.getInterfaces()) {
+            findParentType(implInterface, candidates, visited);
+        }
+        TypeDescription.Generic superClass = type.getSuperClass();
+        if (superClass != null) {
+            findParentType(superClass, candidates, visited);
+        }
+    }
+
+    private void findParentType(TypeDescription.Generic parentType, Set<AbstractClassEnhancePluginDefine> candidates,
+        Set<String> visited) {
+        String parentTypeName = parentType.asRawType().getTypeName();
+        if (!visited.add(parentTypeName) || "java.lang.Object".equals(parentTypeName)) {
+            return;
+        }
+        addAll(candidates, hierarchyIndex.get(parentTypeName));
+        findParentTypes(parentType, candidates, visited);
+    }
+
+    private static void index(Map<String, LinkedList<AbstractClassEnhancePluginDefine>> index, String key,
+        AbstractClassEnhancePluginDefine plugin) {
+        LinkedList<AbstractClassEnhancePluginDefine> pluginDefines = index.get(key);
+        if (pluginDefines == null) {
+            pluginDefines = new LinkedList<AbstractClassEnhancePluginDefine>();
+            index.put(key, pluginDefines);
+        }
+        pluginDefines.add(plugin);
+    }
+
+    private static void addAll(Collection<AbstractClassEnhancePluginDefine> target,
+        List<AbstractClassEnhancePluginDefine> plugins) {
+        if (plugins != null) {
+            target.addAll(plugins);
+        }
+    }
+
+    private static class MatchedType {
+        private final TypeDescription typeDescription;
+        private final List<AbstractClassEnhancePluginDefine> plugins;
+
+        private MatchedType(TypeDescription typeDescription, List<AbstractClassEnhancePluginDefine> plugins) {
+            this.typeDescription = typeDescription;
+            this.plugins = plugins;
         }
-        return new ProtectiveShieldMatcher(judge);
     }
 }
@@ -45,6 +45,11 @@ public class StaticMethodsInter {
      */
     private String staticMethodsAroundInterceptorClassName;
 
+    /**
+     * The interceptor, resolved at the first call and kept, as the enhanced class has only one classloader.
+     */
+    private volatile StaticMethodsAroundInterceptor interceptor;
+
     /**
      * Set the name of {@link StaticMethodsInter#staticMethodsAroundInterceptorClassName}
      *
@@ -68,8 +73,7 @@ public class StaticMethodsInter {
     @RuntimeType
     public Object intercept(@Origin Class<?> clazz, @AllArguments Object[] allArguments, @Origin Method method,
         @SuperCall Callable<?> zuper) throws Throwable {
-        StaticMethodsAroundInterceptor interceptor = InterceptorInstanceLoader
-            .load(staticMethodsAroundInterceptorClassName, clazz.getClassLoader());
+        StaticMethodsAroundInterceptor interceptor = getInterceptor(clazz);
 
         MethodInterceptResult result = new MethodInterceptResult();
         try {
@@ -101,4 +105,13 @@ public class StaticMethodsInter {
         }
         return ret;
     }
+
+    private StaticMethodsAroundInterceptor getInterceptor(Class<?> clazz) throws Throwable {
+        StaticMethodsAroundInterceptor interceptor = this.interceptor;
+        if (interceptor == null) {
+            interceptor = InterceptorInstanceLoader.load(staticMethodsAroundInterceptorClassName, clazz.getClassLoader());
+            this.interceptor = interceptor;
+        }
+        return interceptor;
+    }
 }
@@ -44,6 +44,11 @@ public class StaticMethodsInterWithOverrideArgs {
      */
     private String staticMethodsAroundInterceptorClassName;
 
+    /**
+     * The interceptor, resolved at the first call and kept, as the enhanced class has only one classloader.
+     */
+    private volatile StaticMethodsAroundInterceptor interceptor;
+
     /**
      * Set the name of {@link StaticMethodsInterWithOverrideArgs#staticMethodsAroundInterceptorClassName}
      *
@@ -67,8 +72,7 @@ public class StaticMethodsInterWithOverrideArgs {
     @RuntimeType
     public Object intercept(@Origin Class<?> clazz, @AllArguments Object[] allArguments, @Origin Method method,
         @Morph OverrideCallable zuper) throws Throwable {
-        StaticMethodsAroundInterceptor interceptor = InterceptorInstanceLoader
-            .load(staticMethodsAroundInterceptorClassName, clazz.getClassLoader());
+        StaticMethodsAroundInterceptor interceptor = getInterceptor(clazz);
 
         MethodInterceptResult result = new MethodInterceptResult();
         try {
@@ -100,4 +104,13 @@ public class StaticMethodsInterWithOverrideArgs {
         }
         return ret;
     }
+
+    private StaticMethodsAroundInterceptor getInterceptor(Class<?> clazz) throws Throwable {
+        StaticMethodsAroundInterceptor interceptor = this.interceptor;
+        if (interceptor == null) {
+            interceptor = InterceptorInstanceLoader.load(staticMethodsAroundInterceptorClassName, clazz.getClassLoader());
+            this.interceptor = interceptor;
+        }
+        return interceptor;
+    }
 }
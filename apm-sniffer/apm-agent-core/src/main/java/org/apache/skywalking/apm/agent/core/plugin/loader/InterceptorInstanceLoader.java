@@ -23,11 +23,11 @@ import org.apache.skywalking.apm.agent.core.boot.AgentPackageNotFoundException;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The <code>InterceptorInstanceLoader</code> is a classes finder and container.
@@ -35,14 +35,20 @@ import java.util.concurrent.locks.ReentrantLock;
  * This is a very important class in sky-walking's auto-instrumentation mechanism. If you want to fully understand why
  * need this, and how it works, you need have knowledge about Classloader appointment mechanism.
  * <p>
+ * The interceptors are cached by the identity of the target classloaders, which are weakly referenced, so the
+ * classloaders of the undeployed applications can be collected. The cached {@link AgentClassLoader}s and interceptors
+ * are weakly referenced too, as they reference the target classloaders. A caller must keep the interceptor it loads,
+ * as the interceptors of the enhanced classes do, or it is loaded again, by a new {@link AgentClassLoader} if none of
+ * the interceptors of the target classloader is kept. The lookup doesn't lock, only the creation of an
+ * {@link AgentClassLoader} locks on its target classloader entry.
+ * <p>
  * Created by wusheng on 16/8/2.
  */
 public class InterceptorInstanceLoader {
     private static final ILog logger = LogManager.getLogger(InterceptorInstanceLoader.class);
 
-    private static ConcurrentHashMap<String, Object> INSTANCE_CACHE = new ConcurrentHashMap<String, Object>();
-    private static ReentrantLock INSTANCE_LOAD_LOCK = new ReentrantLock();
-    private static Map<ClassLoader, ClassLoader> EXTEND_PLUGIN_CLASSLOADERS = new HashMap<ClassLoader, ClassLoader>();
+    private static final ConcurrentHashMap<LoaderKey, LoaderInterceptors> INTERCEPTORS = new ConcurrentHashMap<LoaderKey, LoaderInterceptors>();
+    private static final ReferenceQueue<ClassLoader> COLLECTED_CLASSLOADERS = new ReferenceQueue<ClassLoader>();
 
     /**
      * Load an instance of interceptor, and keep it singleton.
@@ -64,25 +70,96 @@ public class InterceptorInstanceLoader {
         if (targetClassLoader == null) {
             targetClassLoader = InterceptorInstanceLoader.class.getClassLoader();
         }
-        String instanceKey = className + "_OF_" + targetClassLoader.getClass().getName() + "@" + Integer.toHexString(targetClassLoader.hashCode());
-        Object inst = INSTANCE_CACHE.get(instanceKey);
-        if (inst == null) {
-            INSTANCE_LOAD_LOCK.lock();
-            try {
-                ClassLoader pluginLoader = EXTEND_PLUGIN_CLASSLOADERS.get(targetClassLoader);
-                if (pluginLoader == null) {
-                    pluginLoader = new AgentClassLoader(targetClassLoader);
-                    EXTEND_PLUGIN_CLASSLOADERS.put(targetClassLoader, pluginLoader);
-                }
-                inst = Class.forName(className, true, pluginLoader).newInstance();
-            } finally {
-                INSTANCE_LOAD_LOCK.unlock();
+        LoaderInterceptors interceptors = INTERCEPTORS.get(new LoaderKey(targetClassLoader, null));
+        if (interceptors == null) {
+            removeCollected();
+            LoaderInterceptors newInterceptors = new LoaderInterceptors();
+            interceptors = INTERCEPTORS.putIfAbsent(new LoaderKey(targetClassLoader, COLLECTED_CLASSLOADERS), newInterceptors);
+            if (interceptors == null) {
+                interceptors = newInterceptors;
             }
+        }
+
+        return (T) interceptors.load(className, targetClassLoader);
+    }
+
+    private static void removeCollected() {
+        Reference<? extends ClassLoader> collected;
+        while ((collected = COLLECTED_CLASSLOADERS.poll()) != null) {
+            INTERCEPTORS.remove(collected);
+        }
+    }
+
+    /**
+     * The key of a target classloader, which equals to the key of the same classloader instance only.
+     */
+    private static class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hashCode;
+
+        private LoaderKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            this.hashCode = System.identityHashCode(classLoader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LoaderKey)) {
+                return false;
+            }
+            ClassLoader classLoader = get();
+            return classLoader != null && classLoader == ((LoaderKey)o).get();
+        }
+    }
+
+    private static class LoaderInterceptors {
+        private final ConcurrentHashMap<String, WeakReference<Object>> instances = new ConcurrentHashMap<String, WeakReference<Object>>();
+        private volatile WeakReference<AgentClassLoader> pluginLoader;
+
+        private Object load(String className, ClassLoader targetClassLoader)
+            throws IllegalAccessException, InstantiationException, ClassNotFoundException, AgentPackageNotFoundException {
+            WeakReference<Object> reference = instances.get(className);
+            Object inst = reference == null ? null : reference.get();
             if (inst != null) {
-                INSTANCE_CACHE.put(instanceKey, inst);
+                return inst;
+            }
+
+            inst = Class.forName(className, true, getPluginLoader(targetClassLoader)).newInstance();
+            WeakReference<Object> newReference = new WeakReference<Object>(inst);
+            while (true) {
+                reference = instances.get(className);
+                Object existing = reference == null ? null : reference.get();
+                if (existing != null) {
+                    return existing;
+                }
+                if (reference == null ? instances.putIfAbsent(className, newReference) == null : instances.replace(className, reference, newReference)) {
+                    return inst;
+                }
             }
         }
 
-        return (T) inst;
+        private AgentClassLoader getPluginLoader(
+            ClassLoader targetClassLoader) throws AgentPackageNotFoundException {
+            WeakReference<AgentClassLoader> reference = pluginLoader;
+            AgentClassLoader loader = reference == null ? null : reference.get();
+            if (loader == null) {
+                synchronized (this) {
+                    reference = pluginLoader;
+                    loader = reference == null ? null : reference.get();
+                    if (loader == null) {
+                        loader = new AgentClassLoader(targetClassLoader);
+                        pluginLoader = new WeakReference<AgentClassLoader>(loader);
+                    }
+                }
+            }
+            return loader;
+        }
     }
 }
@@ -0,0 +1,461 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.remote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.apache.skywalking.apm.agent.core.logging.api.ILog;
+import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
+import org.apache.skywalking.apm.network.language.agent.UpstreamSegment;
+
+/**
+ * A bounded local spool of {@link UpstreamSegment}s, holding the segments while the backend is unreachable or the
+ * buffer is full, until they are replayed after reconnection.
+ *
+ * The spool is a sequence of memory-mapped files of the same size. A record is the length of the deflated segment
+ * followed by its bytes, the length is negated once the record is replayed, and a zero length ends the records of a
+ * file. The unreplayed records survive an agent restart. When the spool is full, the oldest file is evicted with its
+ * records.
+ *
+ * The lock is only held to copy the records in or out of the files, the segments are deflated and inflated outside of
+ * it. A {@link Batch} read by {@link #peek(int)} ends at a file and a position, so {@link #commit(Batch)} consumes
+ * only the records it read, even if files are evicted or records are written in between.
+ */
+class SegmentSpool {
+    private static final ILog logger = LogManager.getLogger(SegmentSpool.class);
+    private static final String FILE_PREFIX = "segment-";
+    private static final String FILE_SUFFIX = ".spool";
+
+    private final File directory;
+    private final int fileSize;
+    private final int maxFiles;
+    private final LinkedList<SpoolFile> files = new LinkedList<SpoolFile>();
+    private SpoolFile writingFile;
+    private long nextFileId;
+    private int records;
+
+    /**
+     * Guarded by itself, the writers deflate out of the spool lock.
+     */
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressBuffer = new byte[4096];
+
+    /**
+     * Guarded by itself, the replayer inflates out of the spool lock.
+     */
+    private final Inflater inflater = new Inflater();
+
+    private long writtenCounter;
+    private long replayedCounter;
+    private long evictedCounter;
+    private long droppedCounter;
+
+    SegmentSpool(File directory, int fileSize, long maxSize) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Create spool dir(" + directory + ") fail.");
+        }
+        this.directory = directory;
+        this.fileSize = fileSize;
+        this.maxFiles = (int)Math.max(2, maxSize / fileSize);
+        recover();
+    }
+
+    /**
+     * Load the files left by the previous run, new records are always written into a new file.
+     */
+    private void recover() throws IOException {
+        File[] existed = directory.listFiles();
+        if (existed == null) {
+            return;
+        }
+        Arrays.sort(existed);
+        for (File file : existed) {
+            String name = file.getName();
+            if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+                continue;
+            }
+            long id;
+            try {
+                id = Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            nextFileId = Math.max(nextFileId, id + 1);
+            SpoolFile spoolFile = new SpoolFile(file, id, fileSize);
+            if (spoolFile.records == 0) {
+                spoolFile.delete();
+                continue;
+            }
+            files.add(spoolFile);
+            records += spoolFile.records;
+        }
+        while (files.size() > maxFiles) {
+            evict();
+        }
+        if (records > 0) {
+            logger.info("{} trace segments are recovered from the spool.", records);
+        }
+    }
+
+    /**
+     * @return false if the segment can't be spooled.
+     */
+    boolean write(UpstreamSegment segment) {
+        byte[] bytes = segment.toByteArray();
+        synchronized (deflater) {
+            return append(compress(bytes));
+        }
+    }
+
+    private synchronized boolean append(int length) {
+        if (length + 4 > fileSize) {
+            droppedCounter++;
+            return false;
+        }
+
+        try {
+            if (writingFile == null || !writingFile.hasRoom(length)) {
+                if (writingFile != null && writingFile.records == 0) {
+                    files.remove(writingFile);
+                    writingFile.delete();
+                }
+                long id = nextFileId++;
+                writingFile = new SpoolFile(new File(directory, FILE_PREFIX + id + FILE_SUFFIX), id, fileSize);
+                files.add(writingFile);
+                while (files.size() > maxFiles) {
+                    evict();
+                }
+            }
+        } catch (IOException e) {
+            logger.error(e, "Create spool file fail.");
+            writingFile = null;
+            droppedCounter++;
+            return false;
+        }
+
+        writingFile.append(compressBuffer, length);
+        records++;
+        writtenCounter++;
+        return true;
+    }
+
+    /**
+     * Read the oldest unreplayed segments without consuming them, {@link #commit(Batch)} consumes them after they are
+     * sent. The corrupted records are skipped, and consumed by the commit.
+     */
+    Batch peek(int max) {
+        List<byte[]> copied = new ArrayList<byte[]>();
+        Batch batch = new Batch();
+        synchronized (this) {
+            for (SpoolFile file : files) {
+                int position = file.readPosition;
+                while (copied.size() < max) {
+                    position = file.nextRecord(position);
+                    if (position < 0) {
+                        break;
+                    }
+                    int length = file.lengthAt(position);
+                    copied.add(file.read(position, length));
+                    position += 4 + length;
+                    batch.fileId = file.id;
+                    batch.position = position;
+                }
+                if (copied.size() >= max) {
+                    break;
+                }
+            }
+        }
+
+        synchronized (inflater) {
+            for (byte[] record : copied) {
+                try {
+                    batch.segments.add(UpstreamSegment.parseFrom(decompress(record)));
+                } catch (Exception e) {
+                    logger.warn(e, "A corrupted trace segment is skipped in the spool.");
+                    batch.corrupted++;
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Consume the records of the batch which are still in the spool, and delete the files consumed.
+     */
+    synchronized void commit(Batch batch) {
+        int consumed = 0;
+        while (!files.isEmpty()) {
+            SpoolFile file = files.getFirst();
+            if (file.id > batch.fileId) {
+                break;
+            }
+            int end = file.id == batch.fileId ? batch.position : file.writePosition;
+            int position;
+            while ((position = file.nextRecord(file.readPosition)) >= 0 && position < end) {
+                file.consume(position);
+                records--;
+                consumed++;
+            }
+            if (file.records > 0 || file == writingFile) {
+                break;
+            }
+            files.removeFirst();
+            file.delete();
+        }
+        int corrupted = Math.min(consumed, batch.corrupted);
+        droppedCounter += corrupted;
+        replayedCounter += consumed - corrupted;
+    }
+
+    synchronized int size() {
+        return records;
+    }
+
+    synchronized void report() {
+        if (writtenCounter > 0 || replayedCounter > 0 || evictedCounter > 0 || droppedCounter > 0) {
+            logger.debug("Trace segment spool, written: {}, replayed: {}, evicted: {}, dropped: {}, spooled: {}, files: {}.",
+                writtenCounter, replayedCounter, evictedCounter, droppedCounter, records, files.size());
+            writtenCounter = 0;
+            replayedCounter = 0;
+            evictedCounter = 0;
+            droppedCounter = 0;
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            for (SpoolFile file : files) {
+                file.close();
+            }
+            files.clear();
+            writingFile = null;
+        }
+        synchronized (deflater) {
+            deflater.end();
+        }
+        synchronized (inflater) {
+            inflater.end();
+        }
+    }
+
+    private void evict() {
+        SpoolFile evicted = files.removeFirst();
+        records -= evicted.records;
+        evictedCounter += evicted.records;
+        if (evicted == writingFile) {
+            writingFile = null;
+        }
+        evicted.delete();
+    }
+
+    private int compress(byte[] bytes) {
+        int bound = bytes.length + (bytes.length >> 10) + 64;
+        if (compressBuffer.length < bound) {
+            compressBuffer = new byte[bound];
+        }
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(compressBuffer, length, compressBuffer.length - length);
+            if (length == compressBuffer.length && !deflater.finished()) {
+                compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+            }
+        }
+        return length;
+    }
+
+    private byte[] decompress(byte[] bytes) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(bytes);
+        byte[] result = new byte[bytes.length * 4];
+        int length = 0;
+        while (!inflater.finished()) {
+            if (length == result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            int inflated = inflater.inflate(result, length, result.length - length);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated record.");
+            }
+            length += inflated;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * The segments read from the spool, till the position of a file.
+     */
+    static class Batch {
+        private final List<UpstreamSegment> segments = new ArrayList<UpstreamSegment>();
+        private long fileId = -1;
+        private int position;
+        private int corrupted;
+
+        List<UpstreamSegment> getSegments() {
+            return segments;
+        }
+
+        boolean isEmpty() {
+            return segments.isEmpty() && corrupted == 0;
+        }
+    }
+
+    private static class SpoolFile {
+        private final File file;
+        private final long id;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+        private int records;
+
+        private SpoolFile(File file, long id, int fileSize) throws IOException {
+            this.file = file;
+            this.id = id;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            int size = (int)Math.max(fileSize, randomAccessFile.length());
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            int position = 0;
+            while (position + 4 <= size) {
+                int length = buffer.getInt(position);
+                if (length == 0 || Math.abs(length) > size - position - 4) {
+                    break;
+                }
+                if (length > 0) {
+                    records++;
+                }
+                position += 4 + Math.abs(length);
+            }
+            writePosition = position;
+            skipConsumed();
+        }
+
+        private boolean hasRoom(int length) {
+            return writePosition + 4 + length <= buffer.capacity();
+        }
+
+        private void append(byte[] bytes, int length) {
+            buffer.position(writePosition + 4);
+            buffer.put(bytes, 0, length);
+            buffer.putInt(writePosition, length);
+            writePosition += 4 + length;
+            records++;
+        }
+
+        /**
+         * @return the position of the next unconsumed record from the position, and -1 if none.
+         */
+        private int nextRecord(int position) {
+            while (position < writePosition) {
+                int length = buffer.getInt(position);
+                if (length > 0) {
+                    return position;
+                }
+                position += 4 - length;
+            }
+            return -1;
+        }
+
+        private int lengthAt(int position) {
+            return buffer.getInt(position);
+        }
+
+        private byte[] read(int position, int length) {
+            byte[] bytes = new byte[length];
+            buffer.position(position + 4);
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private void consume(int position) {
+            buffer.putInt(position, -buffer.getInt(position));
+            records--;
+            skipConsumed();
+        }
+
+        private void skipConsumed() {
+            while (readPosition < writePosition && buffer.getInt(readPosition) < 0) {
+                readPosition += 4 - buffer.getInt(readPosition);
+            }
+        }
+
+        /**
+         * Unmap the file, the buffer must not be accessed after that.
+         */
+        private void close() {
+            unmap(buffer);
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                logger.error(e, "Close spool file {} fail.", file);
+            }
+        }
+
+        private void delete() {
+            close();
+            if (!file.delete()) {
+                logger.warn("Delete spool file {} fail.", file);
+            }
+        }
+    }
+
+    /**
+     * Release the mapping of the buffer now, instead of when the buffer is collected, so the deleted files don't hold
+     * the disk and the address space. It is skipped if the JVM doesn't allow it.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (Throwable ignored) {
+            // Before Java 9, the cleaner of the buffer is used.
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Throwable t) {
+            logger.debug("Unmap the spool file fail, it is released when collected.");
+        }
+    }
+}
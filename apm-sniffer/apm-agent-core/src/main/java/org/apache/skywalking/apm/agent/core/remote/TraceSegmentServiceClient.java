@@ -19,24 +19,42 @@
 package org.apache.skywalking.apm.agent.core.remote;
 
 import io.grpc.Channel;
+import java.io.File;
 import java.util.List;
 
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.apm.agent.core.boot.AgentPackagePath;
 import org.apache.skywalking.apm.agent.core.boot.BootService;
 import org.apache.skywalking.apm.agent.core.boot.DefaultImplementor;
+import org.apache.skywalking.apm.agent.core.boot.DefaultNamedThreadFactory;
 import org.apache.skywalking.apm.agent.core.boot.ServiceManager;
+import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.context.TracingContext;
 import org.apache.skywalking.apm.agent.core.context.TracingContextListener;
 import org.apache.skywalking.apm.agent.core.context.trace.TraceSegment;
 import org.apache.skywalking.apm.agent.core.logging.api.ILog;
 import org.apache.skywalking.apm.agent.core.logging.api.LogManager;
+import org.apache.skywalking.apm.agent.core.sampling.SamplingService;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.apm.network.language.agent.*;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.apm.util.StringUtil;
 
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.BUFFER_SIZE;
 import static org.apache.skywalking.apm.agent.core.conf.Config.Buffer.CHANNEL_SIZE;
+import static org.apache.skywalking.apm.agent.core.conf.Config.Collector.PERSISTENT_SEGMENT_STREAM;
+import static org.apache.skywalking.apm.agent.core.conf.Config.Collector.SEGMENT_STREAM_ACK_INTERVAL;
+import static org.apache.skywalking.apm.agent.core.conf.Config.Collector.SEGMENT_STREAM_READY_TIMEOUT;
 import static org.apache.skywalking.apm.agent.core.remote.GRPCChannelStatus.CONNECTED;
 
 /**
@@ -48,11 +66,20 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     private static final int TIMEOUT = 30 * 1000;
 
     private long lastLogTime;
-    private long segmentUplinkedCounter;
+    /**
+     * The segments acknowledged by the collector, which completes a stream after all its segments are received.
+     */
+    private final AtomicLong segmentUplinkedCounter = new AtomicLong();
+    private final AtomicLong segmentUnacknowledgedCounter = new AtomicLong();
     private long segmentAbandonedCounter;
+    private final AtomicLong segmentDroppedCounter = new AtomicLong();
     private volatile DataCarrier<TraceSegment> carrier;
     private volatile TraceSegmentServiceGrpc.TraceSegmentServiceStub serviceStub;
     private volatile GRPCChannelStatus status = GRPCChannelStatus.DISCONNECT;
+    private volatile PersistentStream persistentStream;
+    private volatile SegmentSpool spool;
+    private volatile DataCarrier<TraceSegment> spoolCarrier;
+    private volatile ScheduledFuture<?> replayFuture;
 
     @Override
     public void prepare() throws Throwable {
@@ -62,11 +89,39 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     @Override
     public void boot() throws Throwable {
         lastLogTime = System.currentTimeMillis();
-        segmentUplinkedCounter = 0;
+        segmentUplinkedCounter.set(0);
+        segmentUnacknowledgedCounter.set(0);
         segmentAbandonedCounter = 0;
         carrier = new DataCarrier<TraceSegment>(CHANNEL_SIZE, BUFFER_SIZE);
         carrier.setBufferStrategy(BufferStrategy.IF_POSSIBLE);
         carrier.consume(this, 1);
+
+        if (Config.Spool.ACTIVE) {
+            try {
+                File dir = StringUtil.isEmpty(Config.Spool.DIR) ? new File(AgentPackagePath.getPath(), "spool") : new File(Config.Spool.DIR);
+                spool = new SegmentSpool(dir, Config.Spool.FILE_SIZE, Config.Spool.MAX_SIZE);
+                spoolCarrier = new DataCarrier<TraceSegment>(1, BUFFER_SIZE);
+                spoolCarrier.setBufferStrategy(BufferStrategy.IF_POSSIBLE);
+                spoolCarrier.consume(new SpoolConsumer(), 1);
+                replayFuture = Executors
+                    .newSingleThreadScheduledExecutor(new DefaultNamedThreadFactory("TraceSegmentServiceClient-replay"))
+                    .scheduleAtFixedRate(new RunnableWithExceptionProtection(new Runnable() {
+                        @Override
+                        public void run() {
+                            replaySpool();
+                        }
+                    }, new RunnableWithExceptionProtection.CallbackWhenException() {
+                        @Override
+                        public void handle(Throwable t) {
+                            logger.error("Replay spooled trace segments failure.", t);
+                        }
+                    }), 1, 1, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error(e, "Initialize the trace segment spool fail, the segments aren't spooled.");
+                spool = null;
+                spoolCarrier = null;
+            }
+        }
     }
 
     @Override
@@ -77,6 +132,16 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     @Override
     public void shutdown() throws Throwable {
         carrier.shutdownConsumers();
+        if (spoolCarrier != null) {
+            spoolCarrier.shutdownConsumers();
+        }
+        closePersistentStream();
+        if (replayFuture != null) {
+            replayFuture.cancel(true);
+        }
+        if (spool != null) {
+            spool.close();
+        }
     }
 
     @Override
@@ -87,59 +152,195 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     @Override
     public void consume(List<TraceSegment> data) {
         if (CONNECTED.equals(status)) {
-            final GRPCStreamServiceStatus status = new GRPCStreamServiceStatus(false);
-            StreamObserver<UpstreamSegment> upstreamSegmentStreamObserver = serviceStub.collect(new StreamObserver<Downstream>() {
-                @Override
-                public void onNext(Downstream downstream) {
+            if (PERSISTENT_SEGMENT_STREAM) {
+                sendByPersistentStream(data);
+            } else {
+                sendByStream(data);
+            }
+        } else if (spool != null) {
+            segmentAbandonedCounter += spool(data);
+        } else {
+            segmentAbandonedCounter += data.size();
+        }
+        for (TraceSegment segment : data) {
+            segment.recycle();
+        }
 
-                }
+        printUplinkStatus();
+    }
 
-                @Override
-                public void onError(Throwable throwable) {
-                    status.finished();
-                    if (logger.isErrorEnable()) {
-                        logger.error(throwable, "Send UpstreamSegment to collector fail with a grpc internal exception.");
-                    }
-                    ServiceManager.INSTANCE.findService(GRPCChannelManager.class).reportError(throwable);
+    private void sendByStream(List<TraceSegment> data) {
+        final GRPCStreamServiceStatus status = new GRPCStreamServiceStatus(false);
+        final AtomicBoolean success = new AtomicBoolean(false);
+        StreamObserver<UpstreamSegment> upstreamSegmentStreamObserver = serviceStub.collect(new StreamObserver<Downstream>() {
+            @Override
+            public void onNext(Downstream downstream) {
+
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                status.finished();
+                if (logger.isErrorEnable()) {
+                    logger.error(throwable, "Send UpstreamSegment to collector fail with a grpc internal exception.");
                 }
+                ServiceManager.INSTANCE.findService(GRPCChannelManager.class).reportError(throwable);
+            }
 
-                @Override
-                public void onCompleted() {
-                    status.finished();
+            @Override
+            public void onCompleted() {
+                success.set(true);
+                status.finished();
+            }
+        });
+
+        int sent = 0;
+        for (TraceSegment segment : data) {
+            try {
+                UpstreamSegment upstreamSegment = segment.transform();
+                upstreamSegmentStreamObserver.onNext(upstreamSegment);
+                sent++;
+            } catch (Throwable t) {
+                logger.error(t, "Transform and send UpstreamSegment to collector fail.");
+            }
+        }
+        upstreamSegmentStreamObserver.onCompleted();
+
+        status.wait4Finish();
+        if (success.get()) {
+            segmentUplinkedCounter.addAndGet(sent);
+        } else {
+            segmentUnacknowledgedCounter.addAndGet(sent);
+        }
+    }
+
+    /**
+     * Send the segments through the persistent stream without waiting for the collector response, the stream is
+     * reopened by the next batch if it is closed by error. It is also completed and reopened every ack interval, so
+     * the collector acknowledges the segments sent through it.
+     */
+    private void sendByPersistentStream(List<TraceSegment> data) {
+        PersistentStream stream = persistentStream;
+        if (stream != null && !stream.isClosed() && stream.isExpired(SEGMENT_STREAM_ACK_INTERVAL)) {
+            stream.close();
+        }
+        if (stream == null || stream.isClosed()) {
+            stream = new PersistentStream(serviceStub);
+            persistentStream = stream;
+        }
+
+        for (int i = 0; i < data.size(); i++) {
+            if (!stream.waitUntilReady(SEGMENT_STREAM_READY_TIMEOUT)) {
+                logger.warn("The trace segment stream isn't ready in {} milliseconds, reopen it.", SEGMENT_STREAM_READY_TIMEOUT);
+                segmentAbandonedCounter += data.size() - i;
+                stream.close();
+                return;
+            }
+            try {
+                stream.send(data.get(i).transform());
+            } catch (Throwable t) {
+                logger.error(t, "Transform and send UpstreamSegment to collector fail.");
+            }
+        }
+    }
+
+    /**
+     * @return the number of the segments which can't be spooled.
+     */
+    private int spool(List<TraceSegment> data) {
+        int abandoned = 0;
+        for (TraceSegment segment : data) {
+            try {
+                if (!spool.write(segment.transform())) {
+                    abandoned++;
                 }
-            });
+            } catch (Throwable t) {
+                logger.error(t, "Transform and spool UpstreamSegment fail.");
+            }
+        }
+        return abandoned;
+    }
 
-            for (TraceSegment segment : data) {
-                try {
-                    UpstreamSegment upstreamSegment = segment.transform();
-                    upstreamSegmentStreamObserver.onNext(upstreamSegment);
-                } catch (Throwable t) {
-                    logger.error(t, "Transform and send UpstreamSegment to collector fail.");
+    /**
+     * Send the spooled segments at the replay rate, they stay in the spool until the collector completes the stream.
+     */
+    private void replaySpool() {
+        if (!CONNECTED.equals(status) || spool.size() == 0) {
+            return;
+        }
+        SegmentSpool.Batch batch = spool.peek(Config.Spool.REPLAY_RATE);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final GRPCStreamServiceStatus status = new GRPCStreamServiceStatus(false);
+        final AtomicBoolean success = new AtomicBoolean(false);
+        StreamObserver<UpstreamSegment> upstreamSegmentStreamObserver = serviceStub.collect(new StreamObserver<Downstream>() {
+            @Override
+            public void onNext(Downstream downstream) {
+
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                status.finished();
+                if (logger.isErrorEnable()) {
+                    logger.error(throwable, "Replay spooled UpstreamSegment to collector fail with a grpc internal exception.");
                 }
+                ServiceManager.INSTANCE.findService(GRPCChannelManager.class).reportError(throwable);
             }
-            upstreamSegmentStreamObserver.onCompleted();
 
-            status.wait4Finish();
-            segmentUplinkedCounter += data.size();
-        } else {
-            segmentAbandonedCounter += data.size();
+            @Override
+            public void onCompleted() {
+                success.set(true);
+                status.finished();
+            }
+        });
+
+        for (UpstreamSegment segment : batch.getSegments()) {
+            upstreamSegmentStreamObserver.onNext(segment);
         }
+        upstreamSegmentStreamObserver.onCompleted();
 
-        printUplinkStatus();
+        status.wait4Finish();
+        if (success.get()) {
+            spool.commit(batch);
+            segmentUplinkedCounter.addAndGet(batch.getSegments().size());
+        }
+    }
+
+    private void closePersistentStream() {
+        PersistentStream stream = persistentStream;
+        persistentStream = null;
+        if (stream != null) {
+            stream.close();
+        }
     }
 
     private void printUplinkStatus() {
         long currentTimeMillis = System.currentTimeMillis();
         if (currentTimeMillis - lastLogTime > 30 * 1000) {
+            long seconds = Math.max(1, (currentTimeMillis - lastLogTime) / 1000);
             lastLogTime = currentTimeMillis;
-            if (segmentUplinkedCounter > 0) {
-                logger.debug("{} trace segments have been sent to collector.", segmentUplinkedCounter);
-                segmentUplinkedCounter = 0;
+            long segmentUplinked = segmentUplinkedCounter.getAndSet(0);
+            if (segmentUplinked > 0) {
+                logger.debug("{} trace segments have been acknowledged by collector, {} per second.", segmentUplinked, segmentUplinked / seconds);
+            }
+            long segmentUnacknowledged = segmentUnacknowledgedCounter.getAndSet(0);
+            if (segmentUnacknowledged > 0) {
+                logger.warn("{} trace segments have been sent without the acknowledgement of collector, cause by stream error.", segmentUnacknowledged);
             }
             if (segmentAbandonedCounter > 0) {
                 logger.debug("{} trace segments have been abandoned, cause by no available channel.", segmentAbandonedCounter);
                 segmentAbandonedCounter = 0;
             }
+            long segmentDropped = segmentDroppedCounter.getAndSet(0);
+            if (segmentDropped > 0) {
+                logger.warn("{} trace segments have been abandoned, cause by buffer is full.", segmentDropped);
+            }
+            if (spool != null) {
+                spool.report();
+            }
         }
     }
 
@@ -156,11 +357,19 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
     @Override
     public void afterFinished(TraceSegment traceSegment) {
         if (traceSegment.isIgnore()) {
+            traceSegment.recycle();
             return;
         }
         if (!carrier.produce(traceSegment)) {
-            if (logger.isDebugEnable()) {
-                logger.debug("One trace segment has been abandoned, cause by buffer is full.");
+            // The spool is written by its own consumer, never by the application thread.
+            DataCarrier<TraceSegment> spoolCarrier = this.spoolCarrier;
+            if (spoolCarrier == null || !spoolCarrier.produce(traceSegment)) {
+                segmentDroppedCounter.incrementAndGet();
+                ServiceManager.INSTANCE.findService(SamplingService.class).dropped();
+                if (logger.isDebugEnable()) {
+                    logger.debug("One trace segment has been abandoned, cause by buffer is full.");
+                }
+                traceSegment.recycle();
             }
         }
     }
@@ -172,5 +381,140 @@ public class TraceSegmentServiceClient implements BootService, IConsumer<TraceSe
             serviceStub = TraceSegmentServiceGrpc.newStub(channel);
         }
         this.status = status;
+        // The stream belongs to the previous channel.
+        closePersistentStream();
+    }
+
+    /**
+     * Spool the segments which overflow the buffer.
+     */
+    private class SpoolConsumer implements IConsumer<TraceSegment> {
+        @Override
+        public void init() {
+
+        }
+
+        @Override
+        public void consume(List<TraceSegment> data) {
+            segmentDroppedCounter.addAndGet(spool(data));
+            for (TraceSegment segment : data) {
+                segment.recycle();
+            }
+        }
+
+        @Override
+        public void onError(List<TraceSegment> data, Throwable t) {
+            logger.error(t, "Try to spool {} trace segments, with unexpected exception.", data.size());
+        }
+
+        @Override
+        public void onExit() {
+
+        }
+    }
+
+    /**
+     * A long-lived segment stream. The flow control readiness is signalled by the on ready handler of the call, and
+     * the segments sent are counted as uplinked once the collector completes the stream, or as unacknowledged when it
+     * fails.
+     */
+    private class PersistentStream implements ClientResponseObserver<UpstreamSegment, Downstream> {
+        private final StreamObserver<UpstreamSegment> upstream;
+        private final long openTime = System.currentTimeMillis();
+        private final Object readyLock = new Object();
+        private final AtomicInteger sent = new AtomicInteger();
+        private volatile ClientCallStreamObserver<UpstreamSegment> requestStream;
+        private volatile boolean closed = false;
+
+        private PersistentStream(TraceSegmentServiceGrpc.TraceSegmentServiceStub serviceStub) {
+            this.upstream = serviceStub.collect(this);
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<UpstreamSegment> requestStream) {
+            this.requestStream = requestStream;
+            requestStream.setOnReadyHandler(new Runnable() {
+                @Override
+                public void run() {
+                    signal();
+                }
+            });
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        private boolean isExpired(long interval) {
+            return System.currentTimeMillis() - openTime > interval;
+        }
+
+        /**
+         * @return false if the stream is closed, or isn't ready in the timeout by the flow control.
+         */
+        private boolean waitUntilReady(long timeout) {
+            ClientCallStreamObserver<UpstreamSegment> callStream = requestStream;
+            if (callStream == null) {
+                return !closed;
+            }
+            long deadline = System.currentTimeMillis() + timeout;
+            synchronized (readyLock) {
+                while (!closed && !callStream.isReady()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    try {
+                        readyLock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+            return !closed;
+        }
+
+        private void send(UpstreamSegment segment) {
+            upstream.onNext(segment);
+            sent.incrementAndGet();
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                upstream.onCompleted();
+                signal();
+            }
+        }
+
+        private void signal() {
+            synchronized (readyLock) {
+                readyLock.notifyAll();
+            }
+        }
+
+        @Override
+        public void onNext(Downstream downstream) {
+
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            closed = true;
+            signal();
+            segmentUnacknowledgedCounter.addAndGet(sent.getAndSet(0));
+            if (logger.isErrorEnable()) {
+                logger.error(throwable, "Send UpstreamSegment to collector fail with a grpc internal exception.");
+            }
+            ServiceManager.INSTANCE.findService(GRPCChannelManager.class).reportError(throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            closed = true;
+            signal();
+            segmentUplinkedCounter.addAndGet(sent.getAndSet(0));
+        }
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The <code>AdaptiveSampler</code> samples the segments under a target of segments per second, which is shared by the
+ * endpoints. Each active endpoint gets a quota of the target in every second, so a hot endpoint can't take all, and the
+ * endpoints with slow or error segments in the last second get a bigger quota. The target halves when the sampled
+ * segments are dropped by the agent, and recovers slowly to the configured one.
+ *
+ * The forced samplings, required by the upstream agents, are never refused, but count in the target.
+ */
+class AdaptiveSampler {
+    /**
+     * The quota of an endpoint is this times of its fair share, so the quiet endpoints don't waste the target.
+     */
+    private static final int QUOTA_FACTOR = 2;
+    private static final int PRIORITY_WEIGHT = 4;
+
+    private final int maxTarget;
+    private final int maxEndpoints;
+    private final long slowThreshold;
+
+    private volatile int target;
+    private volatile int endpointQuota;
+    private final AtomicInteger sampled = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+    private final Endpoint others = new Endpoint();
+
+    AdaptiveSampler(int maxTarget, int maxEndpoints, long slowThreshold) {
+        this.maxTarget = maxTarget;
+        this.maxEndpoints = maxEndpoints;
+        this.slowThreshold = slowThreshold;
+        this.target = maxTarget;
+        this.endpointQuota = maxTarget;
+    }
+
+    boolean trySampling(String endpointName) {
+        Endpoint endpoint = endpoint(endpointName, true);
+        endpoint.requested.incrementAndGet();
+
+        int current = sampled.get();
+        if (current >= target) {
+            return false;
+        }
+        int count = endpoint.sampled.get();
+        if (count >= endpointQuota * endpoint.weight) {
+            return false;
+        }
+        if (!endpoint.sampled.compareAndSet(count, count + 1)) {
+            return false;
+        }
+        sampled.incrementAndGet();
+        return true;
+    }
+
+    void forceSampled() {
+        sampled.incrementAndGet();
+    }
+
+    /**
+     * Feedback of a sampled segment, the slow or error one gives its endpoint priority in the next second.
+     */
+    void finished(String endpointName, long duration, boolean isError) {
+        if (isError || duration >= slowThreshold) {
+            Endpoint endpoint = endpoint(endpointName, false);
+            if (endpoint != null) {
+                endpoint.interesting.incrementAndGet();
+            }
+        }
+    }
+
+    void dropped() {
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Start a new second, adapt the target and the quota of endpoints by the last one.
+     */
+    void resetWindow() {
+        if (dropped.getAndSet(0) > 0) {
+            target = Math.max(1, target / 2);
+        } else if (target < maxTarget) {
+            target = Math.min(maxTarget, target + Math.max(1, maxTarget / 10));
+        }
+
+        int activeEndpoints = others.reset() ? 1 : 0;
+        Iterator<Map.Entry<String, Endpoint>> iterator = endpoints.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().reset()) {
+                activeEndpoints++;
+            } else {
+                iterator.remove();
+            }
+        }
+        endpointQuota = Math.max(1, QUOTA_FACTOR * target / Math.max(1, activeEndpoints));
+        sampled.set(0);
+    }
+
+    int getTarget() {
+        return target;
+    }
+
+    private Endpoint endpoint(String endpointName, boolean create) {
+        if (endpointName == null) {
+            return others;
+        }
+        Endpoint endpoint = endpoints.get(endpointName);
+        if (endpoint == null) {
+            if (!create) {
+                return null;
+            }
+            if (endpoints.size() >= maxEndpoints) {
+                return others;
+            }
+            Endpoint newEndpoint = new Endpoint();
+            endpoint = endpoints.putIfAbsent(endpointName, newEndpoint);
+            if (endpoint == null) {
+                endpoint = newEndpoint;
+            }
+        }
+        return endpoint;
+    }
+
+    private static class Endpoint {
+        private final AtomicInteger requested = new AtomicInteger();
+        private final AtomicInteger sampled = new AtomicInteger();
+        private final AtomicInteger interesting = new AtomicInteger();
+        private volatile int weight = 1;
+
+        /**
+         * @return false if no segment of this endpoint is requested in the last second.
+         */
+        private boolean reset() {
+            weight = interesting.getAndSet(0) > 0 ? PRIORITY_WEIGHT : 1;
+            sampled.set(0);
+            return requested.getAndSet(0) > 0;
+        }
+    }
+}
@@ -39,6 +39,10 @@ import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
  * send all of them to collector, if SAMPLING is on.
  * <p>
  * By default, SAMPLING is on, and  {@link Config.Agent#SAMPLE_N_PER_3_SECS }
+ * <p>
+ * If {@link Config.Agent#SAMPLE_SEGMENTS_PER_SECOND} is set, the {@link AdaptiveSampler} takes charge instead, with
+ * quotas of endpoints and an adaptive target. The decision is propagated to the downstream agents by {@link
+ * org.apache.skywalking.apm.agent.core.context.ContextCarrier}, in both cases.
  *
  * @author wusheng
  */
@@ -48,6 +52,7 @@ public class SamplingService implements BootService {
 
     private volatile boolean on = false;
     private volatile AtomicInteger samplingFactorHolder;
+    private volatile AdaptiveSampler adaptiveSampler;
     private volatile ScheduledFuture<?> scheduledFuture;
 
     @Override
@@ -64,7 +69,25 @@ public class SamplingService implements BootService {
              */
             scheduledFuture.cancel(true);
         }
-        if (Config.Agent.SAMPLE_N_PER_3_SECS > 0) {
+        adaptiveSampler = null;
+        if (Config.Agent.SAMPLE_SEGMENTS_PER_SECOND > 0) {
+            on = true;
+            adaptiveSampler = new AdaptiveSampler(Config.Agent.SAMPLE_SEGMENTS_PER_SECOND,
+                Config.Agent.SAMPLE_ENDPOINTS_LIMIT, Config.Agent.SAMPLE_SLOW_THRESHOLD);
+            ScheduledExecutorService service = Executors
+                .newSingleThreadScheduledExecutor(new DefaultNamedThreadFactory("SamplingService"));
+            scheduledFuture = service.scheduleAtFixedRate(new RunnableWithExceptionProtection(new Runnable() {
+                @Override
+                public void run() {
+                    adaptiveSampler.resetWindow();
+                }
+            }, new RunnableWithExceptionProtection.CallbackWhenException() {
+                @Override public void handle(Throwable t) {
+                    logger.error("unexpected exception.", t);
+                }
+            }), 1, 1, TimeUnit.SECONDS);
+            logger.debug("Agent adaptive sampling mechanism started. Sample {} segments per second.", Config.Agent.SAMPLE_SEGMENTS_PER_SECOND);
+        } else if (Config.Agent.SAMPLE_N_PER_3_SECS > 0) {
             on = true;
             this.resetSamplingFactor();
             ScheduledExecutorService service = Executors
@@ -99,6 +122,18 @@ public class SamplingService implements BootService {
      * @return true, if sampling mechanism is on, and getDefault the sampling factor successfully.
      */
     public boolean trySampling() {
+        return trySampling(null);
+    }
+
+    /**
+     * @param endpoint the operation name of the first span, null if unknown.
+     * @return true, if sampling mechanism is on, and getDefault the sampling factor successfully.
+     */
+    public boolean trySampling(String endpoint) {
+        AdaptiveSampler sampler = adaptiveSampler;
+        if (sampler != null) {
+            return sampler.trySampling(endpoint);
+        }
         if (on) {
             int factor = samplingFactorHolder.get();
             if (factor < Config.Agent.SAMPLE_N_PER_3_SECS) {
@@ -118,11 +153,34 @@ public class SamplingService implements BootService {
      * the trace beginning at local, has less chance to be sampled.
      */
     public void forceSampled() {
-        if (on) {
+        AdaptiveSampler sampler = adaptiveSampler;
+        if (sampler != null) {
+            sampler.forceSampled();
+        } else if (on) {
             samplingFactorHolder.incrementAndGet();
         }
     }
 
+    /**
+     * Notify a sampled segment finished, so the slow or error endpoints get priority in the adaptive sampling.
+     */
+    public void finished(String endpoint, long duration, boolean isError) {
+        AdaptiveSampler sampler = adaptiveSampler;
+        if (sampler != null) {
+            sampler.finished(endpoint, duration, isError);
+        }
+    }
+
+    /**
+     * Notify a sampled segment is dropped by the agent, the adaptive sampling lowers its target.
+     */
+    public void dropped() {
+        AdaptiveSampler sampler = adaptiveSampler;
+        if (sampler != null) {
+            sampler.dropped();
+        }
+    }
+
     private void resetSamplingFactor() {
         samplingFactorHolder = new AtomicInteger(0);
     }
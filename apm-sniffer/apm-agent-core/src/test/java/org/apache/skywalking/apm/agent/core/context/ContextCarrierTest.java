@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context;
+
+import java.util.Collections;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.context.ids.DistributedTraceId;
+import org.apache.skywalking.apm.agent.core.context.ids.ID;
+import org.apache.skywalking.apm.agent.core.context.ids.PropagatedTraceId;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ContextCarrierTest {
+    private static final String LEGACY_HEADER = "2.37.15345678901230001|1|1|1|#127.0.0.1:8080|#/portal/|#/testEntrySpan|2.37.15345678901230001";
+
+    @After
+    public void tearDown() {
+        Config.Agent.COMPACT_HEADER = false;
+    }
+
+    @Test
+    public void testCompactHeader() {
+        ContextCarrier carrier = new ContextCarrier().deserialize(LEGACY_HEADER);
+        assertThat(carrier.isValid(), is(true));
+
+        Config.Agent.COMPACT_HEADER = true;
+        String compactHeader = carrier.serialize();
+        ContextCarrier compactCarrier = new ContextCarrier().deserialize(compactHeader);
+        assertThat(compactCarrier.isValid(), is(true));
+
+        Config.Agent.COMPACT_HEADER = false;
+        assertThat(compactCarrier.serialize(), is(LEGACY_HEADER));
+    }
+
+    @Test
+    public void testCompactHeaderWithIdsAndNames() {
+        ContextCarrier carrier = new ContextCarrier();
+        carrier.setTraceSegmentId(new ID(-5, Long.MAX_VALUE, Long.MIN_VALUE));
+        carrier.setSpanId(300);
+        carrier.setParentApplicationInstanceId(-7);
+        carrier.setEntryApplicationInstanceId(Integer.MAX_VALUE);
+        carrier.setPeerId(12);
+        carrier.setEntryOperationName("/\u4e2d\u6587/\u00e9\u0000\ud83d\ude00");
+        carrier.setParentOperationId(3);
+        carrier.setDistributedTraceIds(Collections.<DistributedTraceId>singletonList(new PropagatedTraceId("1.2.3")));
+        String legacyHeader = carrier.serialize();
+
+        Config.Agent.COMPACT_HEADER = true;
+        ContextCarrier compactCarrier = new ContextCarrier().deserialize(carrier.serialize());
+        assertThat(compactCarrier.isValid(), is(true));
+
+        Config.Agent.COMPACT_HEADER = false;
+        assertThat(compactCarrier.serialize(), is(legacyHeader));
+    }
+
+    @Test
+    public void testMalformedCompactHeader() {
+        Config.Agent.COMPACT_HEADER = true;
+        String compactHeader = new ContextCarrier().deserialize(LEGACY_HEADER).serialize();
+
+        for (int i = 1; i < compactHeader.length(); i++) {
+            assertThat(new ContextCarrier().deserialize(compactHeader.substring(0, i)).isValid(), is(false));
+        }
+        assertThat(new ContextCarrier().deserialize("A!" + compactHeader.substring(2)).isValid(), is(false));
+        assertThat(new ContextCarrier().deserialize("B" + compactHeader.substring(1)).isValid(), is(false));
+    }
+}
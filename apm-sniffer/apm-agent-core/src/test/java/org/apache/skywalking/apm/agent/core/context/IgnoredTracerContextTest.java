@@ -107,4 +107,23 @@ public class IgnoredTracerContextTest {
         assertThat(ignoredTracerContexts.size(), is(1));
     }
 
+    @Test
+    public void ignoredTraceContextWithUnsampledUpstream() {
+        ContextCarrier contextCarrier = new ContextCarrier().deserialize(ContextCarrier.UNSAMPLED);
+        AbstractSpan entrySpan = ContextManager.createEntrySpan("/test", contextCarrier);
+
+        ContextCarrier downstreamCarrier = new ContextCarrier();
+        AbstractSpan exitSpan = ContextManager.createExitSpan("/test/exit", downstreamCarrier, "127.0.0.1:8080");
+        ContextManager.stopSpan();
+        ContextManager.stopSpan();
+
+        assertThat(entrySpan.getClass().getName(), is(NoopSpan.class.getName()));
+        assertThat(exitSpan.getClass().getName(), is(NoopSpan.class.getName()));
+        assertThat(downstreamCarrier.serialize(), is(ContextCarrier.UNSAMPLED));
+        assertThat(downstreamCarrier.isUnsampled(), is(true));
+
+        assertThat(storage.getIgnoredTracerContexts().size(), is(1));
+        assertThat(storage.getTraceSegments().size(), is(0));
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.apm.agent.core.conf.RemoteDownstreamConfig;
+import org.apache.skywalking.apm.agent.core.context.ContextCarrier;
+import org.apache.skywalking.apm.agent.core.context.util.SegmentHelper;
+import org.apache.skywalking.apm.network.language.agent.TraceSegmentObject;
+import org.apache.skywalking.apm.network.trace.component.ComponentsDefine;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SegmentEncoderTest {
+
+    @Before
+    public void setUp() {
+        RemoteDownstreamConfig.Agent.APPLICATION_ID = 1;
+        RemoteDownstreamConfig.Agent.APPLICATION_INSTANCE_ID = 1;
+    }
+
+    @Test
+    public void testSameAsMessages() {
+        TraceSegment segment = new TraceSegment();
+
+        EntrySpan entrySpan = new EntrySpan(0, -1, 5);
+        entrySpan.start();
+        entrySpan.setComponent(ComponentsDefine.TOMCAT);
+        SpanLayer.asHttp(entrySpan);
+        entrySpan.tag("url", "http://127.0.0.1:8080/\u4e2d\u6587");
+        entrySpan.tag("http.method", null);
+        entrySpan.ref(new TraceSegmentRef(new ContextCarrier().deserialize("1.2343.234234234|1|1|1|#127.0.0.1:8080|#/portal/|#/testEntrySpan|1.2343.234234234")));
+
+        for (int i = 1; i <= 3; i++) {
+            ExitSpan exitSpan = i == 1 ? new ExitSpan(i, 0, "/exit", "127.0.0.1:3306") : new ExitSpan(i, 0, i * 100, i);
+            exitSpan.start();
+            SpanLayer.asDB(exitSpan);
+            exitSpan.setComponent("custom-db");
+            exitSpan.tag("db.statement", "select * from t where id = " + i);
+            exitSpan.log(new RuntimeException("error " + i));
+            exitSpan.errorOccurred();
+            exitSpan.finish(segment);
+        }
+
+        LocalSpan localSpan = new LocalSpan(4, 0, "/local");
+        localSpan.start();
+        Map<String, String> fields = new HashMap<String, String>();
+        fields.put("event", "info");
+        localSpan.log(1000L, fields);
+        localSpan.finish(segment);
+
+        entrySpan.finish(segment);
+
+        assertEncoded(segment, false);
+        segment.finish(true);
+        assertEncoded(segment, true);
+        // The buffer is reused.
+        assertEncoded(segment, true);
+    }
+
+    @Test
+    public void testEmptySegment() {
+        assertEncoded(new TraceSegment(), false);
+    }
+
+    private void assertEncoded(TraceSegment segment, boolean isSizeLimited) {
+        TraceSegmentObject.Builder builder = TraceSegmentObject.newBuilder();
+        builder.setTraceSegmentId(segment.getTraceSegmentId().transform());
+        List<AbstractTracingSpan> spans = SegmentHelper.getSpan(segment);
+        for (AbstractTracingSpan span : spans) {
+            builder.addSpans(span.transform());
+        }
+        builder.setApplicationId(1);
+        builder.setApplicationInstanceId(1);
+        builder.setIsSizeLimited(isSizeLimited);
+
+        assertThat(segment.transform().getSegment(), is(builder.build().toByteString()));
+    }
+}
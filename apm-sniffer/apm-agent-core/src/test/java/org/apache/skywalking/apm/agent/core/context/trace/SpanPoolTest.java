@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.context.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.agent.core.conf.Config;
+import org.apache.skywalking.apm.agent.core.dictionary.DictionaryUtil;
+import org.apache.skywalking.apm.network.language.agent.SpanObject;
+import org.apache.skywalking.apm.network.trace.component.ComponentsDefine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNull;
+
+public class SpanPoolTest {
+
+    @Before
+    public void setUp() {
+        Config.Agent.RECYCLE_SPAN = true;
+    }
+
+    @After
+    public void tearDown() {
+        Config.Agent.RECYCLE_SPAN = false;
+    }
+
+    @Test
+    public void testRecycle() {
+        EntrySpan entrySpan = SpanPool.newEntrySpan(0, -1, "/entry", DictionaryUtil.nullValue());
+        entrySpan.start();
+        entrySpan.tag("url", "/entry");
+        entrySpan.setComponent(ComponentsDefine.TOMCAT);
+        entrySpan.errorOccurred();
+        ExitSpan exitSpan = SpanPool.newExitSpan(1, 0, null, 5, "127.0.0.1:8080", DictionaryUtil.nullValue());
+        exitSpan.start();
+        exitSpan.log(new RuntimeException());
+
+        List<AbstractTracingSpan> spans = new ArrayList<AbstractTracingSpan>();
+        spans.add(entrySpan);
+        spans.add(exitSpan);
+        SpanPool.recycle(spans);
+
+        EntrySpan reusedEntrySpan = SpanPool.newEntrySpan(2, -1, null, 3);
+        assertThat(reusedEntrySpan, sameInstance(entrySpan));
+        SpanObject entrySpanObject = reusedEntrySpan.transform().build();
+        assertThat(entrySpanObject.getSpanId(), is(2));
+        assertThat(entrySpanObject.getParentSpanId(), is(-1));
+        assertThat(entrySpanObject.getOperationNameId(), is(3));
+        assertThat(entrySpanObject.getTagsCount(), is(0));
+        assertThat(entrySpanObject.getComponentId(), is(0));
+        assertThat(entrySpanObject.getIsError(), is(false));
+
+        ExitSpan reusedExitSpan = SpanPool.newExitSpan(3, 2, "/exit", DictionaryUtil.nullValue(), null, 7);
+        assertThat(reusedExitSpan, sameInstance(exitSpan));
+        assertThat(reusedExitSpan.getOperationName(), is("/exit"));
+        assertNull(reusedExitSpan.getPeer());
+        assertThat(reusedExitSpan.getPeerId(), is(7));
+        assertThat(reusedExitSpan.transform().getLogsCount(), is(0));
+
+        reusedExitSpan.start();
+        reusedExitSpan.tag("db.statement", "select 1");
+        assertThat(reusedExitSpan.transform().getTagsCount(), is(1));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.jvm;
+
+import org.apache.skywalking.apm.network.language.agent.CPU;
+import org.apache.skywalking.apm.network.language.agent.GC;
+import org.apache.skywalking.apm.network.language.agent.GCPhrase;
+import org.apache.skywalking.apm.network.language.agent.JVMMetric;
+import org.apache.skywalking.apm.network.language.agent.Memory;
+import org.apache.skywalking.apm.network.language.agent.MemoryPool;
+import org.apache.skywalking.apm.network.language.agent.PoolType;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class JVMMetricAggregatorTest {
+
+    @Test
+    public void testDefaultResolution() {
+        JVMMetricAggregator aggregator = new JVMMetricAggregator(1);
+        JVMMetric metric = metric(1000, 10, 100, 3, 20);
+        assertThat(aggregator.add(metric), sameInstance(metric));
+    }
+
+    @Test
+    public void testAggregate() {
+        JVMMetricAggregator aggregator = new JVMMetricAggregator(2);
+        assertThat(aggregator.add(metric(1000, 10, 100, 3, 20)), nullValue());
+
+        JVMMetric metric = aggregator.add(metric(2000, 30, 300, 1, 0));
+        assertThat(metric.getTime(), is(2000L));
+        assertThat(metric.getCpu().getUsagePercent(), is(20D));
+        assertThat(metric.getMemory(0).getUsed(), is(200L));
+        assertThat(metric.getMemoryPool(0).getUsed(), is(200L));
+        assertThat(metric.getGc(0).getCount(), is(4L));
+        assertThat(metric.getGc(0).getTime(), is(10L));
+
+        assertThat(aggregator.add(metric(3000, 10, 100, 0, 0)), nullValue());
+        metric = aggregator.add(metric(4000, 10, 100, 0, 0));
+        assertThat(metric.getCpu().getUsagePercent(), is(10D));
+        assertThat(metric.getGc(0).getCount(), is(0L));
+    }
+
+    private JVMMetric metric(long time, double cpu, long used, long gcCount, long gcTime) {
+        return JVMMetric.newBuilder()
+            .setTime(time)
+            .setCpu(CPU.newBuilder().setUsagePercent(cpu))
+            .addMemory(Memory.newBuilder().setIsHeap(true).setUsed(used))
+            .addMemoryPool(MemoryPool.newBuilder().setType(PoolType.OLDGEN_USAGE).setUsed(used))
+            .addGc(GC.newBuilder().setPhrase(GCPhrase.OLD).setCount(gcCount).setTime(gcTime))
+            .build();
+    }
+}
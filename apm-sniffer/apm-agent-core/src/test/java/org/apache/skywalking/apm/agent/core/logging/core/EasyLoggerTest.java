@@ -120,6 +120,16 @@ public class EasyLoggerTest {
         Assert.assertEquals("\tat org.apache.skywalking.apm.agent.core.logging.core.EasyLoggerTest.testFormat(EasyLoggerTest.java:115)", lines[2]);
     }
 
+    @Test
+    public void testReplaceParam() {
+        EasyLogger logger = new EasyLogger(EasyLoggerTest.class);
+        Assert.assertEquals("hello world", logger.replaceParam("hello {}", "world"));
+        Assert.assertEquals("hello {} and {}", logger.replaceParam("hello {} and {}", "{}"));
+        Assert.assertEquals("12", logger.replaceParam("{}{}", 1, 2, 3));
+        Assert.assertEquals("hello $1 \\", logger.replaceParam("hello {} {}", "$1", "\\"));
+        Assert.assertEquals("hello {}", logger.replaceParam("hello {}"));
+    }
+
     @AfterClass
     public static void reset() {
         System.setOut(OUT_REF);
@@ -24,9 +24,15 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.Constants;
+import org.powermock.reflect.Whitebox;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author wusheng
@@ -50,6 +56,51 @@ public class FileWriterTest {
         Thread.sleep(10000L);
     }
 
+    @Test
+    public void testSuppressRepeatedMessages() {
+        FileWriter writer = FileWriter.get();
+        int acquired = 0;
+        for (int i = 0; i < 300; i++) {
+            if (writer.tryAcquire("repeated {}")) {
+                acquired++;
+            }
+        }
+
+        // At most two seconds are passed.
+        assertTrue(acquired <= Config.Logging.MAX_REPEATS_PER_SECOND * 2);
+        assertTrue(writer.tryAcquire("another {}"));
+    }
+
+    @Test
+    public void testRepeatingFormatKeptBeyondLimit() {
+        FileWriter writer = FileWriter.get();
+        long second = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < Config.Logging.MAX_REPEATS_PER_SECOND; i++) {
+            assertTrue(writer.tryAcquire("kept {}", second));
+        }
+        assertFalse(writer.tryAcquire("kept {}", second));
+
+        Map<String, ?> repeatCounters = Whitebox.getInternalState(writer, "repeatCounters");
+        try {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(writer.tryAcquire("format " + i + " {}", second));
+            }
+            assertFalse(writer.tryAcquire("kept {}", second));
+        } finally {
+            repeatCounters.clear();
+        }
+    }
+
+    @Test
+    public void testCallerArgumentsUnchanged() {
+        FileWriter writer = FileWriter.get();
+        StringBuilder mutable = new StringBuilder("mutable");
+        Object[] arguments = new Object[] {mutable, 1};
+        writer.write(new EasyLogger(FileWriterTest.class), LogLevel.INFO, "arguments {} {}", arguments, null);
+
+        assertSame(mutable, arguments[0]);
+    }
+
     @AfterClass
     public static void clear() {
         Config.Logging.MAX_FILE_SIZE = 300 * 1024 * 1024;
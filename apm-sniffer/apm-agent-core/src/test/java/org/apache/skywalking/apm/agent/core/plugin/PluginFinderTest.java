@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.plugin;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.apache.skywalking.apm.agent.core.plugin.match.ClassAnnotationMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.ClassMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.HierarchyMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.MethodAnnotationMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.MultiClassNameMatch;
+import org.apache.skywalking.apm.agent.core.plugin.match.NameMatch;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PluginFinderTest {
+    private final MockPluginDefine namePlugin = new MockPluginDefine(NameMatch.byName(Service.class.getName()));
+    private final MockPluginDefine multiNamePlugin = new MockPluginDefine(MultiClassNameMatch.byMultiClassMatch(Service.class.getName(), Callable.class.getName()));
+    private final MockPluginDefine hierarchyPlugin = new MockPluginDefine(HierarchyMatch.byHierarchyMatch(new String[] {Callable.class.getName()}));
+    private final MockPluginDefine classAnnotationPlugin = new MockPluginDefine(ClassAnnotationMatch.byClassAnnotationMatch(new String[] {Traced.class.getName(), Component.class.getName()}));
+    private final MockPluginDefine methodAnnotationPlugin = new MockPluginDefine(MethodAnnotationMatch.byMethodAnnotationMatch(new String[] {Traced.class.getName()}));
+
+    private final PluginFinder finder = new PluginFinder(Arrays.<AbstractClassEnhancePluginDefine>asList(
+        namePlugin, multiNamePlugin, hierarchyPlugin, classAnnotationPlugin, methodAnnotationPlugin));
+
+    @Test
+    public void testFind() {
+        assertFound(Service.class, namePlugin, multiNamePlugin, methodAnnotationPlugin);
+        assertFound(Task.class, hierarchyPlugin);
+        assertFound(SubTask.class, hierarchyPlugin);
+        assertFound(AnnotatedComponent.class, classAnnotationPlugin);
+        assertFound(PartlyAnnotatedComponent.class);
+        assertFound(Object.class);
+    }
+
+    @Test
+    public void testInterfaceNotMatchedByIndirectMatch() {
+        assertFound(Callable.class, multiNamePlugin);
+        assertFound(ExtendedCallable.class);
+    }
+
+    @Test
+    public void testMatchAndFind() {
+        ElementMatcher<? super TypeDescription> matcher = finder.buildMatch();
+        TypeDescription typeDescription = new TypeDescription.ForLoadedType(SubTask.class);
+        assertThat(matcher.matches(typeDescription), is(true));
+        assertThat(finder.find(typeDescription, null).size(), is(1));
+
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(Object.class)), is(false));
+        assertThat(matcher.matches(new TypeDescription.ForLoadedType(ExtendedCallable.class)), is(false));
+    }
+
+    private void assertFound(Class<?> type, AbstractClassEnhancePluginDefine... plugins) {
+        List<AbstractClassEnhancePluginDefine> found = finder.find(new TypeDescription.ForLoadedType(type), null);
+        assertThat(found, is(Arrays.asList(plugins)));
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Traced {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Component {
+    }
+
+    public static class Service {
+        @Traced
+        public void serve() {
+        }
+    }
+
+    public static class Task implements Callable<String> {
+        @Override
+        public String call() {
+            return null;
+        }
+    }
+
+    public static class SubTask extends Task {
+    }
+
+    public interface ExtendedCallable extends Callable<String> {
+    }
+
+    @Traced
+    @Component
+    public static class AnnotatedComponent {
+    }
+
+    @Traced
+    public static class PartlyAnnotatedComponent {
+    }
+
+    private static class MockPluginDefine extends AbstractClassEnhancePluginDefine {
+        private final ClassMatch match;
+
+        private MockPluginDefine(ClassMatch match) {
+            this.match = match;
+        }
+
+        @Override
+        protected DynamicType.Builder<?> enhance(String enhanceOriginClassName,
+            DynamicType.Builder<?> newClassBuilder, ClassLoader classLoader, EnhanceContext context) {
+            return newClassBuilder;
+        }
+
+        @Override
+        protected ClassMatch enhanceClass() {
+            return match;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.plugin.loader;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InterceptorInstanceLoaderTest {
+
+    @Test
+    public void testSingletonOfTargetClassLoader() throws Throwable {
+        ClassLoader targetClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        Object interceptor = InterceptorInstanceLoader.load(MockInterceptor.class.getName(), targetClassLoader);
+
+        assertThat(InterceptorInstanceLoader.load(MockInterceptor.class.getName(), targetClassLoader), sameInstance(interceptor));
+        assertThat(interceptor.getClass().getName(), is(MockInterceptor.class.getName()));
+    }
+
+    @Test
+    public void testKeptAfterGC() throws Throwable {
+        ClassLoader targetClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        Object interceptor = InterceptorInstanceLoader.load(MockInterceptor.class.getName(), targetClassLoader);
+        System.gc();
+
+        assertThat(InterceptorInstanceLoader.load(MockInterceptor.class.getName(), targetClassLoader), sameInstance(interceptor));
+    }
+
+    @Test
+    public void testInstancePerTargetClassLoader() throws Throwable {
+        ClassLoader first = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ClassLoader second = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        Object firstInterceptor = InterceptorInstanceLoader.load(MockInterceptor.class.getName(), first);
+        Object secondInterceptor = InterceptorInstanceLoader.load(MockInterceptor.class.getName(), second);
+
+        assertThat(secondInterceptor, not(sameInstance(firstInterceptor)));
+        assertThat(InterceptorInstanceLoader.load(MockInterceptor.class.getName(), null),
+            sameInstance(InterceptorInstanceLoader.load(MockInterceptor.class.getName(), null)));
+    }
+
+    public static class MockInterceptor {
+    }
+}
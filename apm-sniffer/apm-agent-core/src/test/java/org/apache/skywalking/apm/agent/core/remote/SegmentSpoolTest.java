@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.remote;
+
+import com.google.protobuf.ByteString;
+import java.io.File;
+import java.util.List;
+import org.apache.skywalking.apm.network.language.agent.UpstreamSegment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SegmentSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplay() throws Exception {
+        File dir = folder.newFolder("spool");
+        SegmentSpool spool = new SegmentSpool(dir, 1024, 10 * 1024);
+        for (int i = 0; i < 3; i++) {
+            assertThat(spool.write(segment("segment-" + i)), is(true));
+        }
+        assertThat(spool.size(), is(3));
+
+        SegmentSpool.Batch batch = spool.peek(2);
+        List<UpstreamSegment> segments = batch.getSegments();
+        assertThat(segments.size(), is(2));
+        assertThat(segments.get(0).getSegment().toStringUtf8(), is("segment-0"));
+        assertThat(segments.get(1).getSegment().toStringUtf8(), is("segment-1"));
+        assertThat(spool.size(), is(3));
+
+        spool.commit(batch);
+        assertThat(spool.size(), is(1));
+        assertThat(spool.peek(2).getSegments().get(0).getSegment().toStringUtf8(), is("segment-2"));
+        spool.close();
+
+        spool = new SegmentSpool(dir, 1024, 10 * 1024);
+        assertThat(spool.size(), is(1));
+        batch = spool.peek(10);
+        segments = batch.getSegments();
+        assertThat(segments.size(), is(1));
+        assertThat(segments.get(0).getSegment().toStringUtf8(), is("segment-2"));
+
+        spool.write(segment("segment-3"));
+        spool.commit(batch);
+        assertThat(spool.size(), is(1));
+        assertThat(spool.peek(10).getSegments().get(0).getSegment().toStringUtf8(), is("segment-3"));
+        spool.close();
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        File dir = folder.newFolder("spool");
+        SegmentSpool spool = new SegmentSpool(dir, 256, 512);
+        for (int i = 0; i < 100; i++) {
+            spool.write(segment("segment-" + i));
+        }
+        assertThat(dir.listFiles().length, is(2));
+
+        List<UpstreamSegment> segments = spool.peek(100).getSegments();
+        assertThat(segments.size(), is(spool.size()));
+        assertThat(segments.get(segments.size() - 1).getSegment().toStringUtf8(), is("segment-99"));
+        spool.close();
+    }
+
+    @Test
+    public void testCommitAfterEviction() throws Exception {
+        File dir = folder.newFolder("spool");
+        SegmentSpool spool = new SegmentSpool(dir, 256, 512);
+        for (int i = 0; i < 10; i++) {
+            spool.write(segment("segment-" + i));
+        }
+        SegmentSpool.Batch batch = spool.peek(1);
+        assertThat(batch.getSegments().get(0).getSegment().toStringUtf8(), is("segment-0"));
+
+        for (int i = 10; i < 100; i++) {
+            spool.write(segment("segment-" + i));
+        }
+        int spooled = spool.size();
+        spool.commit(batch);
+        assertThat(spool.size(), is(spooled));
+        spool.close();
+    }
+
+    @Test
+    public void testTooLargeSegment() throws Exception {
+        SegmentSpool spool = new SegmentSpool(folder.newFolder("spool"), 64, 1024);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append(i);
+        }
+        assertThat(spool.write(segment(builder.toString())), is(false));
+        assertThat(spool.size(), is(0));
+        spool.close();
+    }
+
+    private UpstreamSegment segment(String content) {
+        return UpstreamSegment.newBuilder().setSegment(ByteString.copyFromUtf8(content)).build();
+    }
+}
@@ -25,7 +25,9 @@ import io.grpc.testing.GrpcServerRule;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.skywalking.apm.agent.core.conf.Config;
 import org.apache.skywalking.apm.agent.core.conf.RemoteDownstreamConfig;
 import org.apache.skywalking.apm.agent.core.context.tag.Tags;
 import org.apache.skywalking.apm.agent.core.context.trace.AbstractSpan;
@@ -65,10 +67,12 @@ public class TraceSegmentServiceClientTest {
 
     private TraceSegmentServiceClient serviceClient = new TraceSegmentServiceClient();
     private List<UpstreamSegment> upstreamSegments;
+    private int streams;
 
     private TraceSegmentServiceGrpc.TraceSegmentServiceImplBase serviceImplBase = new TraceSegmentServiceGrpc.TraceSegmentServiceImplBase() {
         @Override
         public StreamObserver<UpstreamSegment> collect(final StreamObserver<Downstream> responseObserver) {
+            streams++;
             return new StreamObserver<UpstreamSegment>() {
                 @Override
                 public void onNext(UpstreamSegment value) {
@@ -107,8 +111,15 @@ public class TraceSegmentServiceClientTest {
         Whitebox.setInternalState(serviceClient, "serviceStub",
                 TraceSegmentServiceGrpc.newStub(grpcServerRule.getChannel()));
         Whitebox.setInternalState(serviceClient, "status", GRPCChannelStatus.CONNECTED);
+        Whitebox.setInternalState(serviceClient, "lastLogTime", System.currentTimeMillis());
 
         upstreamSegments = new ArrayList<UpstreamSegment>();
+        streams = 0;
+    }
+
+    @After
+    public void tearDown() {
+        Config.Collector.PERSISTENT_SEGMENT_STREAM = false;
     }
 
     @Test
@@ -135,6 +146,7 @@ public class TraceSegmentServiceClientTest {
         assertThat(spanObject.getSpanType(), is(SpanType.Entry));
         assertThat(spanObject.getSpanId(), is(0));
         assertThat(spanObject.getParentSpanId(), is(-1));
+        assertThat(uplinked(), is(1L));
     }
 
     @Test
@@ -151,9 +163,44 @@ public class TraceSegmentServiceClientTest {
         serviceClient.consume(storage.getTraceSegments());
 
         assertThat(upstreamSegments.size(), is(0));
+        assertThat(uplinked(), is(0L));
 
         boolean reconnect = Whitebox.getInternalState(ServiceManager.INSTANCE.findService(GRPCChannelManager.class), "reconnect");
         assertThat(reconnect, is(true));
 
     }
+
+    @Test
+    public void testSendTraceSegmentByPersistentStream() throws InvalidProtocolBufferException {
+        Config.Collector.PERSISTENT_SEGMENT_STREAM = true;
+        grpcServerRule.getServiceRegistry().addService(serviceImplBase);
+
+        AbstractSpan firstEntrySpan = ContextManager.createEntrySpan("/testFirstEntry", null);
+        firstEntrySpan.setComponent(ComponentsDefine.TOMCAT);
+        SpanLayer.asHttp(firstEntrySpan);
+        ContextManager.stopSpan();
+
+        serviceClient.consume(storage.getTraceSegments());
+        serviceClient.consume(storage.getTraceSegments());
+
+        assertThat(upstreamSegments.size(), is(2));
+        assertThat(streams, is(1));
+        assertThat(uplinked(), is(0L));
+
+        serviceClient.statusChanged(GRPCChannelStatus.DISCONNECT);
+        assertThat(uplinked(), is(2L));
+        Whitebox.setInternalState(serviceClient, "status", GRPCChannelStatus.CONNECTED);
+        serviceClient.consume(storage.getTraceSegments());
+
+        assertThat(upstreamSegments.size(), is(3));
+        assertThat(streams, is(2));
+
+        TraceSegmentObject traceSegmentObject = TraceSegmentObject.parseFrom(upstreamSegments.get(2).getSegment());
+        assertThat(traceSegmentObject.getSpansCount(), is(1));
+    }
+
+    private long uplinked() {
+        AtomicLong counter = Whitebox.getInternalState(serviceClient, "segmentUplinkedCounter");
+        return counter.get();
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.skywalking.apm.agent.core.sampling;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AdaptiveSamplerTest {
+
+    @Test
+    public void testTarget() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10, 100, 1000);
+        assertThat(sample(sampler, "/hot", 100), is(10));
+
+        sampler.resetWindow();
+        sampler.forceSampled();
+        assertThat(sample(sampler, "/hot", 100), is(9));
+    }
+
+    @Test
+    public void testEndpointQuota() {
+        AdaptiveSampler sampler = new AdaptiveSampler(100, 100, 1000);
+        for (int i = 0; i < 10; i++) {
+            sample(sampler, "/endpoint-" + i, 1);
+        }
+        sampler.resetWindow();
+
+        // 10 active endpoints, each one gets 2 times of the fair share.
+        assertThat(sample(sampler, "/endpoint-0", 1000), is(20));
+        assertThat(sample(sampler, "/endpoint-1", 1000), is(20));
+    }
+
+    @Test
+    public void testPriorityOfSlowEndpoint() {
+        AdaptiveSampler sampler = new AdaptiveSampler(100, 100, 1000);
+        for (int i = 0; i < 10; i++) {
+            sample(sampler, "/endpoint-" + i, 1);
+        }
+        sampler.finished("/endpoint-0", 3000, false);
+        sampler.finished("/endpoint-1", 10, true);
+        sampler.finished("/endpoint-2", 10, false);
+        sampler.resetWindow();
+
+        assertThat(sample(sampler, "/endpoint-0", 1000), is(80));
+        assertThat(sample(sampler, "/endpoint-2", 1000), is(20));
+        // The target is reached.
+        assertThat(sample(sampler, "/endpoint-1", 1000), is(0));
+    }
+
+    @Test
+    public void testAdaptiveTarget() {
+        AdaptiveSampler sampler = new AdaptiveSampler(100, 100, 1000);
+        sampler.dropped();
+        sampler.resetWindow();
+        assertThat(sampler.getTarget(), is(50));
+
+        sampler.dropped();
+        sampler.resetWindow();
+        assertThat(sampler.getTarget(), is(25));
+
+        sampler.resetWindow();
+        assertThat(sampler.getTarget(), is(35));
+        for (int i = 0; i < 10; i++) {
+            sampler.resetWindow();
+        }
+        assertThat(sampler.getTarget(), is(100));
+    }
+
+    @Test
+    public void testEndpointsLimit() {
+        AdaptiveSampler sampler = new AdaptiveSampler(100, 2, 1000);
+        sample(sampler, "/endpoint-0", 1);
+        sample(sampler, "/endpoint-1", 1);
+        sample(sampler, "/endpoint-2", 1);
+        sample(sampler, "/endpoint-3", 1);
+        sampler.resetWindow();
+
+        // 3 active endpoints, including the shared one.
+        assertThat(sample(sampler, "/endpoint-2", 1000), is(66));
+        assertThat(sample(sampler, "/endpoint-3", 1000), is(0));
+    }
+
+    private int sample(AdaptiveSampler sampler, String endpoint, int times) {
+        int sampled = 0;
+        for (int i = 0; i < times; i++) {
+            if (sampler.trySampling(endpoint)) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+}
@@ -18,12 +18,17 @@
 
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.joda.time.LocalDateTime;
@@ -35,6 +40,10 @@ import org.slf4j.LoggerFactory;
  * Alarm core includes metric values in certain time windows based on alarm settings. By using its internal timer
  * trigger and the alarm rules to decides whether send the alarm to database and webhook(s)
  *
+ * The windows are checked by the shards concurrently, each running rule keeps its windows partitioned by the shards,
+ * so a shard only visits its own windows. The alarm messages are delivered by the callbacks, which are expected to be
+ * asynchronous.
+ *
  * @author wusheng
  */
 public class AlarmCore {
@@ -42,11 +51,21 @@ public class AlarmCore {
 
     private Map<String, List<RunningRule>> runningContext;
     private LocalDateTime lastExecuteTime;
+    private final int shards;
+    private final ExecutorService evaluator;
+    private volatile List<AlarmCallback> allCallbacks;
 
     AlarmCore(Rules rules) {
+        this(rules, 1, false);
+    }
+
+    AlarmCore(Rules rules, int shards, boolean checkAtIngest) {
+        this.shards = Math.max(1, shards);
+        this.evaluator = Executors.newFixedThreadPool(this.shards,
+            new ThreadFactoryBuilder().setNameFormat("AlarmEvaluator-%d").setDaemon(true).build());
         runningContext = new HashMap<>();
         rules.getRules().forEach(rule -> {
-            RunningRule runningRule = new RunningRule(rule);
+            RunningRule runningRule = new RunningRule(rule, checkAtIngest, this.shards);
 
             String indicatorName = rule.getIndicatorName();
 
@@ -64,33 +83,86 @@ public class AlarmCore {
     }
 
     public void start(List<AlarmCallback> allCallbacks) {
+        this.allCallbacks = allCallbacks;
         LocalDateTime now = LocalDateTime.now();
         lastExecuteTime = now;
         Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
             try {
+                LocalDateTime checkTime = LocalDateTime.now();
+                int minutes = Minutes.minutesBetween(lastExecuteTime, checkTime).getMinutes();
+                if (minutes <= 0) {
+                    return;
+                }
+                /**
+                 * Don't run in the first quarter per min, avoid to trigger false alarm.
+                 */
+                boolean isCheck = checkTime.getSecondOfMinute() > 15;
+
+                List<Future<List<AlarmMessage>>> futures = new ArrayList<>(shards);
+                for (int shard = 0; shard < shards; shard++) {
+                    int current = shard;
+                    futures.add(evaluator.submit(() -> evaluate(checkTime, isCheck, current)));
+                }
                 List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
-                runningContext.values().forEach(ruleList -> ruleList.forEach(runningRule -> {
-                    LocalDateTime checkTime = LocalDateTime.now();
-                    int minutes = Minutes.minutesBetween(lastExecuteTime, checkTime).getMinutes();
-                    if (minutes > 0) {
-                        runningRule.moveTo(checkTime);
-                        /**
-                         * Don't run in the first quarter per min, avoid to trigger false alarm.
-                         */
-                        if (checkTime.getSecondOfMinute() > 15) {
-                            alarmMessageList.addAll(runningRule.check());
-                            // Set the last execute time, and make sure the second is `00`, such as: 18:30:00
-                            lastExecuteTime = checkTime.minusSeconds(checkTime.getSecondOfMinute());
-                        }
-                    }
-                }));
+                for (Future<List<AlarmMessage>> future : futures) {
+                    alarmMessageList.addAll(future.get());
+                }
+
+                if (isCheck) {
+                    // Set the last execute time, and make sure the second is `00`, such as: 18:30:00
+                    lastExecuteTime = checkTime.minusSeconds(checkTime.getSecondOfMinute());
+                }
 
                 if (alarmMessageList.size() > 0) {
                     allCallbacks.forEach(callback -> callback.doAlarm(alarmMessageList));
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.error(e.getMessage(), e.getCause());
             } catch (Exception e) {
                 logger.error(e.getMessage(), e);
             }
         }, 10, 10, TimeUnit.SECONDS);
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::report,
+                t -> logger.error("Report alarm windows failure.", t)), 5, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Deliver the alarms triggered at ingest.
+     */
+    void deliver(List<AlarmMessage> alarmMessageList) {
+        List<AlarmCallback> callbacks = allCallbacks;
+        if (callbacks != null) {
+            callbacks.forEach(callback -> callback.doAlarm(alarmMessageList));
+        }
+    }
+
+    private void report() {
+        int windows = 0;
+        long bytes = 0;
+        for (List<RunningRule> ruleList : runningContext.values()) {
+            for (RunningRule runningRule : ruleList) {
+                windows += runningRule.getWindowCount();
+                bytes += runningRule.getEstimatedBytes();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Alarm rule {}, windows: {}, estimated bytes: {}", runningRule.getRuleName(), runningRule.getWindowCount(), runningRule.getEstimatedBytes());
+                }
+            }
+        }
+        logger.info("Alarm windows: {}, estimated bytes: {}", windows, bytes);
+    }
+
+    private List<AlarmMessage> evaluate(LocalDateTime checkTime, boolean isCheck, int shard) {
+        List<AlarmMessage> alarmMessageList = new ArrayList<>();
+        runningContext.values().forEach(ruleList -> ruleList.forEach(runningRule -> {
+            runningRule.moveTo(checkTime, shard);
+            if (isCheck) {
+                alarmMessageList.addAll(runningRule.check(shard));
+            }
+        }));
+        return alarmMessageList;
     }
 }
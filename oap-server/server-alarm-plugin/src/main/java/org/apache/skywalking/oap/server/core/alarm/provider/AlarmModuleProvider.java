@@ -25,6 +25,13 @@ import org.apache.skywalking.oap.server.library.module.*;
 import org.apache.skywalking.oap.server.library.util.ResourceUtils;
 
 public class AlarmModuleProvider extends ModuleProvider {
+    private final AlarmSettings settings;
+
+    public AlarmModuleProvider() {
+        super();
+        this.settings = new AlarmSettings();
+    }
+
     @Override public String name() {
         return "default";
     }
@@ -34,7 +41,7 @@ public class AlarmModuleProvider extends ModuleProvider {
     }
 
     @Override public ModuleConfig createConfigBeanIfAbsent() {
-        return new AlarmSettings();
+        return settings;
     }
 
     @Override public void prepare() throws ServiceNotProvidedException, ModuleStartException {
@@ -46,7 +53,7 @@ public class AlarmModuleProvider extends ModuleProvider {
         }
         RulesReader reader = new RulesReader(applicationReader);
         Rules rules = reader.readRules();
-        this.registerServiceImplementation(IndicatorNotify.class, new NotifyHandler(rules));
+        this.registerServiceImplementation(IndicatorNotify.class, new NotifyHandler(rules, settings));
     }
 
     @Override public void start() throws ServiceNotProvidedException, ModuleStartException {
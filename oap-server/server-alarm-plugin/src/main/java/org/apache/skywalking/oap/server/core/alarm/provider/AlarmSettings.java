@@ -18,7 +18,31 @@
 
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
+import lombok.Getter;
+import lombok.Setter;
 import org.apache.skywalking.oap.server.library.module.ModuleConfig;
 
+@Getter
+@Setter
 public class AlarmSettings extends ModuleConfig {
+    /**
+     * The threads checking the running rules, the windows are sharded by the rule and the entity. 0 means the
+     * processors.
+     */
+    private int evaluationThreads = 0;
+    /**
+     * Check the rules as the indicators arrive, so the alarms are triggered in seconds instead of by the check once
+     * per minute.
+     */
+    private boolean checkAtIngest = false;
+    /**
+     * The alarm messages waiting for each callback, the new ones are dropped when it is full.
+     */
+    private int notifyQueueSize = 10000;
+    private int notifyBatchSize = 100;
+    private int webhookRetries = 3;
+    /**
+     * Milliseconds before the first retry of a webhook, doubled on each retry.
+     */
+    private int webhookRetryBackoff = 1000;
 }
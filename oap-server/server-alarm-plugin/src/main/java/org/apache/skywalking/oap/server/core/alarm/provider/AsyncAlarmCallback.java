@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
+import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deliver the alarm messages to the callback in its own thread, so a slow callback, such as a webhook, delays neither
+ * the checks of the rules nor the other callbacks.
+ *
+ * The messages wait in a bounded queue, the new ones are dropped and counted when it is full. The waiting messages
+ * are delivered in batches, a batch is counted as failed when the callback throws.
+ */
+public class AsyncAlarmCallback implements AlarmCallback {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAlarmCallback.class);
+
+    private final AlarmCallback callback;
+    private final BlockingQueue<AlarmMessage> queue;
+    private final int batchSize;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AsyncAlarmCallback(AlarmCallback callback, int queueSize, int batchSize) {
+        this.callback = callback;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+
+        Thread deliverThread = new Thread(this::deliverLoop, "AlarmDeliver-" + callback.getClass().getSimpleName());
+        deliverThread.setDaemon(true);
+        deliverThread.start();
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::report,
+                t -> logger.error("Report alarm delivery failure.", t)), 5, 5, TimeUnit.MINUTES);
+    }
+
+    @Override public void doAlarm(List<AlarmMessage> alarmMessage) {
+        for (AlarmMessage message : alarmMessage) {
+            if (!queue.offer(message)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void deliverLoop() {
+        List<AlarmMessage> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<AlarmMessage> batch) {
+        try {
+            callback.doAlarm(new ArrayList<>(batch));
+            delivered.add(batch.size());
+        } catch (Throwable t) {
+            failed.add(batch.size());
+            logger.error("Deliver alarm messages to {} failure: {}", callback.getClass().getSimpleName(), t.getMessage());
+        }
+    }
+
+    long getDelivered() {
+        return delivered.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    private void report() {
+        logger.info("Alarm delivery of {}, delivered: {}, dropped: {}, failed: {}, queued: {}",
+            callback.getClass().getSimpleName(), delivered.sum(), dropped.sum(), failed.sum(), queue.size());
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.skywalking.oap.server.core.alarm.provider;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
+import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.apache.skywalking.oap.server.core.alarm.IndicatorNotify;
 import org.apache.skywalking.oap.server.core.alarm.MetaInAlarm;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
@@ -28,34 +29,46 @@ import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 public class NotifyHandler implements IndicatorNotify {
     private final AlarmCore core;
     private final Rules rules;
+    private final AlarmSettings settings;
 
-    public NotifyHandler(Rules rules) {
+    public NotifyHandler(Rules rules, AlarmSettings settings) {
         this.rules = rules;
-        core = new AlarmCore(rules);
+        this.settings = settings;
+        int evaluationThreads = settings.getEvaluationThreads() > 0 ? settings.getEvaluationThreads() : Runtime.getRuntime().availableProcessors();
+        core = new AlarmCore(rules, evaluationThreads, settings.isCheckAtIngest());
     }
 
     @Override public void notify(MetaInAlarm meta, Indicator indicator) {
-        switch (meta.getScope()) {
-            case Service:
-                break;
-            default:
-                return;
-        }
         List<RunningRule> runningRules = core.findRunningRule(meta.getIndicatorName());
         if (runningRules == null) {
             return;
         }
 
-        runningRules.forEach(rule -> rule.in(meta, indicator));
+        List<AlarmMessage> alarmMessageList = null;
+        for (RunningRule rule : runningRules) {
+            AlarmMessage alarmMessage = rule.in(meta, indicator);
+            if (alarmMessage != AlarmMessage.NONE) {
+                if (alarmMessageList == null) {
+                    alarmMessageList = new ArrayList<>(2);
+                }
+                alarmMessageList.add(alarmMessage);
+            }
+        }
+        if (alarmMessageList != null) {
+            core.deliver(alarmMessageList);
+        }
     }
 
     @Override
     public void init(AlarmCallback... callbacks) {
         List<AlarmCallback> allCallbacks = new ArrayList<>();
         for (AlarmCallback callback : callbacks) {
-            allCallbacks.add(callback);
+            allCallbacks.add(new AsyncAlarmCallback(callback, settings.getNotifyQueueSize(), settings.getNotifyBatchSize()));
+        }
+        if (rules.getWebhooks().size() > 0) {
+            WebhookCallback webhookCallback = new WebhookCallback(rules.getWebhooks(), settings.getWebhookRetries(), settings.getWebhookRetryBackoff());
+            allCallbacks.add(new AsyncAlarmCallback(webhookCallback, settings.getNotifyQueueSize(), settings.getNotifyBatchSize()));
         }
-        allCallbacks.add(new WebhookCallback(rules.getWebhooks()));
         core.start(allCallbacks);
     }
 
@@ -19,10 +19,10 @@
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.apache.skywalking.oap.server.core.alarm.MetaInAlarm;
@@ -33,9 +33,6 @@ import org.apache.skywalking.oap.server.core.analysis.indicator.LongValueHolder;
 import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.joda.time.LocalDateTime;
-import org.joda.time.Minutes;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,7 +43,10 @@ import org.slf4j.LoggerFactory;
  */
 public class RunningRule {
     private static final Logger logger = LoggerFactory.getLogger(RunningRule.class);
-    private static DateTimeFormatter TIME_BUCKET_FORMATTER = DateTimeFormat.forPattern("yyyyMMddHHmm");
+    /**
+     * The estimated bytes of a window with its meta and map entry, excluding the buckets.
+     */
+    private static final int WINDOW_SHALLOW_BYTES = 160;
 
     private String ruleName;
     private int period;
@@ -55,18 +55,42 @@ public class RunningRule {
     private final OP op;
     private final int countThreshold;
     private final int silencePeriod;
-    private Map<MetaInAlarm, Window> windows;
+    /**
+     * The windows partitioned by the shards, a shard only moves and checks its own windows.
+     */
+    private final List<ConcurrentMap<MetaInAlarm, Window>> windows;
     private volatile IndicatorValueType valueType;
     private Scope targetScope;
     private List<String> includeNames;
     private AlarmMessageFormatter formatter;
+    private final boolean checkAtIngest;
 
     public RunningRule(AlarmRule alarmRule) {
+        this(alarmRule, false);
+    }
+
+    /**
+     * @param checkAtIngest if true, the window is also checked when an indicator arrives, an alarm is triggered as soon
+     * as the indicators match the rule, instead of by the next check of the alarm core.
+     */
+    public RunningRule(AlarmRule alarmRule, boolean checkAtIngest) {
+        this(alarmRule, checkAtIngest, 1);
+    }
+
+    /**
+     * @param shards the number of shards checking the windows concurrently, see {@link AlarmCore}.
+     */
+    public RunningRule(AlarmRule alarmRule, boolean checkAtIngest, int shards) {
+        this.checkAtIngest = checkAtIngest;
         indicatorName = alarmRule.getIndicatorName();
         this.ruleName = alarmRule.getAlarmRuleName();
 
         // Init the empty window for alarming rule.
-        windows = new ConcurrentHashMap<>();
+        shards = Math.max(1, shards);
+        windows = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            windows.add(new ConcurrentHashMap<>());
+        }
 
         period = alarmRule.getPeriod();
 
@@ -85,16 +109,17 @@ public class RunningRule {
      * indicators are expected to process.
      *
      * @param indicator
+     * @return the alarm triggered by the indicator if checked at ingest, or {@link AlarmMessage#NONE}.
      */
-    public void in(MetaInAlarm meta, Indicator indicator) {
+    public AlarmMessage in(MetaInAlarm meta, Indicator indicator) {
         if (!meta.getIndicatorName().equals(indicatorName)) {
             //Don't match rule, exit.
-            return;
+            return AlarmMessage.NONE;
         }
 
         if (CollectionUtils.isNotEmpty(includeNames)) {
             if (!includeNames.contains(meta.getName())) {
-                return;
+                return AlarmMessage.NONE;
             }
         }
 
@@ -109,27 +134,29 @@ public class RunningRule {
                 valueType = IndicatorValueType.DOUBLE;
                 threshold.setType(IndicatorValueType.DOUBLE);
             } else {
-                return;
+                return AlarmMessage.NONE;
             }
             targetScope = meta.getScope();
         }
 
         if (valueType != null) {
-            Window window = windows.get(meta);
-            if (window == null) {
-                window = new Window(period);
-                Window ifAbsent = windows.putIfAbsent(meta, window);
-                if (ifAbsent == null) {
-                    LocalDateTime timebucket = TIME_BUCKET_FORMATTER.parseLocalDateTime(indicator.getTimeBucket() + "");
-                    window.moveTo(timebucket);
-                } else {
-                    window = windows.get(meta);
+            long minutes = toMinutes(indicator.getTimeBucket());
+            boolean matched = isMatch(indicator);
+            // Added inside the compute of the map, so the window can't be removed as idle by #moveTo in between.
+            Window window = shardOf(meta).compute(meta, (key, existing) -> {
+                if (existing == null) {
+                    existing = new Window(period);
+                    existing.moveTo(minutes);
                 }
+                existing.add(minutes, matched);
+                return existing;
+            });
 
+            if (checkAtIngest) {
+                return toMessage(meta, window.checkAtIngest());
             }
-
-            window.add(indicator);
         }
+        return AlarmMessage.NONE;
     }
 
     /**
@@ -138,7 +165,40 @@ public class RunningRule {
      * @param targetTime of moving target
      */
     public void moveTo(LocalDateTime targetTime) {
-        windows.values().forEach(window -> window.moveTo(targetTime));
+        for (int shard = 0; shard < windows.size(); shard++) {
+            moveTo(targetTime, shard);
+        }
+    }
+
+    /**
+     * Move the buffer windows of the given shard to give time. The windows without indicators in the whole period and
+     * without a running alarm state are removed, so the memory is bounded by the active entities. A window is moved and
+     * removed inside the compute of the map, the same as an indicator is added to it by {@link #in}.
+     */
+    public void moveTo(LocalDateTime targetTime, int shard) {
+        long minutes = toMinutes(targetTime.getYear(), targetTime.getMonthOfYear(), targetTime.getDayOfMonth(),
+            targetTime.getHourOfDay(), targetTime.getMinuteOfHour());
+        ConcurrentMap<MetaInAlarm, Window> windows = this.windows.get(shard);
+        windows.keySet().forEach(meta -> windows.computeIfPresent(meta, (key, window) -> {
+            window.moveTo(minutes);
+            return window.isIdle(minutes) ? null : window;
+        }));
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public int getWindowCount() {
+        int count = 0;
+        for (Map<MetaInAlarm, Window> shard : windows) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    public long getEstimatedBytes() {
+        return (long)getWindowCount() * (WINDOW_SHALLOW_BYTES + period);
     }
 
     /**
@@ -146,18 +206,24 @@ public class RunningRule {
      */
     public List<AlarmMessage> check() {
         List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
+        for (int shard = 0; shard < windows.size(); shard++) {
+            alarmMessageList.addAll(check(shard));
+        }
+        return alarmMessageList;
+    }
+
+    /**
+     * Check the windows of the given shard. A window is always in the same shard, so the shards can be checked
+     * concurrently.
+     */
+    public List<AlarmMessage> check(int shard) {
+        List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
 
-        windows.entrySet().forEach(entry -> {
+        windows.get(shard).entrySet().forEach(entry -> {
             MetaInAlarm meta = entry.getKey();
             Window window = entry.getValue();
-            AlarmMessage alarmMessage = window.checkAlarm();
+            AlarmMessage alarmMessage = toMessage(meta, window.checkAtTick());
             if (alarmMessage != AlarmMessage.NONE) {
-                alarmMessage.setScope(meta.getScope());
-                alarmMessage.setName(meta.getName());
-                alarmMessage.setId0(meta.getId0());
-                alarmMessage.setId1(meta.getId1());
-                alarmMessage.setAlarmMessage(formatter.format(meta));
-                alarmMessage.setStartTime(System.currentTimeMillis());
                 alarmMessageList.add(alarmMessage);
             }
         });
@@ -165,19 +231,124 @@ public class RunningRule {
         return alarmMessageList;
     }
 
+    private AlarmMessage toMessage(MetaInAlarm meta, AlarmMessage alarmMessage) {
+        if (alarmMessage != AlarmMessage.NONE) {
+            alarmMessage.setScope(meta.getScope());
+            alarmMessage.setName(meta.getName());
+            alarmMessage.setId0(meta.getId0());
+            alarmMessage.setId1(meta.getId1());
+            alarmMessage.setAlarmMessage(formatter.format(meta));
+            alarmMessage.setStartTime(System.currentTimeMillis());
+        }
+        return alarmMessage;
+    }
+
+    private ConcurrentMap<MetaInAlarm, Window> shardOf(MetaInAlarm meta) {
+        int shards = windows.size();
+        return windows.get(shards == 1 ? 0 : Math.floorMod(31 * ruleName.hashCode() + meta.hashCode(), shards));
+    }
+
+    private boolean isMatch(Indicator indicator) {
+        switch (valueType) {
+            case LONG:
+                long lvalue = ((LongValueHolder)indicator).getValue();
+                long lexpected = threshold.getLongThreshold();
+                switch (op) {
+                    case GREATER:
+                        return lvalue > lexpected;
+                    case LESS:
+                        return lvalue < lexpected;
+                    case EQUAL:
+                        return lvalue == lexpected;
+                }
+                break;
+            case INT:
+                int ivalue = ((IntValueHolder)indicator).getValue();
+                int iexpected = threshold.getIntThreshold();
+                switch (op) {
+                    case GREATER:
+                        return ivalue > iexpected;
+                    case LESS:
+                        return ivalue < iexpected;
+                    case EQUAL:
+                        return ivalue == iexpected;
+                }
+                break;
+            case DOUBLE:
+                double dvalue = ((DoubleValueHolder)indicator).getValue();
+                double dexpected = threshold.getDoubleThreadhold();
+                switch (op) {
+                    case GREATER:
+                        return dvalue > dexpected;
+                    case LESS:
+                        return dvalue < dexpected;
+                    case EQUAL:
+                        // NOTICE: double equal is not reliable in Java,
+                        // match result is not predictable
+                        return dvalue == dexpected;
+                }
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * @param timeBucket in minute, yyyyMMddHHmm
+     * @return minutes since 1970-01-01 00:00
+     */
+    static long toMinutes(long timeBucket) {
+        int minute = (int)(timeBucket % 100);
+        timeBucket /= 100;
+        int hour = (int)(timeBucket % 100);
+        timeBucket /= 100;
+        int day = (int)(timeBucket % 100);
+        timeBucket /= 100;
+        int month = (int)(timeBucket % 100);
+        int year = (int)(timeBucket / 100);
+        return toMinutes(year, month, day, hour, minute);
+    }
+
+    /**
+     * Days since 1970-01-01 of the proleptic Gregorian calendar, computed by the eras of 400 years.
+     */
+    private static long toMinutes(int year, int month, int day, int hour, int minute) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097 + dayOfEra - 719468;
+        return (days * 24 + hour) * 60 + minute;
+    }
+
     /**
      * A indicator window, based on {@link AlarmRule#period}. This window slides with time, just keeps the recent
      * N(period) buckets.
      *
+     * The buckets are a ring indexed by the minute, holding whether the indicator of the minute matches the threshold,
+     * and the matched buckets are counted when they are set or slid out. So both the add and the check cost O(1).
+     *
      * @author wusheng
      */
     public class Window {
-        private LocalDateTime endTime;
+        /**
+         * The end of window, in minutes since 1970-01-01 00:00, -1 means not started.
+         */
+        private long endTime;
         private int period;
         private int counter;
         private int silenceCountdown;
-
-        private LinkedList<Indicator> values;
+        /**
+         * The last minute of the indicators added, -1 means none.
+         */
+        private long lastAddTime;
+        /**
+         * True if the alarm has been checked at ingest, which takes the place of the next check.
+         */
+        private boolean checkedAtIngest;
+
+        private boolean[] matches;
+        private int matchCount;
         private ReentrantLock lock = new ReentrantLock();
 
         public Window(int period) {
@@ -185,27 +356,28 @@ public class RunningRule {
             // -1 means silence countdown is not running.
             silenceCountdown = -1;
             counter = 0;
+            endTime = -1;
+            lastAddTime = -1;
             init();
         }
 
-        public void moveTo(LocalDateTime current) {
+        public void moveTo(long current) {
             lock.lock();
             try {
-                if (endTime == null) {
+                if (endTime == -1) {
                     init();
                     endTime = current;
                 } else {
-                    int minutes = Minutes.minutesBetween(endTime, current).getMinutes();
+                    long minutes = current - endTime;
                     if (minutes <= 0) {
                         return;
                     }
-                    if (minutes > values.size()) {
+                    if (minutes >= period) {
                         // re-init
                         init();
                     } else {
-                        for (int i = 0; i < minutes; i++) {
-                            values.removeFirst();
-                            values.addLast(null);
+                        for (long minute = endTime + 1; minute <= current; minute++) {
+                            set(minute, false);
                         }
                     }
                     endTime = current;
@@ -215,31 +387,60 @@ public class RunningRule {
             }
         }
 
-        public void add(Indicator indicator) {
-            long bucket = indicator.getTimeBucket();
-
-            LocalDateTime timebucket = TIME_BUCKET_FORMATTER.parseLocalDateTime(bucket + "");
+        public void add(long timeBucketMinutes, boolean matched) {
+            lock.lock();
+            try {
+                if (timeBucketMinutes > endTime) {
+                    moveTo(timeBucketMinutes);
+                }
 
-            int minutes = Minutes.minutesBetween(timebucket, endTime).getMinutes();
-            if (minutes == -1) {
-                this.moveTo(timebucket);
+                if (endTime - timeBucketMinutes >= period) {
+                    // too old data
+                    // also should happen, but maybe if agent/probe mechanism time is not right.
+                    return;
+                }
 
+                set(timeBucketMinutes, matched);
+                lastAddTime = Math.max(lastAddTime, timeBucketMinutes);
+            } finally {
+                lock.unlock();
             }
+        }
 
+        /**
+         * Check when an indicator arrives, triggers the alarm only if the next check would trigger it.
+         */
+        public AlarmMessage checkAtIngest() {
             lock.lock();
             try {
-                if (minutes < 0) {
-                    moveTo(timebucket);
-                    minutes = 0;
+                if (checkedAtIngest || !isMatch() || counter + 1 < countThreshold || silenceCountdown >= 1) {
+                    return AlarmMessage.NONE;
                 }
+                checkedAtIngest = true;
+                return checkAlarm();
+            } finally {
+                lock.unlock();
+            }
+        }
 
-                if (minutes >= values.size()) {
-                    // too old data
-                    // also should happen, but maybe if agent/probe mechanism time is not right.
-                    return;
+        public AlarmMessage checkAtTick() {
+            lock.lock();
+            try {
+                if (checkedAtIngest) {
+                    checkedAtIngest = false;
+                    return AlarmMessage.NONE;
                 }
+                return checkAlarm();
+            } finally {
+                lock.unlock();
+            }
+        }
 
-                values.set(values.size() - minutes - 1, indicator);
+        private boolean isIdle(long current) {
+            lock.lock();
+            try {
+                return matchCount == 0 && counter == 0 && silenceCountdown < 1 && !checkedAtIngest
+                    && lastAddTime != -1 && current - lastAddTime >= period;
             } finally {
                 lock.unlock();
             }
@@ -273,81 +474,21 @@ public class RunningRule {
         }
 
         private boolean isMatch() {
-            int matchCount = 0;
-            for (Indicator indicator : values) {
-                if (indicator == null) {
-                    continue;
-                }
-
-                switch (valueType) {
-                    case LONG:
-                        long lvalue = ((LongValueHolder)indicator).getValue();
-                        long lexpected = RunningRule.this.threshold.getLongThreshold();
-                        switch (op) {
-                            case GREATER:
-                                if (lvalue > lexpected)
-                                    matchCount++;
-                                break;
-                            case LESS:
-                                if (lvalue < lexpected)
-                                    matchCount++;
-                                break;
-                            case EQUAL:
-                                if (lvalue == lexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                    case INT:
-                        int ivalue = ((IntValueHolder)indicator).getValue();
-                        int iexpected = RunningRule.this.threshold.getIntThreshold();
-                        switch (op) {
-                            case LESS:
-                                if (ivalue < iexpected)
-                                    matchCount++;
-                                break;
-                            case GREATER:
-                                if (ivalue > iexpected)
-                                    matchCount++;
-                                break;
-                            case EQUAL:
-                                if (ivalue == iexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                    case DOUBLE:
-                        double dvalue = ((DoubleValueHolder)indicator).getValue();
-                        double dexpected = RunningRule.this.threshold.getDoubleThreadhold();
-                        switch (op) {
-                            case EQUAL:
-                                // NOTICE: double equal is not reliable in Java,
-                                // match result is not predictable
-                                if (dvalue == dexpected)
-                                    matchCount++;
-                                break;
-                            case GREATER:
-                                if (dvalue > dexpected)
-                                    matchCount++;
-                                break;
-                            case LESS:
-                                if (dvalue < dexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                }
-            }
-
             // Reach the threshold in current bucket.
             return matchCount >= countThreshold;
         }
 
-        private void init() {
-            values = new LinkedList();
-            for (int i = 0; i < period; i++) {
-                values.add(null);
+        private void set(long minute, boolean matched) {
+            int index = (int)Math.floorMod(minute, (long)period);
+            if (matches[index] != matched) {
+                matches[index] = matched;
+                matchCount += matched ? 1 : -1;
             }
         }
+
+        private void init() {
+            matches = new boolean[period];
+            matchCount = 0;
+        }
     }
 }
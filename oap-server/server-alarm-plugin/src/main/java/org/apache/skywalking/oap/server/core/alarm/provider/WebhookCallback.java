@@ -20,16 +20,18 @@ package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.http.StatusLine;
-import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.slf4j.Logger;
@@ -38,6 +40,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Use SkyWalking alarm webhook API call a remote endpoints.
  *
+ * The connections are pooled and kept alive among the calls. A failed call is retried with a doubled backoff. When
+ * any endpoint still fails after the retries, the other endpoints are called anyway, then the failure is thrown, so
+ * the {@link AsyncAlarmCallback} counts the messages as failed.
+ *
  * @author wusheng
  */
 public class WebhookCallback implements AlarmCallback {
@@ -47,15 +53,28 @@ public class WebhookCallback implements AlarmCallback {
     private static final int HTTP_SOCKET_TIMEOUT = 10000;
 
     private List<String> remoteEndpoints;
-    private RequestConfig requestConfig;
+    private final int retries;
+    private final long retryBackoff;
+    private final CloseableHttpClient httpClient;
     private Gson gson = new Gson();
 
     public WebhookCallback(List<String> remoteEndpoints) {
+        this(remoteEndpoints, 0, 0);
+    }
+
+    public WebhookCallback(List<String> remoteEndpoints, int retries, long retryBackoff) {
         this.remoteEndpoints = remoteEndpoints;
-        requestConfig = RequestConfig.custom()
+        this.retries = retries;
+        this.retryBackoff = retryBackoff;
+
+        RequestConfig requestConfig = RequestConfig.custom()
             .setConnectTimeout(HTTP_CONNECT_TIMEOUT)
             .setConnectionRequestTimeout(HTTP_CONNECTION_REQUEST_TIMEOUT)
             .setSocketTimeout(HTTP_SOCKET_TIMEOUT).build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(2);
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig).build();
     }
 
     @Override public void doAlarm(List<AlarmMessage> alarmMessage) {
@@ -63,37 +82,52 @@ public class WebhookCallback implements AlarmCallback {
             return;
         }
 
-        CloseableHttpClient httpClient = HttpClients.custom().build();
-        try {
-            remoteEndpoints.forEach(url -> {
-                HttpPost post = new HttpPost(url);
-                post.setConfig(requestConfig);
-                post.setHeader("Accept", "application/json");
-                post.setHeader("Content-type", "application/json");
+        String json = gson.toJson(alarmMessage);
+        List<String> failedEndpoints = new ArrayList<>();
+        for (String url : remoteEndpoints) {
+            if (!send(url, json)) {
+                failedEndpoints.add(url);
+            }
+        }
+        if (!failedEndpoints.isEmpty()) {
+            throw new IllegalStateException("send alarm to " + failedEndpoints + " failure after " + retries + " retries, " + alarmMessage.size() + " messages are dropped.");
+        }
+    }
 
-                StringEntity entity = null;
+    private boolean send(String url, String json) {
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            if (attempt > 0) {
                 try {
-                    entity = new StringEntity(gson.toJson(alarmMessage));
-                    post.setEntity(entity);
-                    CloseableHttpResponse httpResponse = httpClient.execute(post);
-                    StatusLine statusLine = httpResponse.getStatusLine();
-                    if (statusLine != null && statusLine.getStatusCode() != 200) {
-                        logger.error("send alarm to " + url + " failure. Response code: " + statusLine.getStatusCode());
-                    }
-                } catch (UnsupportedEncodingException e) {
-                    logger.error("Alarm to JSON error, " + e.getMessage(), e);
-                } catch (ClientProtocolException e) {
-                    logger.error("send alarm to " + url + " failure.", e);
-                } catch (IOException e) {
-                    logger.error("send alarm to " + url + " failure.", e);
+                    Thread.sleep(retryBackoff << (attempt - 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
                 }
-            });
-        } finally {
-            try {
-                httpClient.close();
-            } catch (IOException e) {
-                logger.error(e.getMessage(), e);
             }
+            if (post(url, json)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean post(String url, String json) {
+        HttpPost post = new HttpPost(url);
+        post.setHeader("Accept", "application/json");
+        post.setHeader("Content-type", "application/json");
+        post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        try (CloseableHttpResponse httpResponse = httpClient.execute(post)) {
+            // Consume the response, so the connection is released to the pool.
+            EntityUtils.consume(httpResponse.getEntity());
+            StatusLine statusLine = httpResponse.getStatusLine();
+            if (statusLine != null && statusLine.getStatusCode() != 200) {
+                logger.error("send alarm to " + url + " failure. Response code: " + statusLine.getStatusCode());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("send alarm to " + url + " failure.", e);
+            return false;
         }
     }
 }
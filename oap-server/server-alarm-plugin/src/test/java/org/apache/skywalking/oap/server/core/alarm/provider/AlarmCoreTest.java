@@ -25,6 +25,7 @@ import java.util.Map;
 import org.joda.time.LocalDateTime;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
@@ -67,7 +68,7 @@ public class AlarmCoreTest {
                 }
                 return new ArrayList<>(0);
             }
-        }).when(mockRule).check();
+        }).when(mockRule).check(Mockito.anyInt());
 
         rules.add(mockRule);
         runningContext.put("mock", rules);
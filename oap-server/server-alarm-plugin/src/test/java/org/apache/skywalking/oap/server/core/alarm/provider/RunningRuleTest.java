@@ -29,6 +29,7 @@ import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 import org.apache.skywalking.oap.server.core.analysis.indicator.IntValueHolder;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.source.Scope;
+import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -61,16 +62,146 @@ public class RunningRuleTest {
         long timeInPeriod1 = 201808301434L;
         runningRule.in(getMetaInAlarm(123), getIndicator(timeInPeriod1, 70));
 
-        Map<MetaInAlarm, RunningRule.Window> windows = Whitebox.getInternalState(runningRule, "windows");
+        Map<MetaInAlarm, RunningRule.Window> windows = Whitebox.<List<Map<MetaInAlarm, RunningRule.Window>>>getInternalState(runningRule, "windows").get(0);
 
         RunningRule.Window window = windows.get(getMetaInAlarm(123));
-        LocalDateTime endTime = Whitebox.getInternalState(window, "endTime");
+        long endTime = Whitebox.getInternalState(window, "endTime");
         int period = Whitebox.getInternalState(window, "period");
-        LinkedList<Indicator> indicatorBuffer = Whitebox.getInternalState(window, "values");
+        boolean[] matches = Whitebox.getInternalState(window, "matches");
+        int matchCount = Whitebox.getInternalState(window, "matchCount");
 
-        Assert.assertTrue(startTime.equals(endTime));
+        Assert.assertEquals(startTime.toDateTime(DateTimeZone.UTC).getMillis() / 60000, endTime);
         Assert.assertEquals(15, period);
-        Assert.assertEquals(15, indicatorBuffer.size());
+        Assert.assertEquals(15, matches.length);
+        Assert.assertEquals(1, matchCount);
+    }
+
+    @Test
+    public void testWindowSlides() {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(5);
+
+        RunningRule runningRule = new RunningRule(alarmRule);
+        runningRule.in(getMetaInAlarm(123), getIndicator(201808302358L, 70));
+        runningRule.in(getMetaInAlarm(123), getIndicator(201808302359L, 70));
+        runningRule.in(getMetaInAlarm(123), getIndicator(201808310000L, 70));
+        // Out of the window.
+        runningRule.in(getMetaInAlarm(123), getIndicator(201808302350L, 70));
+
+        Map<MetaInAlarm, RunningRule.Window> windows = Whitebox.<List<Map<MetaInAlarm, RunningRule.Window>>>getInternalState(runningRule, "windows").get(0);
+        RunningRule.Window window = windows.get(getMetaInAlarm(123));
+        Assert.assertEquals(3, (int)Whitebox.getInternalState(window, "matchCount"));
+
+        // Same minute flushed again, not matched any more.
+        runningRule.in(getMetaInAlarm(123), getIndicator(201808310000L, 80));
+        Assert.assertEquals(2, (int)Whitebox.getInternalState(window, "matchCount"));
+
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808310003"));
+        Assert.assertEquals(1, (int)Whitebox.getInternalState(window, "matchCount"));
+
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808310100"));
+        Assert.assertEquals(0, (int)Whitebox.getInternalState(window, "matchCount"));
+    }
+
+    @Test
+    public void testManyEntities() {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(10);
+
+        RunningRule runningRule = new RunningRule(alarmRule);
+        int entities = 100000;
+        for (long timeBucket = 201808301430L; timeBucket <= 201808301439L; timeBucket++) {
+            for (int id = 0; id < entities; id++) {
+                runningRule.in(getMetaInAlarm(id), getIndicator(timeBucket, id % 2 == 0 ? 70 : 80));
+            }
+        }
+
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301440"));
+        Assert.assertEquals(0, runningRule.check().size());
+        Assert.assertEquals(0, runningRule.check().size());
+        Assert.assertEquals(entities / 2, runningRule.check().size());
+    }
+
+    @Test
+    public void testShards() {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(10);
+
+        int shards = 4;
+        RunningRule runningRule = new RunningRule(alarmRule, false, shards);
+        int entities = 1000;
+        for (long timeBucket = 201808301430L; timeBucket <= 201808301439L; timeBucket++) {
+            for (int id = 0; id < entities; id++) {
+                runningRule.in(getMetaInAlarm(id), getIndicator(timeBucket, id % 2 == 0 ? 70 : 80));
+            }
+        }
+
+        List<Map<MetaInAlarm, RunningRule.Window>> windows = Whitebox.getInternalState(runningRule, "windows");
+        Assert.assertEquals(shards, windows.size());
+        for (Map<MetaInAlarm, RunningRule.Window> shard : windows) {
+            Assert.assertNotEquals(0, shard.size());
+        }
+        Assert.assertEquals(entities, runningRule.getWindowCount());
+
+        int alarms = 0;
+        for (int round = 0; round < 3; round++) {
+            for (int shard = 0; shard < shards; shard++) {
+                runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301440"), shard);
+                alarms += runningRule.check(shard).size();
+            }
+        }
+        Assert.assertEquals(entities / 2, alarms);
+    }
+
+    /**
+     * The windows idle since 14:30 are removed by the move to 14:36 while the indicators of 14:36 arrive, none of
+     * these indicators is added to a removed window.
+     */
+    @Test
+    public void testIdleWindowsRemovedWhileReceiving() throws Exception {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(5);
+
+        RunningRule runningRule = new RunningRule(alarmRule);
+        int entities = 10000;
+        for (int id = 0; id < entities; id++) {
+            runningRule.in(getMetaInAlarm(id), getIndicator(201808301430L, 80));
+        }
+
+        Thread receiver = new Thread(() -> {
+            for (int id = 0; id < entities; id++) {
+                runningRule.in(getMetaInAlarm(id), getIndicator(201808301436L, 70));
+            }
+        });
+        receiver.start();
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301436"));
+        receiver.join();
+
+        Map<MetaInAlarm, RunningRule.Window> windows = Whitebox.<List<Map<MetaInAlarm, RunningRule.Window>>>getInternalState(runningRule, "windows").get(0);
+        Assert.assertEquals(entities, windows.size());
+        for (RunningRule.Window window : windows.values()) {
+            Assert.assertEquals(1, (int)Whitebox.getInternalState(window, "matchCount"));
+        }
     }
 
     @Test
@@ -109,6 +240,37 @@ public class RunningRuleTest {
         Assert.assertEquals("Successful rate of endpoint Service_123 is lower than 75%", alarmMessages.get(0).getAlarmMessage());
     }
 
+    @Test
+    public void testAlarmAtIngest() {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(15);
+
+        RunningRule runningRule = new RunningRule(alarmRule, true);
+
+        Assert.assertEquals(AlarmMessage.NONE, runningRule.in(getMetaInAlarm(123), getIndicator(201808301434L, 70)));
+        Assert.assertEquals(AlarmMessage.NONE, runningRule.in(getMetaInAlarm(123), getIndicator(201808301436L, 71)));
+        Assert.assertEquals(AlarmMessage.NONE, runningRule.in(getMetaInAlarm(123), getIndicator(201808301438L, 74)));
+
+        // check at 201808301440 and 201808301441
+        Assert.assertEquals(0, runningRule.check().size());
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301441"));
+        Assert.assertEquals(0, runningRule.check().size());
+
+        // The third match triggers the alarm when the indicator arrives, and takes the place of the next check.
+        AlarmMessage alarmMessage = runningRule.in(getMetaInAlarm(123), getIndicator(201808301441L, 60));
+        Assert.assertNotEquals(AlarmMessage.NONE, alarmMessage);
+        Assert.assertEquals("Service_123", alarmMessage.getName());
+        Assert.assertEquals(AlarmMessage.NONE, runningRule.in(getMetaInAlarm(123), getIndicator(201808301441L, 60)));
+
+        runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301442"));
+        Assert.assertEquals(0, runningRule.check().size());
+    }
+
     @Test
     public void testNoAlarm() {
         AlarmRule alarmRule = new AlarmRule();
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.Servlet;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -45,6 +46,8 @@ import org.junit.Test;
 public class WebhookCallbackTest implements Servlet {
     private Server server;
     private volatile boolean isSuccess = false;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger received = new AtomicInteger();
 
     @Before
     public void init() throws Exception {
@@ -79,6 +82,59 @@ public class WebhookCallbackTest implements Servlet {
         Assert.assertTrue(isSuccess);
     }
 
+    @Test
+    public void testRetry() {
+        failures.set(2);
+        List<String> remoteEndpoints = new ArrayList<>();
+        remoteEndpoints.add("http://127.0.0.1:8778/webhook/receiveAlarm");
+        WebhookCallback webhookCallback = new WebhookCallback(remoteEndpoints, 3, 10);
+        List<AlarmMessage> alarmMessages = new ArrayList<>(2);
+        alarmMessages.add(new AlarmMessage());
+        alarmMessages.add(new AlarmMessage());
+        webhookCallback.doAlarm(alarmMessages);
+
+        Assert.assertTrue(isSuccess);
+        Assert.assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testAsyncDelivery() throws InterruptedException {
+        List<String> remoteEndpoints = new ArrayList<>();
+        remoteEndpoints.add("http://127.0.0.1:8778/webhook/receiveAlarm");
+        AsyncAlarmCallback callback = new AsyncAlarmCallback(new WebhookCallback(remoteEndpoints), 10, 2);
+
+        List<AlarmMessage> alarmMessages = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            alarmMessages.add(new AlarmMessage());
+        }
+        callback.doAlarm(alarmMessages);
+
+        for (int i = 0; i < 100 && callback.getDelivered() + callback.getDropped() < 20; i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(20, callback.getDelivered() + callback.getDropped());
+        Assert.assertEquals(callback.getDelivered(), received.get());
+    }
+
+    @Test
+    public void testFailedDelivery() throws InterruptedException {
+        failures.set(Integer.MAX_VALUE);
+        List<String> remoteEndpoints = new ArrayList<>();
+        remoteEndpoints.add("http://127.0.0.1:8778/webhook/receiveAlarm");
+        AsyncAlarmCallback callback = new AsyncAlarmCallback(new WebhookCallback(remoteEndpoints, 1, 10), 10, 2);
+
+        List<AlarmMessage> alarmMessages = new ArrayList<>(2);
+        alarmMessages.add(new AlarmMessage());
+        alarmMessages.add(new AlarmMessage());
+        callback.doAlarm(alarmMessages);
+
+        for (int i = 0; i < 100 && callback.getFailed() < 2; i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, callback.getFailed());
+        Assert.assertEquals(0, callback.getDelivered());
+    }
+
     @Override public void init(ServletConfig config) throws ServletException {
 
     }
@@ -101,6 +157,12 @@ public class WebhookCallbackTest implements Servlet {
             }
 
             JsonArray elements = new Gson().fromJson(new String(out.toByteArray()), JsonArray.class);
+            if (failures.get() > 0) {
+                failures.decrementAndGet();
+                ((HttpServletResponse)response).setStatus(503);
+                return;
+            }
+            received.addAndGet(elements.size());
             if (elements.size() == 2) {
                 ((HttpServletResponse)response).setStatus(200);
                 isSuccess = true;
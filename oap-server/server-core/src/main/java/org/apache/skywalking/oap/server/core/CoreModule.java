@@ -64,6 +64,7 @@ public class CoreModule extends ModuleDefine {
         classes.add(MetadataQueryService.class);
         classes.add(AggregationQueryService.class);
         classes.add(AlarmQueryService.class);
+        classes.add(QueryResultCache.class);
     }
 
     private void addServerInterface(List<Class> classes) {
@@ -40,6 +40,17 @@ public class CoreModuleConfig extends ModuleConfig {
     @Setter private int hourMetricsDataTTL;
     @Setter private int dayMetricsDataTTL;
     @Setter private int monthMetricsDataTTL;
+    @Setter private int dataTTLDeleteThreads;
+    @Setter private int dataTTLDeleteChunkSize;
+    @Setter private long dataTTLDeleteChunkInterval;
+    @Setter private int queryCacheMaxMemory;
+    @Setter private int queryCacheTTL;
+    @Setter private int queryCacheClosedBucketDelay;
+    @Setter private int liveTopologyMinutes;
+    @Setter private int liveTopologyHours;
+    @Setter private int liveTopologyDays;
+    @Setter private int recentIndicatorMinutes;
+    @Setter private int topNCapacity;
 
     CoreModuleConfig() {
         this.downsampling = new ArrayList<>();
@@ -52,6 +63,9 @@ public class CoreModuleConfig extends ModuleConfig {
         dataTTL.setHourMetricsDataTTL(hourMetricsDataTTL);
         dataTTL.setDayMetricsDataTTL(dayMetricsDataTTL);
         dataTTL.setMonthMetricsDataTTL(monthMetricsDataTTL);
+        dataTTL.setDeleteThreads(dataTTLDeleteThreads);
+        dataTTL.setDeleteChunkSize(dataTTLDeleteChunkSize);
+        dataTTL.setDeleteChunkInterval(dataTTLDeleteChunkInterval);
         return dataTTL;
     }
 }
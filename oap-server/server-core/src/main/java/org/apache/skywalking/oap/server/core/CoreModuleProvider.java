@@ -20,7 +20,10 @@ package org.apache.skywalking.oap.server.core;
 
 import java.io.IOException;
 import org.apache.skywalking.oap.server.core.analysis.indicator.annotation.IndicatorTypeListener;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveServiceTopology;
 import org.apache.skywalking.oap.server.core.analysis.record.annotation.RecordTypeListener;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNCollector;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecentIndicatorCache;
 import org.apache.skywalking.oap.server.core.annotation.AnnotationScan;
 import org.apache.skywalking.oap.server.core.cache.CacheUpdateTimer;
 import org.apache.skywalking.oap.server.core.cache.EndpointInventoryCache;
@@ -37,6 +40,7 @@ import org.apache.skywalking.oap.server.core.query.AggregationQueryService;
 import org.apache.skywalking.oap.server.core.query.AlarmQueryService;
 import org.apache.skywalking.oap.server.core.query.MetadataQueryService;
 import org.apache.skywalking.oap.server.core.query.MetricQueryService;
+import org.apache.skywalking.oap.server.core.query.QueryResultCache;
 import org.apache.skywalking.oap.server.core.query.TopologyQueryService;
 import org.apache.skywalking.oap.server.core.query.TraceQueryService;
 import org.apache.skywalking.oap.server.core.register.annotation.InventoryTypeListener;
@@ -86,6 +90,7 @@ public class CoreModuleProvider extends ModuleProvider {
     private GRPCServer grpcServer;
     private JettyServer jettyServer;
     private RemoteClientManager remoteClientManager;
+    private QueryResultCache queryResultCache;
     private final AnnotationScan annotationScan;
     private final StorageAnnotationListener storageAnnotationListener;
     private final StreamAnnotationListener streamAnnotationListener;
@@ -151,6 +156,8 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(NetworkAddressInventoryCache.class, new NetworkAddressInventoryCache(getManager()));
         this.registerServiceImplementation(INetworkAddressInventoryRegister.class, new NetworkAddressInventoryRegister(getManager()));
 
+        this.queryResultCache = new QueryResultCache(moduleConfig.getQueryCacheMaxMemory(), moduleConfig.getQueryCacheTTL(), moduleConfig.getQueryCacheClosedBucketDelay());
+        this.registerServiceImplementation(QueryResultCache.class, queryResultCache);
         this.registerServiceImplementation(TopologyQueryService.class, new TopologyQueryService(getManager()));
         this.registerServiceImplementation(MetricQueryService.class, new MetricQueryService(getManager()));
         this.registerServiceImplementation(TraceQueryService.class, new TraceQueryService(getManager()));
@@ -198,6 +205,14 @@ public class CoreModuleProvider extends ModuleProvider {
         DataTTLKeeperTimer.INSTANCE.start(getManager());
 
         CacheUpdateTimer.INSTANCE.start(getManager());
+
+        queryResultCache.start();
+
+        LiveServiceTopology.INSTANCE.start(getManager(), moduleConfig.getLiveTopologyMinutes(), moduleConfig.getLiveTopologyHours(), moduleConfig.getLiveTopologyDays());
+
+        RecentIndicatorCache.INSTANCE.start(moduleConfig.getRecentIndicatorMinutes());
+
+        TopNCollector.INSTANCE.start(moduleConfig.getTopNCapacity(), moduleConfig.getQueryCacheClosedBucketDelay());
     }
 
     @Override
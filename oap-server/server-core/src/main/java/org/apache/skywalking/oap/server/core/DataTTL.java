@@ -31,4 +31,7 @@ public class DataTTL {
     private int hourMetricsDataTTL;
     private int dayMetricsDataTTL;
     private int monthMetricsDataTTL;
+    private int deleteThreads;
+    private int deleteChunkSize;
+    private long deleteChunkInterval;
 }
@@ -19,10 +19,11 @@
 package org.apache.skywalking.oap.server.core.alarm;
 
 import java.util.concurrent.locks.ReentrantLock;
-import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.*;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
-import org.apache.skywalking.oap.server.core.cache.ServiceInventoryCache;
-import org.apache.skywalking.oap.server.core.register.ServiceInventory;
+import org.apache.skywalking.oap.server.core.cache.*;
+import org.apache.skywalking.oap.server.core.register.*;
+import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 /**
@@ -31,6 +32,8 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 public class AlarmEntrance {
     private ModuleManager moduleManager;
     private ServiceInventoryCache serviceInventoryCache;
+    private ServiceInstanceInventoryCache serviceInstanceInventoryCache;
+    private EndpointInventoryCache endpointInventoryCache;
     private IndicatorNotify indicatorNotify;
     private ReentrantLock initLock;
 
@@ -48,17 +51,56 @@ public class AlarmEntrance {
 
         AlarmMeta alarmMeta = ((AlarmSupported)indicator).getAlarmMeta();
 
-        MetaInAlarm metaInAlarm = null;
+        MetaInAlarm metaInAlarm;
         switch (alarmMeta.getScope()) {
             case Service:
                 int serviceId = Integer.parseInt(alarmMeta.getId());
                 ServiceInventory serviceInventory = serviceInventoryCache.get(serviceId);
+                if (serviceInventory == null) {
+                    return;
+                }
                 ServiceMetaInAlarm serviceMetaInAlarm = new ServiceMetaInAlarm();
                 serviceMetaInAlarm.setIndicatorName(alarmMeta.getIndicatorName());
                 serviceMetaInAlarm.setId(serviceId);
                 serviceMetaInAlarm.setName(serviceInventory.getName());
                 metaInAlarm = serviceMetaInAlarm;
                 break;
+            case ServiceInstance:
+            case ServiceInstanceJVMCPU:
+            case ServiceInstanceJVMMemory:
+            case ServiceInstanceJVMMemoryPool:
+            case ServiceInstanceJVMGC:
+                int serviceInstanceId = Integer.parseInt(alarmMeta.getId());
+                ServiceInstanceInventory serviceInstanceInventory = serviceInstanceInventoryCache.get(serviceInstanceId);
+                if (serviceInstanceInventory == null) {
+                    return;
+                }
+                ServiceInstanceMetaInAlarm instanceMetaInAlarm = new ServiceInstanceMetaInAlarm();
+                instanceMetaInAlarm.setIndicatorName(alarmMeta.getIndicatorName());
+                instanceMetaInAlarm.setId(serviceInstanceId);
+                instanceMetaInAlarm.setName(serviceInstanceInventory.getName());
+                metaInAlarm = instanceMetaInAlarm;
+                break;
+            case Endpoint:
+                int endpointId = Integer.parseInt(alarmMeta.getId());
+                EndpointInventory endpointInventory = endpointInventoryCache.get(endpointId);
+                if (endpointInventory == null) {
+                    return;
+                }
+                EndpointMetaInAlarm endpointMetaInAlarm = new EndpointMetaInAlarm();
+                endpointMetaInAlarm.setIndicatorName(alarmMeta.getIndicatorName());
+                endpointMetaInAlarm.setId(endpointId);
+                endpointMetaInAlarm.setName(endpointInventory.getName());
+                metaInAlarm = endpointMetaInAlarm;
+                break;
+            case ServiceRelation:
+            case ServiceInstanceRelation:
+            case EndpointRelation:
+                metaInAlarm = relation(alarmMeta);
+                if (metaInAlarm == null) {
+                    return;
+                }
+                break;
             default:
                 return;
         }
@@ -66,11 +108,56 @@ public class AlarmEntrance {
         indicatorNotify.notify(metaInAlarm, indicator);
     }
 
+    /**
+     * The entity id of relations is source id, dest id and component id.
+     */
+    private MetaInAlarm relation(AlarmMeta alarmMeta) {
+        String[] ids = alarmMeta.getId().split(Const.ID_SPLIT);
+        if (ids.length != 3) {
+            return null;
+        }
+        int sourceId = Integer.parseInt(ids[0]);
+        int destId = Integer.parseInt(ids[1]);
+
+        String sourceName;
+        String destName;
+        if (Scope.ServiceRelation.equals(alarmMeta.getScope())) {
+            ServiceInventory source = serviceInventoryCache.get(sourceId);
+            ServiceInventory dest = serviceInventoryCache.get(destId);
+            sourceName = source == null ? null : source.getName();
+            destName = dest == null ? null : dest.getName();
+        } else if (Scope.ServiceInstanceRelation.equals(alarmMeta.getScope())) {
+            ServiceInstanceInventory source = serviceInstanceInventoryCache.get(sourceId);
+            ServiceInstanceInventory dest = serviceInstanceInventoryCache.get(destId);
+            sourceName = source == null ? null : source.getName();
+            destName = dest == null ? null : dest.getName();
+        } else {
+            EndpointInventory source = endpointInventoryCache.get(sourceId);
+            EndpointInventory dest = endpointInventoryCache.get(destId);
+            sourceName = source == null ? null : source.getName();
+            destName = dest == null ? null : dest.getName();
+        }
+        if (sourceName == null || destName == null) {
+            return null;
+        }
+
+        RelationMetaInAlarm relationMetaInAlarm = new RelationMetaInAlarm();
+        relationMetaInAlarm.setIndicatorName(alarmMeta.getIndicatorName());
+        relationMetaInAlarm.setScope(alarmMeta.getScope());
+        relationMetaInAlarm.setSourceId(sourceId);
+        relationMetaInAlarm.setDestId(destId);
+        relationMetaInAlarm.setComponentId(Integer.parseInt(ids[2]));
+        relationMetaInAlarm.setName(sourceName + " to " + destName);
+        return relationMetaInAlarm;
+    }
+
     private void init() {
         if (serviceInventoryCache == null) {
             initLock.lock();
             try {
                 if (serviceInventoryCache == null) {
+                    serviceInstanceInventoryCache = moduleManager.find(CoreModule.NAME).getService(ServiceInstanceInventoryCache.class);
+                    endpointInventoryCache = moduleManager.find(CoreModule.NAME).getService(EndpointInventoryCache.class);
                     serviceInventoryCache = moduleManager.find(CoreModule.NAME).getService(ServiceInventoryCache.class);
                     indicatorNotify = moduleManager.find(AlarmModule.NAME).getService(IndicatorNotify.class);
                     indicatorNotify.init(new AlarmStandardPersistence());
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm;
+
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.skywalking.oap.server.core.source.Scope;
+
+/**
+ * The relation of service, service instance or endpoint. The relations of the same source and dest by different
+ * components are different entities.
+ */
+@Getter(AccessLevel.PUBLIC)
+@Setter(AccessLevel.PUBLIC)
+public class RelationMetaInAlarm extends MetaInAlarm {
+    private String indicatorName;
+    private Scope scope;
+
+    private int sourceId;
+    private int destId;
+    private int componentId;
+    private String name;
+
+    @Override public int getId0() {
+        return sourceId;
+    }
+
+    @Override public int getId1() {
+        return destId;
+    }
+
+    @Override public boolean equals(Object o) {
+        return super.equals(o) && componentId == ((RelationMetaInAlarm)o).componentId && scope == ((RelationMetaInAlarm)o).scope;
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(sourceId, destId, componentId);
+    }
+}
@@ -33,6 +33,8 @@ import org.apache.skywalking.oap.server.core.analysis.generated.servicerelation.
 import org.apache.skywalking.oap.server.core.analysis.manual.endpointrelation.EndpointCallRelationDispatcher;
 import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentDispatcher;
 import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.ServiceCallRelationDispatcher;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.ServiceInstanceLiveTopologyDispatcher;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.ServiceLiveTopologyDispatcher;
 import org.apache.skywalking.oap.server.core.source.*;
 import org.slf4j.*;
 
@@ -56,8 +58,8 @@ public class DispatcherManager {
         this.dispatcherMap.put(Scope.ServiceInstance, new SourceDispatcher[] {new ServiceInstanceDispatcher()});
         this.dispatcherMap.put(Scope.Endpoint, new SourceDispatcher[] {new EndpointDispatcher()});
 
-        this.dispatcherMap.put(Scope.ServiceRelation, new SourceDispatcher[] {new ServiceRelationDispatcher(), new ServiceCallRelationDispatcher()});
-        this.dispatcherMap.put(Scope.ServiceInstanceRelation, new SourceDispatcher[] {new ServiceInstanceRelationDispatcher()});
+        this.dispatcherMap.put(Scope.ServiceRelation, new SourceDispatcher[] {new ServiceRelationDispatcher(), new ServiceCallRelationDispatcher(), new ServiceLiveTopologyDispatcher()});
+        this.dispatcherMap.put(Scope.ServiceInstanceRelation, new SourceDispatcher[] {new ServiceInstanceRelationDispatcher(), new ServiceInstanceLiveTopologyDispatcher()});
         this.dispatcherMap.put(Scope.EndpointRelation, new SourceDispatcher[] {new EndpointRelationDispatcher(), new EndpointCallRelationDispatcher()});
 
         this.dispatcherMap.put(Scope.ServiceInstanceJVMCPU, new SourceDispatcher[] {new ServiceInstanceJVMCPUDispatcher()});
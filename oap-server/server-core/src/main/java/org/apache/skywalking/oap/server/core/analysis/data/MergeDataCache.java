@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.analysis.data;
 
+import java.util.function.Function;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 
 /**
@@ -43,6 +44,14 @@ public class MergeDataCache<INDICATOR extends Indicator> extends Window<INDICATO
         lockedMergeDataCollection.put(data);
     }
 
+    /**
+     * Read the data of the key in the current collection, under the lock of the cache, which the writer and the pointer
+     * switch also hold, so the reader sees a stable collection. The reader gets null if the key isn't there.
+     */
+    public synchronized <R> R readCurrent(INDICATOR key, Function<INDICATOR, R> reader) {
+        return reader.apply(getCurrent().get(key));
+    }
+
     @Override public void writing() {
         lockedMergeDataCollection = getCurrentAndWriting();
     }
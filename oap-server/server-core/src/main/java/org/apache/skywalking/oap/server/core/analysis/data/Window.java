@@ -48,7 +48,7 @@ public abstract class Window<DATA> {
         windowSwitch.addAndGet(-1);
     }
 
-    public void switchPointer() {
+    public synchronized void switchPointer() {
         if (pointer == windowDataA) {
             pointer = windowDataB;
         } else {
@@ -67,7 +67,7 @@ public abstract class Window<DATA> {
         }
     }
 
-    private SWCollection<DATA> getCurrent() {
+    SWCollection<DATA> getCurrent() {
         return pointer;
     }
 
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.manual.servicerelation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.oap.server.core.cluster.ClusterModule;
+import org.apache.skywalking.oap.server.core.cluster.ClusterNodesQuery;
+import org.apache.skywalking.oap.server.core.cluster.RemoteInstance;
+import org.apache.skywalking.oap.server.core.query.entity.Call;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.core.source.Scope;
+import org.apache.skywalking.oap.server.core.source.ServiceInstanceRelation;
+import org.apache.skywalking.oap.server.core.source.ServiceRelation;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The service and service instance topologies of the recent time, maintained in memory by the relations as they are
+ * dispatched, so the topology queries of the recent time don't have to aggregate the relation indicators in the
+ * storage.
+ *
+ * The edges are kept by minute for the latest minutes, then by hour and by day, see {@link TimeBucketedEdges}. A node
+ * only keeps the relations of its own agents, the edges of the cluster are the union of the edges of all nodes, read
+ * through the remote channel. A node answers a range only if it is after the node started and fits the resolution of
+ * the kept edges. The edges of a node which has left the cluster are lost, so a range is served only if it is after
+ * the last change of the cluster nodes, otherwise the caller should read the storage.
+ */
+public enum LiveServiceTopology {
+    INSTANCE;
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveServiceTopology.class);
+
+    private final TimeBucketedEdges clientSideEdges = new TimeBucketedEdges();
+    private final TimeBucketedEdges serverSideEdges = new TimeBucketedEdges();
+    private final TimeBucketedEdges clientSideInstanceEdges = new TimeBucketedEdges();
+    private final TimeBucketedEdges serverSideInstanceEdges = new TimeBucketedEdges();
+    private ClusterNodesQuery clusterNodesQuery;
+    private volatile boolean started = false;
+    private volatile long liveSince;
+    private volatile Set<String> nodes = new HashSet<>();
+    private volatile long nodesSince;
+    private int minutes;
+    private int hours;
+    private int days;
+
+    /**
+     * @param minutes the latest minutes kept by minute, the live topology is disabled if it isn't positive.
+     * @param hours the latest hours kept by hour, at least as long as the minutes.
+     * @param days the latest days kept by day, at least as long as the hours.
+     */
+    public void start(ModuleManager moduleManager, int minutes, int hours, int days) {
+        if (minutes <= 0) {
+            return;
+        }
+        this.minutes = minutes;
+        this.hours = Math.max(hours, (minutes + 59) / 60);
+        this.days = Math.max(days, (this.hours + 23) / 24);
+        this.clusterNodesQuery = moduleManager.find(ClusterModule.NAME).getService(ClusterNodesQuery.class);
+
+        /*
+         * Relations of the current minute might have been dispatched before started.
+         */
+        this.liveSince = nextMinute();
+        this.nodesSince = liveSince;
+        this.started = true;
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::refresh,
+                t -> logger.error("Refresh the live service topology failure.", t)), 0, 1, TimeUnit.MINUTES);
+    }
+
+    private void refresh() {
+        checkNodes();
+        compact();
+    }
+
+    /**
+     * Compare the cluster nodes with the ones of the last check, a change moves the served ranges to the next minute.
+     */
+    private void checkNodes() {
+        Set<String> current = new HashSet<>();
+        for (RemoteInstance remoteInstance : clusterNodesQuery.queryRemoteNodes()) {
+            current.add(remoteInstance.getHost() + ":" + remoteInstance.getPort());
+        }
+
+        synchronized (this) {
+            if (!current.equals(nodes)) {
+                if (!nodes.isEmpty()) {
+                    nodesSince = Math.max(nodesSince, nextMinute());
+                    logger.info("The cluster nodes changed to {}, the live topology is served since {}.", current, nodesSince);
+                }
+                nodes = current;
+            }
+        }
+    }
+
+    private static long nextMinute() {
+        return Long.valueOf(new DateTime().plusMinutes(1).toString("yyyyMMddHHmm"));
+    }
+
+    public void add(ServiceRelation relation) {
+        if (!started) {
+            return;
+        }
+        add(clientSideEdges, serverSideEdges, relation.getDetectPoint(), relation.getTimeBucket(), relation.getEntityId());
+    }
+
+    public void add(ServiceInstanceRelation relation) {
+        if (!started) {
+            return;
+        }
+        add(clientSideInstanceEdges, serverSideInstanceEdges, relation.getDetectPoint(), relation.getTimeBucket(), relation.getEntityId());
+    }
+
+    private void add(TimeBucketedEdges clientSide, TimeBucketedEdges serverSide, DetectPoint detectPoint,
+        long timeBucket, String entityId) {
+        switch (detectPoint) {
+            case CLIENT:
+                clientSide.add(timeBucket, entityId);
+                break;
+            case SERVER:
+                serverSide.add(timeBucket, entityId);
+                break;
+        }
+    }
+
+    void compact() {
+        compact(new DateTime());
+    }
+
+    void compact(DateTime now) {
+        long minuteFloor = Long.valueOf(now.minusMinutes(minutes).toString("yyyyMMddHH")) * 100;
+        long hourFloor = Long.valueOf(now.minusHours(hours).toString("yyyyMMdd")) * 10000;
+        long dayFloor = Long.valueOf(now.minusDays(days).toString("yyyyMMdd")) * 10000;
+
+        clientSideEdges.compact(minuteFloor, hourFloor, dayFloor);
+        serverSideEdges.compact(minuteFloor, hourFloor, dayFloor);
+        clientSideInstanceEdges.compact(minuteFloor, hourFloor, dayFloor);
+        serverSideInstanceEdges.compact(minuteFloor, hourFloor, dayFloor);
+    }
+
+    /**
+     * @return true if the range could be served by the live topologies of the cluster, i.e. it starts after the last
+     * change of the cluster nodes, as seen by this node.
+     */
+    public boolean isServed(Step step, long startTB) {
+        if (!started || step == Step.SECOND) {
+            return false;
+        }
+        checkNodes();
+        return toMinute(step, startTB, false) >= nodesSince;
+    }
+
+    /**
+     * @param scope {@link Scope#ServiceRelation} or {@link Scope#ServiceInstanceRelation}.
+     * @return the edges kept by this node in the minute range, or null if this node can't answer the range.
+     */
+    public LiveTopologyEdges loadLocal(Scope scope, long startMinute, long endMinute) {
+        if (!started || startMinute < liveSince) {
+            return null;
+        }
+
+        LiveTopologyEdges edges = new LiveTopologyEdges();
+        Set<String> clientSide;
+        Set<String> serverSide;
+        switch (scope) {
+            case ServiceRelation:
+                clientSide = clientSideEdges.load(startMinute, endMinute);
+                serverSide = serverSideEdges.load(startMinute, endMinute);
+                break;
+            case ServiceInstanceRelation:
+                clientSide = clientSideInstanceEdges.load(startMinute, endMinute);
+                serverSide = serverSideInstanceEdges.load(startMinute, endMinute);
+                break;
+            default:
+                return null;
+        }
+        if (Objects.isNull(clientSide) || Objects.isNull(serverSide)) {
+            return null;
+        }
+        edges.getClientSide().addAll(clientSide);
+        edges.getServerSide().addAll(serverSide);
+        return edges;
+    }
+
+    /**
+     * @param serviceIds only the calls from or to these services are built, all calls are built if it is null.
+     * @return the calls of the service relation edges.
+     */
+    public static List<Call> toServiceCalls(Set<String> entityIds, DetectPoint detectPoint,
+        Collection<Integer> serviceIds) {
+        List<Call> calls = new ArrayList<>(entityIds.size());
+        for (String entityId : entityIds) {
+            Integer[] ids = ServiceRelation.splitEntityId(entityId);
+            if (serviceIds != null && !serviceIds.contains(ids[0]) && !serviceIds.contains(ids[1])) {
+                continue;
+            }
+
+            Call call = new Call();
+            call.setId(entityId);
+            call.setSource(ids[0]);
+            call.setTarget(ids[1]);
+            call.setComponentId(ids[2]);
+            call.setDetectPoint(detectPoint);
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    /**
+     * @return the first, or the last, minute time bucket of the time bucket in the step.
+     */
+    public static long toMinute(Step step, long timeBucket, boolean last) {
+        switch (step) {
+            case MONTH:
+                return timeBucket * 1000000 + (last ? 312359 : 0);
+            case DAY:
+                return timeBucket * 10000 + (last ? 2359 : 0);
+            case HOUR:
+                return timeBucket * 100 + (last ? 59 : 0);
+            default:
+                return timeBucket;
+        }
+    }
+}
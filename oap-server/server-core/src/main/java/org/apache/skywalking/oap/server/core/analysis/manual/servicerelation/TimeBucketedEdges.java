@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.manual.servicerelation;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Edge sets of the topology, one set per minute time bucket. The old minutes are compacted into the set of their
+ * hour, the old hours into the set of their day, and the old days are dropped.
+ *
+ * Time buckets of every resolution are kept in the minute format, e.g. hour 2018110112 covers the minutes from
+ * 201811011200 to 201811011259.
+ */
+class TimeBucketedEdges {
+    private final ConcurrentSkipListMap<Long, Set<String>> minutes = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Set<String>> hours = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Set<String>> days = new ConcurrentSkipListMap<>();
+
+    /**
+     * Writers add edges concurrently under the read lock, the compaction moves the sets under the write lock, so no
+     * edge is added to a set which has been moved.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Minutes before it are in the hour sets, hours before the hour floor are in the day sets, days before the day
+     * floor are dropped. All in the minute format.
+     */
+    private volatile long minuteFloor;
+    private volatile long hourFloor;
+    private volatile long dayFloor;
+
+    void add(long minuteTimeBucket, String edge) {
+        Set<String> edges = minutes.get(minuteTimeBucket);
+        if (edges != null && edges.contains(edge)) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (minuteTimeBucket >= minuteFloor) {
+                minutes.computeIfAbsent(minuteTimeBucket, key -> ConcurrentHashMap.newKeySet()).add(edge);
+            } else if (minuteTimeBucket >= hourFloor) {
+                hours.computeIfAbsent(minuteTimeBucket / 100 * 100, key -> ConcurrentHashMap.newKeySet()).add(edge);
+            } else if (minuteTimeBucket >= dayFloor) {
+                days.computeIfAbsent(minuteTimeBucket / 10000 * 10000, key -> ConcurrentHashMap.newKeySet()).add(edge);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param minuteFloor minutes before it are compacted into hours, must be the first minute of an hour.
+     * @param hourFloor hours before it are compacted into days, must be the first minute of a day.
+     * @param dayFloor days before it are dropped, must be the first minute of a day.
+     */
+    void compact(long minuteFloor, long hourFloor, long dayFloor) {
+        lock.writeLock().lock();
+        try {
+            if (minuteFloor > this.minuteFloor) {
+                moveBefore(minutes, minuteFloor, hours, 100);
+                this.minuteFloor = minuteFloor;
+            }
+            if (hourFloor > this.hourFloor) {
+                moveBefore(hours, hourFloor, days, 10000);
+                this.hourFloor = hourFloor;
+            }
+            if (dayFloor > this.dayFloor) {
+                days.headMap(dayFloor).clear();
+                this.dayFloor = dayFloor;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void moveBefore(ConcurrentSkipListMap<Long, Set<String>> from, long floor,
+        ConcurrentSkipListMap<Long, Set<String>> to, long unit) {
+        Map<Long, Set<String>> moving = from.headMap(floor);
+        for (Map.Entry<Long, Set<String>> entry : moving.entrySet()) {
+            to.computeIfAbsent(entry.getKey() / unit * unit, key -> ConcurrentHashMap.newKeySet()).addAll(entry.getValue());
+        }
+        moving.clear();
+    }
+
+    /**
+     * @return the edges in the minute range, both inclusive, or null if some of the compacted sets overlap the range
+     * only partly, so the edges in the range can't be told exactly.
+     */
+    Set<String> load(long startMinute, long endMinute) {
+        Set<String> result = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (startMinute < dayFloor) {
+                return null;
+            }
+            if (!collect(days, startMinute, endMinute, 10000, 2359, result)) {
+                return null;
+            }
+            if (!collect(hours, startMinute, endMinute, 100, 59, result)) {
+                return null;
+            }
+            minutes.subMap(startMinute, true, endMinute, true).values().forEach(result::addAll);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private boolean collect(ConcurrentSkipListMap<Long, Set<String>> sets, long startMinute, long endMinute,
+        long unit, long lastMinute, Set<String> result) {
+        for (Map.Entry<Long, Set<String>> entry : sets.subMap(startMinute / unit * unit, true, endMinute, true).entrySet()) {
+            if (entry.getKey() < startMinute || entry.getKey() + lastMinute > endMinute) {
+                return false;
+            }
+            result.addAll(entry.getValue());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecordProcess;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnIds;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collect the top N of the minute indicators while they are persisted, see {@link TopNIndicators}. Once a minute is
+ * closed, its heaps are persisted as {@link TopNRecord}s, so the top N queries of the minute step merge a few records
+ * per minute instead of aggregating all entities.
+ */
+public enum TopNCollector {
+    INSTANCE;
+
+    private static final Logger logger = LoggerFactory.getLogger(TopNCollector.class);
+
+    private final Map<String, TopNIndicators> models = new ConcurrentHashMap<>();
+    private final String node = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    private volatile boolean enabled = false;
+    private int capacity;
+    private int closedBucketDelay;
+
+    /**
+     * @param capacity the entities kept in a minute by each of the largest and the smallest, the collector is
+     * disabled if it isn't positive.
+     * @param closedBucketDelay seconds after the end of a minute its heaps are persisted.
+     */
+    public void start(int capacity, int closedBucketDelay) {
+        if (capacity <= 0) {
+            return;
+        }
+        this.capacity = capacity;
+        this.closedBucketDelay = closedBucketDelay;
+        this.enabled = true;
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::emit,
+                t -> logger.error("Emit the top N records failure.", t)), 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the heaps of the model, null if its indicators have no value column.
+     */
+    public TopNIndicators register(String modelName) {
+        if (ValueColumnIds.INSTANCE.getValueCName(modelName) == null) {
+            return null;
+        }
+        return models.computeIfAbsent(modelName, TopNIndicators::new);
+    }
+
+    public void flushed(TopNIndicators topNIndicators, Indicator indicator) {
+        if (enabled) {
+            topNIndicators.flushed(indicator, capacity);
+        }
+    }
+
+    /**
+     * @return true if the top N records can answer a query of the given top N.
+     */
+    public boolean isAvailable(int topN) {
+        return enabled && topN <= capacity;
+    }
+
+    private void emit() {
+        long closedTimeBucket = Long.valueOf(new DateTime().minusSeconds(closedBucketDelay).minusMinutes(1).toString("yyyyMMddHHmm"));
+        models.values().forEach(topNIndicators -> topNIndicators.emit(closedTimeBucket, node, RecordProcess.INSTANCE::in));
+    }
+}
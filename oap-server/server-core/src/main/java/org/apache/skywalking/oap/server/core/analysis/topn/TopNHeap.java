@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValue;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+
+/**
+ * The bounded largest and smallest values of the entities in one minute, by the last flushed value of each entity.
+ *
+ * Each bound tracks at most {@link #TRACKED_SCALE} times the capacity entities, in an indexed heap with the worst on
+ * top, like a space-saving sketch with a capped counter table. A tracked entity is updated in place, an untracked one
+ * replaces the worst tracked one when it is better, otherwise it is dropped. An update costs O(log n) of the tracked
+ * entities, and the memory doesn't grow with the entities flushed in the minute.
+ *
+ * The error: an entity dropped or replaced is unknown until it is flushed again. When more than the extra tracked
+ * entities get worse than its last value before then, it is missing from the answer. As an active entity is flushed in
+ * every persistence cycle, it comes back by the next cycle.
+ */
+class TopNHeap {
+
+    static final int TRACKED_SCALE = 4;
+
+    private final Bound largest;
+    private final Bound smallest;
+
+    TopNHeap(int capacity) {
+        this.largest = new Bound(capacity, true);
+        this.smallest = new Bound(capacity, false);
+    }
+
+    synchronized void update(int entityId, long value) {
+        largest.offer(entityId, value);
+        smallest.offer(entityId, value);
+    }
+
+    /**
+     * @return the largest values, in descending order.
+     */
+    synchronized IntKeyLongValueArray getLargest() {
+        return largest.toArray();
+    }
+
+    /**
+     * @return the smallest values, in ascending order.
+     */
+    synchronized IntKeyLongValueArray getSmallest() {
+        return smallest.toArray();
+    }
+
+    synchronized int tracked() {
+        return Math.max(largest.tracked.size(), smallest.tracked.size());
+    }
+
+    private static class Bound {
+        private final int capacity;
+        private final int trackedCapacity;
+        private final boolean keepLargest;
+        private final IndexedHeap tracked;
+
+        private Bound(int capacity, boolean keepLargest) {
+            this.capacity = capacity;
+            this.trackedCapacity = capacity * TRACKED_SCALE;
+            this.keepLargest = keepLargest;
+            this.tracked = new IndexedHeap(!keepLargest);
+        }
+
+        private void offer(int entityId, long value) {
+            if (tracked.contains(entityId) || tracked.size() < trackedCapacity) {
+                tracked.put(entityId, value);
+            } else if (isBetter(value, tracked.topValue())) {
+                tracked.remove(tracked.topId());
+                tracked.put(entityId, value);
+            }
+        }
+
+        private boolean isBetter(long value, long than) {
+            return keepLargest ? value > than : value < than;
+        }
+
+        private IntKeyLongValueArray toArray() {
+            IntKeyLongValueArray all = new IntKeyLongValueArray(tracked.size());
+            for (int i = 0; i < tracked.size(); i++) {
+                all.add(new IntKeyLongValue(tracked.ids[i], tracked.values[i]));
+            }
+            all.sort((first, second) -> keepLargest ? Long.compare(second.getValue(), first.getValue()) : Long.compare(first.getValue(), second.getValue()));
+
+            IntKeyLongValueArray array = new IntKeyLongValueArray(Math.min(capacity, all.size()));
+            for (int i = 0; i < capacity && i < all.size(); i++) {
+                array.add(all.get(i));
+            }
+            return array;
+        }
+    }
+
+    /**
+     * A binary heap of the entity values, with the positions of the entities, so an entity is updated or removed in
+     * O(log n).
+     */
+    private static class IndexedHeap {
+        private final boolean largestOnTop;
+        private final Map<Integer, Integer> positions = new HashMap<>();
+        private int[] ids = new int[16];
+        private long[] values = new long[16];
+        private int size;
+
+        private IndexedHeap(boolean largestOnTop) {
+            this.largestOnTop = largestOnTop;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private boolean contains(int id) {
+            return positions.containsKey(id);
+        }
+
+        private int topId() {
+            return ids[0];
+        }
+
+        private long topValue() {
+            return values[0];
+        }
+
+        private void put(int id, long value) {
+            Integer position = positions.get(id);
+            if (position == null) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                set(size, id, value);
+                siftUp(size++);
+            } else {
+                values[position] = value;
+                siftDown(siftUp(position));
+            }
+        }
+
+        private void remove(int id) {
+            int position = positions.remove(id);
+            size--;
+            if (position < size) {
+                set(position, ids[size], values[size]);
+                siftDown(siftUp(position));
+            }
+        }
+
+        private int siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!above(position, parent)) {
+                    break;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+            return position;
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int child = (position << 1) + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && above(child + 1, child)) {
+                    child++;
+                }
+                if (!above(child, position)) {
+                    return;
+                }
+                swap(position, child);
+                position = child;
+            }
+        }
+
+        private boolean above(int position, int than) {
+            return largestOnTop ? values[position] > values[than] : values[position] < values[than];
+        }
+
+        private void swap(int first, int second) {
+            int id = ids[first];
+            long value = values[first];
+            set(first, ids[second], values[second]);
+            set(second, id, value);
+        }
+
+        private void set(int position, int id, long value) {
+            ids[position] = id;
+            values[position] = value;
+            positions.put(id, position);
+        }
+    }
+}
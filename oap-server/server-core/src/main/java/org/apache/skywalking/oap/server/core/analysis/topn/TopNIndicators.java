@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.alarm.AlarmSupported;
+import org.apache.skywalking.oap.server.core.analysis.indicator.DoubleValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.indicator.LongValueHolder;
+
+/**
+ * The top N heaps of one minute indicator, by minute, collected by the node which persists the indicators.
+ *
+ * Only the indicators of the single int entity ids, the services, service instances and endpoints, are collected. The
+ * value is read through the value holder of the indicator, and the entity id through its alarm meta.
+ */
+public class TopNIndicators {
+
+    private final String modelName;
+    private final Map<Long, TopNHeap> heaps = new ConcurrentHashMap<>();
+    private volatile boolean collectable = true;
+    private volatile long lastEmittedTimeBucket = 0;
+
+    TopNIndicators(String modelName) {
+        this.modelName = modelName;
+    }
+
+    void flushed(Indicator indicator, int capacity) {
+        if (!collectable || indicator.getTimeBucket() <= lastEmittedTimeBucket) {
+            return;
+        }
+
+        long value;
+        if (indicator instanceof LongValueHolder) {
+            value = ((LongValueHolder)indicator).getValue();
+        } else if (indicator instanceof IntValueHolder) {
+            value = ((IntValueHolder)indicator).getValue();
+        } else if (indicator instanceof DoubleValueHolder) {
+            value = (long)((DoubleValueHolder)indicator).getValue();
+        } else {
+            collectable = false;
+            return;
+        }
+
+        if (!(indicator instanceof AlarmSupported)) {
+            collectable = false;
+            return;
+        }
+
+        int id;
+        try {
+            id = Integer.parseInt(((AlarmSupported)indicator).getAlarmMeta().getId());
+        } catch (NumberFormatException e) {
+            collectable = false;
+            return;
+        }
+
+        heaps.computeIfAbsent(indicator.getTimeBucket(), timeBucket -> new TopNHeap(capacity)).update(id, value);
+    }
+
+    /**
+     * Emit the heaps of the minutes not after the given time bucket as records, the later flushed indicators of these
+     * minutes are ignored.
+     */
+    void emit(long closedTimeBucket, String node, Consumer<TopNRecord> emitter) {
+        lastEmittedTimeBucket = Math.max(lastEmittedTimeBucket, closedTimeBucket);
+        heaps.keySet().removeIf(timeBucket -> {
+            if (timeBucket > closedTimeBucket) {
+                return false;
+            }
+            TopNHeap heap = heaps.get(timeBucket);
+            TopNRecord record = new TopNRecord();
+            record.setTimeBucket(timeBucket);
+            record.setModelName(modelName);
+            record.setNode(node);
+            record.setLargest(heap.getLargest());
+            record.setSmallest(heap.getSmallest());
+            emitter.accept(record);
+            return true;
+        });
+    }
+}
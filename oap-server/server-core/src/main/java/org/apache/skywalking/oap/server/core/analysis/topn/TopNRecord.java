@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.*;
+import lombok.*;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+import org.apache.skywalking.oap.server.core.analysis.record.Record;
+import org.apache.skywalking.oap.server.core.analysis.record.annotation.RecordType;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.core.storage.annotation.*;
+
+/**
+ * The largest and the smallest values of a minute indicator in one minute, collected by one OAP node from the
+ * indicators it persists.
+ */
+@Getter
+@Setter
+@RecordType
+@StorageEntity(name = TopNRecord.INDEX_NAME, builder = TopNRecord.Builder.class)
+public class TopNRecord extends Record {
+
+    public static final String INDEX_NAME = "top_n_record";
+    public static final String MODEL_NAME = "model_name";
+    private static final String NODE = "node";
+    private static final String LARGEST = "largest";
+    private static final String SMALLEST = "smallest";
+
+    @Override public String id() {
+        return getTimeBucket() + Const.ID_SPLIT + modelName + Const.ID_SPLIT + node;
+    }
+
+    @Column(columnName = MODEL_NAME) private String modelName;
+    @Column(columnName = NODE) private String node;
+    @Column(columnName = LARGEST) private IntKeyLongValueArray largest;
+    @Column(columnName = SMALLEST) private IntKeyLongValueArray smallest;
+
+    public static class Builder implements StorageBuilder<TopNRecord> {
+
+        @Override public Map<String, Object> data2Map(TopNRecord storageData) {
+            Map<String, Object> map = new HashMap<>();
+            map.put(MODEL_NAME, storageData.getModelName());
+            map.put(NODE, storageData.getNode());
+            map.put(LARGEST, storageData.getLargest());
+            map.put(SMALLEST, storageData.getSmallest());
+            map.put(TIME_BUCKET, storageData.getTimeBucket());
+            return map;
+        }
+
+        @Override public TopNRecord map2Data(Map<String, Object> dbMap) {
+            TopNRecord record = new TopNRecord();
+            record.setModelName((String)dbMap.get(MODEL_NAME));
+            record.setNode((String)dbMap.get(NODE));
+            record.setLargest(toArray((String)dbMap.get(LARGEST)));
+            record.setSmallest(toArray((String)dbMap.get(SMALLEST)));
+            record.setTimeBucket(((Number)dbMap.get(TIME_BUCKET)).longValue());
+            return record;
+        }
+
+        private IntKeyLongValueArray toArray(String data) {
+            return data == null || data.isEmpty() ? new IntKeyLongValueArray() : new IntKeyLongValueArray(data);
+        }
+    }
+}
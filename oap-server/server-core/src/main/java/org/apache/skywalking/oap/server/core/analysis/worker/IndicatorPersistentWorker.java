@@ -27,6 +27,8 @@ import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.core.analysis.data.EndOfBatchContext;
 import org.apache.skywalking.oap.server.core.analysis.data.MergeDataCache;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNCollector;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNIndicators;
 import org.apache.skywalking.oap.server.core.storage.IIndicatorDAO;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
@@ -47,14 +49,22 @@ public class IndicatorPersistentWorker extends PersistenceWorker<Indicator, Merg
     private final IIndicatorDAO indicatorDAO;
     private final AbstractWorker<Indicator> nextWorker;
     private final DataCarrier<Indicator> dataCarrier;
+    private final RecentIndicators recentIndicators;
+    private final TopNIndicators topNIndicators;
 
     IndicatorPersistentWorker(int workerId, String modelName, int batchSize, ModuleManager moduleManager,
-        IIndicatorDAO indicatorDAO, AbstractWorker<Indicator> nextWorker) {
+        IIndicatorDAO indicatorDAO, AbstractWorker<Indicator> nextWorker, RecentIndicators recentIndicators,
+        TopNIndicators topNIndicators) {
         super(moduleManager, workerId, batchSize);
         this.modelName = modelName;
         this.mergeDataCache = new MergeDataCache<>();
         this.indicatorDAO = indicatorDAO;
         this.nextWorker = nextWorker;
+        this.recentIndicators = recentIndicators;
+        this.topNIndicators = topNIndicators;
+        if (Objects.nonNull(recentIndicators)) {
+            recentIndicators.receiveFrom(mergeDataCache);
+        }
         this.dataCarrier = new DataCarrier<>("IndicatorPersistentWorker." + modelName, 1, 10000);
         this.dataCarrier.consume(new IndicatorPersistentWorker.PersistentConsumer(this), 1);
     }
@@ -103,6 +113,14 @@ public class IndicatorPersistentWorker extends PersistenceWorker<Indicator, Merg
                     batchCollection.add(indicatorDAO.prepareBatchInsert(modelName, data));
                 }
 
+                if (Objects.nonNull(recentIndicators)) {
+                    RecentIndicatorCache.INSTANCE.flushed(recentIndicators, data);
+                }
+
+                if (Objects.nonNull(topNIndicators)) {
+                    TopNCollector.INSTANCE.flushed(topNIndicators, data);
+                }
+
                 if (Objects.nonNull(nextWorker)) {
                     nextWorker.in(data);
                 }
@@ -114,18 +132,23 @@ public class IndicatorPersistentWorker extends PersistenceWorker<Indicator, Merg
         return batchCollection;
     }
 
+    /**
+     * Written under the lock of the cache, the recent tier reads the current collection under the same lock.
+     */
     @Override public void cacheData(Indicator input) {
-        mergeDataCache.writing();
-        if (mergeDataCache.containsKey(input)) {
-            Indicator indicator = mergeDataCache.get(input);
-            indicator.combine(input);
-            indicator.calculate();
-        } else {
-            input.calculate();
-            mergeDataCache.put(input);
-        }
+        synchronized (mergeDataCache) {
+            mergeDataCache.writing();
+            if (mergeDataCache.containsKey(input)) {
+                Indicator indicator = mergeDataCache.get(input);
+                indicator.combine(input);
+                indicator.calculate();
+            } else {
+                input.calculate();
+                mergeDataCache.put(input);
+            }
 
-        mergeDataCache.finishWriting();
+            mergeDataCache.finishWriting();
+        }
     }
 
     private class PersistentConsumer implements IConsumer<Indicator> {
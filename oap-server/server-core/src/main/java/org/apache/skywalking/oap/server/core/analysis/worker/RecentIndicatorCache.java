@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The recent tier of the minute indicators, the latest minutes are kept in memory by the nodes which persist them, see
+ * {@link RecentIndicators}, and the queries of these minutes are answered through the remote channel instead of the
+ * storage.
+ */
+public enum RecentIndicatorCache {
+    INSTANCE;
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentIndicatorCache.class);
+
+    private final Map<String, RecentIndicators> models = new ConcurrentHashMap<>();
+    private volatile boolean enabled = false;
+    private int minutes;
+
+    /**
+     * @param minutes the latest minutes kept, including the current one, the recent tier is disabled if it isn't
+     * positive.
+     */
+    public void start(int minutes) {
+        if (minutes <= 0) {
+            return;
+        }
+        this.minutes = minutes;
+        this.enabled = true;
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::removeExpired,
+                t -> logger.error("Remove the expired recent indicators failure.", t)), 1, 1, TimeUnit.MINUTES);
+    }
+
+    RecentIndicators register(String modelName, StorageBuilder storageBuilder) {
+        return models.computeIfAbsent(modelName, name -> new RecentIndicators(storageBuilder));
+    }
+
+    /**
+     * @return true if the minute time bucket is still kept by the recent tier.
+     */
+    public boolean isRecent(long minuteTimeBucket) {
+        return enabled && minuteTimeBucket >= firstRecentTimeBucket(new DateTime());
+    }
+
+    void flushed(RecentIndicators recentIndicators, Indicator indicator) {
+        if (isRecent(indicator.getTimeBucket())) {
+            recentIndicators.flushed(indicator);
+        }
+    }
+
+    /**
+     * @return the values of the ids kept by this node, the ids not kept are absent.
+     */
+    public Map<String, Long> getValues(String modelName, List<String> ids, String valueCName) {
+        RecentIndicators recentIndicators = models.get(modelName);
+        if (!enabled || recentIndicators == null) {
+            return Collections.emptyMap();
+        }
+        return recentIndicators.getValues(ids, valueCName);
+    }
+
+    private void removeExpired() {
+        long firstRecentTimeBucket = firstRecentTimeBucket(new DateTime());
+        models.values().forEach(recentIndicators -> recentIndicators.removeBefore(firstRecentTimeBucket));
+    }
+
+    long firstRecentTimeBucket(DateTime now) {
+        return Long.valueOf(now.minusMinutes(minutes - 1).toString("yyyyMMddHHmm"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.skywalking.oap.server.core.analysis.data.MergeDataCache;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The minute indicators of one model in the recent minutes, kept by the node which persists them.
+ *
+ * An indicator is kept as it has been flushed, the value written to the storage, and replaced by the next flush of the
+ * same id. The flushed instance isn't changed after the flush, so it is kept by reference, without copying. A query
+ * combines a copy of it with the data received since the last pointer switch, read from the merge cache of the
+ * persistent worker, so the value is ahead of the storage. Data received between the pointer switch and the flush is
+ * only counted once it is flushed.
+ */
+public class RecentIndicators {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentIndicators.class);
+
+    private final StorageBuilder storageBuilder;
+    private final Map<String, Indicator> indicators = new ConcurrentHashMap<>();
+    private volatile MergeDataCache<Indicator> receiving;
+
+    RecentIndicators(StorageBuilder storageBuilder) {
+        this.storageBuilder = storageBuilder;
+    }
+
+    void receiveFrom(MergeDataCache<Indicator> receiving) {
+        this.receiving = receiving;
+    }
+
+    void flushed(Indicator indicator) {
+        indicators.put(indicator.id(), indicator);
+    }
+
+    /**
+     * @return the values of the kept indicators in the given ids, read from the value column.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> getValues(List<String> ids, String valueCName) {
+        Map<String, Long> values = new HashMap<>();
+        for (String id : ids) {
+            Indicator indicator = indicators.get(id);
+            if (indicator == null) {
+                continue;
+            }
+
+            Object value = read(indicator, valueCName);
+            if (value instanceof Number) {
+                values.put(id, ((Number)value).longValue());
+            }
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object read(Indicator flushed, String valueCName) {
+        MergeDataCache<Indicator> receiving = this.receiving;
+        if (receiving == null) {
+            return storageBuilder.data2Map(flushed).get(valueCName);
+        }
+
+        return receiving.readCurrent(flushed, received -> {
+            if (received == null) {
+                return storageBuilder.data2Map(flushed).get(valueCName);
+            }
+            Indicator copy = copy(flushed);
+            if (copy == null) {
+                return storageBuilder.data2Map(flushed).get(valueCName);
+            }
+            copy.combine(received);
+            copy.calculate();
+            return storageBuilder.data2Map(copy).get(valueCName);
+        });
+    }
+
+    private Indicator copy(Indicator indicator) {
+        try {
+            Indicator copy = indicator.getClass().newInstance();
+            copy.deserialize(indicator.serialize().build());
+            return copy;
+        } catch (InstantiationException | IllegalAccessException e) {
+            logger.error(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    void removeBefore(long timeBucket) {
+        indicators.values().removeIf(indicator -> indicator.getTimeBucket() < timeBucket);
+    }
+
+    int size() {
+        return indicators.size();
+    }
+}
@@ -19,14 +19,17 @@
 package org.apache.skywalking.oap.server.core.query;
 
 import java.io.IOException;
-import java.util.List;
+import java.text.ParseException;
+import java.util.*;
 import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.indicator.*;
+import org.apache.skywalking.oap.server.core.analysis.topn.*;
 import org.apache.skywalking.oap.server.core.cache.*;
 import org.apache.skywalking.oap.server.core.query.entity.*;
 import org.apache.skywalking.oap.server.core.register.*;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnIds;
-import org.apache.skywalking.oap.server.core.storage.query.IAggregationQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.*;
 import org.apache.skywalking.oap.server.library.module.*;
 import org.apache.skywalking.oap.server.library.module.Service;
 
@@ -37,6 +40,7 @@ public class AggregationQueryService implements Service {
 
     private final ModuleManager moduleManager;
     private IAggregationQueryDAO aggregationQueryDAO;
+    private ITopNRecordQueryDAO topNRecordQueryDAO;
 
     public AggregationQueryService(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
@@ -49,9 +53,19 @@ public class AggregationQueryService implements Service {
         return aggregationQueryDAO;
     }
 
+    private ITopNRecordQueryDAO getTopNRecordQueryDAO() {
+        if (topNRecordQueryDAO == null) {
+            topNRecordQueryDAO = moduleManager.find(StorageModule.NAME).getService(ITopNRecordQueryDAO.class);
+        }
+        return topNRecordQueryDAO;
+    }
+
     public List<TopNEntity> getServiceTopN(final String indName, final int topN, final Step step, final long startTB,
         final long endTB, final Order order) throws IOException {
-        List<TopNEntity> topNEntities = getAggregationQueryDAO().getServiceTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        List<TopNEntity> topNEntities = topNFromRecords(indName, topN, step, startTB, endTB, order);
+        if (topNEntities == null) {
+            topNEntities = getAggregationQueryDAO().getServiceTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        }
         for (TopNEntity entity : topNEntities) {
             ServiceInventory inventory = moduleManager.find(CoreModule.NAME).getService(ServiceInventoryCache.class).get(Integer.valueOf(entity.getId()));
             if (inventory != null) {
@@ -63,7 +77,10 @@ public class AggregationQueryService implements Service {
 
     public List<TopNEntity> getAllServiceInstanceTopN(final String indName, final int topN, final Step step,
         final long startTB, final long endTB, final Order order) throws IOException {
-        List<TopNEntity> topNEntities = getAggregationQueryDAO().getAllServiceInstanceTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        List<TopNEntity> topNEntities = topNFromRecords(indName, topN, step, startTB, endTB, order);
+        if (topNEntities == null) {
+            topNEntities = getAggregationQueryDAO().getAllServiceInstanceTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        }
         for (TopNEntity entity : topNEntities) {
             ServiceInstanceInventory inventory = moduleManager.find(CoreModule.NAME).getService(ServiceInstanceInventoryCache.class).get(Integer.valueOf(entity.getId()));
             if (inventory != null) {
@@ -87,7 +104,10 @@ public class AggregationQueryService implements Service {
 
     public List<TopNEntity> getAllEndpointTopN(final String indName, final int topN, final Step step,
         final long startTB, final long endTB, final Order order) throws IOException {
-        List<TopNEntity> topNEntities = getAggregationQueryDAO().getAllEndpointTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        List<TopNEntity> topNEntities = topNFromRecords(indName, topN, step, startTB, endTB, order);
+        if (topNEntities == null) {
+            topNEntities = getAggregationQueryDAO().getAllEndpointTopN(indName, ValueColumnIds.INSTANCE.getValueCName(indName), topN, step, startTB, endTB, order);
+        }
         for (TopNEntity entity : topNEntities) {
             EndpointInventory inventory = moduleManager.find(CoreModule.NAME).getService(EndpointInventoryCache.class).get(Integer.valueOf(entity.getId()));
             if (inventory != null) {
@@ -108,4 +128,76 @@ public class AggregationQueryService implements Service {
         }
         return topNEntities;
     }
+
+    /**
+     * Merge the top N records of the minutes, which are written by {@link TopNCollector}, instead of aggregating all
+     * the indicators in the duration. The records answer only when every minute of the duration has one, so the open
+     * current minute, or the minutes the collector didn't run, make the query fall back to the indicators.
+     *
+     * The value of an entity is the average over all the minutes of the duration. In a minute the entity isn't kept
+     * in, its value is taken as the worst value kept in that minute, the bound it can't pass, so an entity kept in a
+     * single minute doesn't outrank one kept in every minute. The result is approximate when the entities are close to
+     * each other.
+     *
+     * @return null if the records can't answer the query.
+     */
+    private List<TopNEntity> topNFromRecords(final String indName, final int topN, final Step step,
+        final long startTB, final long endTB, final Order order) throws IOException {
+        if (step != Step.MINUTE || !TopNCollector.INSTANCE.isAvailable(topN)) {
+            return null;
+        }
+
+        List<DurationPoint> durationPoints;
+        try {
+            durationPoints = DurationUtils.INSTANCE.getDurationPoints(step, startTB, endTB);
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+
+        boolean ascending = Order.ASC.equals(order);
+        Map<Long, List<IntKeyLongValueArray>> minutes = new HashMap<>();
+        for (TopNRecord record : getTopNRecordQueryDAO().getTopNRecords(indName, startTB, endTB)) {
+            minutes.computeIfAbsent(record.getTimeBucket(), timeBucket -> new ArrayList<>()).add(ascending ? record.getSmallest() : record.getLargest());
+        }
+        for (DurationPoint durationPoint : durationPoints) {
+            if (!minutes.containsKey(durationPoint.getPoint())) {
+                return null;
+            }
+        }
+
+        // The sum of an entity is the sum of the bounds of all minutes, plus what it passes the bounds by when kept.
+        Map<Integer, long[]> aboveBounds = new HashMap<>();
+        long boundSum = 0;
+        for (DurationPoint durationPoint : durationPoints) {
+            Long bound = null;
+            Map<Integer, Long> keptValues = new HashMap<>();
+            for (IntKeyLongValueArray values : minutes.get(durationPoint.getPoint())) {
+                for (IntKeyLongValue value : values) {
+                    keptValues.put(value.getKey(), value.getValue());
+                    if (bound == null || (ascending ? value.getValue() > bound : value.getValue() < bound)) {
+                        bound = value.getValue();
+                    }
+                }
+            }
+            long minuteBound = bound == null ? 0 : bound;
+
+            for (Map.Entry<Integer, Long> kept : keptValues.entrySet()) {
+                aboveBounds.computeIfAbsent(kept.getKey(), key -> new long[1])[0] += kept.getValue() - minuteBound;
+            }
+            boundSum += minuteBound;
+        }
+
+        int numOfMinutes = durationPoints.size();
+        List<TopNEntity> topNEntities = new ArrayList<>(aboveBounds.size());
+        for (Map.Entry<Integer, long[]> entry : aboveBounds.entrySet()) {
+            TopNEntity entity = new TopNEntity();
+            entity.setId(String.valueOf(entry.getKey()));
+            entity.setValue((int)((entry.getValue()[0] + boundSum) / numOfMinutes));
+            topNEntities.add(entity);
+        }
+
+        Comparator<TopNEntity> comparator = Comparator.comparingInt(TopNEntity::getValue);
+        topNEntities.sort(ascending ? comparator : comparator.reversed());
+        return topNEntities.size() > topN ? new ArrayList<>(topNEntities.subList(0, topN)) : topNEntities;
+    }
 }
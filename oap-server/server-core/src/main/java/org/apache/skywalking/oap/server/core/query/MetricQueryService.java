@@ -21,11 +21,18 @@ package org.apache.skywalking.oap.server.core.query;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.skywalking.apm.util.StringUtil;
 import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecentIndicatorCache;
 import org.apache.skywalking.oap.server.core.query.entity.*;
 import org.apache.skywalking.oap.server.core.query.sql.*;
+import org.apache.skywalking.oap.server.core.remote.client.*;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnIds;
 import org.apache.skywalking.oap.server.core.storage.query.IMetricQueryDAO;
@@ -41,8 +48,16 @@ public class MetricQueryService implements Service {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricQueryService.class);
 
+    /**
+     * The milliseconds all nodes are waited for by a recent query, the values of a node not answering in time are read
+     * from the storage instead.
+     */
+    private static final long RECENT_QUERY_TIMEOUT = 1000;
+
     private final ModuleManager moduleManager;
     private IMetricQueryDAO metricQueryDAO;
+    private QueryResultCache queryResultCache;
+    private RemoteClientManager remoteClientManager;
 
     public MetricQueryService(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
@@ -55,6 +70,20 @@ public class MetricQueryService implements Service {
         return metricQueryDAO;
     }
 
+    private QueryResultCache getQueryResultCache() {
+        if (queryResultCache == null) {
+            queryResultCache = moduleManager.find(CoreModule.NAME).getService(QueryResultCache.class);
+        }
+        return queryResultCache;
+    }
+
+    private RemoteClientManager getRemoteClientManager() {
+        if (remoteClientManager == null) {
+            remoteClientManager = moduleManager.find(CoreModule.NAME).getService(RemoteClientManager.class);
+        }
+        return remoteClientManager;
+    }
+
     public IntValues getValues(final String indName, final List<String> ids, final Step step, final long startTB,
         final long endTB) throws IOException {
         if (CollectionUtils.isEmpty(ids)) {
@@ -72,15 +101,121 @@ public class MetricQueryService implements Service {
 
     public IntValues getLinearIntValues(final String indName, final String id, final Step step, final long startTB,
         final long endTB) throws IOException, ParseException {
+        return getLinearIntValues(indName, Collections.singletonList(id), step, startTB, endTB).get(0);
+    }
+
+    /**
+     * Read the linear values of several entities of one indicator in the same duration, by one storage query.
+     *
+     * @return the values of every entity, in the order of the given entity ids.
+     */
+    public List<IntValues> getLinearIntValues(final String indName, final List<String> entityIds, final Step step,
+        final long startTB, final long endTB) throws IOException, ParseException {
         List<DurationPoint> durationPoints = DurationUtils.INSTANCE.getDurationPoints(step, startTB, endTB);
-        List<String> ids = new ArrayList<>();
-        if (StringUtil.isEmpty(id)) {
-            durationPoints.forEach(durationPoint -> ids.add(String.valueOf(durationPoint.getPoint())));
-        } else {
-            durationPoints.forEach(durationPoint -> ids.add(durationPoint.getPoint() + Const.ID_SPLIT + id));
+        int numOfPoints = durationPoints.size();
+        List<String> ids = new ArrayList<>(entityIds.size() * numOfPoints);
+        for (String id : entityIds) {
+            if (StringUtil.isEmpty(id)) {
+                durationPoints.forEach(durationPoint -> ids.add(String.valueOf(durationPoint.getPoint())));
+            } else {
+                durationPoints.forEach(durationPoint -> ids.add(durationPoint.getPoint() + Const.ID_SPLIT + id));
+            }
+        }
+
+        String valueCName = ValueColumnIds.INSTANCE.getValueCName(indName);
+        QueryResultCache cache = getQueryResultCache();
+        boolean cacheable = cache.isCacheable(step);
+        long lastClosedTimeBucket = cacheable ? cache.lastClosedTimeBucket(step) : 0;
+
+        Integer[] values = new Integer[ids.size()];
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (cacheable && durationPoints.get(i % numOfPoints).getPoint() <= lastClosedTimeBucket) {
+                CachedIntValue cached = cache.get(QueryResultCache.QueryType.LINEAR, cache.key(QueryResultCache.QueryType.LINEAR, indName, step, ids.get(i)));
+                if (cached != null) {
+                    values[i] = cached.value;
+                    continue;
+                }
+            }
+            missingIds.add(ids.get(i));
+        }
+
+        // Only the values which exist in the recent tier or the storage are fetched, the others are filled by 0.
+        Map<String, Integer> fetchedValues = new HashMap<>();
+        if (step == Step.MINUTE) {
+            List<String> recentIds = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (values[i] == null && RecentIndicatorCache.INSTANCE.isRecent(durationPoints.get(i % numOfPoints).getPoint())) {
+                    recentIds.add(ids.get(i));
+                }
+            }
+            if (!recentIds.isEmpty()) {
+                fetchedValues.putAll(queryRecent(indName, recentIds, valueCName));
+                missingIds.removeAll(fetchedValues.keySet());
+            }
+        }
+
+        boolean truncated = false;
+        if (!missingIds.isEmpty()) {
+            IntValues fetched = getMetricQueryDAO().getLinearIntValues(indName, step, missingIds, valueCName);
+            Set<String> existingIds = fetched.getExistingIds();
+            fetched.getValues().forEach(kvInt -> {
+                if (existingIds.contains(kvInt.getId())) {
+                    fetchedValues.put(kvInt.getId(), kvInt.getValue());
+                }
+            });
+            truncated = fetched.isTruncated();
         }
 
-        return getMetricQueryDAO().getLinearIntValues(indName, step, ids, ValueColumnIds.INSTANCE.getValueCName(indName));
+        List<IntValues> entityValues = new ArrayList<>(entityIds.size());
+        for (int entity = 0; entity < entityIds.size(); entity++) {
+            IntValues intValues = new IntValues();
+            intValues.setTruncated(truncated);
+            for (int point = 0; point < numOfPoints; point++) {
+                int i = entity * numOfPoints + point;
+                if (values[i] == null) {
+                    Integer fetchedValue = fetchedValues.get(ids.get(i));
+                    values[i] = fetchedValue == null ? 0 : fetchedValue;
+                    // A missing value isn't cached, late data of it is read by the next query.
+                    if (fetchedValue != null && cacheable && durationPoints.get(point).getPoint() <= lastClosedTimeBucket) {
+                        cache.put(cache.key(QueryResultCache.QueryType.LINEAR, indName, step, ids.get(i)), new CachedIntValue(values[i]));
+                    }
+                }
+
+                KVInt kvInt = new KVInt();
+                kvInt.setId(ids.get(i));
+                kvInt.setValue(values[i]);
+                intValues.addKVInt(kvInt);
+            }
+            entityValues.add(intValues);
+        }
+        return entityValues;
+    }
+
+    /**
+     * Read the minute values from the recent tier of all nodes in parallel, under one deadline. Every indicator is kept
+     * by the node which persists it only, the ids not kept by any node answering in time are absent.
+     */
+    private Map<String, Integer> queryRecent(String indName, List<String> ids, String valueCName) {
+        long deadline = System.currentTimeMillis() + RECENT_QUERY_TIMEOUT;
+        List<CompletableFuture<Map<String, Long>>> futures = new ArrayList<>();
+        for (RemoteClient remoteClient : getRemoteClientManager().getRemoteClient()) {
+            futures.add(remoteClient.queryRecent(indName, ids, valueCName, RECENT_QUERY_TIMEOUT));
+        }
+
+        Map<String, Integer> values = new HashMap<>();
+        for (CompletableFuture<Map<String, Long>> future : futures) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                future.get(remaining, TimeUnit.MILLISECONDS).forEach((id, value) -> values.put(id, value.intValue()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("query recent indicators failure: {}", e.getMessage());
+            }
+        }
+        return values;
     }
 
     public Thermodynamic getThermodynamic(final String indName, final String id, final Step step, final long startTB,
@@ -95,6 +230,93 @@ public class MetricQueryService implements Service {
             }
         });
 
-        return getMetricQueryDAO().getThermodynamic(indName, step, ids, ValueColumnIds.INSTANCE.getValueCName(indName));
+        String valueCName = ValueColumnIds.INSTANCE.getValueCName(indName);
+        QueryResultCache cache = getQueryResultCache();
+        if (!cache.isCacheable(step)) {
+            return getMetricQueryDAO().getThermodynamic(indName, step, ids, valueCName);
+        }
+
+        long lastClosedTimeBucket = cache.lastClosedTimeBucket(step);
+        CachedThermodynamicColumn[] columns = new CachedThermodynamicColumn[ids.size()];
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (durationPoints.get(i).getPoint() <= lastClosedTimeBucket) {
+                columns[i] = cache.get(QueryResultCache.QueryType.THERMODYNAMIC, cache.key(QueryResultCache.QueryType.THERMODYNAMIC, indName, step, ids.get(i)));
+            }
+            if (columns[i] == null) {
+                missingIds.add(ids.get(i));
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Thermodynamic fetched = getMetricQueryDAO().getThermodynamic(indName, step, missingIds, valueCName);
+            List<List<Long>> fetchedColumns = toColumns(fetched, missingIds.size());
+            for (int i = 0, missing = 0; i < ids.size(); i++) {
+                if (columns[i] == null) {
+                    columns[i] = new CachedThermodynamicColumn(fetched.getAxisYStep(), fetchedColumns.get(missing++));
+                    if (!columns[i].values.isEmpty() && durationPoints.get(i).getPoint() <= lastClosedTimeBucket) {
+                        cache.put(cache.key(QueryResultCache.QueryType.THERMODYNAMIC, indName, step, ids.get(i)), columns[i]);
+                    }
+                }
+            }
+        }
+
+        Thermodynamic thermodynamic = new Thermodynamic();
+        List<List<Long>> thermodynamicValueMatrix = new ArrayList<>(ids.size());
+        int numOfSteps = 0;
+        for (CachedThermodynamicColumn column : columns) {
+            if (column.axisYStep != 0) {
+                thermodynamic.setAxisYStep(column.axisYStep);
+            }
+            numOfSteps = Math.max(numOfSteps, column.values.size());
+            thermodynamicValueMatrix.add(new ArrayList<>(column.values));
+        }
+        thermodynamic.fromMatrixData(thermodynamicValueMatrix, numOfSteps);
+        return thermodynamic;
+    }
+
+    /**
+     * Split the nodes of the thermodynamic back to the columns, one column per time bucket, in the order of the ids.
+     */
+    private List<List<Long>> toColumns(Thermodynamic thermodynamic, int numOfColumns) {
+        List<List<Long>> columns = new ArrayList<>(numOfColumns);
+        for (int i = 0; i < numOfColumns; i++) {
+            columns.add(new ArrayList<>());
+        }
+        for (List<Long> node : thermodynamic.getNodes()) {
+            List<Long> column = columns.get(node.get(0).intValue());
+            int rowNum = node.get(1).intValue();
+            while (column.size() <= rowNum) {
+                column.add(0L);
+            }
+            column.set(rowNum, node.get(2));
+        }
+        return columns;
+    }
+
+    private static class CachedIntValue implements QueryResultCache.Weighable {
+        private final int value;
+
+        private CachedIntValue(int value) {
+            this.value = value;
+        }
+
+        @Override public int weight() {
+            return 16;
+        }
+    }
+
+    private static class CachedThermodynamicColumn implements QueryResultCache.Weighable {
+        private final int axisYStep;
+        private final List<Long> values;
+
+        private CachedThermodynamicColumn(int axisYStep, List<Long> values) {
+            this.axisYStep = axisYStep;
+            this.values = values;
+        }
+
+        @Override public int weight() {
+            return 32 + values.size() * 24;
+        }
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.library.module.Service;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the query results of closed time buckets.
+ *
+ * A time bucket is closed once its end, plus the closed bucket delay covering the aggregation and persistence of late
+ * data, has passed, its value can't change anymore. The query services cache the results of the closed time buckets
+ * until the TTL expires, and only read the still open tail from the storage. The cache is bounded by the estimated
+ * memory of the entries.
+ */
+public class QueryResultCache implements Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryResultCache.class);
+
+    /**
+     * Estimated memory of an entry besides its key and value, in bytes.
+     */
+    static final int ENTRY_OVERHEAD = 64;
+
+    public enum QueryType {
+        LINEAR, THERMODYNAMIC, TOPOLOGY
+    }
+
+    private final Cache<String, Object> cache;
+    private final long closedBucketDelay;
+    private final Map<QueryType, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<QueryType, LongAdder> misses = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxMemory the max estimated memory of the entries, in MB, the cache is disabled if it isn't positive.
+     * @param ttl minutes an entry is kept after written.
+     * @param closedBucketDelay seconds after the end of a time bucket it is treated as closed.
+     */
+    public QueryResultCache(int maxMemory, int ttl, int closedBucketDelay) {
+        if (maxMemory > 0 && ttl > 0) {
+            this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxMemory * 1024L * 1024L)
+                .weigher((String key, Object value) -> ((Weighable)value).weight() + key.length() * 2 + ENTRY_OVERHEAD)
+                .expireAfterWrite(ttl, TimeUnit.MINUTES)
+                .build();
+        } else {
+            this.cache = null;
+        }
+        this.closedBucketDelay = TimeUnit.SECONDS.toMillis(closedBucketDelay);
+        for (QueryType queryType : QueryType.values()) {
+            hits.put(queryType, new LongAdder());
+            misses.put(queryType, new LongAdder());
+        }
+    }
+
+    public void start() {
+        if (cache == null) {
+            return;
+        }
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::report,
+                t -> logger.error("Report query result cache failure.", t)), 5, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Results of the second step are not cached, as the second metrics are not persistent.
+     */
+    public boolean isCacheable(Step step) {
+        return cache != null && step != Step.SECOND;
+    }
+
+    /**
+     * @return the latest closed time bucket of the step, every time bucket not after it is closed.
+     */
+    public long lastClosedTimeBucket(Step step) {
+        return lastClosedTimeBucket(step, System.currentTimeMillis());
+    }
+
+    long lastClosedTimeBucket(Step step, long currentTimeMillis) {
+        DateTime openTime = new DateTime(currentTimeMillis - closedBucketDelay);
+        return timeBucket(step, plus(step, openTime, -1));
+    }
+
+    /**
+     * @return the time bucket following the given one in the step.
+     */
+    public long nextTimeBucket(Step step, long timeBucket) {
+        DateTime time = DateTimeFormat.forPattern(pattern(step)).parseDateTime(String.valueOf(timeBucket));
+        return timeBucket(step, plus(step, time, 1));
+    }
+
+    public String key(QueryType queryType, Object... parts) {
+        StringBuilder key = new StringBuilder(queryType.name());
+        for (Object part : parts) {
+            key.append(Const.ID_SPLIT).append(part);
+        }
+        return key.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Weighable> T get(QueryType queryType, String key) {
+        Object value = cache.getIfPresent(key);
+        if (value == null) {
+            misses.get(queryType).increment();
+        } else {
+            hits.get(queryType).increment();
+        }
+        return (T)value;
+    }
+
+    public void put(String key, Weighable value) {
+        cache.put(key, value);
+    }
+
+    /**
+     * @return the ratio of cached time buckets, or queries of the topology, to all read ones, since started.
+     */
+    public double hitRate(QueryType queryType) {
+        long hitCount = hits.get(queryType).sum();
+        long requestCount = hitCount + misses.get(queryType).sum();
+        return requestCount == 0 ? 0 : (double)hitCount / requestCount;
+    }
+
+    private void report() {
+        for (QueryType queryType : QueryType.values()) {
+            logger.info("Query result cache of {}, hits: {}, misses: {}, hit rate: {}", queryType, hits.get(queryType).sum(), misses.get(queryType).sum(), String.format("%.2f", hitRate(queryType)));
+        }
+        logger.info("Query result cache entries: {}", cache.size());
+    }
+
+    private static DateTime plus(Step step, DateTime time, int amount) {
+        switch (step) {
+            case MONTH:
+                return time.plusMonths(amount);
+            case DAY:
+                return time.plusDays(amount);
+            case HOUR:
+                return time.plusHours(amount);
+            case MINUTE:
+                return time.plusMinutes(amount);
+            default:
+                return time.plusSeconds(amount);
+        }
+    }
+
+    private static long timeBucket(Step step, DateTime time) {
+        return Long.valueOf(time.toString(pattern(step)));
+    }
+
+    private static String pattern(Step step) {
+        switch (step) {
+            case MONTH:
+                return "yyyyMM";
+            case DAY:
+                return "yyyyMMdd";
+            case HOUR:
+                return "yyyyMMddHH";
+            case MINUTE:
+                return "yyyyMMddHHmm";
+            default:
+                return "yyyyMMddHHmmss";
+        }
+    }
+
+    /**
+     * Value of the cache, knows its estimated memory.
+     */
+    public interface Weighable {
+        /**
+         * @return the estimated memory of the value, in bytes.
+         */
+        int weight();
+    }
+}
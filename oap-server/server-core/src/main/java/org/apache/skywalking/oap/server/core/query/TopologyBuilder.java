@@ -39,18 +39,30 @@ class TopologyBuilder {
     private final ServiceInventoryCache serviceInventoryCache;
     private final IComponentLibraryCatalogService componentLibraryCatalogService;
 
+    private final Map<Integer, Node> nodes;
+    private final List<Call> calls;
+    private final Set<String> callIds;
+
     TopologyBuilder(ModuleManager moduleManager) {
         this.serviceInventoryCache = moduleManager.find(CoreModule.NAME).getService(ServiceInventoryCache.class);
         this.componentLibraryCatalogService = moduleManager.find(CoreModule.NAME).getService(IComponentLibraryCatalogService.class);
+        this.nodes = new HashMap<>();
+        this.calls = new LinkedList<>();
+        this.callIds = new HashSet<>();
     }
 
     Topology build(List<Call> serviceRelationClientCalls, List<Call> serviceRelationServerCalls) {
-        filterZeroSourceOrTargetReference(serviceRelationClientCalls);
-        filterZeroSourceOrTargetReference(serviceRelationServerCalls);
+        appendClientCalls(serviceRelationClientCalls);
+        appendServerCalls(serviceRelationServerCalls);
+        return build();
+    }
 
-        Map<Integer, Node> nodes = new HashMap<>();
-        List<Call> calls = new LinkedList<>();
-        Set<String> callIds = new HashSet<>();
+    /**
+     * Merge a chunk of client side calls into the topology. All client side chunks must be appended before the server
+     * side ones, because the server side call overrides the node type.
+     */
+    void appendClientCalls(List<Call> serviceRelationClientCalls) {
+        filterZeroSourceOrTargetReference(serviceRelationClientCalls);
 
         for (Call clientCall : serviceRelationClientCalls) {
             ServiceInventory source = serviceInventoryCache.get(clientCall.getSource());
@@ -84,6 +96,13 @@ class TopologyBuilder {
                 calls.add(call);
             }
         }
+    }
+
+    /**
+     * Merge a chunk of server side calls into the topology.
+     */
+    void appendServerCalls(List<Call> serviceRelationServerCalls) {
+        filterZeroSourceOrTargetReference(serviceRelationServerCalls);
 
         for (Call serverCall : serviceRelationServerCalls) {
             ServiceInventory source = serviceInventoryCache.get(serverCall.getSource());
@@ -141,7 +160,9 @@ class TopologyBuilder {
                 nodes.get(target.getSequence()).setType(componentLibraryCatalogService.getComponentName(serverCall.getComponentId()));
             }
         }
+    }
 
+    Topology build() {
         Topology topology = new Topology();
         topology.getCalls().addAll(calls);
         topology.getNodes().addAll(nodes.values());
@@ -161,11 +182,6 @@ class TopologyBuilder {
     }
 
     private void filterZeroSourceOrTargetReference(List<Call> serviceRelationClientCalls) {
-        for (int i = serviceRelationClientCalls.size() - 1; i >= 0; i--) {
-            Call call = serviceRelationClientCalls.get(i);
-            if (call.getSource() == 0 || call.getTarget() == 0) {
-                serviceRelationClientCalls.remove(i);
-            }
-        }
+        serviceRelationClientCalls.removeIf(call -> call.getSource() == 0 || call.getTarget() == 0);
     }
 }
@@ -20,11 +20,17 @@ package org.apache.skywalking.oap.server.core.query;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 import org.apache.skywalking.oap.server.core.*;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveServiceTopology;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveTopologyEdges;
 import org.apache.skywalking.oap.server.core.cache.EndpointInventoryCache;
 import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogService;
 import org.apache.skywalking.oap.server.core.query.entity.*;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.query.*;
 import org.apache.skywalking.oap.server.library.module.*;
@@ -39,11 +45,23 @@ public class TopologyQueryService implements Service {
 
     private static final Logger logger = LoggerFactory.getLogger(TopologyQueryService.class);
 
+    /**
+     * The max number of missing closed time buckets read one by one into the cache by a global topology query.
+     */
+    private static final int MAX_BUCKET_READS = 4;
+
+    /**
+     * Milliseconds the nodes are waited for the edges of their live topologies.
+     */
+    private static final long LIVE_QUERY_TIMEOUT = 1000;
+
     private final ModuleManager moduleManager;
     private ITopologyQueryDAO topologyQueryDAO;
     private IMetadataQueryDAO metadataQueryDAO;
     private EndpointInventoryCache endpointInventoryCache;
     private IComponentLibraryCatalogService componentLibraryCatalogService;
+    private QueryResultCache queryResultCache;
+    private RemoteClientManager remoteClientManager;
 
     public TopologyQueryService(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
@@ -77,27 +95,84 @@ public class TopologyQueryService implements Service {
         return endpointInventoryCache;
     }
 
+    private QueryResultCache getQueryResultCache() {
+        if (queryResultCache == null) {
+            queryResultCache = moduleManager.find(CoreModule.NAME).getService(QueryResultCache.class);
+        }
+        return queryResultCache;
+    }
+
+    private RemoteClientManager getRemoteClientManager() {
+        if (remoteClientManager == null) {
+            remoteClientManager = moduleManager.find(CoreModule.NAME).getService(RemoteClientManager.class);
+        }
+        return remoteClientManager;
+    }
+
+    /**
+     * Read the edges of the live service topologies of all nodes in parallel, under one deadline, and merge them.
+     *
+     * @return the service relations of the cluster, or null if the range isn't served, or any node can't answer it.
+     */
+    private LiveTopologyEdges loadLiveServiceRelations(Step step, long startTB, long endTB) {
+        if (!LiveServiceTopology.INSTANCE.isServed(step, startTB)) {
+            return null;
+        }
+
+        long startMinute = LiveServiceTopology.toMinute(step, startTB, false);
+        long endMinute = LiveServiceTopology.toMinute(step, endTB, true);
+        long deadline = System.currentTimeMillis() + LIVE_QUERY_TIMEOUT;
+        List<CompletableFuture<LiveTopologyEdges>> futures = new ArrayList<>();
+        for (RemoteClient remoteClient : getRemoteClientManager().getRemoteClient()) {
+            futures.add(remoteClient.queryLiveTopology(Scope.ServiceRelation, startMinute, endMinute, LIVE_QUERY_TIMEOUT));
+        }
+
+        LiveTopologyEdges merged = new LiveTopologyEdges();
+        for (CompletableFuture<LiveTopologyEdges> future : futures) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                LiveTopologyEdges edges = future.get(remaining, TimeUnit.MILLISECONDS);
+                if (edges == null) {
+                    return null;
+                }
+                merged.merge(edges);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("query live topology failure: {}", e.getMessage());
+                return null;
+            }
+        }
+        return merged;
+    }
+
     public Topology getGlobalTopology(final Step step, final long startTB, final long endTB, final long startTimestamp,
         final long endTimestamp) throws IOException {
         logger.debug("step: {}, startTimeBucket: {}, endTimeBucket: {}", step, startTB, endTB);
-        List<Call> serviceRelationServerCalls = getTopologyQueryDAO().loadServerSideServiceRelations(step, startTB, endTB);
-        List<Call> serviceRelationClientCalls = getTopologyQueryDAO().loadClientSideServiceRelations(step, startTB, endTB);
+        TopologyBuilder builder = new TopologyBuilder(moduleManager);
+        boolean truncated = false;
+
+        LiveTopologyEdges liveEdges = loadLiveServiceRelations(step, startTB, endTB);
+        if (liveEdges != null) {
+            builder.appendClientCalls(LiveServiceTopology.toServiceCalls(liveEdges.getClientSide(), DetectPoint.CLIENT, null));
+            builder.appendServerCalls(LiveServiceTopology.toServiceCalls(liveEdges.getServerSide(), DetectPoint.SERVER, null));
+        } else {
+            truncated = loadServiceRelations(step, startTB, endTB, builder);
+        }
+        if (truncated) {
+            logger.warn("Global topology of step: {}, startTimeBucket: {}, endTimeBucket: {} has been truncated by the storage.", step, startTB, endTB);
+        }
 
         List<org.apache.skywalking.oap.server.core.query.entity.Service> serviceList = getMetadataQueryDAO().searchServices(startTimestamp, endTimestamp, Const.EMPTY_STRING);
 
-        TopologyBuilder builder = new TopologyBuilder(moduleManager);
-        Topology topology = builder.build(serviceRelationClientCalls, serviceRelationServerCalls);
+        Topology topology = builder.build();
+        topology.setTruncated(truncated);
 
+        Set<Integer> nodeIds = new HashSet<>();
+        topology.getNodes().forEach(node -> nodeIds.add(node.getId()));
         serviceList.forEach(service -> {
-            boolean contains = false;
-            for (Node node : topology.getNodes()) {
-                if (service.getId() == node.getId()) {
-                    contains = true;
-                    break;
-                }
-            }
-
-            if (!contains) {
+            if (nodeIds.add(service.getId())) {
                 Node newNode = new Node();
                 newNode.setId(service.getId());
                 newNode.setName(service.getName());
@@ -110,28 +185,114 @@ public class TopologyQueryService implements Service {
         return topology;
     }
 
+    /**
+     * Load the service relations from the storage into the builder.
+     *
+     * Each closed time bucket is cached on its own, so a sliding range keeps hitting the buckets it shares with the
+     * previous queries. Up to {@link #MAX_BUCKET_READS} missing closed buckets are read one by one and cached, the most
+     * recent first as they stay in the range the longest, the other missing ones and the open tail are read by range
+     * and not cached. A bucket without relations isn't cached, late data of it is read by the next query.
+     *
+     * @return true if the relations have been truncated by the storage.
+     */
+    private boolean loadServiceRelations(Step step, long startTB, long endTB,
+        TopologyBuilder builder) throws IOException {
+        QueryResultCache cache = getQueryResultCache();
+        long closedEndTB = cache.isCacheable(step) ? Math.min(endTB, cache.lastClosedTimeBucket(step)) : -1;
+        if (closedEndTB < startTB) {
+            boolean truncated = getTopologyQueryDAO().loadClientSideServiceRelations(step, startTB, endTB, builder::appendClientCalls);
+            truncated |= getTopologyQueryDAO().loadServerSideServiceRelations(step, startTB, endTB, builder::appendServerCalls);
+            return truncated;
+        }
+
+        List<CachedServiceRelations> closed = new ArrayList<>();
+        List<Long> missingTBs = new ArrayList<>();
+        for (long timeBucket = startTB; timeBucket <= closedEndTB; timeBucket = cache.nextTimeBucket(step, timeBucket)) {
+            CachedServiceRelations relations = cache.get(QueryResultCache.QueryType.TOPOLOGY, cache.key(QueryResultCache.QueryType.TOPOLOGY, step, timeBucket));
+            if (relations == null) {
+                missingTBs.add(timeBucket);
+            } else {
+                closed.add(relations);
+            }
+        }
+
+        boolean truncated = false;
+        int bucketReads = Math.min(MAX_BUCKET_READS, missingTBs.size());
+        for (int i = missingTBs.size() - bucketReads; i < missingTBs.size(); i++) {
+            long timeBucket = missingTBs.get(i);
+            CachedServiceRelations relations = new CachedServiceRelations();
+            relations.truncated = getTopologyQueryDAO().loadClientSideServiceRelations(step, timeBucket, timeBucket, relations.clientCalls::addAll);
+            relations.truncated |= getTopologyQueryDAO().loadServerSideServiceRelations(step, timeBucket, timeBucket, relations.serverCalls::addAll);
+            if (!relations.truncated && !relations.isEmpty()) {
+                cache.put(cache.key(QueryResultCache.QueryType.TOPOLOGY, step, timeBucket), relations);
+            }
+            truncated |= relations.truncated;
+            closed.add(relations);
+        }
+
+        /*
+         * The ranges read from the storage directly, the missing closed buckets beyond the bucket reads, then the open
+         * tail. The client side calls must all be appended before the server side ones.
+         */
+        List<long[]> ranges = new ArrayList<>(2);
+        if (missingTBs.size() > bucketReads) {
+            ranges.add(new long[] {missingTBs.get(0), missingTBs.get(missingTBs.size() - bucketReads - 1)});
+        }
+        if (closedEndTB < endTB) {
+            ranges.add(new long[] {cache.nextTimeBucket(step, closedEndTB), endTB});
+        }
+
+        for (CachedServiceRelations relations : closed) {
+            builder.appendClientCalls(new ArrayList<>(relations.clientCalls));
+        }
+        for (long[] range : ranges) {
+            truncated |= getTopologyQueryDAO().loadClientSideServiceRelations(step, range[0], range[1], builder::appendClientCalls);
+        }
+        for (CachedServiceRelations relations : closed) {
+            builder.appendServerCalls(new ArrayList<>(relations.serverCalls));
+        }
+        for (long[] range : ranges) {
+            truncated |= getTopologyQueryDAO().loadServerSideServiceRelations(step, range[0], range[1], builder::appendServerCalls);
+        }
+        return truncated;
+    }
+
     public Topology getServiceTopology(final Step step, final long startTB, final long endTB,
         final int serviceId) throws IOException {
         List<Integer> serviceIds = new ArrayList<>();
         serviceIds.add(serviceId);
 
-        List<Call> serviceRelationClientCalls = getTopologyQueryDAO().loadSpecifiedClientSideServiceRelations(step, startTB, endTB, serviceIds);
-        List<Call> serviceRelationServerCalls = getTopologyQueryDAO().loadSpecifiedServerSideServiceRelations(step, startTB, endTB, serviceIds);
+        LiveTopologyEdges liveEdges = loadLiveServiceRelations(step, startTB, endTB);
+        List<Call> serviceRelationClientCalls;
+        List<Call> serviceRelationServerCalls;
+        if (liveEdges != null) {
+            serviceRelationClientCalls = LiveServiceTopology.toServiceCalls(liveEdges.getClientSide(), DetectPoint.CLIENT, serviceIds);
+            serviceRelationServerCalls = LiveServiceTopology.toServiceCalls(liveEdges.getServerSide(), DetectPoint.SERVER, serviceIds);
+        } else {
+            serviceRelationClientCalls = getTopologyQueryDAO().loadSpecifiedClientSideServiceRelations(step, startTB, endTB, serviceIds);
+            serviceRelationServerCalls = getTopologyQueryDAO().loadSpecifiedServerSideServiceRelations(step, startTB, endTB, serviceIds);
+        }
 
         TopologyBuilder builder = new TopologyBuilder(moduleManager);
         Topology topology = builder.build(serviceRelationClientCalls, serviceRelationServerCalls);
 
-        List<Integer> sourceServiceIds = new ArrayList<>();
+        Set<Integer> sourceServiceIds = new HashSet<>();
         serviceRelationClientCalls.forEach(call -> sourceServiceIds.add(call.getSource()));
         if (CollectionUtils.isNotEmpty(sourceServiceIds)) {
-            List<Call> sourceCalls = getTopologyQueryDAO().loadSpecifiedServerSideServiceRelations(step, startTB, endTB, sourceServiceIds);
+            List<Call> sourceCalls;
+            if (liveEdges != null) {
+                sourceCalls = LiveServiceTopology.toServiceCalls(liveEdges.getServerSide(), DetectPoint.SERVER, sourceServiceIds);
+            } else {
+                sourceCalls = getTopologyQueryDAO().loadSpecifiedServerSideServiceRelations(step, startTB, endTB, new ArrayList<>(sourceServiceIds));
+            }
+
+            Map<Integer, Integer> targetComponentIds = new HashMap<>();
+            sourceCalls.forEach(call -> targetComponentIds.putIfAbsent(call.getTarget(), call.getComponentId()));
             topology.getNodes().forEach(node -> {
                 if (StringUtils.isEmpty(node.getType())) {
-                    for (Call call : sourceCalls) {
-                        if (node.getId() == call.getTarget()) {
-                            node.setType(getComponentLibraryCatalogService().getComponentName(call.getComponentId()));
-                            break;
-                        }
+                    Integer componentId = targetComponentIds.get(node.getId());
+                    if (componentId != null) {
+                        node.setType(getComponentLibraryCatalogService().getComponentName(componentId));
                     }
                 }
             });
@@ -173,4 +334,18 @@ public class TopologyQueryService implements Service {
         node.setReal(true);
         return node;
     }
+
+    private static class CachedServiceRelations implements QueryResultCache.Weighable {
+        private final List<Call> clientCalls = new ArrayList<>();
+        private final List<Call> serverCalls = new ArrayList<>();
+        private boolean truncated;
+
+        private boolean isEmpty() {
+            return clientCalls.isEmpty() && serverCalls.isEmpty();
+        }
+
+        @Override public int weight() {
+            return 32 + (clientCalls.size() + serverCalls.size()) * 128;
+        }
+    }
 }
@@ -19,7 +19,9 @@
 package org.apache.skywalking.oap.server.core.query;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.stream.Collectors;
 import org.apache.skywalking.apm.network.language.agent.*;
 import org.apache.skywalking.oap.server.core.*;
 import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
@@ -28,6 +30,8 @@ import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogServ
 import org.apache.skywalking.oap.server.core.query.entity.*;
 import org.apache.skywalking.oap.server.core.query.entity.RefType;
 import org.apache.skywalking.oap.server.core.register.EndpointInventory;
+import org.apache.skywalking.oap.server.core.register.NetworkAddressInventory;
+import org.apache.skywalking.oap.server.core.register.ServiceInventory;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
 import org.apache.skywalking.oap.server.library.module.*;
@@ -100,35 +104,74 @@ public class TraceQueryService implements Service {
         Trace trace = new Trace();
 
         List<SegmentRecord> segmentRecords = getTraceQueryDAO().queryByTraceId(traceId);
-        for (SegmentRecord segment : segmentRecords) {
-            if (nonNull(segment)) {
-                TraceSegmentObject segmentObject = TraceSegmentObject.parseFrom(segment.getDataBinary());
-                trace.getSpans().addAll(buildSpanList(traceId, segment.getSegmentId(), segment.getServiceId(), segmentObject.getSpansList()));
-            }
-        }
+        List<DecodedSegment> segments = decode(segmentRecords);
+        NameIndex names = resolveNames(segments);
 
-        List<Span> sortedSpans = new LinkedList<>();
-        if (CollectionUtils.isNotEmpty(trace.getSpans())) {
-            List<Span> rootSpans = findRoot(trace.getSpans());
-
-            if (CollectionUtils.isNotEmpty(rootSpans)) {
-                rootSpans.forEach(span -> {
-                    List<Span> childrenSpan = new ArrayList<>();
-                    childrenSpan.add(span);
-                    findChildren(trace.getSpans(), span, childrenSpan);
-                    sortedSpans.addAll(childrenSpan);
-                });
-            }
-        }
+        segments.parallelStream()
+            .map(segment -> buildSpanList(traceId, segment.segmentId, segment.serviceId, segment.segmentObject.getSpansList(), names))
+            .collect(Collectors.toList())
+            .forEach(trace.getSpans()::addAll);
 
+        List<Span> sortedSpans = sortSpans(trace.getSpans());
         trace.getSpans().clear();
         trace.getSpans().addAll(sortedSpans);
         return trace;
     }
 
+    /**
+     * Decode the binary of segments in parallel, the order of segments is kept.
+     */
+    private List<DecodedSegment> decode(List<SegmentRecord> segmentRecords) throws IOException {
+        try {
+            return segmentRecords.parallelStream().filter(Objects::nonNull).map(segment -> {
+                try {
+                    return new DecodedSegment(segment.getSegmentId(), segment.getServiceId(), TraceSegmentObject.parseFrom(segment.getDataBinary()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Look up every distinct service, endpoint, network address and component id of the trace once, instead of once
+     * per span.
+     */
+    private NameIndex resolveNames(List<DecodedSegment> segments) {
+        NameIndex names = new NameIndex();
+        for (DecodedSegment segment : segments) {
+            names.serviceNames.computeIfAbsent(segment.serviceId, serviceId -> {
+                ServiceInventory serviceInventory = getServiceInventoryCache().get(serviceId);
+                return nonNull(serviceInventory) ? serviceInventory.getName() : Const.EMPTY_STRING;
+            });
+
+            for (SpanObject spanObject : segment.segmentObject.getSpansList()) {
+                if (spanObject.getPeerId() != 0) {
+                    names.peerNames.computeIfAbsent(spanObject.getPeerId(), peerId -> {
+                        NetworkAddressInventory networkAddressInventory = getNetworkAddressInventoryCache().get(peerId);
+                        return nonNull(networkAddressInventory) ? networkAddressInventory.getName() : Const.EMPTY_STRING;
+                    });
+                }
+                if (spanObject.getOperationNameId() != 0) {
+                    names.endpointNames.computeIfAbsent(spanObject.getOperationNameId(), endpointId -> {
+                        EndpointInventory endpointInventory = getEndpointInventoryCache().get(endpointId);
+                        return nonNull(endpointInventory) ? endpointInventory.getName() : Const.EMPTY_STRING;
+                    });
+                }
+                if (spanObject.getComponentId() != 0) {
+                    names.componentNames.computeIfAbsent(spanObject.getComponentId(), getComponentLibraryCatalogService()::getComponentName);
+                }
+            }
+        }
+        return names;
+    }
+
     private List<Span> buildSpanList(String traceId, String segmentId, int serviceId,
-        List<SpanObject> spanObjects) {
-        List<Span> spans = new ArrayList<>();
+        List<SpanObject> spanObjects, NameIndex names) {
+        List<Span> spans = new ArrayList<>(spanObjects.size());
+        String serviceCode = names.serviceNames.get(serviceId);
 
         spanObjects.forEach(spanObject -> {
             Span span = new Span();
@@ -151,27 +194,21 @@ public class TraceQueryService implements Service {
             if (spanObject.getPeerId() == 0) {
                 span.setPeer(spanObject.getPeer());
             } else {
-                span.setPeer(getNetworkAddressInventoryCache().get(spanObject.getPeerId()).getName());
+                span.setPeer(names.peerNames.get(spanObject.getPeerId()));
             }
 
-            String endpointName = spanObject.getOperationName();
-            if (spanObject.getOperationNameId() != 0) {
-                EndpointInventory endpointInventory = getEndpointInventoryCache().get(spanObject.getOperationNameId());
-                if (nonNull(endpointInventory)) {
-                    endpointName = endpointInventory.getName();
-                } else {
-                    endpointName = Const.EMPTY_STRING;
-                }
+            if (spanObject.getOperationNameId() == 0) {
+                span.setEndpointName(spanObject.getOperationName());
+            } else {
+                span.setEndpointName(names.endpointNames.get(spanObject.getOperationNameId()));
             }
-            span.setEndpointName(endpointName);
 
-            String serviceCode = getServiceInventoryCache().get(serviceId).getName();
             span.setServiceCode(serviceCode);
 
             if (spanObject.getComponentId() == 0) {
                 span.setComponent(spanObject.getComponent());
             } else {
-                span.setComponent(getComponentLibraryCatalogService().getComponentName(spanObject.getComponentId()));
+                span.setComponent(names.componentNames.get(spanObject.getComponentId()));
             }
 
             spanObject.getRefsList().forEach(reference -> {
@@ -231,32 +268,63 @@ public class TraceQueryService implements Service {
         return spans;
     }
 
-    private List<Span> findRoot(List<Span> spans) {
-        List<Span> rootSpans = new ArrayList<>();
-        spans.forEach(span -> {
-            String segmentParentSpanId = span.getSegmentParentSpanId();
+    /**
+     * Order the spans as the trace tree, depth first, every root followed by its descendants. The spans are indexed by
+     * segment span id and by parent, so the tree is built in linear time. Spans whose parent is not in the trace are the
+     * roots.
+     */
+    List<Span> sortSpans(List<Span> spans) {
+        Map<String, Span> spanIndex = new HashMap<>(spans.size() * 2);
+        Map<String, List<Span>> childrenIndex = new HashMap<>(spans.size() * 2);
+        for (Span span : spans) {
+            spanIndex.put(span.getSegmentSpanId(), span);
+            childrenIndex.computeIfAbsent(span.getSegmentParentSpanId(), key -> new ArrayList<>()).add(span);
+        }
 
-            boolean hasParent = false;
-            for (Span subSpan : spans) {
-                if (segmentParentSpanId.equals(subSpan.getSegmentSpanId())) {
-                    hasParent = true;
-                }
+        List<Span> sortedSpans = new ArrayList<>(spans.size());
+        Set<Span> visited = Collections.newSetFromMap(new IdentityHashMap<>(spans.size() * 2));
+        Deque<Span> stack = new ArrayDeque<>();
+        for (Span root : spans) {
+            if (spanIndex.containsKey(root.getSegmentParentSpanId())) {
+                continue;
             }
+            root.setRoot(true);
 
-            if (!hasParent) {
-                span.setRoot(true);
-                rootSpans.add(span);
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Span span = stack.pop();
+                if (!visited.add(span)) {
+                    continue;
+                }
+                sortedSpans.add(span);
+
+                List<Span> children = childrenIndex.get(span.getSegmentSpanId());
+                if (CollectionUtils.isNotEmpty(children)) {
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(children.get(i));
+                    }
+                }
             }
-        });
-        return rootSpans;
+        }
+        return sortedSpans;
     }
 
-    private void findChildren(List<Span> spans, Span parentSpan, List<Span> childrenSpan) {
-        spans.forEach(span -> {
-            if (span.getSegmentParentSpanId().equals(parentSpan.getSegmentSpanId())) {
-                childrenSpan.add(span);
-                findChildren(spans, span, childrenSpan);
-            }
-        });
+    private static class DecodedSegment {
+        private final String segmentId;
+        private final int serviceId;
+        private final TraceSegmentObject segmentObject;
+
+        private DecodedSegment(String segmentId, int serviceId, TraceSegmentObject segmentObject) {
+            this.segmentId = segmentId;
+            this.serviceId = serviceId;
+            this.segmentObject = segmentObject;
+        }
+    }
+
+    private static class NameIndex {
+        private final Map<Integer, String> serviceNames = new HashMap<>();
+        private final Map<Integer, String> endpointNames = new HashMap<>();
+        private final Map<Integer, String> peerNames = new HashMap<>();
+        private final Map<Integer, String> componentNames = new HashMap<>();
     }
 }
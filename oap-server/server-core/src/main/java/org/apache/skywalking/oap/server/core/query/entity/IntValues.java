@@ -18,15 +18,23 @@
 
 package org.apache.skywalking.oap.server.core.query.entity;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * @author peng-yongsheng
  */
 public class IntValues {
     @Getter private List<KVInt> values = new LinkedList<>();
+    @Getter @Setter private boolean truncated;
+    /**
+     * The ids read from the storage, the values of the other ids are the default ones.
+     */
+    @Getter private Set<String> existingIds = new HashSet<>();
 
     public void addKVInt(KVInt e) {
         values.add(e);
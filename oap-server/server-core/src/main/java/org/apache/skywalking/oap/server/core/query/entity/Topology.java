@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.core.query.entity;
 
 import java.util.*;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * @author peng-yongsheng
@@ -28,6 +29,7 @@ import lombok.Getter;
 public class Topology {
     private final List<Node> nodes;
     private final List<Call> calls;
+    @Setter private boolean truncated;
 
     public Topology() {
         this.nodes = new ArrayList<>();
@@ -19,11 +19,16 @@
 package org.apache.skywalking.oap.server.core.remote;
 
 import io.grpc.stub.StreamObserver;
+import java.util.Map;
 import java.util.Objects;
 import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveServiceTopology;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveTopologyEdges;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecentIndicatorCache;
 import org.apache.skywalking.oap.server.core.remote.annotation.StreamDataClassGetter;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.*;
+import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.core.worker.WorkerInstances;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.server.grpc.GRPCHandler;
@@ -74,4 +79,27 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
             }
         };
     }
+
+    @Override public void queryRecent(RecentQueryRequest request, StreamObserver<RecentQueryResponse> responseObserver) {
+        Map<String, Long> values = RecentIndicatorCache.INSTANCE.getValues(request.getModelName(), request.getIdsList(), request.getValueColumnName());
+
+        RecentQueryResponse.Builder builder = RecentQueryResponse.newBuilder();
+        values.forEach((id, value) -> builder.addValues(StringKeyLongValuePair.newBuilder().setKey(id).setValue(value)));
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override public void queryLiveTopology(LiveTopologyRequest request,
+        StreamObserver<LiveTopologyResponse> responseObserver) {
+        LiveTopologyEdges edges = LiveServiceTopology.INSTANCE.loadLocal(Scope.valueOf(request.getScope()), request.getStartMinute(), request.getEndMinute());
+
+        LiveTopologyResponse.Builder builder = LiveTopologyResponse.newBuilder();
+        if (Objects.nonNull(edges)) {
+            builder.setAnswered(true);
+            builder.addAllClientSideEdges(edges.getClientSide());
+            builder.addAllServerSideEdges(edges.getServerSide());
+        }
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
 }
@@ -19,14 +19,20 @@
 package org.apache.skywalking.oap.server.core.remote.client;
 
 import io.grpc.stub.StreamObserver;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.apm.commons.datacarrier.DataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
 import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveTopologyEdges;
 import org.apache.skywalking.oap.server.core.cluster.RemoteInstance;
 import org.apache.skywalking.oap.server.core.remote.annotation.StreamDataClassGetter;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.*;
+import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.library.client.grpc.GRPCClient;
 import org.slf4j.*;
 
@@ -61,6 +67,70 @@ public class GRPCRemoteClient implements RemoteClient, Comparable<GRPCRemoteClie
         this.carrier.produce(builder.build());
     }
 
+    /**
+     * The recent values are read from the memory of the node, a node not answering in time is skipped, the caller
+     * reads the storage instead.
+     */
+    @Override public CompletableFuture<Map<String, Long>> queryRecent(String modelName, List<String> ids,
+        String valueCName, long timeout) {
+        RecentQueryRequest request = RecentQueryRequest.newBuilder().setModelName(modelName)
+            .setValueColumnName(valueCName).addAllIds(ids).build();
+
+        CompletableFuture<Map<String, Long>> future = new CompletableFuture<>();
+        RemoteServiceGrpc.newStub(client.getChannel()).withDeadlineAfter(timeout, TimeUnit.MILLISECONDS)
+            .queryRecent(request, new StreamObserver<RecentQueryResponse>() {
+                private final Map<String, Long> values = new HashMap<>();
+
+                @Override public void onNext(RecentQueryResponse response) {
+                    response.getValuesList().forEach(pair -> values.put(pair.getKey(), pair.getValue()));
+                }
+
+                @Override public void onError(Throwable throwable) {
+                    logger.warn("query recent indicators from {} failure: {}", client, throwable.getMessage());
+                    future.complete(new HashMap<>());
+                }
+
+                @Override public void onCompleted() {
+                    future.complete(values);
+                }
+            });
+        return future;
+    }
+
+    /**
+     * The edges are read from the memory of the node, a node not answering in time makes the range unanswered, the
+     * caller reads the storage instead.
+     */
+    @Override public CompletableFuture<LiveTopologyEdges> queryLiveTopology(Scope scope, long startMinute,
+        long endMinute, long timeout) {
+        LiveTopologyRequest request = LiveTopologyRequest.newBuilder().setScope(scope.ordinal())
+            .setStartMinute(startMinute).setEndMinute(endMinute).build();
+
+        CompletableFuture<LiveTopologyEdges> future = new CompletableFuture<>();
+        RemoteServiceGrpc.newStub(client.getChannel()).withDeadlineAfter(timeout, TimeUnit.MILLISECONDS)
+            .queryLiveTopology(request, new StreamObserver<LiveTopologyResponse>() {
+                private LiveTopologyEdges edges;
+
+                @Override public void onNext(LiveTopologyResponse response) {
+                    if (response.getAnswered()) {
+                        edges = new LiveTopologyEdges();
+                        edges.getClientSide().addAll(response.getClientSideEdgesList());
+                        edges.getServerSide().addAll(response.getServerSideEdgesList());
+                    }
+                }
+
+                @Override public void onError(Throwable throwable) {
+                    logger.warn("query live topology from {} failure: {}", client, throwable.getMessage());
+                    future.complete(null);
+                }
+
+                @Override public void onCompleted() {
+                    future.complete(edges);
+                }
+            });
+        return future;
+    }
+
     class RemoteMessageConsumer implements IConsumer<RemoteMessage> {
         @Override public void init() {
         }
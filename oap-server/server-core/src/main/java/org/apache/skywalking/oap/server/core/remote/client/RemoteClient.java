@@ -18,7 +18,12 @@
 
 package org.apache.skywalking.oap.server.core.remote.client;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveTopologyEdges;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.source.Scope;
 
 /**
  * @author peng-yongsheng
@@ -30,4 +35,20 @@ public interface RemoteClient {
     int getPort();
 
     void push(int nextWorkerId, StreamData streamData);
+
+    /**
+     * Read the value column of the minute indicators kept in the recent tier of the node, without blocking the caller.
+     *
+     * @param timeout milliseconds the node is waited for.
+     * @return the values of the ids kept by the node, completed with an empty map if the node can't answer in time.
+     */
+    CompletableFuture<Map<String, Long>> queryRecent(String modelName, List<String> ids, String valueCName, long timeout);
+
+    /**
+     * Read the edges of the live topology kept by the node, without blocking the caller.
+     *
+     * @param timeout milliseconds the node is waited for.
+     * @return the edges in the minute range, completed with null if the node can't answer the range, or in time.
+     */
+    CompletableFuture<LiveTopologyEdges> queryLiveTopology(Scope scope, long startMinute, long endMinute, long timeout);
 }
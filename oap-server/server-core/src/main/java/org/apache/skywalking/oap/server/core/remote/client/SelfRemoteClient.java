@@ -18,7 +18,14 @@
 
 package org.apache.skywalking.oap.server.core.remote.client;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveServiceTopology;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.LiveTopologyEdges;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecentIndicatorCache;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.source.Scope;
 import org.apache.skywalking.oap.server.core.worker.WorkerInstances;
 
 /**
@@ -45,4 +52,14 @@ public class SelfRemoteClient implements RemoteClient {
     @Override public void push(int nextWorkerId, StreamData streamData) {
         WorkerInstances.INSTANCES.get(nextWorkerId).in(streamData);
     }
+
+    @Override public CompletableFuture<Map<String, Long>> queryRecent(String modelName, List<String> ids,
+        String valueCName, long timeout) {
+        return CompletableFuture.completedFuture(RecentIndicatorCache.INSTANCE.getValues(modelName, ids, valueCName));
+    }
+
+    @Override public CompletableFuture<LiveTopologyEdges> queryLiveTopology(Scope scope, long startMinute,
+        long endMinute, long timeout) {
+        return CompletableFuture.completedFuture(LiveServiceTopology.INSTANCE.loadLocal(scope, startMinute, endMinute));
+    }
 }
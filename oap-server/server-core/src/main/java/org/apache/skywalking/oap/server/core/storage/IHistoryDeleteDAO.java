@@ -26,4 +26,9 @@ import java.io.IOException;
 public interface IHistoryDeleteDAO extends DAO {
 
     void deleteHistory(String modelName, String timeBucketColumnName, Long timeBucketBefore) throws IOException;
+
+    /**
+     * @return the smallest time bucket of the model in the storage, or null if there is no data to delete.
+     */
+    Long getOldestTimeBucket(String modelName, String timeBucketColumnName) throws IOException;
 }
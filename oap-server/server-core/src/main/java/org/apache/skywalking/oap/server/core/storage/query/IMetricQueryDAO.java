@@ -32,6 +32,9 @@ public interface IMetricQueryDAO extends DAO {
     IntValues getValues(String indName, Step step, long startTB,
         long endTB, Where where, String valueCName, Function function) throws IOException;
 
+    /**
+     * @return the values of all given ids, 0 for the ids not in the storage, which are left out of the existing ids.
+     */
     IntValues getLinearIntValues(String indName, Step step, List<String> ids, String valueCName) throws IOException;
 
     Thermodynamic getThermodynamic(String indName, Step step, List<String> ids, String valueCName) throws IOException;
@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.core.storage.query;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 import org.apache.skywalking.oap.server.core.query.entity.*;
 import org.apache.skywalking.oap.server.library.module.Service;
 
@@ -38,6 +39,27 @@ public interface ITopologyQueryDAO extends Service {
 
     List<Call> loadClientSideServiceRelations(Step step, long startTB, long endTB) throws IOException;
 
+    /**
+     * Load the server side service relations chunk by chunk, every chunk is passed to the consumer once it has been
+     * read, so the caller could merge it without holding the whole result set.
+     *
+     * @return true if the relations have been truncated by the storage implementation's upper bound.
+     */
+    default boolean loadServerSideServiceRelations(Step step, long startTB, long endTB,
+        Consumer<List<Call>> chunkConsumer) throws IOException {
+        chunkConsumer.accept(loadServerSideServiceRelations(step, startTB, endTB));
+        return false;
+    }
+
+    /**
+     * @see #loadServerSideServiceRelations(Step, long, long, Consumer)
+     */
+    default boolean loadClientSideServiceRelations(Step step, long startTB, long endTB,
+        Consumer<List<Call>> chunkConsumer) throws IOException {
+        chunkConsumer.accept(loadClientSideServiceRelations(step, startTB, endTB));
+        return false;
+    }
+
     List<Call> loadSpecifiedDestOfServerSideEndpointRelations(Step step, long startTB, long endTB,
         int destEndpointId) throws IOException;
 }
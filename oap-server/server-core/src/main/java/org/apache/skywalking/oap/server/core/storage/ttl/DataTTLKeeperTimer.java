@@ -19,7 +19,12 @@
 package org.apache.skywalking.oap.server.core.storage.ttl;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import lombok.Setter;
@@ -41,10 +46,22 @@ import org.apache.skywalking.oap.server.core.storage.model.Model;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.joda.time.Hours;
+import org.joda.time.Minutes;
+import org.joda.time.Months;
+import org.joda.time.format.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Delete the expired data of all models.
+ *
+ * The models are split across all OAP nodes by the hash of their names, every node deletes its own part in parallel,
+ * by the delete threads. The history of one model is deleted in chunks of time buckets, oldest first, with a pause
+ * between the chunks, so no single delete request scans the whole history. Every round starts from the oldest time
+ * bucket in the storage, so a node taking a model over from another node, or restarted, continues where the data is.
+ *
  * @author peng-yongsheng
  */
 public enum DataTTLKeeperTimer {
@@ -54,11 +71,14 @@ public enum DataTTLKeeperTimer {
 
     private ModuleManager moduleManager;
     private ClusterNodesQuery clusterNodesQuery;
+    private ExecutorService deleteExecutor;
+    private final Set<String> runningModels = ConcurrentHashMap.newKeySet();
     @Setter private DataTTL dataTTL;
 
     public void start(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
         this.clusterNodesQuery = moduleManager.find(ClusterModule.NAME).getService(ClusterNodesQuery.class);
+        this.deleteExecutor = Executors.newFixedThreadPool(Math.max(1, dataTTL.getDeleteThreads()));
 
         Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
             new RunnableWithExceptionProtection(this::delete,
@@ -66,14 +86,22 @@ public enum DataTTLKeeperTimer {
     }
 
     private void delete() {
-        List<RemoteInstance> remoteInstances = clusterNodesQuery.queryRemoteNodes();
-        if (CollectionUtils.isNotEmpty(remoteInstances) && !remoteInstances.get(0).isSelf()) {
-            logger.info("The selected first address is {}. Skip.", remoteInstances.get(0).toString());
-            return;
+        List<RemoteInstance> remoteInstances = new ArrayList<>(clusterNodesQuery.queryRemoteNodes());
+        int nodeNumber = 1;
+        int selfIndex = 0;
+        if (CollectionUtils.isNotEmpty(remoteInstances)) {
+            remoteInstances.sort(Comparator.comparing(RemoteInstance::toString));
+            for (int i = 0; i < remoteInstances.size(); i++) {
+                if (remoteInstances.get(i).isSelf()) {
+                    nodeNumber = remoteInstances.size();
+                    selfIndex = i;
+                    break;
+                }
+            }
         }
 
         TimeBuckets timeBuckets = convertTimeBucket(new DateTime());
-        logger.info("Beginning to remove expired metrics from the storage.");
+        logger.info("Beginning to remove expired metrics from the storage, this is node {} of {}.", selfIndex, nodeNumber);
         logger.info("Metrics in minute dimension before {}, are going to be removed.", timeBuckets.minuteTimeBucketBefore);
         logger.info("Metrics in hour dimension before {}, are going to be removed.", timeBuckets.hourTimeBucketBefore);
         logger.info("Metrics in day dimension before {}, are going to be removed.", timeBuckets.dayTimeBucketBefore);
@@ -82,25 +110,55 @@ public enum DataTTLKeeperTimer {
         IModelGetter modelGetter = moduleManager.find(CoreModule.NAME).getService(IModelGetter.class);
         DownsamplingConfigService downsamplingConfigService = moduleManager.find(CoreModule.NAME).getService(DownsamplingConfigService.class);
         List<Model> models = modelGetter.getModels();
-        models.forEach(model -> {
+        for (Model model : models) {
             if (model.isIndicator()) {
-                execute(model.getName(), timeBuckets.minuteTimeBucketBefore, Indicator.TIME_BUCKET);
+                submit(model.getName(), Downsampling.Minute, timeBuckets.minuteTimeBucketBefore, Indicator.TIME_BUCKET, nodeNumber, selfIndex);
 
                 if (downsamplingConfigService.shouldToHour()) {
-                    execute(model.getName() + Const.ID_SPLIT + Downsampling.Hour.getName(), timeBuckets.hourTimeBucketBefore, Indicator.TIME_BUCKET);
+                    submit(model.getName() + Const.ID_SPLIT + Downsampling.Hour.getName(), Downsampling.Hour, timeBuckets.hourTimeBucketBefore, Indicator.TIME_BUCKET, nodeNumber, selfIndex);
                 }
                 if (downsamplingConfigService.shouldToDay()) {
-                    execute(model.getName() + Const.ID_SPLIT + Downsampling.Day.getName(), timeBuckets.dayTimeBucketBefore, Indicator.TIME_BUCKET);
+                    submit(model.getName() + Const.ID_SPLIT + Downsampling.Day.getName(), Downsampling.Day, timeBuckets.dayTimeBucketBefore, Indicator.TIME_BUCKET, nodeNumber, selfIndex);
                 }
                 if (downsamplingConfigService.shouldToMonth()) {
-                    execute(model.getName() + Const.ID_SPLIT + Downsampling.Month.getName(), timeBuckets.monthTimeBucketBefore, Indicator.TIME_BUCKET);
+                    submit(model.getName() + Const.ID_SPLIT + Downsampling.Month.getName(), Downsampling.Month, timeBuckets.monthTimeBucketBefore, Indicator.TIME_BUCKET, nodeNumber, selfIndex);
                 }
             } else {
-                execute(model.getName(), timeBuckets.recordDataTTL, Record.TIME_BUCKET);
+                submit(model.getName(), Downsampling.Minute, timeBuckets.recordDataTTL, Record.TIME_BUCKET, nodeNumber, selfIndex);
+            }
+        }
+    }
+
+    /**
+     * Only the models hashed to this node are deleted here, and a model still being deleted by the last round is
+     * skipped, it continues from the oldest remaining data in the next round.
+     */
+    private void submit(String modelName, Downsampling downsampling, long timeBucketBefore, String timeBucketColumnName,
+        int nodeNumber, int selfIndex) {
+        if (!isOwner(modelName, nodeNumber, selfIndex)) {
+            return;
+        }
+        if (!runningModels.add(modelName)) {
+            logger.info("History of {} is still being deleted, skip in this round.", modelName);
+            return;
+        }
+
+        deleteExecutor.submit(() -> {
+            try {
+                IHistoryDeleteDAO historyDeleteDAO = moduleManager.find(StorageModule.NAME).getService(IHistoryDeleteDAO.class);
+                execute(historyDeleteDAO, modelName, downsampling, timeBucketBefore, timeBucketColumnName);
+            } catch (Throwable t) {
+                logger.error("History delete of {} failure.", modelName, t);
+            } finally {
+                runningModels.remove(modelName);
             }
         });
     }
 
+    static boolean isOwner(String modelName, int nodeNumber, int selfIndex) {
+        return Math.abs(modelName.hashCode() % nodeNumber) == selfIndex;
+    }
+
     TimeBuckets convertTimeBucket(DateTime currentTime) {
         TimeBuckets timeBuckets = new TimeBuckets();
 
@@ -113,11 +171,109 @@ public enum DataTTLKeeperTimer {
         return timeBuckets;
     }
 
-    private void execute(String modelName, long timeBucketBefore, String timeBucketColumnName) {
+    void execute(IHistoryDeleteDAO historyDeleteDAO, String modelName, Downsampling downsampling,
+        long timeBucketBefore, String timeBucketColumnName) throws InterruptedException {
+        Long oldest;
+        try {
+            oldest = historyDeleteDAO.getOldestTimeBucket(modelName, timeBucketColumnName);
+        } catch (IOException e) {
+            logger.warn("Read the oldest time bucket of {} failure, error message: {}", modelName, e.getMessage());
+            return;
+        }
+        if (oldest == null) {
+            return;
+        }
+
+        long position = toPrecision(oldest, timeBucketBefore);
+        if (position >= timeBucketBefore) {
+            return;
+        }
+        if (dataTTL.getDeleteChunkSize() <= 0) {
+            deleteHistory(historyDeleteDAO, modelName, timeBucketColumnName, timeBucketBefore);
+            return;
+        }
+        logger.info("History of {} starts at {}, target {}, lag {} {}(s).", modelName, position, timeBucketBefore, lag(downsampling, position, timeBucketBefore), downsampling.getName());
+
+        while (position < timeBucketBefore) {
+            long next = Math.min(nextChunk(downsampling, position, dataTTL.getDeleteChunkSize()), timeBucketBefore);
+            if (!deleteHistory(historyDeleteDAO, modelName, timeBucketColumnName, next)) {
+                return;
+            }
+            position = next;
+
+            if (position < timeBucketBefore && dataTTL.getDeleteChunkInterval() > 0) {
+                Thread.sleep(dataTTL.getDeleteChunkInterval());
+            }
+        }
+        logger.info("History of {} has been deleted before {}.", modelName, position);
+    }
+
+    /**
+     * Cut the time bucket to the precision of the given one, the records of the second time buckets are deleted by
+     * the minute ones.
+     */
+    static long toPrecision(long timeBucket, long precision) {
+        int digits = String.valueOf(precision).length();
+        while (String.valueOf(timeBucket).length() > digits) {
+            timeBucket /= 10;
+        }
+        return timeBucket;
+    }
+
+    private boolean deleteHistory(IHistoryDeleteDAO historyDeleteDAO, String modelName, String timeBucketColumnName,
+        long timeBucketBefore) {
         try {
-            moduleManager.find(StorageModule.NAME).getService(IHistoryDeleteDAO.class).deleteHistory(modelName, timeBucketColumnName, timeBucketBefore);
+            historyDeleteDAO.deleteHistory(modelName, timeBucketColumnName, timeBucketBefore);
+            return true;
         } catch (IOException e) {
             logger.warn("History delete failure, error message: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    static long nextChunk(Downsampling downsampling, long timeBucket, int chunkSize) {
+        DateTime time = parse(downsampling, timeBucket);
+        switch (downsampling) {
+            case Hour:
+                return Long.valueOf(time.plusHours(chunkSize).toString(pattern(downsampling)));
+            case Day:
+                return Long.valueOf(time.plusDays(chunkSize).toString(pattern(downsampling)));
+            case Month:
+                return Long.valueOf(time.plusMonths(chunkSize).toString(pattern(downsampling)));
+            default:
+                return Long.valueOf(time.plusMinutes(chunkSize).toString(pattern(downsampling)));
+        }
+    }
+
+    static int lag(Downsampling downsampling, long fromTimeBucket, long toTimeBucket) {
+        DateTime from = parse(downsampling, fromTimeBucket);
+        DateTime to = parse(downsampling, toTimeBucket);
+        switch (downsampling) {
+            case Hour:
+                return Hours.hoursBetween(from, to).getHours();
+            case Day:
+                return Days.daysBetween(from, to).getDays();
+            case Month:
+                return Months.monthsBetween(from, to).getMonths();
+            default:
+                return Minutes.minutesBetween(from, to).getMinutes();
+        }
+    }
+
+    private static DateTime parse(Downsampling downsampling, long timeBucket) {
+        return DateTimeFormat.forPattern(pattern(downsampling)).parseDateTime(String.valueOf(timeBucket));
+    }
+
+    private static String pattern(Downsampling downsampling) {
+        switch (downsampling) {
+            case Hour:
+                return "yyyyMMddHH";
+            case Day:
+                return "yyyyMMdd";
+            case Month:
+                return "yyyyMM";
+            default:
+                return "yyyyMMddHHmm";
         }
     }
 
@@ -128,4 +284,4 @@ public enum DataTTLKeeperTimer {
         private long dayTimeBucketBefore;
         private long monthTimeBucketBefore;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.manual.servicerelation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.query.entity.Call;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.core.source.Scope;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimeBucketedEdgesTest {
+
+    @Test
+    public void testLoadByMinute() {
+        TimeBucketedEdges edges = new TimeBucketedEdges();
+        edges.add(201811011201L, "1_2_3");
+        edges.add(201811011201L, "1_2_3");
+        edges.add(201811011205L, "2_3_3");
+        edges.add(201811011310L, "3_4_3");
+
+        Assert.assertEquals(1, edges.load(201811011200L, 201811011202L).size());
+        Assert.assertEquals(2, edges.load(201811011200L, 201811011259L).size());
+        Assert.assertEquals(3, edges.load(201811011200L, 201811011359L).size());
+        Assert.assertTrue(edges.load(201811011400L, 201811011459L).isEmpty());
+    }
+
+    @Test
+    public void testCompaction() {
+        TimeBucketedEdges edges = new TimeBucketedEdges();
+        edges.add(201811011201L, "1_2_3");
+        edges.add(201811011305L, "2_3_3");
+        edges.add(201811021000L, "3_4_3");
+
+        edges.compact(201811011300L, 0, 0);
+        Assert.assertNull(edges.load(201811011230L, 201811011359L));
+        Set<String> hour = edges.load(201811011200L, 201811011359L);
+        Assert.assertEquals(2, hour.size());
+
+        edges.add(201811011250L, "5_6_3");
+        Assert.assertEquals(2, edges.load(201811011200L, 201811011259L).size());
+
+        edges.compact(201811021000L, 201811020000L, 0);
+        Assert.assertNull(edges.load(201811011200L, 201811011259L));
+        Assert.assertEquals(3, edges.load(201811010000L, 201811012359L).size());
+        Assert.assertEquals(4, edges.load(201811010000L, 201811022359L).size());
+
+        edges.compact(201811021000L, 201811020000L, 201811020000L);
+        Assert.assertNull(edges.load(201811010000L, 201811022359L));
+        Assert.assertEquals(1, edges.load(201811020000L, 201811022359L).size());
+
+        edges.add(201811011250L, "7_8_3");
+        Assert.assertEquals(1, edges.load(201811020000L, 201811022359L).size());
+    }
+
+    @Test
+    public void testToMinute() {
+        Assert.assertEquals(201811011200L, LiveServiceTopology.toMinute(Step.HOUR, 2018110112L, false));
+        Assert.assertEquals(201811011259L, LiveServiceTopology.toMinute(Step.HOUR, 2018110112L, true));
+        Assert.assertEquals(201811012359L, LiveServiceTopology.toMinute(Step.DAY, 20181101L, true));
+        Assert.assertEquals(201811000000L, LiveServiceTopology.toMinute(Step.MONTH, 201811L, false));
+        Assert.assertEquals(201811312359L, LiveServiceTopology.toMinute(Step.MONTH, 201811L, true));
+    }
+
+    @Test
+    public void testMergedCalls() {
+        LiveTopologyEdges node1 = new LiveTopologyEdges();
+        node1.getClientSide().add("1_2_3");
+        node1.getServerSide().add("1_2_3");
+        LiveTopologyEdges node2 = new LiveTopologyEdges();
+        node2.getClientSide().add("1_2_3");
+        node2.getClientSide().add("4_5_3");
+
+        LiveTopologyEdges merged = new LiveTopologyEdges();
+        merged.merge(node1);
+        merged.merge(node2);
+        Assert.assertEquals(2, merged.getClientSide().size());
+        Assert.assertEquals(1, merged.getServerSide().size());
+
+        List<Call> calls = LiveServiceTopology.toServiceCalls(merged.getClientSide(), DetectPoint.CLIENT, Arrays.asList(5));
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(4, calls.get(0).getSource());
+        Assert.assertEquals(5, calls.get(0).getTarget());
+        Assert.assertEquals(3, calls.get(0).getComponentId());
+        Assert.assertEquals(2, LiveServiceTopology.toServiceCalls(merged.getClientSide(), DetectPoint.CLIENT, null).size());
+    }
+
+    @Test
+    public void testNotAnsweredBeforeStarted() {
+        Assert.assertNull(LiveServiceTopology.INSTANCE.loadLocal(Scope.ServiceRelation, 201811011200L, 201811011259L));
+        Assert.assertFalse(LiveServiceTopology.INSTANCE.isServed(Step.MINUTE, 201811011200L));
+    }
+}
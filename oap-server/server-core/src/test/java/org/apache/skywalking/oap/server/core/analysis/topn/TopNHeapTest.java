@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.topn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TopNHeapTest {
+
+    @Test
+    public void testBounded() {
+        TopNHeap heap = new TopNHeap(3);
+        for (int i = 1; i <= 10; i++) {
+            heap.update(i, i * 10);
+        }
+
+        IntKeyLongValueArray largest = heap.getLargest();
+        Assert.assertEquals(3, largest.size());
+        Assert.assertEquals(10, largest.get(0).getKey());
+        Assert.assertEquals(9, largest.get(1).getKey());
+        Assert.assertEquals(8, largest.get(2).getKey());
+
+        IntKeyLongValueArray smallest = heap.getSmallest();
+        Assert.assertEquals(3, smallest.size());
+        Assert.assertEquals(1, smallest.get(0).getKey());
+        Assert.assertEquals(2, smallest.get(1).getKey());
+        Assert.assertEquals(20, smallest.get(1).getValue());
+        Assert.assertEquals(3, smallest.get(2).getKey());
+    }
+
+    @Test
+    public void testFlushedAgain() {
+        TopNHeap heap = new TopNHeap(2);
+        heap.update(1, 100);
+        heap.update(2, 200);
+        heap.update(3, 50);
+        heap.update(1, 300);
+
+        IntKeyLongValueArray largest = heap.getLargest();
+        Assert.assertEquals(2, largest.size());
+        Assert.assertEquals(1, largest.get(0).getKey());
+        Assert.assertEquals(300, largest.get(0).getValue());
+        Assert.assertEquals(2, largest.get(1).getKey());
+
+        IntKeyLongValueArray smallest = heap.getSmallest();
+        Assert.assertEquals(2, smallest.size());
+        Assert.assertEquals(3, smallest.get(0).getKey());
+        Assert.assertEquals(2, smallest.get(1).getKey());
+        Assert.assertEquals(200, smallest.get(1).getValue());
+    }
+
+    @Test
+    public void testEvictedComesBack() {
+        TopNHeap heap = new TopNHeap(2);
+        heap.update(1, 100);
+        heap.update(2, 200);
+        heap.update(3, 50);
+        heap.update(2, 10);
+
+        IntKeyLongValueArray largest = heap.getLargest();
+        Assert.assertEquals(2, largest.size());
+        Assert.assertEquals(1, largest.get(0).getKey());
+        Assert.assertEquals(3, largest.get(1).getKey());
+        Assert.assertEquals(50, largest.get(1).getValue());
+
+        IntKeyLongValueArray smallest = heap.getSmallest();
+        Assert.assertEquals(2, smallest.get(0).getKey());
+        Assert.assertEquals(10, smallest.get(0).getValue());
+        Assert.assertEquals(3, smallest.get(1).getKey());
+    }
+
+    @Test
+    public void testTrackedBounded() {
+        TopNHeap heap = new TopNHeap(3);
+        for (int i = 1; i <= 10000; i++) {
+            heap.update(i, i % 2 == 0 ? i : -i);
+        }
+
+        Assert.assertEquals(3 * TopNHeap.TRACKED_SCALE, heap.tracked());
+        IntKeyLongValueArray largest = heap.getLargest();
+        Assert.assertEquals(10000, largest.get(0).getKey());
+        Assert.assertEquals(9998, largest.get(1).getKey());
+        Assert.assertEquals(9996, largest.get(2).getKey());
+        IntKeyLongValueArray smallest = heap.getSmallest();
+        Assert.assertEquals(9999, smallest.get(0).getKey());
+        Assert.assertEquals(9997, smallest.get(1).getKey());
+        Assert.assertEquals(9995, smallest.get(2).getKey());
+    }
+
+    @Test
+    public void testRandomUpdatesOfTrackedEntities() {
+        Random random = new Random(7);
+        Map<Integer, Long> values = new HashMap<>();
+        TopNHeap heap = new TopNHeap(5);
+        for (int i = 0; i < 10000; i++) {
+            int entityId = random.nextInt(5 * TopNHeap.TRACKED_SCALE);
+            long value = random.nextInt(1000);
+            values.put(entityId, value);
+            heap.update(entityId, value);
+        }
+
+        List<Long> sorted = new ArrayList<>(values.values());
+        Collections.sort(sorted);
+        IntKeyLongValueArray smallest = heap.getSmallest();
+        IntKeyLongValueArray largest = heap.getLargest();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(sorted.get(i).longValue(), smallest.get(i).getValue());
+            Assert.assertEquals(values.get(smallest.get(i).getKey()).longValue(), smallest.get(i).getValue());
+            Assert.assertEquals(sorted.get(sorted.size() - 1 - i).longValue(), largest.get(i).getValue());
+            Assert.assertEquals(values.get(largest.get(i).getKey()).longValue(), largest.get(i).getValue());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.data.MergeDataCache;
+import org.apache.skywalking.oap.server.core.analysis.generated.service.ServiceRespTimeIndicator;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecentIndicatorsTest {
+
+    @Test
+    public void testKeptAfterFlushed() {
+        RecentIndicators recentIndicators = new RecentIndicators(new ServiceRespTimeIndicator.Builder());
+        Assert.assertEquals(0, recentIndicators.size());
+
+        ServiceRespTimeIndicator flushed = indicator(201811011200L, "1", 300, 3);
+        recentIndicators.flushed(flushed);
+        Map<String, Long> values = recentIndicators.getValues(Arrays.asList("201811011200_1", "201811011200_2"), "value");
+        Assert.assertEquals(1, values.size());
+        Assert.assertEquals(100L, (long)values.get("201811011200_1"));
+
+        recentIndicators.flushed(indicator(201811011200L, "1", 800, 4));
+        Assert.assertEquals(1, recentIndicators.size());
+        Assert.assertEquals(200L, (long)recentIndicators.getValues(Arrays.asList("201811011200_1"), "value").get("201811011200_1"));
+        Assert.assertEquals(300L, flushed.getSummation());
+    }
+
+    @Test
+    public void testCombinedWithReceived() {
+        RecentIndicators recentIndicators = new RecentIndicators(new ServiceRespTimeIndicator.Builder());
+        MergeDataCache<Indicator> cache = new MergeDataCache<>();
+        recentIndicators.receiveFrom(cache);
+
+        ServiceRespTimeIndicator flushed = indicator(201811011200L, "1", 300, 3);
+        recentIndicators.flushed(flushed);
+        Assert.assertEquals(100L, (long)recentIndicators.getValues(Arrays.asList("201811011200_1"), "value").get("201811011200_1"));
+
+        cache.writing();
+        cache.put(indicator(201811011200L, "1", 500, 1));
+        cache.finishWriting();
+
+        Assert.assertEquals(200L, (long)recentIndicators.getValues(Arrays.asList("201811011200_1"), "value").get("201811011200_1"));
+        Assert.assertEquals(300L, flushed.getSummation());
+        Assert.assertEquals(3, flushed.getCount());
+    }
+
+    @Test
+    public void testRemoveBefore() {
+        RecentIndicators recentIndicators = new RecentIndicators(new ServiceRespTimeIndicator.Builder());
+        recentIndicators.flushed(indicator(201811011159L, "1", 100, 1));
+        recentIndicators.flushed(indicator(201811011200L, "1", 100, 1));
+
+        recentIndicators.removeBefore(201811011200L);
+        Assert.assertEquals(1, recentIndicators.size());
+        Assert.assertTrue(recentIndicators.getValues(Arrays.asList("201811011159_1"), "value").isEmpty());
+    }
+
+    private ServiceRespTimeIndicator indicator(long timeBucket, String entityId, long summation, int count) {
+        ServiceRespTimeIndicator indicator = new ServiceRespTimeIndicator();
+        indicator.setTimeBucket(timeBucket);
+        indicator.setEntityId(entityId);
+        indicator.setSummation(summation);
+        indicator.setCount(count);
+        indicator.calculate();
+        return indicator;
+    }
+}
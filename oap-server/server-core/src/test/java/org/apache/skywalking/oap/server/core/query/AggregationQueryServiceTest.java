@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValue;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNCollector;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRecord;
+import org.apache.skywalking.oap.server.core.cache.ServiceInventoryCache;
+import org.apache.skywalking.oap.server.core.query.entity.Order;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.entity.TopNEntity;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.storage.StorageModule;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnIds;
+import org.apache.skywalking.oap.server.core.storage.query.IAggregationQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.ITopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+public class AggregationQueryServiceTest {
+
+    private static final String IND_NAME = "service_cpm";
+    private static final long START_TB = 201811011200L;
+    private static final long END_TB = 201811011202L;
+
+    private AggregationQueryService aggregationQueryService;
+    private ITopNRecordQueryDAO topNRecordQueryDAO;
+    private IAggregationQueryDAO aggregationQueryDAO;
+    private List<TopNRecord> records;
+
+    @Before
+    public void setUp() throws Exception {
+        ValueColumnIds.INSTANCE.putIfAbsent(IND_NAME, "value", Function.Avg);
+        Whitebox.setInternalState(TopNCollector.INSTANCE, "capacity", 10);
+        Whitebox.setInternalState(TopNCollector.INSTANCE, "enabled", true);
+
+        records = new ArrayList<>();
+        topNRecordQueryDAO = Mockito.mock(ITopNRecordQueryDAO.class);
+        Mockito.when(topNRecordQueryDAO.getTopNRecords(IND_NAME, START_TB, END_TB)).thenReturn(records);
+        aggregationQueryDAO = Mockito.mock(IAggregationQueryDAO.class);
+        Mockito.when(aggregationQueryDAO.getServiceTopN(Matchers.anyString(), Matchers.anyString(), Matchers.anyInt(),
+            Matchers.any(Step.class), Matchers.anyLong(), Matchers.anyLong(), Matchers.any(Order.class)))
+            .thenReturn(Collections.singletonList(entity("7", 1)));
+
+        ModuleProvider storageProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(storageProvider.getService(ITopNRecordQueryDAO.class)).thenReturn(topNRecordQueryDAO);
+        Mockito.when(storageProvider.getService(IAggregationQueryDAO.class)).thenReturn(aggregationQueryDAO);
+        ModuleProvider coreProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(coreProvider.getService(ServiceInventoryCache.class)).thenReturn(Mockito.mock(ServiceInventoryCache.class));
+
+        StorageModule storageModule = Mockito.spy(StorageModule.class);
+        LinkedList<ModuleProvider> storageProviders = Whitebox.getInternalState(storageModule, "loadedProviders");
+        storageProviders.add(storageProvider);
+        CoreModule coreModule = Mockito.spy(CoreModule.class);
+        LinkedList<ModuleProvider> coreProviders = Whitebox.getInternalState(coreModule, "loadedProviders");
+        coreProviders.add(coreProvider);
+
+        ModuleManager moduleManager = Mockito.mock(ModuleManager.class);
+        Mockito.when(moduleManager.find(StorageModule.NAME)).thenReturn(storageModule);
+        Mockito.when(moduleManager.find(CoreModule.NAME)).thenReturn(coreModule);
+
+        aggregationQueryService = new AggregationQueryService(moduleManager);
+    }
+
+    @After
+    public void tearDown() {
+        Whitebox.setInternalState(TopNCollector.INSTANCE, "enabled", false);
+    }
+
+    /**
+     * Entity 4 is kept only in the second minute, the other minutes count it by their worst kept value, so it still
+     * outranks entity 1 which is kept in every minute with a smaller value.
+     */
+    @Test
+    public void testWorstKeptBound() throws Exception {
+        records.add(record(201811011200L, 1, 100, 2, 90, 3, 80));
+        records.add(record(201811011201L, 1, 100, 2, 90, 4, 200));
+        records.add(record(201811011202L, 1, 100, 2, 90, 3, 80));
+
+        List<TopNEntity> topN = aggregationQueryService.getServiceTopN(IND_NAME, 4, Step.MINUTE, START_TB, END_TB, Order.DES);
+
+        Assert.assertEquals(4, topN.size());
+        assertEntity("4", (80 + 200 + 80) / 3, topN.get(0));
+        assertEntity("1", 100, topN.get(1));
+        assertEntity("2", 90, topN.get(2));
+        assertEntity("3", (80 + 90 + 80) / 3, topN.get(3));
+        Mockito.verifyZeroInteractions(aggregationQueryDAO);
+    }
+
+    /**
+     * The records of the nodes in the same minute are merged, the bound of the minute is the worst of all of them.
+     */
+    @Test
+    public void testRecordsOfNodesMerged() throws Exception {
+        records.add(record(201811011200L, 1, 100));
+        records.add(record(201811011200L, 2, 40));
+        records.add(record(201811011201L, 1, 100, 2, 70));
+        records.add(record(201811011202L, 1, 100, 2, 70));
+
+        List<TopNEntity> topN = aggregationQueryService.getServiceTopN(IND_NAME, 1, Step.MINUTE, START_TB, END_TB, Order.DES);
+
+        Assert.assertEquals(1, topN.size());
+        assertEntity("1", 100, topN.get(0));
+    }
+
+    @Test
+    public void testMissingMinuteFallsBack() throws Exception {
+        records.add(record(201811011200L, 1, 100));
+        records.add(record(201811011202L, 1, 100));
+
+        List<TopNEntity> topN = aggregationQueryService.getServiceTopN(IND_NAME, 4, Step.MINUTE, START_TB, END_TB, Order.DES);
+
+        Assert.assertEquals(1, topN.size());
+        Assert.assertEquals("7", topN.get(0).getId());
+        Mockito.verify(aggregationQueryDAO).getServiceTopN(IND_NAME, "value", 4, Step.MINUTE, START_TB, END_TB, Order.DES);
+    }
+
+    @Test
+    public void testUnavailableFallsBack() throws Exception {
+        aggregationQueryService.getServiceTopN(IND_NAME, 11, Step.MINUTE, START_TB, END_TB, Order.DES);
+        aggregationQueryService.getServiceTopN(IND_NAME, 4, Step.HOUR, 2018110112L, 2018110113L, Order.DES);
+        Whitebox.setInternalState(TopNCollector.INSTANCE, "enabled", false);
+        aggregationQueryService.getServiceTopN(IND_NAME, 4, Step.MINUTE, START_TB, END_TB, Order.DES);
+
+        Mockito.verifyZeroInteractions(topNRecordQueryDAO);
+        Mockito.verify(aggregationQueryDAO, Mockito.times(3)).getServiceTopN(Matchers.anyString(), Matchers.anyString(),
+            Matchers.anyInt(), Matchers.any(Step.class), Matchers.anyLong(), Matchers.anyLong(), Matchers.any(Order.class));
+    }
+
+    private TopNRecord record(long timeBucket, long... keyValues) {
+        IntKeyLongValueArray largest = new IntKeyLongValueArray();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            largest.add(new IntKeyLongValue((int)keyValues[i], keyValues[i + 1]));
+        }
+        TopNRecord record = new TopNRecord();
+        record.setTimeBucket(timeBucket);
+        record.setModelName(IND_NAME);
+        record.setLargest(largest);
+        record.setSmallest(new IntKeyLongValueArray());
+        return record;
+    }
+
+    private TopNEntity entity(String id, int value) {
+        TopNEntity entity = new TopNEntity();
+        entity.setId(id);
+        entity.setValue(value);
+        return entity;
+    }
+
+    private void assertEntity(String id, int value, TopNEntity entity) {
+        Assert.assertEquals(id, entity.getId());
+        Assert.assertEquals(value, entity.getValue());
+    }
+}
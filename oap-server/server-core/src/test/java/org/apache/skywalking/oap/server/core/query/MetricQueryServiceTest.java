@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.query.entity.IntValues;
+import org.apache.skywalking.oap.server.core.query.entity.KVInt;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.entity.Thermodynamic;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.query.sql.Where;
+import org.apache.skywalking.oap.server.core.storage.StorageModule;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnIds;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricQueryDAO;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProvider;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+public class MetricQueryServiceTest {
+
+    private static final String IND_NAME = "service_cpm";
+
+    private MetricQueryService metricQueryService;
+    private QueryResultCache queryResultCache;
+    private List<List<String>> requestedIds;
+    private boolean withoutValues;
+
+    @Before
+    public void setUp() throws Exception {
+        ValueColumnIds.INSTANCE.putIfAbsent(IND_NAME, "value", Function.Avg);
+        requestedIds = new ArrayList<>();
+        queryResultCache = new QueryResultCache(1, 10, 120);
+
+        ModuleProvider storageProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(storageProvider.getService(IMetricQueryDAO.class)).thenReturn(new MockMetricQueryDAO());
+        ModuleProvider coreProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(coreProvider.getService(QueryResultCache.class)).thenReturn(queryResultCache);
+
+        StorageModule storageModule = Mockito.spy(StorageModule.class);
+        LinkedList<ModuleProvider> storageProviders = Whitebox.getInternalState(storageModule, "loadedProviders");
+        storageProviders.add(storageProvider);
+        CoreModule coreModule = Mockito.spy(CoreModule.class);
+        LinkedList<ModuleProvider> coreProviders = Whitebox.getInternalState(coreModule, "loadedProviders");
+        coreProviders.add(coreProvider);
+
+        ModuleManager moduleManager = Mockito.mock(ModuleManager.class);
+        Mockito.when(moduleManager.find(StorageModule.NAME)).thenReturn(storageModule);
+        Mockito.when(moduleManager.find(CoreModule.NAME)).thenReturn(coreModule);
+
+        metricQueryService = new MetricQueryService(moduleManager);
+    }
+
+    @Test
+    public void testClosedTimeBucketsCached() throws Exception {
+        DateTime now = new DateTime();
+        long startTB = Long.valueOf(now.minusMinutes(30).toString("yyyyMMddHHmm"));
+        long endTB = Long.valueOf(now.toString("yyyyMMddHHmm"));
+
+        IntValues first = metricQueryService.getLinearIntValues(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+        IntValues second = metricQueryService.getLinearIntValues(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+
+        Assert.assertEquals(31, first.getValues().size());
+        Assert.assertEquals(31, requestedIds.get(0).size());
+        Assert.assertTrue(requestedIds.get(1).size() < 5);
+        for (String id : requestedIds.get(1)) {
+            Assert.assertTrue(Long.valueOf(id.split("_")[0]) > queryResultCache.lastClosedTimeBucket(Step.MINUTE) - 2);
+        }
+
+        for (int i = 0; i < first.getValues().size(); i++) {
+            Assert.assertEquals(first.getValues().get(i).getId(), second.getValues().get(i).getId());
+            Assert.assertEquals(first.getValues().get(i).getValue(), second.getValues().get(i).getValue());
+        }
+        Assert.assertTrue(queryResultCache.hitRate(QueryResultCache.QueryType.LINEAR) > 0.4);
+    }
+
+    @Test
+    public void testMissingValuesNotCached() throws Exception {
+        DateTime now = new DateTime();
+        long startTB = Long.valueOf(now.minusMinutes(30).toString("yyyyMMddHHmm"));
+        long endTB = Long.valueOf(now.toString("yyyyMMddHHmm"));
+
+        withoutValues = true;
+        IntValues first = metricQueryService.getLinearIntValues(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+        withoutValues = false;
+        metricQueryService.getLinearIntValues(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+
+        Assert.assertEquals(31, first.getValues().size());
+        Assert.assertEquals(0, first.getValues().get(0).getValue());
+        Assert.assertEquals(31, requestedIds.get(1).size());
+    }
+
+    @Test
+    public void testValuesOfEntities() throws Exception {
+        IntValues values = metricQueryService.getValues(IND_NAME, Arrays.asList("1", "2"), Step.MINUTE, 201811011200L, 201811011210L);
+
+        Assert.assertEquals(2, values.getValues().size());
+        Assert.assertEquals(1, values.findValue("1", -1));
+        Assert.assertEquals(2, values.findValue("2", -1));
+    }
+
+    @Test
+    public void testEntitiesLoadedInOneQuery() throws Exception {
+        DateTime now = new DateTime();
+        long startTB = Long.valueOf(now.minusMinutes(30).toString("yyyyMMddHHmm"));
+        long endTB = Long.valueOf(now.toString("yyyyMMddHHmm"));
+
+        List<IntValues> values = metricQueryService.getLinearIntValues(IND_NAME, Arrays.asList("1", "2", "3"), Step.MINUTE, startTB, endTB);
+
+        Assert.assertEquals(1, requestedIds.size());
+        Assert.assertEquals(93, requestedIds.get(0).size());
+        Assert.assertEquals(3, values.size());
+        for (int entity = 0; entity < values.size(); entity++) {
+            Assert.assertEquals(31, values.get(entity).getValues().size());
+            for (KVInt kvInt : values.get(entity).getValues()) {
+                Assert.assertEquals(String.valueOf(entity + 1), kvInt.getId().split("_")[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testThermodynamicReassembled() throws Exception {
+        DateTime now = new DateTime();
+        long startTB = Long.valueOf(now.minusMinutes(10).toString("yyyyMMddHHmm"));
+        long endTB = Long.valueOf(now.toString("yyyyMMddHHmm"));
+
+        Thermodynamic first = metricQueryService.getThermodynamic(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+        Thermodynamic second = metricQueryService.getThermodynamic(IND_NAME, "1", Step.MINUTE, startTB, endTB);
+
+        Assert.assertTrue(requestedIds.get(1).size() < requestedIds.get(0).size());
+        Assert.assertEquals(first.getAxisYStep(), second.getAxisYStep());
+        Assert.assertEquals(first.getNodes(), second.getNodes());
+    }
+
+    @Test
+    public void testTimeBuckets() {
+        long currentTimeMillis = new DateTime(2018, 11, 1, 12, 5, 30).getMillis();
+        Assert.assertEquals(201811011202L, queryResultCache.lastClosedTimeBucket(Step.MINUTE, currentTimeMillis));
+        Assert.assertEquals(2018110111L, queryResultCache.lastClosedTimeBucket(Step.HOUR, currentTimeMillis));
+        Assert.assertEquals(201811011300L, queryResultCache.nextTimeBucket(Step.MINUTE, 201811011259L));
+        Assert.assertEquals(20181201L, queryResultCache.nextTimeBucket(Step.DAY, 20181130L));
+    }
+
+    private class MockMetricQueryDAO implements IMetricQueryDAO {
+        @Override public IntValues getValues(String indName, Step step, long startTB, long endTB, Where where,
+            String valueCName, Function function) {
+            IntValues intValues = new IntValues();
+            for (String id : where.getKeyValues().get(0).getValues()) {
+                KVInt kvInt = new KVInt();
+                kvInt.setId(id);
+                if (!withoutValues) {
+                    kvInt.setValue((int)(Long.valueOf(id) % 97));
+                    intValues.getExistingIds().add(id);
+                }
+                intValues.addKVInt(kvInt);
+            }
+            return intValues;
+        }
+
+        /**
+         * Like the storage DAOs, the ids without value are filled by 0 and left out of the existing ids.
+         */
+        @Override public IntValues getLinearIntValues(String indName, Step step, List<String> ids, String valueCName) {
+            requestedIds.add(ids);
+            IntValues intValues = new IntValues();
+            for (String id : ids) {
+                KVInt kvInt = new KVInt();
+                kvInt.setId(id);
+                if (!withoutValues) {
+                    kvInt.setValue((int)(Long.valueOf(id.split("_")[0]) % 97));
+                    intValues.getExistingIds().add(id);
+                }
+                intValues.addKVInt(kvInt);
+            }
+            return intValues;
+        }
+
+        @Override public Thermodynamic getThermodynamic(String indName, Step step, List<String> ids,
+            String valueCName) {
+            requestedIds.add(ids);
+            List<List<Long>> matrix = new ArrayList<>();
+            for (String id : ids) {
+                long timeBucket = Long.valueOf(id.split("_")[0]);
+                List<Long> column = new ArrayList<>();
+                if (timeBucket % 3 != 0) {
+                    for (int i = 0; i < 4; i++) {
+                        column.add(timeBucket % 10 + i);
+                    }
+                }
+                matrix.add(column);
+            }
+            Thermodynamic thermodynamic = new Thermodynamic();
+            thermodynamic.setAxisYStep(200);
+            thermodynamic.fromMatrixData(matrix, 4);
+            return thermodynamic;
+        }
+    }
+}
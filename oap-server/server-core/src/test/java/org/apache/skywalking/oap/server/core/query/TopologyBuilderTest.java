@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.cache.ServiceInventoryCache;
+import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogService;
+import org.apache.skywalking.oap.server.core.query.entity.Call;
+import org.apache.skywalking.oap.server.core.query.entity.Node;
+import org.apache.skywalking.oap.server.core.query.entity.Topology;
+import org.apache.skywalking.oap.server.core.register.ServiceInventory;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+public class TopologyBuilderTest {
+
+    private ModuleManager moduleManager;
+
+    @Before
+    public void setUp() {
+        ServiceInventoryCache serviceInventoryCache = Mockito.mock(ServiceInventoryCache.class);
+        Mockito.when(serviceInventoryCache.get(Mockito.anyInt())).thenAnswer(invocation -> {
+            ServiceInventory serviceInventory = new ServiceInventory();
+            serviceInventory.setSequence((Integer)invocation.getArguments()[0]);
+            serviceInventory.setName("service" + invocation.getArguments()[0]);
+            return serviceInventory;
+        });
+        IComponentLibraryCatalogService componentLibraryCatalogService = Mockito.mock(IComponentLibraryCatalogService.class);
+        Mockito.when(componentLibraryCatalogService.getComponentName(Mockito.anyInt())).thenReturn("Dubbo");
+
+        ModuleProvider coreProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(coreProvider.getService(ServiceInventoryCache.class)).thenReturn(serviceInventoryCache);
+        Mockito.when(coreProvider.getService(IComponentLibraryCatalogService.class)).thenReturn(componentLibraryCatalogService);
+        CoreModule coreModule = Mockito.spy(CoreModule.class);
+        LinkedList<ModuleProvider> coreProviders = Whitebox.getInternalState(coreModule, "loadedProviders");
+        coreProviders.add(coreProvider);
+
+        moduleManager = Mockito.mock(ModuleManager.class);
+        Mockito.when(moduleManager.find(CoreModule.NAME)).thenReturn(coreModule);
+    }
+
+    @Test
+    public void testCallsMergedAcrossChunks() {
+        TopologyBuilder chunked = new TopologyBuilder(moduleManager);
+        chunked.appendClientCalls(calls(DetectPoint.CLIENT, "2_3_1", "0_3_1"));
+        chunked.appendClientCalls(calls(DetectPoint.CLIENT, "2_3_1", "3_4_1"));
+        chunked.appendServerCalls(calls(DetectPoint.SERVER, "1_2_1", "2_3_1"));
+        chunked.appendServerCalls(calls(DetectPoint.SERVER, "3_4_1"));
+        Topology topology = chunked.build();
+
+        Topology whole = new TopologyBuilder(moduleManager).build(
+            calls(DetectPoint.CLIENT, "2_3_1", "0_3_1", "3_4_1"),
+            calls(DetectPoint.SERVER, "1_2_1", "2_3_1", "3_4_1"));
+
+        Assert.assertEquals(3, topology.getCalls().size());
+        Assert.assertEquals(callIds(whole), callIds(topology));
+        Assert.assertEquals(4, topology.getNodes().size());
+        Assert.assertEquals(nodeIds(whole), nodeIds(topology));
+    }
+
+    private List<Call> calls(DetectPoint detectPoint, String... entityIds) {
+        List<Call> calls = new ArrayList<>();
+        for (String entityId : entityIds) {
+            String[] ids = entityId.split("_");
+            Call call = new Call();
+            call.setId(entityId);
+            call.setSource(Integer.parseInt(ids[0]));
+            call.setTarget(Integer.parseInt(ids[1]));
+            call.setComponentId(Integer.parseInt(ids[2]));
+            call.setDetectPoint(detectPoint);
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    private Set<String> callIds(Topology topology) {
+        Set<String> ids = new HashSet<>();
+        topology.getCalls().forEach(call -> ids.add(call.getId()));
+        return ids;
+    }
+
+    private Set<Integer> nodeIds(Topology topology) {
+        Set<Integer> ids = new HashSet<>();
+        for (Node node : topology.getNodes()) {
+            ids.add(node.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.apm.network.language.agent.RefType;
+import org.apache.skywalking.apm.network.language.agent.SpanLayer;
+import org.apache.skywalking.apm.network.language.agent.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.SpanType;
+import org.apache.skywalking.apm.network.language.agent.TraceSegmentObject;
+import org.apache.skywalking.apm.network.language.agent.TraceSegmentReference;
+import org.apache.skywalking.apm.network.language.agent.UniqueId;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
+import org.apache.skywalking.oap.server.core.cache.EndpointInventoryCache;
+import org.apache.skywalking.oap.server.core.cache.NetworkAddressInventoryCache;
+import org.apache.skywalking.oap.server.core.cache.ServiceInventoryCache;
+import org.apache.skywalking.oap.server.core.config.IComponentLibraryCatalogService;
+import org.apache.skywalking.oap.server.core.query.entity.Span;
+import org.apache.skywalking.oap.server.core.query.entity.Trace;
+import org.apache.skywalking.oap.server.core.register.EndpointInventory;
+import org.apache.skywalking.oap.server.core.register.NetworkAddressInventory;
+import org.apache.skywalking.oap.server.core.register.ServiceInventory;
+import org.apache.skywalking.oap.server.core.storage.StorageModule;
+import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+
+/**
+ * Assemble a synthetic trace of 20k spans, 200 segments of 100 spans, every segment is referenced by the previous one.
+ */
+public class TraceQueryServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceQueryServiceTest.class);
+
+    private static final int SEGMENTS = 200;
+    private static final int SPANS_PER_SEGMENT = 100;
+    private static final int ENDPOINTS = 50;
+    private static final int ROUNDS = 10;
+
+    private TraceQueryService traceQueryService;
+    private EndpointInventoryCache endpointInventoryCache;
+
+    @Before
+    public void setUp() throws Exception {
+        ITraceQueryDAO traceQueryDAO = Mockito.mock(ITraceQueryDAO.class);
+        Mockito.when(traceQueryDAO.queryByTraceId(anyString())).thenReturn(buildSegments());
+
+        ServiceInventoryCache serviceInventoryCache = Mockito.mock(ServiceInventoryCache.class);
+        Mockito.when(serviceInventoryCache.get(anyInt())).thenAnswer(invocation -> {
+            ServiceInventory serviceInventory = new ServiceInventory();
+            serviceInventory.setName("service-" + invocation.getArguments()[0]);
+            return serviceInventory;
+        });
+        endpointInventoryCache = Mockito.mock(EndpointInventoryCache.class);
+        Mockito.when(endpointInventoryCache.get(anyInt())).thenAnswer(invocation -> {
+            EndpointInventory endpointInventory = new EndpointInventory();
+            endpointInventory.setName("/endpoint/" + invocation.getArguments()[0]);
+            return endpointInventory;
+        });
+        NetworkAddressInventoryCache networkAddressInventoryCache = Mockito.mock(NetworkAddressInventoryCache.class);
+        Mockito.when(networkAddressInventoryCache.get(anyInt())).thenAnswer(invocation -> {
+            NetworkAddressInventory networkAddressInventory = new NetworkAddressInventory();
+            networkAddressInventory.setName("10.0.0." + invocation.getArguments()[0]);
+            return networkAddressInventory;
+        });
+        IComponentLibraryCatalogService componentLibraryCatalogService = Mockito.mock(IComponentLibraryCatalogService.class);
+        Mockito.when(componentLibraryCatalogService.getComponentName(anyInt())).thenReturn("component");
+
+        ModuleProvider storageProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(storageProvider.getService(ITraceQueryDAO.class)).thenReturn(traceQueryDAO);
+        ModuleProvider coreProvider = Mockito.mock(ModuleProvider.class);
+        Mockito.when(coreProvider.getService(ServiceInventoryCache.class)).thenReturn(serviceInventoryCache);
+        Mockito.when(coreProvider.getService(EndpointInventoryCache.class)).thenReturn(endpointInventoryCache);
+        Mockito.when(coreProvider.getService(NetworkAddressInventoryCache.class)).thenReturn(networkAddressInventoryCache);
+        Mockito.when(coreProvider.getService(IComponentLibraryCatalogService.class)).thenReturn(componentLibraryCatalogService);
+
+        StorageModule storageModule = Mockito.spy(StorageModule.class);
+        LinkedList<ModuleProvider> storageProviders = Whitebox.getInternalState(storageModule, "loadedProviders");
+        storageProviders.add(storageProvider);
+        CoreModule coreModule = Mockito.spy(CoreModule.class);
+        LinkedList<ModuleProvider> coreProviders = Whitebox.getInternalState(coreModule, "loadedProviders");
+        coreProviders.add(coreProvider);
+
+        ModuleManager moduleManager = Mockito.mock(ModuleManager.class);
+        Mockito.when(moduleManager.find(StorageModule.NAME)).thenReturn(storageModule);
+        Mockito.when(moduleManager.find(CoreModule.NAME)).thenReturn(coreModule);
+
+        traceQueryService = new TraceQueryService(moduleManager);
+    }
+
+    @Test
+    public void testQueryTrace() throws Exception {
+        Trace trace = traceQueryService.queryTrace("1.2.3");
+
+        List<Span> spans = trace.getSpans();
+        Assert.assertEquals(SEGMENTS * SPANS_PER_SEGMENT, spans.size());
+        Assert.assertTrue(spans.get(0).isRoot());
+        Assert.assertEquals("1.2.0", spans.get(0).getSegmentId());
+        Assert.assertEquals(0, spans.get(0).getSpanId());
+
+        Set<String> assembled = new HashSet<>();
+        for (Span span : spans) {
+            if (span != spans.get(0)) {
+                Assert.assertFalse(span.isRoot());
+                Assert.assertTrue(assembled.contains(span.getSegmentParentSpanId()));
+            }
+            assembled.add(span.getSegmentSpanId());
+        }
+
+        Span span = spans.get(1);
+        Assert.assertEquals("service-1", span.getServiceCode());
+        Assert.assertEquals("/endpoint/2", span.getEndpointName());
+        Assert.assertEquals("10.0.0.2", span.getPeer());
+        Assert.assertEquals("component", span.getComponent());
+
+        Mockito.verify(endpointInventoryCache, Mockito.times(ENDPOINTS)).get(anyInt());
+    }
+
+    @Test
+    public void testQueryTracePerformance() throws Exception {
+        traceQueryService.queryTrace("1.2.3");
+
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < ROUNDS; i++) {
+            Assert.assertEquals(SEGMENTS * SPANS_PER_SEGMENT, traceQueryService.queryTrace("1.2.3").getSpans().size());
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        logger.info("assemble trace of {} spans in {} ms on average", SEGMENTS * SPANS_PER_SEGMENT, duration / ROUNDS);
+    }
+
+    private List<SegmentRecord> buildSegments() {
+        List<SegmentRecord> segments = new ArrayList<>(SEGMENTS);
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            TraceSegmentObject.Builder segmentObject = TraceSegmentObject.newBuilder();
+            segmentObject.setTraceSegmentId(segmentId(segment));
+
+            for (int spanId = 0; spanId < SPANS_PER_SEGMENT; spanId++) {
+                SpanObject.Builder spanObject = SpanObject.newBuilder();
+                spanObject.setSpanId(spanId);
+                spanObject.setParentSpanId(spanId == 0 ? -1 : (spanId - 1) / 2);
+                spanObject.setStartTime(1541030400000L + spanId);
+                spanObject.setEndTime(1541030400000L + spanId + 10);
+                spanObject.setOperationNameId(1 + spanId % ENDPOINTS);
+                spanObject.setPeerId(1 + spanId % 20);
+                spanObject.setComponentId(1 + spanId % 10);
+                spanObject.setSpanType(spanId == 0 ? SpanType.Entry : SpanType.Exit);
+                spanObject.setSpanLayer(SpanLayer.RPCFramework);
+                if (spanId == 0 && segment > 0) {
+                    spanObject.addRefs(TraceSegmentReference.newBuilder()
+                        .setRefType(RefType.CrossProcess)
+                        .setParentTraceSegmentId(segmentId(segment - 1))
+                        .setParentSpanId(SPANS_PER_SEGMENT - 1 - segment % SPANS_PER_SEGMENT));
+                }
+                segmentObject.addSpans(spanObject);
+            }
+
+            SegmentRecord segmentRecord = new SegmentRecord();
+            segmentRecord.setSegmentId("1.2." + segment);
+            segmentRecord.setTraceId("1.2.3");
+            segmentRecord.setServiceId(1 + segment % 5);
+            segmentRecord.setDataBinary(segmentObject.build().toByteArray());
+            segments.add(segmentRecord);
+        }
+        return segments;
+    }
+
+    private UniqueId segmentId(int segment) {
+        return UniqueId.newBuilder().addIdParts(1).addIdParts(2).addIdParts(segment).build();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.storage.ttl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.DataTTL;
+import org.apache.skywalking.oap.server.core.storage.Downsampling;
+import org.apache.skywalking.oap.server.core.storage.IHistoryDeleteDAO;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DataTTLKeeperTimerTest {
+    @Test
+    public void testNextChunk() {
+        Assert.assertEquals(201811011000L, DataTTLKeeperTimer.nextChunk(Downsampling.Minute, 201811010900L, 60));
+        Assert.assertEquals(2018110212L, DataTTLKeeperTimer.nextChunk(Downsampling.Hour, 2018110112L, 24));
+        Assert.assertEquals(20181205L, DataTTLKeeperTimer.nextChunk(Downsampling.Day, 20181130L, 5));
+        Assert.assertEquals(201902L, DataTTLKeeperTimer.nextChunk(Downsampling.Month, 201811L, 3));
+    }
+
+    @Test
+    public void testLag() {
+        Assert.assertEquals(90, DataTTLKeeperTimer.lag(Downsampling.Minute, 201811010900L, 201811011030L));
+        Assert.assertEquals(26, DataTTLKeeperTimer.lag(Downsampling.Hour, 2018110110L, 2018110212L));
+        Assert.assertEquals(3, DataTTLKeeperTimer.lag(Downsampling.Month, 201811L, 201902L));
+    }
+
+    @Test
+    public void testOwnership() {
+        String[] models = {"service_cpm", "service_resp_time", "endpoint_cpm", "segment", "alarm_record"};
+        for (String model : models) {
+            int owners = 0;
+            for (int selfIndex = 0; selfIndex < 3; selfIndex++) {
+                if (DataTTLKeeperTimer.isOwner(model, 3, selfIndex)) {
+                    owners++;
+                }
+            }
+            Assert.assertEquals(1, owners);
+            Assert.assertTrue(DataTTLKeeperTimer.isOwner(model, 1, 0));
+        }
+    }
+
+    @Test
+    public void testDeleteFromOldest() throws Exception {
+        DataTTL dataTTL = new DataTTL();
+        dataTTL.setDeleteChunkSize(60);
+        DataTTLKeeperTimer.INSTANCE.setDataTTL(dataTTL);
+
+        List<Long> deleted = new ArrayList<>();
+        IHistoryDeleteDAO historyDeleteDAO = new IHistoryDeleteDAO() {
+            @Override public void deleteHistory(String modelName, String timeBucketColumnName, Long timeBucketBefore) {
+                deleted.add(timeBucketBefore);
+            }
+
+            @Override public Long getOldestTimeBucket(String modelName, String timeBucketColumnName) {
+                return 20181101083015L;
+            }
+        };
+        DataTTLKeeperTimer.INSTANCE.execute(historyDeleteDAO, "segment", Downsampling.Minute, 201811011100L, "time_bucket");
+
+        Assert.assertEquals(Arrays.asList(201811010930L, 201811011030L, 201811011100L), deleted);
+    }
+
+    @Test
+    public void testNothingToDelete() throws Exception {
+        DataTTL dataTTL = new DataTTL();
+        dataTTL.setDeleteChunkSize(60);
+        DataTTLKeeperTimer.INSTANCE.setDataTTL(dataTTL);
+
+        List<Long> deleted = new ArrayList<>();
+        IHistoryDeleteDAO historyDeleteDAO = new IHistoryDeleteDAO() {
+            @Override public void deleteHistory(String modelName, String timeBucketColumnName, Long timeBucketBefore) {
+                deleted.add(timeBucketBefore);
+            }
+
+            @Override public Long getOldestTimeBucket(String modelName, String timeBucketColumnName) {
+                return null;
+            }
+        };
+        DataTTLKeeperTimer.INSTANCE.execute(historyDeleteDAO, "service_cpm", Downsampling.Minute, 201811011100L, "time_bucket");
+
+        Assert.assertTrue(deleted.isEmpty());
+    }
+
+    @Test
+    public void testToPrecision() {
+        Assert.assertEquals(201811010830L, DataTTLKeeperTimer.toPrecision(20181101083015L, 201811011100L));
+        Assert.assertEquals(2018110108L, DataTTLKeeperTimer.toPrecision(2018110108L, 2018110111L));
+    }
+}
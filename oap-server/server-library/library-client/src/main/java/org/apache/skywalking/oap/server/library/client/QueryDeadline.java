@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.client;
+
+import java.io.IOException;
+
+/**
+ * The deadline of the query running in the current thread. The clients bound their requests by the remaining time,
+ * and fail fast once it has passed, so a slow query doesn't keep the storage busy after its caller gave up.
+ */
+public enum QueryDeadline {
+    INSTANCE;
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    /**
+     * @param deadline the timestamp the query must end by, {@link #NO_DEADLINE} clears it.
+     */
+    public void set(long deadline) {
+        if (deadline == NO_DEADLINE) {
+            this.deadline.remove();
+        } else {
+            this.deadline.set(deadline);
+        }
+    }
+
+    /**
+     * @return the deadline of the current thread, {@link #NO_DEADLINE} if not set.
+     */
+    public long get() {
+        Long deadline = this.deadline.get();
+        return deadline == null ? NO_DEADLINE : deadline;
+    }
+
+    public void clear() {
+        deadline.remove();
+    }
+
+    /**
+     * @return the remaining milliseconds of the current query, {@link #NO_DEADLINE} if not set.
+     * @throws IOException if the deadline has passed.
+     */
+    public long remaining() throws IOException {
+        long deadline = get();
+        if (deadline == NO_DEADLINE) {
+            return NO_DEADLINE;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new IOException("Query deadline exceeded.");
+        }
+        return remaining;
+    }
+}
@@ -115,11 +115,20 @@ public class ElasticSearchClient implements Client {
     }
 
     public SearchResponse search(String indexName, SearchSourceBuilder searchSourceBuilder) throws IOException {
+        long remaining = QueryDeadline.INSTANCE.remaining();
+        if (remaining != QueryDeadline.NO_DEADLINE) {
+            searchSourceBuilder.timeout(TimeValue.timeValueMillis(remaining));
+        }
+
         indexName = formatIndexName(indexName);
         SearchRequest searchRequest = new SearchRequest(indexName);
         searchRequest.types(TYPE);
         searchRequest.source(searchSourceBuilder);
-        return client.search(searchRequest);
+        SearchResponse response = client.search(searchRequest);
+        if (response.isTimedOut()) {
+            throw new IOException("Search of " + indexName + " timed out, the results of some shards are missing.");
+        }
+        return response;
     }
 
     public GetResponse get(String indexName, String id) throws IOException {
@@ -129,6 +138,8 @@ public class ElasticSearchClient implements Client {
     }
 
     public MultiGetResponse multiGet(String indexName, List<String> ids) throws IOException {
+        QueryDeadline.INSTANCE.remaining();
+
         final String newIndexName = formatIndexName(indexName);
         MultiGetRequest request = new MultiGetRequest();
         ids.forEach(id -> request.add(newIndexName, TYPE, id));
@@ -20,14 +20,17 @@ package org.apache.skywalking.oap.server.library.client.jdbc.hikaricp;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.oap.server.library.client.Client;
 import org.apache.skywalking.oap.server.library.client.ClientException;
+import org.apache.skywalking.oap.server.library.client.QueryDeadline;
 import org.apache.skywalking.oap.server.library.client.jdbc.JDBCClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +98,10 @@ public class JDBCHikariCPClient implements Client {
         PreparedStatement statement = null;
         try {
             statement = connection.prepareStatement(sql);
+            long remaining = QueryDeadline.INSTANCE.remaining();
+            if (remaining != QueryDeadline.NO_DEADLINE) {
+                statement.setQueryTimeout((int)Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remaining)));
+            }
             if (params != null) {
                 for (int i = 0; i < params.length; i++) {
                     Object param = params[i];
@@ -113,7 +120,7 @@ public class JDBCHikariCPClient implements Client {
             }
             rs = statement.executeQuery();
             statement.closeOnCompletion();
-        } catch (SQLException e) {
+        } catch (SQLException | IOException e) {
             if (statement != null) {
                 try {
                     statement.close();
@@ -32,4 +32,13 @@ import org.apache.skywalking.oap.server.library.module.ModuleConfig;
 @Setter(AccessLevel.PUBLIC)
 public class GraphQLQueryConfig extends ModuleConfig {
     private String path;
+    private int resolverThreads;
+    private int resolverQueueSize = 1000;
+    private int maxConcurrentQueries = 16;
+    private int maxConcurrentHeavyQueries = 2;
+    private int maxQueuedQueries = 64;
+    private long queueTimeout = 10000;
+    private long queryTimeout = 30000;
+    private long maxQueryCost = 500000;
+    private long heavyQueryCost = 10000;
 }
@@ -27,15 +27,23 @@ import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
 import graphql.GraphQLError;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.GraphQLSchema;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.query.graphql.resolver.MetricDataLoaders;
+import org.apache.skywalking.oap.server.library.client.QueryDeadline;
 import org.apache.skywalking.oap.server.library.server.jetty.JettyJsonHandler;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
+import org.dataloader.DataLoaderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,8 +62,18 @@ public class GraphQLQueryHandler extends JettyJsonHandler {
 
     private final String path;
 
-    private final GraphQL graphQL;
+    private final GraphQLSchema schema;
 
+    private final MetricDataLoaders metricDataLoaders;
+
+    private final QueryAdmission queryAdmission;
+
+    /**
+     * Milliseconds a query may run, not bounded if it isn't positive.
+     */
+    private final long queryTimeout;
+
+    private final QueryCostEstimator queryCostEstimator = new QueryCostEstimator();
 
     @Override public String pathSpec() {
         return path;
@@ -80,9 +98,33 @@ public class GraphQLQueryHandler extends JettyJsonHandler {
     }
 
     private JsonObject execute(String request, Map<String, Object> variables) {
+        final long cost = estimate(request, variables);
+
         try {
-            ExecutionInput executionInput = ExecutionInput.newExecutionInput().query(request).variables(variables).build();
-            ExecutionResult executionResult = graphQL.execute(executionInput);
+            queryAdmission.admit(cost);
+        } catch (QueryRejectedException e) {
+            return errorJson(e.getMessage());
+        }
+
+        try {
+            DataLoaderRegistry dataLoaderRegistry = metricDataLoaders.newRegistry();
+            GraphQL graphQL = GraphQL.newGraphQL(schema).instrumentation(new DataLoaderDispatcherInstrumentation(dataLoaderRegistry)).build();
+            ExecutionInput executionInput = ExecutionInput.newExecutionInput().query(request).variables(variables).context(dataLoaderRegistry).build();
+
+            ExecutionResult executionResult;
+            if (queryTimeout > 0) {
+                // The synchronous resolvers run in this thread before the future returns, the deadline bounds their
+                // storage requests. The asynchronous ones fail fast once it has passed.
+                long deadline = System.currentTimeMillis() + queryTimeout;
+                QueryDeadline.INSTANCE.set(deadline);
+                CompletableFuture<ExecutionResult> future = graphQL.executeAsync(executionInput);
+
+                // The permit is held until the execution ends or the deadline passes, a future which never completes
+                // doesn't keep it. The work still running after the deadline fails fast on its storage requests.
+                executionResult = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } else {
+                executionResult = graphQL.execute(executionInput);
+            }
             logger.debug("Execution result is {}", executionResult);
             Object data = executionResult.getData();
             List<GraphQLError> errors = executionResult.getErrors();
@@ -101,15 +143,34 @@ public class GraphQLQueryHandler extends JettyJsonHandler {
                 jsonObject.add(ERRORS, errorArray);
             }
             return jsonObject;
+        } catch (final TimeoutException e) {
+            queryAdmission.timedOut();
+            return errorJson("Query timeout, it didn't finish in " + queryTimeout + "ms, narrow the duration or the entities.");
         } catch (final Throwable e) {
             logger.error(e.getMessage(), e);
-            JsonObject jsonObject = new JsonObject();
-            JsonArray errorArray = new JsonArray();
-            JsonObject errorJson = new JsonObject();
-            errorJson.addProperty(MESSAGE, e.getMessage());
-            errorArray.add(errorJson);
-            jsonObject.add(ERRORS, errorArray);
-            return jsonObject;
+            return errorJson(e.getMessage());
+        } finally {
+            QueryDeadline.INSTANCE.clear();
+            queryAdmission.release(cost);
+        }
+    }
+
+    private long estimate(String request, Map<String, Object> variables) {
+        try {
+            return queryCostEstimator.estimate(request, variables);
+        } catch (final Throwable e) {
+            logger.debug("Estimate the cost of query failure, the query is going to fail in execution.", e);
+            return 1;
         }
     }
+
+    private JsonObject errorJson(String message) {
+        JsonObject jsonObject = new JsonObject();
+        JsonArray errorArray = new JsonArray();
+        JsonObject errorJson = new JsonObject();
+        errorJson.addProperty(MESSAGE, message);
+        errorArray.add(errorJson);
+        jsonObject.add(ERRORS, errorArray);
+        return jsonObject;
+    }
 }
@@ -19,7 +19,6 @@
 package org.apache.skywalking.oap.query.graphql;
 
 import com.coxautodev.graphql.tools.SchemaParser;
-import graphql.GraphQL;
 import graphql.schema.GraphQLSchema;
 import org.apache.skywalking.oap.query.graphql.resolver.*;
 import org.apache.skywalking.oap.server.core.CoreModule;
@@ -36,7 +35,9 @@ public class GraphQLQueryProvider extends ModuleProvider {
 
     private final GraphQLQueryConfig config = new GraphQLQueryConfig();
 
-    private GraphQL graphQL;
+    private GraphQLSchema schema;
+    private MetricDataLoaders metricDataLoaders;
+    private QueryAdmission queryAdmission;
 
     @Override public String name() {
         return "graphql";
@@ -51,29 +52,34 @@ public class GraphQLQueryProvider extends ModuleProvider {
     }
 
     @Override public void prepare() throws ServiceNotProvidedException, ModuleStartException {
-        GraphQLSchema schema = SchemaParser.newParser()
+        int resolverThreads = config.getResolverThreads() > 0 ? config.getResolverThreads() : Runtime.getRuntime().availableProcessors() * 2;
+        ResolverExecutor executor = new ResolverExecutor(resolverThreads, config.getResolverQueueSize());
+        this.metricDataLoaders = new MetricDataLoaders(getManager(), executor);
+        this.queryAdmission = new QueryAdmission(config);
+
+        this.schema = SchemaParser.newParser()
             .file("query-protocol/common.graphqls")
             .resolvers(new Query(), new Mutation())
             .file("query-protocol/metadata.graphqls")
-            .resolvers(new MetadataQuery(getManager()))
+            .resolvers(new MetadataQuery(getManager(), executor))
             .file("query-protocol/metric.graphqls")
             .resolvers(new MetricQuery(getManager()))
             .file("query-protocol/topology.graphqls")
-            .resolvers(new TopologyQuery(getManager()))
+            .resolvers(new TopologyQuery(getManager(), executor))
             .file("query-protocol/trace.graphqls")
             .resolvers(new TraceQuery(getManager()))
             .file("query-protocol/aggregation.graphqls")
-            .resolvers(new AggregationQuery(getManager()))
+            .resolvers(new AggregationQuery(getManager(), executor))
             .file("query-protocol/alarm.graphqls")
             .resolvers(new AlarmQuery(getManager()))
             .build()
             .makeExecutableSchema();
-        this.graphQL = GraphQL.newGraphQL(schema).build();
     }
 
     @Override public void start() throws ServiceNotProvidedException, ModuleStartException {
         JettyHandlerRegister service = getManager().find(CoreModule.NAME).getService(JettyHandlerRegister.class);
-        service.addHandler(new GraphQLQueryHandler(config.getPath(), graphQL));
+        service.addHandler(new GraphQLQueryHandler(config.getPath(), schema, metricDataLoaders, queryAdmission, config.getQueryTimeout()));
+        queryAdmission.start();
     }
 
     @Override public void notifyAfterCompleted() throws ServiceNotProvidedException, ModuleStartException {
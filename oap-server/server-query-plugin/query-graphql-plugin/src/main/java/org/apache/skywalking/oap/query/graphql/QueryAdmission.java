@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Admission control of the queries, which keeps the storage available for the persistence while heavy queries run.
+ *
+ * A query above the max cost is rejected. The others run with a bounded concurrency, and the heavy ones with a lower
+ * one. A query waits in a bounded queue for its turn, and is rejected if the queue is full or the wait times out.
+ */
+class QueryAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryAdmission.class);
+
+    private final long maxQueryCost;
+    private final long heavyQueryCost;
+    private final int maxQueuedQueries;
+    private final long queueTimeout;
+    private final Semaphore queries;
+    private final Semaphore heavyQueries;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedByCost = new LongAdder();
+    private final LongAdder rejectedByQueue = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalCost = new LongAdder();
+
+    QueryAdmission(GraphQLQueryConfig config) {
+        this.maxQueryCost = config.getMaxQueryCost();
+        this.heavyQueryCost = config.getHeavyQueryCost();
+        this.maxQueuedQueries = config.getMaxQueuedQueries();
+        this.queueTimeout = config.getQueueTimeout();
+        this.queries = new Semaphore(Math.max(1, config.getMaxConcurrentQueries()), true);
+        this.heavyQueries = new Semaphore(Math.max(1, config.getMaxConcurrentHeavyQueries()), true);
+    }
+
+    void start() {
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+            new RunnableWithExceptionProtection(this::report,
+                t -> logger.error("Report query admission failure.", t)), 5, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Wait until the query can run, {@link #release(long)} must be called after it ends.
+     *
+     * @throws QueryRejectedException if the query is rejected.
+     */
+    void admit(long cost) throws QueryRejectedException {
+        if (maxQueryCost > 0 && cost > maxQueryCost) {
+            rejectedByCost.increment();
+            throw new QueryRejectedException("Query rejected, its cost " + cost + " is above the max query cost " + maxQueryCost + ", narrow the duration or the entities.");
+        }
+
+        if (queued.incrementAndGet() > maxQueuedQueries) {
+            queued.decrementAndGet();
+            rejectedByQueue.increment();
+            throw new QueryRejectedException("Query rejected, too many queries are waiting, retry later.");
+        }
+
+        long deadline = System.currentTimeMillis() + queueTimeout;
+        boolean heavyAcquired = false;
+        try {
+            if (isHeavy(cost)) {
+                if (!heavyQueries.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS)) {
+                    rejectedByQueue.increment();
+                    throw new QueryRejectedException("Query rejected, too many heavy queries are running, retry later.");
+                }
+                heavyAcquired = true;
+            }
+            if (!queries.tryAcquire(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                rejectedByQueue.increment();
+                throw new QueryRejectedException("Query rejected, too many queries are running, retry later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (heavyAcquired) {
+                heavyQueries.release();
+            }
+            throw new QueryRejectedException("Query rejected, interrupted while waiting.");
+        } catch (QueryRejectedException e) {
+            if (heavyAcquired) {
+                heavyQueries.release();
+            }
+            throw e;
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        running.incrementAndGet();
+        admitted.increment();
+        totalCost.add(cost);
+    }
+
+    void release(long cost) {
+        running.decrementAndGet();
+        queries.release();
+        if (isHeavy(cost)) {
+            heavyQueries.release();
+        }
+    }
+
+    void timedOut() {
+        timedOut.increment();
+    }
+
+    private boolean isHeavy(long cost) {
+        return heavyQueryCost > 0 && cost >= heavyQueryCost;
+    }
+
+    private void report() {
+        logger.info("Query admission, admitted: {}, rejected by cost: {}, rejected by queue: {}, timed out: {}, total cost: {}, running: {}, queued: {}",
+            admitted.sum(), rejectedByCost.sum(), rejectedByQueue.sum(), timedOut.sum(), totalCost.sum(), running.get(), queued.get());
+    }
+}
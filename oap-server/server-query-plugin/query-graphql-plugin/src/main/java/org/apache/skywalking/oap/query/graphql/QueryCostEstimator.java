@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql;
+
+import graphql.language.*;
+import graphql.parser.Parser;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.oap.server.core.query.DurationUtils;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+
+/**
+ * Estimate the cost of a query before it runs, as the sum of its root fields. A field costs the number of time buckets
+ * in its duration times the number of entities in its ids, at least 1, so a month of minute metrics of 20 endpoints
+ * costs far more than the latest 30 minutes of one service.
+ */
+class QueryCostEstimator {
+
+    private static final String START = "start";
+    private static final String END = "end";
+    private static final String STEP = "step";
+    private static final String IDS = "ids";
+
+    private final Parser parser = new Parser();
+
+    long estimate(String query, Map<String, Object> variables) {
+        Document document = parser.parseDocument(query);
+        long cost = 0;
+        for (Definition definition : document.getDefinitions()) {
+            if (definition instanceof OperationDefinition) {
+                for (Selection selection : ((OperationDefinition)definition).getSelectionSet().getSelections()) {
+                    cost += fieldCost(selection, variables);
+                }
+            }
+        }
+        return Math.max(1, cost);
+    }
+
+    private long fieldCost(Selection selection, Map<String, Object> variables) {
+        if (!(selection instanceof Field)) {
+            return 1;
+        }
+
+        Map<String, Object> arguments = new HashMap<>();
+        for (Argument argument : ((Field)selection).getArguments()) {
+            arguments.put(argument.getName(), toObject(argument.getValue(), variables));
+        }
+
+        List<Map> durations = new ArrayList<>();
+        List<List> ids = new ArrayList<>();
+        collect(arguments, durations, ids);
+
+        long buckets = 1;
+        for (Map duration : durations) {
+            buckets = Math.max(buckets, buckets(duration));
+        }
+        long entities = 1;
+        for (List entityIds : ids) {
+            entities = Math.max(entities, entityIds.size());
+        }
+        return buckets * entities;
+    }
+
+    private void collect(Object value, List<Map> durations, List<List> ids) {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map)value;
+            if (map.containsKey(START) && map.containsKey(END) && map.containsKey(STEP)) {
+                durations.add(map);
+            }
+            map.forEach((key, child) -> {
+                if (IDS.equals(key) && child instanceof List) {
+                    ids.add((List)child);
+                }
+                collect(child, durations, ids);
+            });
+        } else if (value instanceof List) {
+            ((List<?>)value).forEach(child -> collect(child, durations, ids));
+        }
+    }
+
+    /**
+     * @return the number of time buckets in the duration, 1 if it can't be parsed, then the query fails anyway.
+     */
+    long buckets(Map duration) {
+        try {
+            Step step = Step.valueOf(String.valueOf(duration.get(STEP)));
+            long start = DurationUtils.INSTANCE.toTimestamp(step, String.valueOf(duration.get(START)));
+            long end = DurationUtils.INSTANCE.toTimestamp(step, String.valueOf(duration.get(END)));
+            return Math.max(1, (end - start) / bucketMillis(step) + 1);
+        } catch (IllegalArgumentException | ParseException e) {
+            return 1;
+        }
+    }
+
+    private long bucketMillis(Step step) {
+        switch (step) {
+            case MONTH:
+                return TimeUnit.DAYS.toMillis(30);
+            case DAY:
+                return TimeUnit.DAYS.toMillis(1);
+            case HOUR:
+                return TimeUnit.HOURS.toMillis(1);
+            case MINUTE:
+                return TimeUnit.MINUTES.toMillis(1);
+            default:
+                return TimeUnit.SECONDS.toMillis(1);
+        }
+    }
+
+    private Object toObject(Value value, Map<String, Object> variables) {
+        if (value instanceof VariableReference) {
+            return variables == null ? null : variables.get(((VariableReference)value).getName());
+        } else if (value instanceof ObjectValue) {
+            Map<String, Object> map = new HashMap<>();
+            for (ObjectField field : ((ObjectValue)value).getObjectFields()) {
+                map.put(field.getName(), toObject(field.getValue(), variables));
+            }
+            return map;
+        } else if (value instanceof ArrayValue) {
+            List<Object> list = new ArrayList<>();
+            for (Value element : ((ArrayValue)value).getValues()) {
+                list.add(toObject(element, variables));
+            }
+            return list;
+        } else if (value instanceof StringValue) {
+            return ((StringValue)value).getValue();
+        } else if (value instanceof EnumValue) {
+            return ((EnumValue)value).getName();
+        } else if (value instanceof IntValue) {
+            return ((IntValue)value).getValue();
+        } else if (value instanceof FloatValue) {
+            return ((FloatValue)value).getValue();
+        }
+        return null;
+    }
+}
@@ -19,8 +19,8 @@
 package org.apache.skywalking.oap.query.graphql.resolver;
 
 import com.coxautodev.graphql.tools.GraphQLQueryResolver;
-import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.apache.skywalking.oap.query.graphql.type.Duration;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.query.*;
@@ -33,10 +33,12 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 public class AggregationQuery implements GraphQLQueryResolver {
 
     private final ModuleManager moduleManager;
+    private final ResolverExecutor executor;
     private AggregationQueryService queryService;
 
-    public AggregationQuery(ModuleManager moduleManager) {
+    public AggregationQuery(ModuleManager moduleManager, ResolverExecutor executor) {
         this.moduleManager = moduleManager;
+        this.executor = executor;
     }
 
     private AggregationQueryService getQueryService() {
@@ -46,43 +48,53 @@ public class AggregationQuery implements GraphQLQueryResolver {
         return queryService;
     }
 
-    public List<TopNEntity> getServiceTopN(final String name, final int topN, final Duration duration,
-        final Order order) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<List<TopNEntity>> getServiceTopN(final String name, final int topN, final Duration duration,
+        final Order order) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getServiceTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+            return getQueryService().getServiceTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+        });
     }
 
-    public List<TopNEntity> getAllServiceInstanceTopN(final String name, final int topN, final Duration duration,
-        final Order order) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<List<TopNEntity>> getAllServiceInstanceTopN(final String name, final int topN, final Duration duration,
+        final Order order) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getAllServiceInstanceTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+            return getQueryService().getAllServiceInstanceTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+        });
     }
 
-    public List<TopNEntity> getServiceInstanceTopN(final int serviceId, final String name, final int topN,
-        final Duration duration, final Order order) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<List<TopNEntity>> getServiceInstanceTopN(final int serviceId, final String name, final int topN,
+        final Duration duration, final Order order) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getServiceInstanceTopN(serviceId, name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+            return getQueryService().getServiceInstanceTopN(serviceId, name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+        });
     }
 
-    public List<TopNEntity> getAllEndpointTopN(final String name, final int topN,
-        final Duration duration, final Order order) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<List<TopNEntity>> getAllEndpointTopN(final String name, final int topN,
+        final Duration duration, final Order order) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getAllEndpointTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+            return getQueryService().getAllEndpointTopN(name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+        });
     }
 
-    public List<TopNEntity> getEndpointTopN(final int serviceId, final String name, final int topN,
-        final Duration duration, final Order order) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<List<TopNEntity>> getEndpointTopN(final int serviceId, final String name, final int topN,
+        final Duration duration, final Order order) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getEndpointTopN(serviceId, name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+            return getQueryService().getEndpointTopN(serviceId, name, topN, duration.getStep(), startTimeBucket, endTimeBucket, order);
+        });
     }
 }
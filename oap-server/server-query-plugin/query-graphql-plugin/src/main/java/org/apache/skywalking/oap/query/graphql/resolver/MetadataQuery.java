@@ -19,9 +19,8 @@
 package org.apache.skywalking.oap.query.graphql.resolver;
 
 import com.coxautodev.graphql.tools.GraphQLQueryResolver;
-import java.io.IOException;
-import java.text.ParseException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.apache.skywalking.oap.query.graphql.type.Duration;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.query.*;
@@ -34,10 +33,12 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 public class MetadataQuery implements GraphQLQueryResolver {
 
     private final ModuleManager moduleManager;
+    private final ResolverExecutor executor;
     private MetadataQueryService metadataQueryService;
 
-    public MetadataQuery(ModuleManager moduleManager) {
+    public MetadataQuery(ModuleManager moduleManager, ResolverExecutor executor) {
         this.moduleManager = moduleManager;
+        this.executor = executor;
     }
 
     private MetadataQueryService getMetadataQueryService() {
@@ -47,46 +48,53 @@ public class MetadataQuery implements GraphQLQueryResolver {
         return metadataQueryService;
     }
 
-    public ClusterBrief getGlobalBrief(final Duration duration) throws IOException, ParseException {
-        long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
-        long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
+    public CompletableFuture<ClusterBrief> getGlobalBrief(final Duration duration) {
+        return executor.async(() -> {
+            long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
+            long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
 
-        return getMetadataQueryService().getGlobalBrief(startTimestamp, endTimestamp);
+            return getMetadataQueryService().getGlobalBrief(startTimestamp, endTimestamp);
+        });
     }
 
-    public List<Service> getAllServices(final Duration duration) throws IOException, ParseException {
-        long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
-        long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
+    public CompletableFuture<List<Service>> getAllServices(final Duration duration) {
+        return executor.async(() -> {
+            long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
+            long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
 
-        return getMetadataQueryService().getAllServices(startTimestamp, endTimestamp);
+            return getMetadataQueryService().getAllServices(startTimestamp, endTimestamp);
+        });
     }
 
-    public List<Service> searchServices(final Duration duration, final String keyword)
-        throws IOException, ParseException {
-        long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
-        long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
+    public CompletableFuture<List<Service>> searchServices(final Duration duration, final String keyword) {
+        return executor.async(() -> {
+            long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
+            long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
 
-        return getMetadataQueryService().searchServices(startTimestamp, endTimestamp, keyword);
+            return getMetadataQueryService().searchServices(startTimestamp, endTimestamp, keyword);
+        });
     }
 
-    public Service searchService(final String serviceCode) throws IOException {
-        return getMetadataQueryService().searchService(serviceCode);
+    public CompletableFuture<Service> searchService(final String serviceCode) {
+        return executor.async(() -> getMetadataQueryService().searchService(serviceCode));
     }
 
-    public List<ServiceInstance> getServiceInstances(final Duration duration,
-        final String serviceId) throws IOException, ParseException {
-        long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
-        long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
+    public CompletableFuture<List<ServiceInstance>> getServiceInstances(final Duration duration,
+        final String serviceId) {
+        return executor.async(() -> {
+            long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
+            long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
 
-        return getMetadataQueryService().getServiceInstances(startTimestamp, endTimestamp, serviceId);
+            return getMetadataQueryService().getServiceInstances(startTimestamp, endTimestamp, serviceId);
+        });
     }
 
-    public List<Endpoint> searchEndpoint(final String keyword, final String serviceId,
-        final int limit) throws IOException {
-        return getMetadataQueryService().searchEndpoint(keyword, serviceId, limit);
+    public CompletableFuture<List<Endpoint>> searchEndpoint(final String keyword, final String serviceId,
+        final int limit) {
+        return executor.async(() -> getMetadataQueryService().searchEndpoint(keyword, serviceId, limit));
     }
 
-    public EndpointInfo getEndpointInfo(final int endpointId) throws IOException {
-        return getMetadataQueryService().getEndpointInfo(endpointId);
+    public CompletableFuture<EndpointInfo> getEndpointInfo(final int endpointId) {
+        return executor.async(() -> getMetadataQueryService().getEndpointInfo(endpointId));
     }
 }
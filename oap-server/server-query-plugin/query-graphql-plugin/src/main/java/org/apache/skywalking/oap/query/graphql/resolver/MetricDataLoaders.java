@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.resolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.query.MetricQueryService;
+import org.apache.skywalking.oap.server.core.query.entity.IntValues;
+import org.apache.skywalking.oap.server.core.query.entity.KVInt;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * The data loaders of the metric queries. A registry is created for every request, so the sibling fields of the same
+ * indicator and duration are coalesced into one query of {@link MetricQueryService}, and the same field is only loaded
+ * once in the request.
+ */
+public class MetricDataLoaders {
+
+    static final String LINEAR_INT_VALUES = "linearIntValues";
+    static final String VALUES = "values";
+
+    private final ModuleManager moduleManager;
+    private final ResolverExecutor executor;
+    private MetricQueryService metricQueryService;
+
+    public MetricDataLoaders(ModuleManager moduleManager, ResolverExecutor executor) {
+        this.moduleManager = moduleManager;
+        this.executor = executor;
+    }
+
+    private MetricQueryService getMetricQueryService() {
+        if (metricQueryService == null) {
+            this.metricQueryService = moduleManager.find(CoreModule.NAME).getService(MetricQueryService.class);
+        }
+        return metricQueryService;
+    }
+
+    public DataLoaderRegistry newRegistry() {
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        registry.register(LINEAR_INT_VALUES, new DataLoader<MetricKey, IntValues>(new DurationBatchLoader<>(
+            (duration, ids) -> getMetricQueryService().getLinearIntValues(duration.getName(), ids, duration.getStep(), duration.getStartTimeBucket(), duration.getEndTimeBucket()))));
+        registry.register(VALUES, new DataLoader<MetricKey, KVInt>(new DurationBatchLoader<>(
+            (duration, ids) -> {
+                IntValues intValues = getMetricQueryService().getValues(duration.getName(), ids, duration.getStep(), duration.getStartTimeBucket(), duration.getEndTimeBucket());
+                Map<String, KVInt> values = new HashMap<>();
+                intValues.getValues().forEach(kvInt -> values.put(kvInt.getId(), kvInt));
+
+                List<KVInt> entityValues = new ArrayList<>(ids.size());
+                ids.forEach(id -> entityValues.add(values.get(id)));
+                return entityValues;
+            })));
+        return registry;
+    }
+
+    interface DurationQuery<V> {
+        /**
+         * @return the values of the ids, in the order of the ids.
+         */
+        List<V> query(MetricKey duration, List<String> ids) throws Exception;
+    }
+
+    /**
+     * Group the keys by the indicator and duration, and run the query of every group on the resolver executor.
+     */
+    private class DurationBatchLoader<V> implements BatchLoader<MetricKey, V> {
+        private final DurationQuery<V> query;
+
+        private DurationBatchLoader(DurationQuery<V> query) {
+            this.query = query;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public CompletionStage<List<V>> load(List<MetricKey> keys) {
+            Map<MetricKey, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                groups.computeIfAbsent(keys.get(i).duration(), duration -> new ArrayList<>()).add(i);
+            }
+
+            Object[] values = new Object[keys.size()];
+            List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+            groups.forEach((duration, positions) -> {
+                List<String> ids = new ArrayList<>(positions.size());
+                positions.forEach(position -> ids.add(keys.get(position).getId()));
+
+                futures.add(executor.async(() -> query.query(duration, ids)).thenAccept(groupValues -> {
+                    for (int i = 0; i < positions.size(); i++) {
+                        values[positions.get(i)] = groupValues.get(i);
+                    }
+                }));
+            });
+
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(nothing -> (List<V>)Arrays.asList(values));
+        }
+    }
+}
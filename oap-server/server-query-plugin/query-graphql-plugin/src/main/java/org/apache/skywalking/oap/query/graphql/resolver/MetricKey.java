@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.resolver;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+
+/**
+ * The key of one entity of an indicator in a duration, the keys in the same duration of the same indicator are loaded
+ * by one query.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+class MetricKey {
+    private final String name;
+    private final Step step;
+    private final long startTimeBucket;
+    private final long endTimeBucket;
+    private final String id;
+
+    MetricKey duration() {
+        return new MetricKey(name, step, startTimeBucket, endTimeBucket, null);
+    }
+}
@@ -19,13 +19,21 @@
 package org.apache.skywalking.oap.query.graphql.resolver;
 
 import com.coxautodev.graphql.tools.GraphQLQueryResolver;
+import graphql.schema.DataFetchingEnvironment;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import org.apache.skywalking.oap.query.graphql.type.*;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.query.*;
 import org.apache.skywalking.oap.server.core.query.entity.*;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.util.CollectionUtils;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
 
 /**
  * @author peng-yongsheng
@@ -46,19 +54,33 @@ public class MetricQuery implements GraphQLQueryResolver {
         return metricQueryService;
     }
 
-    public IntValues getValues(final BatchMetricConditions metric, final Duration duration) throws IOException {
+    public CompletableFuture<IntValues> getValues(final BatchMetricConditions metric, final Duration duration,
+        final DataFetchingEnvironment environment) throws IOException {
         long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
         long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getMetricQueryService().getValues(metric.getName(), metric.getIds(), duration.getStep(), startTimeBucket, endTimeBucket);
+        if (CollectionUtils.isEmpty(metric.getIds())) {
+            return CompletableFuture.completedFuture(getMetricQueryService().getValues(metric.getName(), metric.getIds(), duration.getStep(), startTimeBucket, endTimeBucket));
+        }
+
+        List<MetricKey> keys = new ArrayList<>(metric.getIds().size());
+        metric.getIds().forEach(id -> keys.add(new MetricKey(metric.getName(), duration.getStep(), startTimeBucket, endTimeBucket, id)));
+
+        DataLoader<MetricKey, KVInt> loader = ((DataLoaderRegistry)environment.getContext()).getDataLoader(MetricDataLoaders.VALUES);
+        return loader.loadMany(keys).thenApply(kvInts -> {
+            IntValues intValues = new IntValues();
+            kvInts.stream().filter(Objects::nonNull).forEach(intValues::addKVInt);
+            return intValues;
+        });
     }
 
-    public IntValues getLinearIntValues(final MetricCondition metric,
-        final Duration duration) throws IOException, ParseException {
+    public CompletableFuture<IntValues> getLinearIntValues(final MetricCondition metric, final Duration duration,
+        final DataFetchingEnvironment environment) {
         long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
         long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getMetricQueryService().getLinearIntValues(metric.getName(), metric.getId(), duration.getStep(), startTimeBucket, endTimeBucket);
+        DataLoader<MetricKey, IntValues> loader = ((DataLoaderRegistry)environment.getContext()).getDataLoader(MetricDataLoaders.LINEAR_INT_VALUES);
+        return loader.load(new MetricKey(metric.getName(), duration.getStep(), startTimeBucket, endTimeBucket, metric.getId()));
     }
 
     public Thermodynamic getThermodynamic(final MetricCondition metric,
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.resolver;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.oap.server.library.client.QueryDeadline;
+
+/**
+ * The bounded executor shared by the resolvers, the independent fields of a request are resolved concurrently on it.
+ * When the queue is full, the field is resolved by the thread of the request instead.
+ */
+public class ResolverExecutor {
+
+    private final ExecutorService executor;
+
+    public ResolverExecutor(int threads, int queueSize) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("GraphQLResolver-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Run the query on the executor, with the {@link QueryDeadline} of the calling thread. A query which is still
+     * queued when the deadline passes fails without running.
+     */
+    public <T> CompletableFuture<T> async(Callable<T> query) {
+        long deadline = QueryDeadline.INSTANCE.get();
+        return CompletableFuture.supplyAsync(() -> {
+            // The query runs in the thread of the request when the queue is full, its own deadline is kept for the
+            // other fields of the request.
+            long previousDeadline = QueryDeadline.INSTANCE.get();
+            QueryDeadline.INSTANCE.set(deadline);
+            try {
+                QueryDeadline.INSTANCE.remaining();
+                return query.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                QueryDeadline.INSTANCE.set(previousDeadline);
+            }
+        }, executor);
+    }
+}
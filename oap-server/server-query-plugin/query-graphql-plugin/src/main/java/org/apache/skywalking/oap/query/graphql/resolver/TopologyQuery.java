@@ -19,8 +19,7 @@
 package org.apache.skywalking.oap.query.graphql.resolver;
 
 import com.coxautodev.graphql.tools.GraphQLQueryResolver;
-import java.io.IOException;
-import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
 import org.apache.skywalking.oap.query.graphql.type.Duration;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.query.*;
@@ -33,10 +32,12 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
 public class TopologyQuery implements GraphQLQueryResolver {
 
     private final ModuleManager moduleManager;
+    private final ResolverExecutor executor;
     private TopologyQueryService queryService;
 
-    public TopologyQuery(ModuleManager moduleManager) {
+    public TopologyQuery(ModuleManager moduleManager, ResolverExecutor executor) {
         this.moduleManager = moduleManager;
+        this.executor = executor;
     }
 
     private TopologyQueryService getQueryService() {
@@ -46,27 +47,33 @@ public class TopologyQuery implements GraphQLQueryResolver {
         return queryService;
     }
 
-    public Topology getGlobalTopology(final Duration duration) throws IOException, ParseException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<Topology> getGlobalTopology(final Duration duration) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
-        long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
+            long startTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getStart());
+            long endTimestamp = DurationUtils.INSTANCE.toTimestamp(duration.getStep(), duration.getEnd());
 
-        return getQueryService().getGlobalTopology(duration.getStep(), startTimeBucket, endTimeBucket, startTimestamp, endTimestamp);
+            return getQueryService().getGlobalTopology(duration.getStep(), startTimeBucket, endTimeBucket, startTimestamp, endTimestamp);
+        });
     }
 
-    public Topology getServiceTopology(final int serviceId, final Duration duration) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<Topology> getServiceTopology(final int serviceId, final Duration duration) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getServiceTopology(duration.getStep(), startTimeBucket, endTimeBucket, serviceId);
+            return getQueryService().getServiceTopology(duration.getStep(), startTimeBucket, endTimeBucket, serviceId);
+        });
     }
 
-    public Topology getEndpointTopology(final int endpointId, final Duration duration) throws IOException {
-        long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
-        long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
+    public CompletableFuture<Topology> getEndpointTopology(final int endpointId, final Duration duration) {
+        return executor.async(() -> {
+            long startTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getStart());
+            long endTimeBucket = DurationUtils.INSTANCE.exchangeToTimeBucket(duration.getEnd());
 
-        return getQueryService().getEndpointTopology(duration.getStep(), startTimeBucket, endTimeBucket, endpointId);
+            return getQueryService().getEndpointTopology(duration.getStep(), startTimeBucket, endTimeBucket, endpointId);
+        });
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryAdmissionTest {
+
+    @Test
+    public void testAdmitAndRelease() throws QueryRejectedException {
+        QueryAdmission admission = new QueryAdmission(config(1, 1, 10, 100));
+
+        admission.admit(1);
+        assertRejected(admission, 1);
+        admission.release(1);
+        admission.admit(1);
+        admission.release(1);
+    }
+
+    @Test
+    public void testRejectedByCost() throws QueryRejectedException {
+        GraphQLQueryConfig config = config(4, 1, 10, 100);
+        config.setMaxQueryCost(1000);
+        QueryAdmission admission = new QueryAdmission(config);
+
+        assertRejected(admission, 1001);
+        admission.admit(1000);
+        admission.release(1000);
+    }
+
+    @Test
+    public void testHeavyQueriesBounded() throws QueryRejectedException {
+        GraphQLQueryConfig config = config(4, 1, 10, 100);
+        config.setHeavyQueryCost(100);
+        QueryAdmission admission = new QueryAdmission(config);
+
+        admission.admit(100);
+        assertRejected(admission, 200);
+        admission.admit(99);
+        admission.release(99);
+        admission.release(100);
+        admission.admit(200);
+        admission.release(200);
+    }
+
+    @Test
+    public void testRejectedWhenQueueFull() throws QueryRejectedException {
+        QueryAdmission admission = new QueryAdmission(config(1, 1, 0, 100));
+
+        assertRejected(admission, 1);
+    }
+
+    private void assertRejected(QueryAdmission admission, long cost) {
+        try {
+            admission.admit(cost);
+            Assert.fail("The query of cost " + cost + " should be rejected.");
+        } catch (QueryRejectedException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Query rejected"));
+        }
+    }
+
+    private GraphQLQueryConfig config(int maxConcurrentQueries, int maxConcurrentHeavyQueries, int maxQueuedQueries,
+        long queueTimeout) {
+        GraphQLQueryConfig config = new GraphQLQueryConfig();
+        config.setMaxConcurrentQueries(maxConcurrentQueries);
+        config.setMaxConcurrentHeavyQueries(maxConcurrentHeavyQueries);
+        config.setMaxQueuedQueries(maxQueuedQueries);
+        config.setQueueTimeout(queueTimeout);
+        config.setMaxQueryCost(0);
+        config.setHeavyQueryCost(0);
+        return config;
+    }
+}
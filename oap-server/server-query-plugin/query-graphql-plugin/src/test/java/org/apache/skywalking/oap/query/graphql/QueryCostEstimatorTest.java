@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCostEstimatorTest {
+
+    private final QueryCostEstimator estimator = new QueryCostEstimator();
+
+    @Test
+    public void testInlineDuration() {
+        String query = "query { getAllServices(duration: {start: \"2018-11-01 1200\", end: \"2018-11-01 1229\", step: MINUTE}) { key: id label: name } }";
+
+        Assert.assertEquals(30, estimator.estimate(query, null));
+    }
+
+    @Test
+    public void testVariablesAndEntities() {
+        String query = "query queryData($duration: Duration!, $ids: [ID!]!) {"
+            + " getValues(metric: {name: \"endpoint_cpm\", ids: $ids}, duration: $duration) { values { id value } }"
+            + " getLinearIntValues(metric: {name: \"service_cpm\", id: \"1\"}, duration: $duration) { values { value } } }";
+        Map<String, Object> duration = new HashMap<>();
+        duration.put("start", "2018-11-01 10");
+        duration.put("end", "2018-11-02 09");
+        duration.put("step", "HOUR");
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("duration", duration);
+        variables.put("ids", Arrays.asList("1", "2", "3"));
+
+        Assert.assertEquals(24 * 3 + 24, estimator.estimate(query, variables));
+    }
+
+    @Test
+    public void testWithoutDuration() {
+        Assert.assertEquals(1, estimator.estimate("query { getTrace(traceId: \"1.2.3\") { spans { spanId } } }", null));
+        Assert.assertEquals(2, estimator.estimate("query { version getTrace(traceId: \"1.2.3\") { spans { spanId } } }", null));
+    }
+
+    @Test
+    public void testUnparsableDuration() {
+        Map<String, Object> duration = new HashMap<>();
+        duration.put("start", "yesterday");
+        duration.put("end", "today");
+        duration.put("step", "MINUTE");
+
+        Assert.assertEquals(1, estimator.buckets(duration));
+    }
+}
@@ -36,6 +36,8 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
 
     private static final Logger logger = LoggerFactory.getLogger(JVMMetricsServiceHandler.class);
 
+    private static final long MINUTE = 60 * 1000;
+
     private final SourceReceiver sourceReceiver;
 
     public JVMMetricsServiceHandler(ModuleManager moduleManager) {
@@ -49,13 +51,21 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
             logger.debug("receive the jvm metric from application instance, id: {}", serviceInstanceId);
         }
 
-        request.getMetricsList().forEach(metric -> {
-            long minuteTimeBucket = TimeBucketUtils.INSTANCE.getMinuteTimeBucket(metric.getTime());
+        // The metrics of a batch are in the time order and mostly in the same minute, so the time bucket is only
+        // computed again when a metric is out of the minute of the previous one.
+        long minuteStart = Long.MIN_VALUE;
+        long minuteTimeBucket = 0;
+        for (JVMMetric metric : request.getMetricsList()) {
+            long time = metric.getTime();
+            if (time < minuteStart || time >= minuteStart + MINUTE) {
+                minuteStart = time - Math.floorMod(time, MINUTE);
+                minuteTimeBucket = TimeBucketUtils.INSTANCE.getMinuteTimeBucket(time);
+            }
             sendToCpuMetricProcess(serviceInstanceId, minuteTimeBucket, metric.getCpu());
             sendToMemoryMetricProcess(serviceInstanceId, minuteTimeBucket, metric.getMemoryList());
             sendToMemoryPoolMetricProcess(serviceInstanceId, minuteTimeBucket, metric.getMemoryPoolList());
             sendToGCMetricProcess(serviceInstanceId, minuteTimeBucket, metric.getGcList());
-        });
+        }
 
         responseObserver.onNext(Downstream.newBuilder().build());
         responseObserver.onCompleted();
@@ -73,7 +83,7 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
     }
 
     private void sendToGCMetricProcess(int serviceInstanceId, long timeBucket, List<GC> gcs) {
-        gcs.forEach(gc -> {
+        for (GC gc : gcs) {
             ServiceInstanceJVMGC serviceInstanceJVMGC = new ServiceInstanceJVMGC();
             serviceInstanceJVMGC.setId(serviceInstanceId);
             serviceInstanceJVMGC.setName(Const.EMPTY_STRING);
@@ -93,11 +103,11 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
             serviceInstanceJVMGC.setCount(gc.getCount());
             serviceInstanceJVMGC.setTimeBucket(timeBucket);
             sourceReceiver.receive(serviceInstanceJVMGC);
-        });
+        }
     }
 
     private void sendToMemoryMetricProcess(int serviceInstanceId, long timeBucket, List<Memory> memories) {
-        memories.forEach(memory -> {
+        for (Memory memory : memories) {
             ServiceInstanceJVMMemory serviceInstanceJVMMemory = new ServiceInstanceJVMMemory();
             serviceInstanceJVMMemory.setId(serviceInstanceId);
             serviceInstanceJVMMemory.setName(Const.EMPTY_STRING);
@@ -110,13 +120,13 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
             serviceInstanceJVMMemory.setCommitted(memory.getCommitted());
             serviceInstanceJVMMemory.setTimeBucket(timeBucket);
             sourceReceiver.receive(serviceInstanceJVMMemory);
-        });
+        }
     }
 
     private void sendToMemoryPoolMetricProcess(int serviceInstanceId, long timeBucket,
         List<MemoryPool> memoryPools) {
 
-        memoryPools.forEach(memoryPool -> {
+        for (MemoryPool memoryPool : memoryPools) {
             ServiceInstanceJVMMemoryPool serviceInstanceJVMMemoryPool = new ServiceInstanceJVMMemoryPool();
             serviceInstanceJVMMemoryPool.setId(serviceInstanceId);
             serviceInstanceJVMMemoryPool.setName(Const.EMPTY_STRING);
@@ -150,6 +160,6 @@ public class JVMMetricsServiceHandler extends JVMMetricsServiceGrpc.JVMMetricsSe
             serviceInstanceJVMMemoryPool.setCommitted(memoryPool.getCommited());
             serviceInstanceJVMMemoryPool.setTimeBucket(timeBucket);
             sourceReceiver.receive(serviceInstanceJVMMemoryPool);
-        });
+        }
     }
 }
@@ -40,6 +40,8 @@ public class StorageModuleElasticsearchConfig extends ModuleConfig {
     private int bulkSize = 20;
     private int flushInterval = 10;
     private int concurrentRequests = 2;
+    private int aggregationPageSize = 1000;
+    private int aggregationMaxBuckets = 100000;
 
     int getIndexShardsNumber() {
         return indexShardsNumber;
@@ -136,4 +138,20 @@ public class StorageModuleElasticsearchConfig extends ModuleConfig {
     public void setConcurrentRequests(int concurrentRequests) {
         this.concurrentRequests = concurrentRequests == 0 ? 2 : concurrentRequests;
     }
+
+    public int getAggregationPageSize() {
+        return aggregationPageSize;
+    }
+
+    public void setAggregationPageSize(int aggregationPageSize) {
+        this.aggregationPageSize = aggregationPageSize == 0 ? 1000 : aggregationPageSize;
+    }
+
+    public int getAggregationMaxBuckets() {
+        return aggregationMaxBuckets;
+    }
+
+    public void setAggregationMaxBuckets(int aggregationMaxBuckets) {
+        this.aggregationMaxBuckets = aggregationMaxBuckets == 0 ? 100000 : aggregationMaxBuckets;
+    }
 }
@@ -18,11 +18,17 @@
 
 package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
 
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 import org.apache.skywalking.oap.server.core.query.sql.Where;
 import org.apache.skywalking.oap.server.core.storage.AbstractDAO;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.*;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.*;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
 /**
@@ -53,4 +59,55 @@ public abstract class EsDAO extends AbstractDAO<ElasticSearchClient> {
         }
         sourceBuilder.size(0);
     }
+
+    /**
+     * Page through the distinct values of the given field by composite aggregation, instead of reading all of them
+     * through one huge terms aggregation. Every page is passed to the consumer as soon as it is read, so the caller
+     * could merge the result incrementally.
+     *
+     * @param pageSize the number of buckets fetched by each search request.
+     * @param maxBuckets the upper bound of buckets read in total.
+     * @return true if there are more than max buckets, so the result has been truncated.
+     */
+    protected final boolean compositeAggregate(String indexName, QueryBuilder query, String field, int pageSize,
+        int maxBuckets, List<AggregationBuilder> subAggregations,
+        Consumer<List<? extends CompositeAggregation.Bucket>> consumer) throws IOException {
+        Map<String, Object> afterKey = null;
+        int loaded = 0;
+        while (true) {
+            int remaining = maxBuckets - loaded;
+            // Ask one more bucket than the remaining quota, it tells whether the result is truncated.
+            int size = Math.min(pageSize, remaining + 1);
+
+            CompositeAggregationBuilder compositeBuilder = new CompositeAggregationBuilder(field,
+                Collections.singletonList(new TermsValuesSourceBuilder(field).field(field))).size(size);
+            if (afterKey != null) {
+                compositeBuilder.aggregateAfter(afterKey);
+            }
+            subAggregations.forEach(compositeBuilder::subAggregation);
+
+            SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
+            sourceBuilder.query(query);
+            sourceBuilder.size(0);
+            sourceBuilder.aggregation(compositeBuilder);
+
+            SearchResponse response = getClient().search(indexName, sourceBuilder);
+            CompositeAggregation composite = response.getAggregations().get(field);
+            List<? extends CompositeAggregation.Bucket> buckets = composite.getBuckets();
+
+            if (buckets.size() > remaining) {
+                consumer.accept(buckets.subList(0, remaining));
+                return true;
+            }
+            if (!buckets.isEmpty()) {
+                consumer.accept(buckets);
+            }
+
+            loaded += buckets.size();
+            afterKey = composite.afterKey();
+            if (buckets.size() < size || afterKey == null) {
+                return false;
+            }
+        }
+    }
 }
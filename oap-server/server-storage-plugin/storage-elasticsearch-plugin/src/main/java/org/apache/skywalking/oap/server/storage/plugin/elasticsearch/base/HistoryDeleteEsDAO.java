@@ -22,6 +22,10 @@ import java.io.IOException;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 import org.apache.skywalking.oap.server.core.storage.IHistoryDeleteDAO;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.metrics.min.Min;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.slf4j.*;
 
 /**
@@ -42,4 +46,15 @@ public class HistoryDeleteEsDAO extends EsDAO implements IHistoryDeleteDAO {
             logger.debug("Delete history from {} index, status code {}", modelName, statusCode);
         }
     }
+
+    @Override
+    public Long getOldestTimeBucket(String modelName, String timeBucketColumnName) throws IOException {
+        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
+        sourceBuilder.size(0);
+        sourceBuilder.aggregation(AggregationBuilders.min(timeBucketColumnName).field(timeBucketColumnName));
+
+        SearchResponse response = getClient().search(modelName, sourceBuilder);
+        Min min = response.getAggregations().get(timeBucketColumnName);
+        return Double.isInfinite(min.getValue()) ? null : (long)min.getValue();
+    }
 }
@@ -28,9 +28,9 @@ import org.apache.skywalking.oap.server.core.storage.query.IMetricQueryDAO;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.EsDAO;
 import org.elasticsearch.action.get.*;
-import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
-import org.elasticsearch.search.aggregations.bucket.terms.*;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
 import org.elasticsearch.search.aggregations.metrics.avg.Avg;
 import org.elasticsearch.search.aggregations.metrics.sum.Sum;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -40,8 +40,13 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
  */
 public class MetricQueryEsDAO extends EsDAO implements IMetricQueryDAO {
 
-    public MetricQueryEsDAO(ElasticSearchClient client) {
+    private final int aggregationPageSize;
+    private final int aggregationMaxBuckets;
+
+    public MetricQueryEsDAO(ElasticSearchClient client, int aggregationPageSize, int aggregationMaxBuckets) {
         super(client);
+        this.aggregationPageSize = aggregationPageSize;
+        this.aggregationMaxBuckets = aggregationMaxBuckets;
     }
 
     public IntValues getValues(String indName, Step step, long startTB, long endTB, Where where, String valueCName,
@@ -51,51 +56,44 @@ public class MetricQueryEsDAO extends EsDAO implements IMetricQueryDAO {
         SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
         queryBuild(sourceBuilder, where, startTB, endTB);
 
-        TermsAggregationBuilder entityIdAggregation = AggregationBuilders.terms(Indicator.ENTITY_ID).field(Indicator.ENTITY_ID).size(1000);
-        functionAggregation(function, entityIdAggregation, valueCName);
-
-        sourceBuilder.aggregation(entityIdAggregation);
-
-        SearchResponse response = getClient().search(indexName, sourceBuilder);
-
         IntValues intValues = new IntValues();
-        Terms idTerms = response.getAggregations().get(Indicator.ENTITY_ID);
-        for (Terms.Bucket idBucket : idTerms.getBuckets()) {
-            int value = 0;
-            switch (function) {
-                case Sum:
-                    Sum sum = idBucket.getAggregations().get(valueCName);
-                    value = (int)sum.getValue();
-                    break;
-                case Avg:
-                    Avg avg = idBucket.getAggregations().get(valueCName);
-                    value = (int)avg.getValue();
-                    break;
-                default:
-                    avg = idBucket.getAggregations().get(valueCName);
-                    value = (int)avg.getValue();
-                    break;
-            }
-
-            KVInt kvInt = new KVInt();
-            kvInt.setId(idBucket.getKeyAsString());
-            kvInt.setValue(value);
-            intValues.getValues().add(kvInt);
-        }
+        boolean truncated = compositeAggregate(indexName, sourceBuilder.query(), Indicator.ENTITY_ID, aggregationPageSize, aggregationMaxBuckets,
+            Collections.singletonList(functionAggregation(function, valueCName)), buckets -> {
+                for (CompositeAggregation.Bucket idBucket : buckets) {
+                    int value = 0;
+                    switch (function) {
+                        case Sum:
+                            Sum sum = idBucket.getAggregations().get(valueCName);
+                            value = (int)sum.getValue();
+                            break;
+                        case Avg:
+                            Avg avg = idBucket.getAggregations().get(valueCName);
+                            value = (int)avg.getValue();
+                            break;
+                        default:
+                            avg = idBucket.getAggregations().get(valueCName);
+                            value = (int)avg.getValue();
+                            break;
+                    }
+
+                    KVInt kvInt = new KVInt();
+                    kvInt.setId(String.valueOf(idBucket.getKey().get(Indicator.ENTITY_ID)));
+                    kvInt.setValue(value);
+                    intValues.getValues().add(kvInt);
+                }
+            });
+        intValues.setTruncated(truncated);
         return intValues;
     }
 
-    private void functionAggregation(Function function, TermsAggregationBuilder parentAggBuilder, String valueCName) {
+    private AggregationBuilder functionAggregation(Function function, String valueCName) {
         switch (function) {
             case Avg:
-                parentAggBuilder.subAggregation(AggregationBuilders.avg(valueCName).field(valueCName));
-                break;
+                return AggregationBuilders.avg(valueCName).field(valueCName);
             case Sum:
-                parentAggBuilder.subAggregation(AggregationBuilders.sum(valueCName).field(valueCName));
-                break;
+                return AggregationBuilders.sum(valueCName).field(valueCName);
             default:
-                parentAggBuilder.subAggregation(AggregationBuilders.avg(valueCName).field(valueCName));
-                break;
+                return AggregationBuilders.avg(valueCName).field(valueCName);
         }
     }
 
@@ -114,6 +112,7 @@ public class MetricQueryEsDAO extends EsDAO implements IMetricQueryDAO {
             Map<String, Object> source = itemResponse.getResponse().getSource();
             if (source != null) {
                 kvInt.setValue(((Number)source.getOrDefault(valueCName, 0)).intValue());
+                intValues.getExistingIds().add(itemResponse.getId());
             }
             intValues.getValues().add(kvInt);
         }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRecord;
+import org.apache.skywalking.oap.server.core.storage.query.ITopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
+import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.EsDAO;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.*;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+public class TopNRecordQueryEsDAO extends EsDAO implements ITopNRecordQueryDAO {
+
+    /**
+     * Records of one model in a minute, one per OAP node, the queries of the minute step cover a few hours at most.
+     */
+    private static final int MAX_RECORDS = 10000;
+
+    public TopNRecordQueryEsDAO(ElasticSearchClient client) {
+        super(client);
+    }
+
+    @Override
+    public List<TopNRecord> getTopNRecords(String modelName, long startTB, long endTB) throws IOException {
+        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
+
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+        boolQueryBuilder.must().add(QueryBuilders.termQuery(TopNRecord.MODEL_NAME, modelName));
+        boolQueryBuilder.must().add(QueryBuilders.rangeQuery(TopNRecord.TIME_BUCKET).gte(startTB).lte(endTB));
+
+        sourceBuilder.query(boolQueryBuilder);
+        sourceBuilder.size(MAX_RECORDS);
+
+        SearchResponse response = getClient().search(TopNRecord.INDEX_NAME, sourceBuilder);
+
+        List<TopNRecord> records = new ArrayList<>();
+        TopNRecord.Builder builder = new TopNRecord.Builder();
+        for (SearchHit searchHit : response.getHits().getHits()) {
+            records.add(builder.map2Data(searchHit.getSourceAsMap()));
+        }
+        return records;
+    }
+}
@@ -20,7 +20,9 @@ package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.query;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 import org.apache.skywalking.oap.server.core.analysis.manual.endpointrelation.EndpointRelationServerSideIndicator;
@@ -35,20 +37,23 @@ import org.apache.skywalking.oap.server.core.storage.query.ITopologyQueryDAO;
 import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.EsDAO;
-import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.search.aggregations.AggregationBuilders;
-import org.elasticsearch.search.aggregations.bucket.terms.Terms;
-import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
 
 /**
  * @author peng-yongsheng
  */
 public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
 
-    public TopologyQueryEsDAO(ElasticSearchClient client) {
+    private final int aggregationPageSize;
+    private final int aggregationMaxBuckets;
+
+    public TopologyQueryEsDAO(ElasticSearchClient client, int aggregationPageSize, int aggregationMaxBuckets) {
         super(client);
+        this.aggregationPageSize = aggregationPageSize;
+        this.aggregationMaxBuckets = aggregationMaxBuckets;
     }
 
     @Override
@@ -58,12 +63,8 @@ public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
             throw new UnexpectedException("Service id is null");
         }
 
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
-        sourceBuilder.size(0);
-        setQueryCondition(sourceBuilder, startTB, endTB, serviceIds);
-
         String indexName = DownSamplingModelNameBuilder.build(step, ServiceRelationServerSideIndicator.INDEX_NAME);
-        return load(sourceBuilder, indexName, DetectPoint.SERVER);
+        return load(buildQueryCondition(startTB, endTB, serviceIds), indexName, DetectPoint.SERVER);
     }
 
     @Override
@@ -73,16 +74,11 @@ public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
             throw new UnexpectedException("Service id is null");
         }
 
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
-        sourceBuilder.size(0);
-        setQueryCondition(sourceBuilder, startTB, endTB, serviceIds);
-
         String indexName = DownSamplingModelNameBuilder.build(step, ServiceRelationClientSideIndicator.INDEX_NAME);
-        return load(sourceBuilder, indexName, DetectPoint.CLIENT);
+        return load(buildQueryCondition(startTB, endTB, serviceIds), indexName, DetectPoint.CLIENT);
     }
 
-    private void setQueryCondition(SearchSourceBuilder sourceBuilder, long startTB, long endTB,
-        List<Integer> serviceIds) {
+    private QueryBuilder buildQueryCondition(long startTB, long endTB, List<Integer> serviceIds) {
         BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
         boolQuery.must().add(QueryBuilders.rangeQuery(ServiceRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB));
 
@@ -96,25 +92,35 @@ public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
             serviceIdBoolQuery.should().add(QueryBuilders.termsQuery(ServiceRelationServerSideIndicator.SOURCE_SERVICE_ID, serviceIds));
             serviceIdBoolQuery.should().add(QueryBuilders.termsQuery(ServiceRelationServerSideIndicator.DEST_SERVICE_ID, serviceIds));
         }
-        sourceBuilder.query(boolQuery);
+        return boolQuery;
     }
 
     @Override public List<Call> loadServerSideServiceRelations(Step step, long startTB, long endTB) throws IOException {
+        List<Call> calls = new ArrayList<>();
+        loadServerSideServiceRelations(step, startTB, endTB, calls::addAll);
+        return calls;
+    }
+
+    @Override public List<Call> loadClientSideServiceRelations(Step step, long startTB, long endTB) throws IOException {
+        List<Call> calls = new ArrayList<>();
+        loadClientSideServiceRelations(step, startTB, endTB, calls::addAll);
+        return calls;
+    }
+
+    @Override public boolean loadServerSideServiceRelations(Step step, long startTB, long endTB,
+        Consumer<List<Call>> chunkConsumer) throws IOException {
         String indexName = DownSamplingModelNameBuilder.build(step, ServiceRelationServerSideIndicator.INDEX_NAME);
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
-        sourceBuilder.query(QueryBuilders.rangeQuery(ServiceRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB));
-        sourceBuilder.size(0);
+        QueryBuilder query = QueryBuilders.rangeQuery(ServiceRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB);
 
-        return load(sourceBuilder, indexName, DetectPoint.SERVER);
+        return load(query, indexName, DetectPoint.SERVER, chunkConsumer);
     }
 
-    @Override public List<Call> loadClientSideServiceRelations(Step step, long startTB, long endTB) throws IOException {
+    @Override public boolean loadClientSideServiceRelations(Step step, long startTB, long endTB,
+        Consumer<List<Call>> chunkConsumer) throws IOException {
         String indexName = DownSamplingModelNameBuilder.build(step, ServiceRelationClientSideIndicator.INDEX_NAME);
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
-        sourceBuilder.query(QueryBuilders.rangeQuery(ServiceRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB));
-        sourceBuilder.size(0);
+        QueryBuilder query = QueryBuilders.rangeQuery(ServiceRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB);
 
-        return load(sourceBuilder, indexName, DetectPoint.CLIENT);
+        return load(query, indexName, DetectPoint.CLIENT, chunkConsumer);
     }
 
     @Override
@@ -122,9 +128,6 @@ public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
         int destEndpointId) throws IOException {
         String indexName = DownSamplingModelNameBuilder.build(step, EndpointRelationServerSideIndicator.INDEX_NAME);
 
-        SearchSourceBuilder sourceBuilder = SearchSourceBuilder.searchSource();
-        sourceBuilder.size(0);
-
         BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
         boolQuery.must().add(QueryBuilders.rangeQuery(EndpointRelationServerSideIndicator.TIME_BUCKET).gte(startTB).lte(endTB));
 
@@ -133,31 +136,32 @@ public class TopologyQueryEsDAO extends EsDAO implements ITopologyQueryDAO {
         serviceIdBoolQuery.should().add(QueryBuilders.termQuery(EndpointRelationServerSideIndicator.SOURCE_ENDPOINT_ID, destEndpointId));
         serviceIdBoolQuery.should().add(QueryBuilders.termQuery(EndpointRelationServerSideIndicator.DEST_ENDPOINT_ID, destEndpointId));
 
-        sourceBuilder.query(boolQuery);
-
-        return load(sourceBuilder, indexName, DetectPoint.SERVER);
+        return load(boolQuery, indexName, DetectPoint.SERVER);
     }
 
-    private List<Call> load(SearchSourceBuilder sourceBuilder, String indexName,
-        DetectPoint detectPoint) throws IOException {
-        sourceBuilder.aggregation(AggregationBuilders.terms(Indicator.ENTITY_ID).field(Indicator.ENTITY_ID).size(1000));
-
-        SearchResponse response = getClient().search(indexName, sourceBuilder);
-
+    private List<Call> load(QueryBuilder query, String indexName, DetectPoint detectPoint) throws IOException {
         List<Call> calls = new ArrayList<>();
-        Terms entityTerms = response.getAggregations().get(Indicator.ENTITY_ID);
-        for (Terms.Bucket entityBucket : entityTerms.getBuckets()) {
-            String entityId = entityBucket.getKeyAsString();
-
-            Integer[] entityIds = ServiceRelation.splitEntityId(entityId);
-            Call call = new Call();
-            call.setId(entityId);
-            call.setSource(entityIds[0]);
-            call.setTarget(entityIds[1]);
-            call.setComponentId(entityIds[2]);
-            call.setDetectPoint(detectPoint);
-            calls.add(call);
-        }
+        load(query, indexName, detectPoint, calls::addAll);
         return calls;
     }
+
+    private boolean load(QueryBuilder query, String indexName, DetectPoint detectPoint,
+        Consumer<List<Call>> chunkConsumer) throws IOException {
+        return compositeAggregate(indexName, query, Indicator.ENTITY_ID, aggregationPageSize, aggregationMaxBuckets, Collections.emptyList(), buckets -> {
+            List<Call> calls = new ArrayList<>(buckets.size());
+            for (CompositeAggregation.Bucket entityBucket : buckets) {
+                String entityId = String.valueOf(entityBucket.getKey().get(Indicator.ENTITY_ID));
+
+                Integer[] entityIds = ServiceRelation.splitEntityId(entityId);
+                Call call = new Call();
+                call.setId(entityId);
+                call.setSource(entityIds[0]);
+                call.setTarget(entityIds[1]);
+                call.setComponentId(entityIds[2]);
+                call.setDetectPoint(detectPoint);
+                calls.add(call);
+            }
+            chunkConsumer.accept(calls);
+        });
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.library.client.elasticsearch.ElasticSearchClient;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.mockito.Mockito;
+
+/**
+ * A client stub answering the composite aggregations on the entity id by the given pages, one page per search, and
+ * recording the requests.
+ */
+public class CompositeAggregationStub {
+
+    private final List<List<CompositeAggregation.Bucket>> pages = new ArrayList<>();
+    private final List<String> requests = new ArrayList<>();
+
+    public CompositeAggregationStub page(CompositeAggregation.Bucket... buckets) {
+        pages.add(Arrays.asList(buckets));
+        return this;
+    }
+
+    public ElasticSearchClient client() throws Exception {
+        ElasticSearchClient client = Mockito.mock(ElasticSearchClient.class);
+        Mockito.when(client.search(Mockito.anyString(), Mockito.any(SearchSourceBuilder.class))).thenAnswer(invocation -> {
+            requests.add(invocation.getArguments()[1].toString());
+            List<CompositeAggregation.Bucket> buckets = requests.size() > pages.size() ? Collections.emptyList() : pages.get(requests.size() - 1);
+
+            CompositeAggregation composite = Mockito.mock(CompositeAggregation.class);
+            Mockito.when(composite.getName()).thenReturn(Indicator.ENTITY_ID);
+            Mockito.doReturn(buckets).when(composite).getBuckets();
+            Mockito.when(composite.afterKey()).thenReturn(buckets.isEmpty() ? null : buckets.get(buckets.size() - 1).getKey());
+
+            SearchResponse response = Mockito.mock(SearchResponse.class);
+            Mockito.when(response.getAggregations()).thenReturn(new Aggregations(Collections.singletonList(composite)));
+            return response;
+        });
+        return client;
+    }
+
+    /**
+     * @return the search sources sent, in the JSON format.
+     */
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    public static CompositeAggregation.Bucket bucket(String entityId, Aggregation... subAggregations) {
+        Map<String, Object> key = new HashMap<>();
+        key.put(Indicator.ENTITY_ID, entityId);
+
+        CompositeAggregation.Bucket bucket = Mockito.mock(CompositeAggregation.Bucket.class);
+        Mockito.when(bucket.getKey()).thenReturn(key);
+        Mockito.when(bucket.getAggregations()).thenReturn(new Aggregations(Arrays.asList(subAggregations)));
+        return bucket;
+    }
+}
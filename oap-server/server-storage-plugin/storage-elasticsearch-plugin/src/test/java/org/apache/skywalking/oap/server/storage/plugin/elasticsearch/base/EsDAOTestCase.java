@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.CompositeAggregationStub.bucket;
+
+public class EsDAOTestCase {
+
+    @Test
+    public void testPagedByAfterKey() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("a"), bucket("b"))
+            .page(bucket("c"), bucket("d"))
+            .page(bucket("e"));
+
+        List<String> keys = new ArrayList<>();
+        boolean truncated = aggregate(stub, 2, 100, keys);
+
+        Assert.assertFalse(truncated);
+        Assert.assertEquals(5, keys.size());
+        Assert.assertEquals(3, stub.getRequests().size());
+        Assert.assertFalse(stub.getRequests().get(0).contains("\"after\""));
+        Assert.assertTrue(stub.getRequests().get(1).contains("\"after\":{\"entity_id\":\"b\"}"));
+        Assert.assertTrue(stub.getRequests().get(2).contains("\"after\":{\"entity_id\":\"d\"}"));
+    }
+
+    @Test
+    public void testTruncatedByMaxBuckets() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("a"), bucket("b"))
+            .page(bucket("c"), bucket("d"));
+
+        List<String> keys = new ArrayList<>();
+        boolean truncated = aggregate(stub, 2, 3, keys);
+
+        Assert.assertTrue(truncated);
+        Assert.assertEquals(3, keys.size());
+        Assert.assertEquals("c", keys.get(2));
+        Assert.assertEquals(2, stub.getRequests().size());
+        Assert.assertTrue(stub.getRequests().get(1).contains("\"size\":2"));
+    }
+
+    @Test
+    public void testNotTruncatedAtMaxBuckets() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("a"), bucket("b"));
+
+        List<String> keys = new ArrayList<>();
+        boolean truncated = aggregate(stub, 5, 2, keys);
+
+        Assert.assertFalse(truncated);
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals(1, stub.getRequests().size());
+        Assert.assertTrue(stub.getRequests().get(0).contains("\"size\":3"));
+    }
+
+    private boolean aggregate(CompositeAggregationStub stub, int pageSize, int maxBuckets,
+        List<String> keys) throws Exception {
+        EsDAO dao = new EsDAO(stub.client()) {
+        };
+        return dao.compositeAggregate("index", QueryBuilders.matchAllQuery(), Indicator.ENTITY_ID, pageSize, maxBuckets,
+            new ArrayList<>(), buckets -> buckets.forEach(bucket -> keys.add((String)bucket.getKey().get(Indicator.ENTITY_ID))));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.query;
+
+import org.apache.skywalking.oap.server.core.query.entity.IntValues;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.query.sql.Where;
+import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.CompositeAggregationStub;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.CompositeAggregationStub.bucket;
+
+public class MetricQueryEsDAOTestCase {
+
+    private static final String VALUE = "summation";
+
+    @Test
+    public void testValuesAcrossPages() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("1", sum(10)), bucket("2", sum(20)))
+            .page(bucket("3", sum(30)));
+
+        MetricQueryEsDAO metricQueryDAO = new MetricQueryEsDAO(stub.client(), 2, 100);
+        IntValues values = metricQueryDAO.getValues("service_cpm", Step.MINUTE, 201811011200L, 201811011210L, new Where(), VALUE, Function.Sum);
+
+        Assert.assertFalse(values.isTruncated());
+        Assert.assertEquals(3, values.getValues().size());
+        Assert.assertEquals(10, values.findValue("1", -1));
+        Assert.assertEquals(30, values.findValue("3", -1));
+        Assert.assertEquals(2, stub.getRequests().size());
+        Assert.assertTrue(stub.getRequests().get(0).contains("\"sum\":{\"field\":\"" + VALUE + "\"}"));
+    }
+
+    @Test
+    public void testTruncatedValues() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("1", sum(10)), bucket("2", sum(20)), bucket("3", sum(30)));
+
+        MetricQueryEsDAO metricQueryDAO = new MetricQueryEsDAO(stub.client(), 10, 2);
+        IntValues values = metricQueryDAO.getValues("service_cpm", Step.MINUTE, 201811011200L, 201811011210L, new Where(), VALUE, Function.Sum);
+
+        Assert.assertTrue(values.isTruncated());
+        Assert.assertEquals(2, values.getValues().size());
+        Assert.assertEquals(-1, values.findValue("3", -1));
+    }
+
+    private Sum sum(double value) {
+        Sum sum = Mockito.mock(Sum.class);
+        Mockito.when(sum.getName()).thenReturn(VALUE);
+        Mockito.when(sum.getValue()).thenReturn(value);
+        return sum;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.query.entity.Call;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.CompositeAggregationStub;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.CompositeAggregationStub.bucket;
+
+public class TopologyQueryEsDAOTestCase {
+
+    @Test
+    public void testCallsLoadedByChunk() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("1_2_3"), bucket("2_3_3"))
+            .page(bucket("3_4_5"));
+
+        List<List<Call>> chunks = new ArrayList<>();
+        TopologyQueryEsDAO topologyQueryDAO = new TopologyQueryEsDAO(stub.client(), 2, 100);
+        boolean truncated = topologyQueryDAO.loadClientSideServiceRelations(Step.MINUTE, 201811011200L, 201811011210L, chunks::add);
+
+        Assert.assertFalse(truncated);
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(2, chunks.get(0).size());
+        Call call = chunks.get(1).get(0);
+        Assert.assertEquals("3_4_5", call.getId());
+        Assert.assertEquals(3, call.getSource());
+        Assert.assertEquals(4, call.getTarget());
+        Assert.assertEquals(5, call.getComponentId());
+        Assert.assertEquals(DetectPoint.CLIENT, call.getDetectPoint());
+    }
+
+    @Test
+    public void testTruncatedCalls() throws Exception {
+        CompositeAggregationStub stub = new CompositeAggregationStub()
+            .page(bucket("1_2_3"), bucket("2_3_3"))
+            .page(bucket("3_4_3"), bucket("4_5_3"));
+
+        TopologyQueryEsDAO topologyQueryDAO = new TopologyQueryEsDAO(stub.client(), 2, 3);
+        List<Call> calls = new ArrayList<>();
+        boolean truncated = topologyQueryDAO.loadServerSideServiceRelations(Step.MINUTE, 201811011200L, 201811011210L, calls::addAll);
+
+        Assert.assertTrue(truncated);
+        Assert.assertEquals(3, calls.size());
+        Assert.assertEquals(DetectPoint.SERVER, calls.get(2).getDetectPoint());
+    }
+}
@@ -37,12 +37,24 @@ public class SQLExecutor {
         this.param = param;
     }
 
+    public String getSql() {
+        return sql;
+    }
+
     public void invoke(Connection connection) throws SQLException {
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            setParameters(preparedStatement);
+            preparedStatement.execute();
+        }
+    }
 
+    /**
+     * Bind the parameters of this executor to a statement prepared from the same SQL, so the statement could be
+     * reused by all executors in the same shape through {@link PreparedStatement#addBatch()}.
+     */
+    public void setParameters(PreparedStatement preparedStatement) throws SQLException {
         for (int i = 0; i < param.size(); i++) {
             preparedStatement.setObject(i + 1, param.get(i));
         }
-        preparedStatement.execute();
     }
 }
@@ -19,8 +19,12 @@
 package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
 import org.apache.skywalking.oap.server.library.client.jdbc.JDBCClientException;
 import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
@@ -34,6 +38,8 @@ import org.slf4j.LoggerFactory;
 public class H2BatchDAO implements IBatchDAO {
     private static final Logger logger = LoggerFactory.getLogger(H2BatchDAO.class);
 
+    static final int MAX_BATCH_SIZE = 2000;
+
     private JDBCHikariCPClient h2Client;
 
     public H2BatchDAO(JDBCHikariCPClient h2Client) {
@@ -49,10 +55,23 @@ public class H2BatchDAO implements IBatchDAO {
             logger.debug("batch sql statements execute, data size: {}", batchCollection.size());
         }
 
+        /*
+         * Executors of the same table and statement shape share the same SQL text, group them,
+         * then every group is written by one prepared statement batch.
+         */
+        Map<String, List<SQLExecutor>> groups = new LinkedHashMap<>();
+        for (Object exe : batchCollection) {
+            SQLExecutor sqlExecutor = (SQLExecutor)exe;
+            groups.computeIfAbsent(sqlExecutor.getSql(), sql -> new ArrayList<>()).add(sqlExecutor);
+        }
+
         try (Connection connection = h2Client.getConnection()) {
-            for (Object exe : batchCollection) {
-                SQLExecutor sqlExecutor = (SQLExecutor)exe;
-                sqlExecutor.invoke(connection);
+            connection.setAutoCommit(false);
+            for (Map.Entry<String, List<SQLExecutor>> group : groups.entrySet()) {
+                List<SQLExecutor> executors = group.getValue();
+                for (int from = 0; from < executors.size(); from += MAX_BATCH_SIZE) {
+                    executeChunk(connection, group.getKey(), executors.subList(from, Math.min(from + MAX_BATCH_SIZE, executors.size())));
+                }
             }
         } catch (SQLException e) {
             logger.error(e.getMessage(), e);
@@ -60,4 +79,33 @@ public class H2BatchDAO implements IBatchDAO {
             logger.error(e.getMessage(), e);
         }
     }
+
+    /**
+     * Every chunk is committed by itself, so a failure loses no other chunk. When the chunk fails, it is rolled back
+     * and executed statement by statement, then only the bad rows fail.
+     */
+    private void executeChunk(Connection connection, String sql, List<SQLExecutor> executors) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (SQLExecutor executor : executors) {
+                executor.setParameters(preparedStatement);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+            connection.commit();
+            return;
+        } catch (SQLException e) {
+            connection.rollback();
+            logger.warn("batch of {} statements failure, execute them one by one, error message: {}", executors.size(), e.getMessage());
+        }
+
+        for (SQLExecutor executor : executors) {
+            try {
+                executor.invoke(connection);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
 }
@@ -29,4 +29,9 @@ public class H2HistoryDeleteDAO implements IHistoryDeleteDAO {
     public void deleteHistory(String modelName, String timeBucketColumnName, Long timeBucketBefore) throws IOException {
 
     }
+
+    @Override
+    public Long getOldestTimeBucket(String modelName, String timeBucketColumnName) throws IOException {
+        return null;
+    }
 }
@@ -149,7 +149,8 @@ public class H2MetricQueryDAO extends H2SQLExecutor implements IMetricQueryDAO {
     }
 
     /**
-     * Make sure the order is same as the expected order, and keep default value as 0.
+     * Make sure the order is same as the expected order, and keep default value as 0. The ids read from the storage
+     * are kept as the existing ones.
      *
      * @param origin
      * @param expectedOrder
@@ -164,6 +165,7 @@ public class H2MetricQueryDAO extends H2SQLExecutor implements IMetricQueryDAO {
             e.setValue(origin.findValue(id, 0));
             intValues.addKVInt(e);
         });
+        origin.getValues().forEach(kvInt -> intValues.getExistingIds().add(kvInt.getId()));
 
         return intValues;
     }
@@ -23,9 +23,11 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.skywalking.oap.server.core.Const;
 import org.apache.skywalking.oap.server.core.register.ServiceInstanceInventory;
 import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
@@ -46,6 +48,8 @@ import org.slf4j.LoggerFactory;
 public class H2SQLExecutor {
     private static final Logger logger = LoggerFactory.getLogger(H2SQLExecutor.class);
 
+    private static final Map<String, String> MERGE_SQL_CACHE = new ConcurrentHashMap<>();
+
     protected StorageData getByID(JDBCHikariCPClient h2Client, String modelName, String id,
         StorageBuilder storageBuilder) throws IOException {
         Connection connection = null;
@@ -86,7 +90,14 @@ public class H2SQLExecutor {
             Map data = new HashMap();
             List<ModelColumn> columns = TableMetaInfo.get(modelName).getColumns();
             for (ModelColumn column : columns) {
-                data.put(column.getColumnName().getName(), rs.getObject(column.getColumnName().getName()));
+                String columnName = column.getColumnName().getName();
+                if (byte[].class.equals(column.getType())) {
+                    // Storage builders exchange binary as base64 text, as the other storage implementations do.
+                    byte[] value = rs.getBytes(columnName);
+                    data.put(columnName, value == null ? Const.EMPTY_STRING : Base64.getEncoder().encodeToString(value));
+                } else {
+                    data.put(columnName, rs.getObject(columnName));
+                }
             }
             return storageBuilder.map2Data(data);
         }
@@ -113,57 +124,56 @@ public class H2SQLExecutor {
     }
 
     protected SQLExecutor getInsertExecutor(String modelName, StorageData indicator,
+        StorageBuilder storageBuilder) throws IOException {
+        return getMergeExecutor(modelName, indicator, storageBuilder);
+    }
+
+    protected SQLExecutor getUpdateExecutor(String modelName, StorageData indicator,
+        StorageBuilder storageBuilder) throws IOException {
+        return getMergeExecutor(modelName, indicator, storageBuilder);
+    }
+
+    /**
+     * Insert and update are both written as a MERGE INTO upsert keyed by the id primary key, so they share one
+     * statement shape per model, and writing a row which has been written before never fails.
+     */
+    private SQLExecutor getMergeExecutor(String modelName, StorageData indicator,
         StorageBuilder storageBuilder) throws IOException {
         Map<String, Object> objectMap = storageBuilder.data2Map(indicator);
 
-        SQLBuilder sqlBuilder = new SQLBuilder("INSERT INTO " + modelName + " VALUES");
         List<ModelColumn> columns = TableMetaInfo.get(modelName).getColumns();
-        List<Object> param = new ArrayList<>();
-        sqlBuilder.append("(?,");
+        List<Object> param = new ArrayList<>(columns.size() + 1);
         param.add(indicator.id());
-        for (int i = 0; i < columns.size(); i++) {
-            ModelColumn column = columns.get(i);
-            sqlBuilder.append("?");
-            if (i != columns.size() - 1) {
-                sqlBuilder.append(",");
-            }
-
+        for (ModelColumn column : columns) {
             Object value = objectMap.get(column.getColumnName().getName());
             if (value instanceof StorageDataType) {
                 param.add(((StorageDataType)value).toStorageData());
+            } else if (byte[].class.equals(column.getType()) && value instanceof String) {
+                param.add(Base64.getDecoder().decode((String)value));
             } else {
                 param.add(value);
             }
         }
-        sqlBuilder.append(")");
 
-        return new SQLExecutor(sqlBuilder.toString(), param);
+        return new SQLExecutor(MERGE_SQL_CACHE.computeIfAbsent(modelName, H2SQLExecutor::buildMergeSQL), param);
     }
 
-    protected SQLExecutor getUpdateExecutor(String modelName, StorageData indicator,
-        StorageBuilder storageBuilder) throws IOException {
-        Map<String, Object> objectMap = storageBuilder.data2Map(indicator);
-
-        SQLBuilder sqlBuilder = new SQLBuilder("UPDATE " + modelName + " SET ");
+    /**
+     * The merge SQL only depends on the model, build it once, then all executors of the model share the same SQL
+     * text, which lets {@link H2BatchDAO} group them into one prepared statement batch.
+     */
+    private static String buildMergeSQL(String modelName) {
         List<ModelColumn> columns = TableMetaInfo.get(modelName).getColumns();
-        List<Object> param = new ArrayList<>();
+        SQLBuilder sqlBuilder = new SQLBuilder("MERGE INTO " + modelName);
+        sqlBuilder.append("(id");
+        for (ModelColumn column : columns) {
+            sqlBuilder.append(",").append(column.getColumnName().getName());
+        }
+        sqlBuilder.append(") KEY(id) VALUES(?");
         for (int i = 0; i < columns.size(); i++) {
-            ModelColumn column = columns.get(i);
-            sqlBuilder.append(column.getColumnName().getName() + "= ?");
-            if (i != columns.size() - 1) {
-                sqlBuilder.append(",");
-            }
-
-            Object value = objectMap.get(column.getColumnName().getName());
-            if (value instanceof StorageDataType) {
-                param.add(((StorageDataType)value).toStorageData());
-            } else {
-                param.add(value);
-            }
+            sqlBuilder.append(",?");
         }
-        sqlBuilder.append(" WHERE id = ?");
-        param.add(indicator.id());
-
-        return new SQLExecutor(sqlBuilder.toString(), param);
+        sqlBuilder.append(")");
+        return sqlBuilder.toString();
     }
 }
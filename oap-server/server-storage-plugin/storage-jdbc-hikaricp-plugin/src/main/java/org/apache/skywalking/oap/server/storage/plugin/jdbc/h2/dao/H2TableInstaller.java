@@ -21,7 +21,12 @@ package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
 import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
 import org.apache.skywalking.oap.server.core.storage.StorageException;
 import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
 import org.apache.skywalking.oap.server.core.storage.model.Model;
@@ -39,11 +44,18 @@ import org.slf4j.LoggerFactory;
 public class H2TableInstaller extends ModelInstaller {
     private static final Logger logger = LoggerFactory.getLogger(H2TableInstaller.class);
 
+    /**
+     * Columns used by the query DAOs as range or equality conditions, any model having them gets a secondary index.
+     */
+    private static final Set<String> INDEXED_COLUMNS = new HashSet<>(Arrays.asList(
+        Indicator.TIME_BUCKET, Indicator.ENTITY_ID, SegmentRecord.TRACE_ID, SegmentRecord.SERVICE_ID, SegmentRecord.START_TIME));
+
     public H2TableInstaller(ModuleManager moduleManager) {
         super(moduleManager);
     }
 
     @Override protected boolean isExists(Client client, Model model) throws StorageException {
+        TableMetaInfo.addModel(model);
         JDBCHikariCPClient h2Client = (JDBCHikariCPClient)client;
         try (Connection conn = h2Client.getConnection()) {
             try (ResultSet rset = conn.getMetaData().getTables(null, null, model.getName(), null)) {
@@ -59,8 +71,27 @@ public class H2TableInstaller extends ModelInstaller {
         return false;
     }
 
+    /**
+     * Runs after the table is created and for the tables existing before, so the indexes are also added to the tables
+     * created by an older version.
+     */
     @Override protected void columnCheck(Client client, Model model) throws StorageException {
-
+        JDBCHikariCPClient h2Client = (JDBCHikariCPClient)client;
+        Connection connection = null;
+        try {
+            connection = h2Client.getConnection();
+            for (ModelColumn column : model.getColumns()) {
+                String columnName = column.getColumnName().getName();
+                if (INDEXED_COLUMNS.contains(columnName)) {
+                    String indexName = model.getName() + "_" + columnName;
+                    h2Client.execute(connection, "CREATE INDEX IF NOT EXISTS " + indexName + " ON " + model.getName() + "(" + columnName + ")");
+                }
+            }
+        } catch (JDBCClientException e) {
+            throw new StorageException(e.getMessage(), e);
+        } finally {
+            h2Client.close(connection);
+        }
     }
 
     @Override protected void deleteTable(Client client, Model model) throws StorageException {
@@ -71,7 +102,7 @@ public class H2TableInstaller extends ModelInstaller {
         TableMetaInfo.addModel(model);
         JDBCHikariCPClient h2Client = (JDBCHikariCPClient)client;
         SQLBuilder tableCreateSQL = new SQLBuilder("CREATE TABLE IF NOT EXISTS " + model.getName() + " (");
-        tableCreateSQL.appendLine("id VARCHAR2(300), ");
+        tableCreateSQL.appendLine("id VARCHAR(300) PRIMARY KEY, ");
         for (int i = 0; i < model.getColumns().size(); i++) {
             ModelColumn column = model.getColumns().get(i);
             ColumnName name = column.getColumnName();
@@ -92,7 +123,6 @@ public class H2TableInstaller extends ModelInstaller {
         } finally {
             h2Client.close(connection);
         }
-
     }
 
     private String getColumnType(Class<?> type) {
@@ -107,7 +137,7 @@ public class H2TableInstaller extends ModelInstaller {
         } else if (IntKeyLongValueArray.class.equals(type)) {
             return "VARCHAR(20000)";
         } else if (byte[].class.equals(type)) {
-            return "VARCHAR(20000)";
+            return "BLOB";
         } else {
             throw new IllegalArgumentException("Unsupported data type: " + type.getName());
         }
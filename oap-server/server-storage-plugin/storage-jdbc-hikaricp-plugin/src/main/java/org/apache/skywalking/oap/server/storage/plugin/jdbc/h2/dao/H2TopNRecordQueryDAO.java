@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRecord;
+import org.apache.skywalking.oap.server.core.storage.query.ITopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.library.client.jdbc.JDBCClientException;
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
+
+public class H2TopNRecordQueryDAO extends H2SQLExecutor implements ITopNRecordQueryDAO {
+    private JDBCHikariCPClient h2Client;
+
+    public H2TopNRecordQueryDAO(JDBCHikariCPClient h2Client) {
+        this.h2Client = h2Client;
+    }
+
+    @Override
+    public List<TopNRecord> getTopNRecords(String modelName, long startTB, long endTB) throws IOException {
+        String sql = "select * from " + TopNRecord.INDEX_NAME + " where " + TopNRecord.MODEL_NAME + " = ? and "
+            + TopNRecord.TIME_BUCKET + " >= ? and " + TopNRecord.TIME_BUCKET + " <= ?";
+
+        List<TopNRecord> records = new ArrayList<>();
+        TopNRecord.Builder builder = new TopNRecord.Builder();
+        Connection connection = null;
+        try {
+            connection = h2Client.getConnection();
+            try (ResultSet resultSet = h2Client.executeQuery(connection, sql, modelName, startTB, endTB)) {
+                TopNRecord record;
+                while ((record = (TopNRecord)toStorageData(resultSet, TopNRecord.INDEX_NAME, builder)) != null) {
+                    records.add(record);
+                }
+            }
+        } catch (SQLException | JDBCClientException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            h2Client.close(connection);
+        }
+        return records;
+    }
+}
@@ -23,7 +23,6 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
 import org.apache.skywalking.oap.server.core.query.entity.BasicTrace;
@@ -156,9 +155,9 @@ public class H2TraceQueryDAO implements ITraceQueryDAO {
                     segmentRecord.setEndTime(resultSet.getLong(SegmentRecord.END_TIME));
                     segmentRecord.setLatency(resultSet.getInt(SegmentRecord.LATENCY));
                     segmentRecord.setIsError(resultSet.getInt(SegmentRecord.IS_ERROR));
-                    String dataBinaryBase64 = resultSet.getString(SegmentRecord.DATA_BINARY);
-                    if (StringUtils.isNotEmpty(dataBinaryBase64)) {
-                        segmentRecord.setDataBinary(Base64.getDecoder().decode(dataBinaryBase64));
+                    byte[] dataBinary = resultSet.getBytes(SegmentRecord.DATA_BINARY);
+                    if (dataBinary != null && dataBinary.length > 0) {
+                        segmentRecord.setDataBinary(dataBinary);
                     }
                     segmentRecords.add(segmentRecord);
                 }
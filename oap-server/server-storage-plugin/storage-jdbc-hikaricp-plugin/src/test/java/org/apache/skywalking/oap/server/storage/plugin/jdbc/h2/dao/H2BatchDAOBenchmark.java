@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.apache.skywalking.oap.server.core.analysis.generated.service.ServiceCpmIndicator;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
+import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes 100k indicators into the embedded H2 through the statements of {@link H2IndicatorDAO}, and reports the
+ * throughput of the batch write path. Run by the benchmark profile only, e.g. mvn test -Pbenchmark.
+ */
+public class H2BatchDAOBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(H2BatchDAOBenchmark.class);
+
+    private static final int ROWS = 100000;
+    private static final String MODEL_NAME = "service_cpm";
+    private static final long TIME_BUCKET = 201811011200L;
+
+    private JDBCHikariCPClient h2Client;
+    private H2IndicatorDAO indicatorDAO;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty("dataSourceClassName", "org.h2.jdbcx.JdbcDataSource");
+        settings.setProperty("dataSource.url", "jdbc:h2:mem:batch-benchmark;DB_CLOSE_DELAY=-1");
+        settings.setProperty("dataSource.user", "sa");
+        h2Client = new JDBCHikariCPClient(settings);
+        h2Client.initialize();
+
+        Model model = new Model(MODEL_NAME, Arrays.asList(
+            new ModelColumn(new ColumnName("entity_id", "entity_id"), String.class, true),
+            new ModelColumn(new ColumnName("value", "value"), long.class, false),
+            new ModelColumn(new ColumnName("total", "total"), long.class, false),
+            new ModelColumn(new ColumnName("time_bucket", "time_bucket"), long.class, true)), true, true);
+        H2TableInstaller tableInstaller = new H2TableInstaller(null);
+        tableInstaller.createTable(h2Client, model);
+        tableInstaller.columnCheck(h2Client, model);
+
+        indicatorDAO = new H2IndicatorDAO(h2Client, (StorageBuilder)new ServiceCpmIndicator.Builder());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Connection connection = h2Client.getConnection();
+        h2Client.execute(connection, "DROP TABLE " + MODEL_NAME);
+        h2Client.close(connection);
+    }
+
+    @Test
+    public void testBatchPersistence() throws Exception {
+        H2BatchDAO batchDAO = new H2BatchDAO(h2Client);
+
+        List<SQLExecutor> inserts = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            inserts.add(indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator(String.valueOf(i), i)));
+        }
+        long startTime = System.currentTimeMillis();
+        batchDAO.batchPersistence(inserts);
+        report("insert", startTime);
+        Assert.assertEquals(ROWS, count("SELECT count(*) FROM " + MODEL_NAME));
+
+        List<SQLExecutor> updates = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            updates.add(indicatorDAO.prepareBatchUpdate(MODEL_NAME, indicator(String.valueOf(i), i * 2)));
+        }
+        startTime = System.currentTimeMillis();
+        batchDAO.batchPersistence(updates);
+        report("update", startTime);
+        Assert.assertEquals(ROWS, count("SELECT count(*) FROM " + MODEL_NAME));
+        Assert.assertEquals((long)ROWS * (ROWS - 1), count("SELECT sum(value) FROM " + MODEL_NAME));
+    }
+
+    private ServiceCpmIndicator indicator(String entityId, long value) {
+        ServiceCpmIndicator indicator = new ServiceCpmIndicator();
+        indicator.setEntityId(entityId);
+        indicator.setValue(value);
+        indicator.setTotal(value);
+        indicator.setTimeBucket(TIME_BUCKET);
+        return indicator;
+    }
+
+    private void report(String operation, long startTime) {
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+        logger.info("batch {} {} rows in {} ms, {} rows/s", operation, ROWS, duration, ROWS * 1000L / duration);
+    }
+
+    private long count(String sql) throws Exception {
+        Connection connection = h2Client.getConnection();
+        try (ResultSet resultSet = h2Client.executeQuery(connection, sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            h2Client.close(connection);
+        }
+    }
+}
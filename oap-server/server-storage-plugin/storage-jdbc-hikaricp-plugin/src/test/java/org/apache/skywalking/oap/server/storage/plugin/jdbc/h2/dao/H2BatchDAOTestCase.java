@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.jdbc.h2.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.apache.skywalking.oap.server.core.analysis.generated.service.ServiceCpmIndicator;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.library.client.jdbc.hikaricp.JDBCHikariCPClient;
+import org.apache.skywalking.oap.server.storage.plugin.jdbc.SQLExecutor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class H2BatchDAOTestCase {
+
+    private static final String MODEL_NAME = "service_cpm";
+    private static final long TIME_BUCKET = 201811011200L;
+
+    private JDBCHikariCPClient h2Client;
+    private H2IndicatorDAO indicatorDAO;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty("dataSourceClassName", "org.h2.jdbcx.JdbcDataSource");
+        settings.setProperty("dataSource.url", "jdbc:h2:mem:batch-test;DB_CLOSE_DELAY=-1");
+        settings.setProperty("dataSource.user", "sa");
+        h2Client = new JDBCHikariCPClient(settings);
+        h2Client.initialize();
+
+        Model model = new Model(MODEL_NAME, Arrays.asList(
+            new ModelColumn(new ColumnName("entity_id", "entity_id"), String.class, true),
+            new ModelColumn(new ColumnName("value", "value"), long.class, false),
+            new ModelColumn(new ColumnName("total", "total"), long.class, false),
+            new ModelColumn(new ColumnName("time_bucket", "time_bucket"), long.class, true)), true, true);
+        H2TableInstaller tableInstaller = new H2TableInstaller(null);
+        tableInstaller.createTable(h2Client, model);
+        tableInstaller.columnCheck(h2Client, model);
+
+        indicatorDAO = new H2IndicatorDAO(h2Client, (StorageBuilder)new ServiceCpmIndicator.Builder());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Connection connection = h2Client.getConnection();
+        h2Client.execute(connection, "DROP TABLE " + MODEL_NAME);
+        h2Client.close(connection);
+    }
+
+    @Test
+    public void testGroupedByStatement() throws Exception {
+        H2BatchDAO batchDAO = new H2BatchDAO(h2Client);
+        batchDAO.batchPersistence(Arrays.asList(
+            indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator("1", 1)),
+            indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator("2", 2))));
+
+        batchDAO.batchPersistence(Arrays.asList(
+            indicatorDAO.prepareBatchUpdate(MODEL_NAME, indicator("1", 10)),
+            indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator("3", 3)),
+            indicatorDAO.prepareBatchUpdate(MODEL_NAME, indicator("2", 20)),
+            indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator("4", 4))));
+
+        Assert.assertEquals(4, count("SELECT count(*) FROM " + MODEL_NAME));
+        Assert.assertEquals(37, count("SELECT sum(value) FROM " + MODEL_NAME));
+    }
+
+    @Test
+    public void testChunksCommittedApart() throws Exception {
+        H2BatchDAO batchDAO = new H2BatchDAO(h2Client);
+
+        /*
+         * The bad row fails the second chunk, which is retried row by row, the first and the third chunks are
+         * committed by their batches.
+         */
+        int rows = H2BatchDAO.MAX_BATCH_SIZE * 2 + 10;
+        int badRow = H2BatchDAO.MAX_BATCH_SIZE + 5;
+        List<SQLExecutor> executors = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            executors.add(indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator(i == badRow ? oversized() : String.valueOf(i), i)));
+        }
+        batchDAO.batchPersistence(executors);
+
+        Assert.assertEquals(rows - 1, count("SELECT count(*) FROM " + MODEL_NAME));
+        Assert.assertEquals(0, count("SELECT count(*) FROM " + MODEL_NAME + " WHERE value = " + badRow));
+        Assert.assertEquals(1, count("SELECT count(*) FROM " + MODEL_NAME + " WHERE value = " + (rows - 1)));
+    }
+
+    @Test
+    public void testBadRowFailsAlone() throws Exception {
+        H2BatchDAO batchDAO = new H2BatchDAO(h2Client);
+
+        List<SQLExecutor> executors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            executors.add(indicatorDAO.prepareBatchInsert(MODEL_NAME, indicator(i == 5 ? oversized() : String.valueOf(i), i)));
+        }
+        batchDAO.batchPersistence(executors);
+
+        Assert.assertEquals(9, count("SELECT count(*) FROM " + MODEL_NAME));
+        Assert.assertEquals(0, count("SELECT count(*) FROM " + MODEL_NAME + " WHERE value = 5"));
+    }
+
+    private String oversized() {
+        char[] oversized = new char[3000];
+        Arrays.fill(oversized, 'a');
+        return new String(oversized);
+    }
+
+    private ServiceCpmIndicator indicator(String entityId, long value) {
+        ServiceCpmIndicator indicator = new ServiceCpmIndicator();
+        indicator.setEntityId(entityId);
+        indicator.setValue(value);
+        indicator.setTotal(value);
+        indicator.setTimeBucket(TIME_BUCKET);
+        return indicator;
+    }
+
+    private long count(String sql) throws Exception {
+        Connection connection = h2Client.getConnection();
+        try (ResultSet resultSet = h2Client.executeQuery(connection, sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } finally {
+            h2Client.close(connection);
+        }
+    }
+}
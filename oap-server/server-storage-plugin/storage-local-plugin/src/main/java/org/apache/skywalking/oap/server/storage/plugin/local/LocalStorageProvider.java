@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local;
+
+import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
+import org.apache.skywalking.oap.server.core.storage.IHistoryDeleteDAO;
+import org.apache.skywalking.oap.server.core.storage.IRegisterLockDAO;
+import org.apache.skywalking.oap.server.core.storage.StorageDAO;
+import org.apache.skywalking.oap.server.core.storage.StorageException;
+import org.apache.skywalking.oap.server.core.storage.StorageModule;
+import org.apache.skywalking.oap.server.core.storage.cache.IEndpointInventoryCacheDAO;
+import org.apache.skywalking.oap.server.core.storage.cache.INetworkAddressInventoryCacheDAO;
+import org.apache.skywalking.oap.server.core.storage.cache.IServiceInstanceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.core.storage.cache.IServiceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.core.storage.query.IAggregationQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.IAlarmQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.IMetadataQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.ITopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.ITopologyQueryDAO;
+import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
+import org.apache.skywalking.oap.server.library.client.ClientException;
+import org.apache.skywalking.oap.server.library.module.ModuleConfig;
+import org.apache.skywalking.oap.server.library.module.ModuleDefine;
+import org.apache.skywalking.oap.server.library.module.ModuleProvider;
+import org.apache.skywalking.oap.server.library.module.ModuleStartException;
+import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedException;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalAggregationQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalAlarmQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalBatchDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalEndpointInventoryCacheDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalHistoryDeleteDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalMetadataQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalMetricQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalNetworkAddressInventoryCacheDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalRegisterLockDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalServiceInstanceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalServiceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalStorageDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalTableInstaller;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalTopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalTopologyQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.dao.LocalTraceQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+/**
+ * Local storage provider is an embedded storage, no external service is required. It fits the single node
+ * deployment, such as edge and testing environments.
+ *
+ * Rows are appended to time partitioned segment files under the configured directory, which are loaded when the OAP
+ * server starts. The ids, indexes and scalar values are held in memory, the binary values, e.g. the segment data
+ * binary, are read from the files when they are queried.
+ */
+public class LocalStorageProvider extends ModuleProvider {
+
+    private final LocalStorageConfig config;
+    private LocalStorageClient client;
+
+    public LocalStorageProvider() {
+        config = new LocalStorageConfig();
+    }
+
+    @Override public String name() {
+        return "local";
+    }
+
+    @Override public Class<? extends ModuleDefine> module() {
+        return StorageModule.class;
+    }
+
+    @Override public ModuleConfig createConfigBeanIfAbsent() {
+        return config;
+    }
+
+    @Override public void prepare() throws ServiceNotProvidedException, ModuleStartException {
+        client = new LocalStorageClient(config.getDirectory());
+
+        this.registerServiceImplementation(IBatchDAO.class, new LocalBatchDAO());
+        this.registerServiceImplementation(StorageDAO.class, new LocalStorageDAO(client));
+        this.registerServiceImplementation(IRegisterLockDAO.class, new LocalRegisterLockDAO());
+
+        this.registerServiceImplementation(IServiceInventoryCacheDAO.class, new LocalServiceInventoryCacheDAO(client));
+        this.registerServiceImplementation(IServiceInstanceInventoryCacheDAO.class, new LocalServiceInstanceInventoryCacheDAO(client));
+        this.registerServiceImplementation(IEndpointInventoryCacheDAO.class, new LocalEndpointInventoryCacheDAO(client));
+        this.registerServiceImplementation(INetworkAddressInventoryCacheDAO.class, new LocalNetworkAddressInventoryCacheDAO(client));
+
+        this.registerServiceImplementation(ITopologyQueryDAO.class, new LocalTopologyQueryDAO(client));
+        this.registerServiceImplementation(IMetricQueryDAO.class, new LocalMetricQueryDAO(client));
+        this.registerServiceImplementation(ITraceQueryDAO.class, new LocalTraceQueryDAO(client));
+        this.registerServiceImplementation(IMetadataQueryDAO.class, new LocalMetadataQueryDAO(client));
+        this.registerServiceImplementation(IAggregationQueryDAO.class, new LocalAggregationQueryDAO(client));
+        this.registerServiceImplementation(IAlarmQueryDAO.class, new LocalAlarmQueryDAO(client));
+        this.registerServiceImplementation(ITopNRecordQueryDAO.class, new LocalTopNRecordQueryDAO(client));
+        this.registerServiceImplementation(IHistoryDeleteDAO.class, new LocalHistoryDeleteDAO(client));
+    }
+
+    @Override public void start() throws ServiceNotProvidedException, ModuleStartException {
+        try {
+            client.initialize();
+
+            new LocalTableInstaller(getManager()).install(client);
+        } catch (StorageException e) {
+            throw new ModuleStartException(e.getMessage(), e);
+        } catch (ClientException e) {
+            throw new ModuleStartException(e.getMessage(), e);
+        }
+    }
+
+    @Override public void notifyAfterCompleted() throws ServiceNotProvidedException, ModuleStartException {
+
+    }
+
+    @Override public String[] requiredModules() {
+        return new String[0];
+    }
+}
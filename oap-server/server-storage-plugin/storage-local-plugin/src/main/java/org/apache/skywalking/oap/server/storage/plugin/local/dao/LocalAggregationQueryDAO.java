@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.query.entity.Order;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.entity.TopNEntity;
+import org.apache.skywalking.oap.server.core.register.EndpointInventory;
+import org.apache.skywalking.oap.server.core.register.ServiceInstanceInventory;
+import org.apache.skywalking.oap.server.core.storage.DownSamplingModelNameBuilder;
+import org.apache.skywalking.oap.server.core.storage.query.IAggregationQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalAggregationQueryDAO implements IAggregationQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalAggregationQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<TopNEntity> getServiceTopN(String indName, String valueCName, int topN, Step step,
+        long startTB, long endTB, Order order) throws IOException {
+        return topNQuery(indName, valueCName, topN, step, startTB, endTB, order, null, 0);
+    }
+
+    @Override public List<TopNEntity> getAllServiceInstanceTopN(String indName, String valueCName, int topN,
+        Step step, long startTB, long endTB, Order order) throws IOException {
+        return topNQuery(indName, valueCName, topN, step, startTB, endTB, order, null, 0);
+    }
+
+    @Override
+    public List<TopNEntity> getServiceInstanceTopN(int serviceId, String indName, String valueCName,
+        int topN, Step step, long startTB, long endTB, Order order) throws IOException {
+        return topNQuery(indName, valueCName, topN, step, startTB, endTB, order, ServiceInstanceInventory.SERVICE_ID, serviceId);
+    }
+
+    @Override
+    public List<TopNEntity> getAllEndpointTopN(String indName, String valueCName, int topN, Step step,
+        long startTB, long endTB, Order order) throws IOException {
+        return topNQuery(indName, valueCName, topN, step, startTB, endTB, order, null, 0);
+    }
+
+    @Override public List<TopNEntity> getEndpointTopN(int serviceId, String indName, String valueCName,
+        int topN, Step step, long startTB, long endTB, Order order) throws IOException {
+        return topNQuery(indName, valueCName, topN, step, startTB, endTB, order, EndpointInventory.SERVICE_ID, serviceId);
+    }
+
+    /**
+     * Average the value of every entity in the time range, then keep the first N by the order.
+     *
+     * @param serviceIdCName the service id column to match, or null to match all rows.
+     */
+    private List<TopNEntity> topNQuery(String indName, String valueCName, int topN, Step step,
+        long startTB, long endTB, Order order, String serviceIdCName, int serviceId) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, indName);
+
+        Map<String, double[]> sumAndCount = new HashMap<>();
+        client.getTable(tableName).scan(startTB, endTB, row -> {
+            if (serviceIdCName == null || row.getInt(serviceIdCName) == serviceId) {
+                double[] aggregation = sumAndCount.computeIfAbsent(row.getString(Indicator.ENTITY_ID), id -> new double[2]);
+                aggregation[0] += row.getDouble(valueCName);
+                aggregation[1]++;
+            }
+        });
+
+        List<TopNEntity> topNEntities = new ArrayList<>(sumAndCount.size());
+        sumAndCount.forEach((id, aggregation) -> {
+            TopNEntity topNEntity = new TopNEntity();
+            topNEntity.setId(id);
+            topNEntity.setValue((int)(aggregation[0] / aggregation[1]));
+            topNEntities.add(topNEntity);
+        });
+
+        Comparator<TopNEntity> comparator = Comparator.comparingInt(TopNEntity::getValue);
+        topNEntities.sort(Order.ASC.equals(order) ? comparator : comparator.reversed());
+        return topNEntities.size() > topN ? new ArrayList<>(topNEntities.subList(0, topN)) : topNEntities;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import org.apache.skywalking.oap.server.core.alarm.AlarmRecord;
+import org.apache.skywalking.oap.server.core.query.entity.AlarmMessage;
+import org.apache.skywalking.oap.server.core.query.entity.Alarms;
+import org.apache.skywalking.oap.server.core.source.Scope;
+import org.apache.skywalking.oap.server.core.storage.query.IAlarmQueryDAO;
+import org.apache.skywalking.oap.server.library.util.StringUtils;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalAlarmQueryDAO implements IAlarmQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalAlarmQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Alarms getAlarm(Scope scope, String keyword, int limit, int from, long startTB,
+        long endTB) throws IOException {
+        List<LocalRow> rows = new ArrayList<>();
+        client.getTable(AlarmRecord.INDEX_NAME).scan(startTB, endTB, row -> {
+            if (Objects.nonNull(scope) && row.getInt(AlarmRecord.SCOPE) != scope.ordinal()) {
+                return;
+            }
+            if (StringUtils.isNotEmpty(keyword)) {
+                String message = row.getString(AlarmRecord.ALARM_MESSAGE);
+                if (message == null || !message.contains(keyword)) {
+                    return;
+                }
+            }
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparingLong((LocalRow row) -> row.getLong(AlarmRecord.TIME_BUCKET)).reversed());
+
+        Alarms alarms = new Alarms();
+        alarms.setTotal(rows.size());
+
+        AlarmRecord.Builder builder = new AlarmRecord.Builder();
+        for (int i = from; i < rows.size() && i < from + limit; i++) {
+            AlarmRecord alarmRecord = builder.map2Data(rows.get(i).toMap());
+
+            AlarmMessage message = new AlarmMessage();
+            message.setId(String.valueOf(alarmRecord.getId0()));
+            message.setMessage(alarmRecord.getAlarmMessage());
+            message.setStartTime(alarmRecord.getStartTime());
+            message.setScope(Scope.valueOf(alarmRecord.getScope()));
+            alarms.getMsgs().add(message);
+        }
+        return alarms;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LocalBatchDAO implements IBatchDAO {
+    private static final Logger logger = LoggerFactory.getLogger(LocalBatchDAO.class);
+
+    @Override public void batchPersistence(List<?> batchCollection) {
+        if (batchCollection.size() == 0) {
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("batch rows write, data size: {}", batchCollection.size());
+        }
+
+        Map<LocalTable, List<LocalRow>> groups = new LinkedHashMap<>();
+        for (Object request : batchCollection) {
+            LocalWriteRequest writeRequest = (LocalWriteRequest)request;
+            groups.computeIfAbsent(writeRequest.getTable(), table -> new ArrayList<>()).add(writeRequest.getRow());
+        }
+
+        for (Map.Entry<LocalTable, List<LocalRow>> group : groups.entrySet()) {
+            try {
+                group.getKey().write(group.getValue());
+            } catch (IOException e) {
+                logger.error("write table {} failure, {} rows lost.", group.getKey().getModelName(), group.getValue().size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.register.RegisterSource;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared lookups of the inventory cache DAOs, by id and by the sequence index.
+ */
+public abstract class LocalInventoryCacheDAO {
+    private static final Logger logger = LoggerFactory.getLogger(LocalInventoryCacheDAO.class);
+
+    protected final LocalStorageClient client;
+
+    protected LocalInventoryCacheDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    protected int getSequenceByID(String modelName, String id) {
+        try {
+            LocalRow row = client.getTable(modelName).get(id);
+            return row == null ? Const.NONE : row.getInt(RegisterSource.SEQUENCE);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+            return Const.NONE;
+        }
+    }
+
+    protected <T extends RegisterSource> T getBySequence(String modelName, int sequence,
+        StorageBuilder<T> storageBuilder) {
+        try {
+            List<LocalRow> rows = client.getTable(modelName).findBy(RegisterSource.SEQUENCE, sequence);
+            return rows.isEmpty() ? null : storageBuilder.map2Data(rows.get(0).toMap());
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oap.server.core.query.entity.Attribute;
+import org.apache.skywalking.oap.server.core.query.entity.Endpoint;
+import org.apache.skywalking.oap.server.core.query.entity.LanguageTrans;
+import org.apache.skywalking.oap.server.core.query.entity.Service;
+import org.apache.skywalking.oap.server.core.query.entity.ServiceInstance;
+import org.apache.skywalking.oap.server.core.register.EndpointInventory;
+import org.apache.skywalking.oap.server.core.register.NetworkAddressInventory;
+import org.apache.skywalking.oap.server.core.register.RegisterSource;
+import org.apache.skywalking.oap.server.core.register.ServiceInstanceInventory;
+import org.apache.skywalking.oap.server.core.register.ServiceInventory;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.core.storage.query.IMetadataQueryDAO;
+import org.apache.skywalking.oap.server.library.util.BooleanUtils;
+import org.apache.skywalking.oap.server.library.util.StringUtils;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalMetadataQueryDAO implements IMetadataQueryDAO {
+    private static final int MAX_SERVICES = 100;
+
+    private final LocalStorageClient client;
+
+    public LocalMetadataQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override public int numOfService(long startTimestamp, long endTimestamp) throws IOException {
+        AtomicInteger num = new AtomicInteger(0);
+        client.getTable(ServiceInventory.MODEL_NAME).scan(row -> {
+            if (isActive(row, startTimestamp, endTimestamp)) {
+                num.incrementAndGet();
+            }
+        });
+        return num.get();
+    }
+
+    @Override public int numOfEndpoint(long startTimestamp, long endTimestamp) throws IOException {
+        AtomicInteger num = new AtomicInteger(0);
+        client.getTable(EndpointInventory.MODEL_NAME).scan(row -> {
+            if (isActive(row, startTimestamp, endTimestamp)
+                && row.getInt(EndpointInventory.DETECT_POINT) == DetectPoint.SERVER.ordinal()) {
+                num.incrementAndGet();
+            }
+        });
+        return num.get();
+    }
+
+    @Override public int numOfConjectural(long startTimestamp, long endTimestamp,
+        int srcLayer) throws IOException {
+        AtomicInteger num = new AtomicInteger(0);
+        client.getTable(NetworkAddressInventory.MODEL_NAME).scan(row -> {
+            if (isActive(row, startTimestamp, endTimestamp)
+                && row.getInt(NetworkAddressInventory.SRC_LAYER) == srcLayer) {
+                num.incrementAndGet();
+            }
+        });
+        return num.get();
+    }
+
+    @Override
+    public List<Service> getAllServices(long startTimestamp, long endTimestamp) throws IOException {
+        return searchServices(startTimestamp, endTimestamp, null);
+    }
+
+    @Override public List<Service> searchServices(long startTimestamp, long endTimestamp,
+        String keyword) throws IOException {
+        List<Service> services = new ArrayList<>();
+        client.getTable(ServiceInventory.MODEL_NAME).scan(row -> {
+            if (services.size() < MAX_SERVICES
+                && isActive(row, startTimestamp, endTimestamp)
+                && row.getInt(ServiceInventory.IS_ADDRESS) == BooleanUtils.FALSE
+                && (StringUtils.isEmpty(keyword) || contains(row.getString(ServiceInventory.NAME), keyword))) {
+                services.add(buildService(row));
+            }
+        });
+        return services;
+    }
+
+    @Override public Service searchService(String serviceCode) throws IOException {
+        LocalRow row = client.getTable(ServiceInventory.MODEL_NAME).get(ServiceInventory.buildId(serviceCode));
+        if (row == null || row.getInt(ServiceInventory.IS_ADDRESS) != BooleanUtils.FALSE) {
+            return null;
+        }
+        return buildService(row);
+    }
+
+    @Override public List<Endpoint> searchEndpoint(String keyword, String serviceId,
+        int limit) throws IOException {
+        List<Endpoint> endpoints = new ArrayList<>();
+        client.getTable(EndpointInventory.MODEL_NAME).scan(row -> {
+            if (endpoints.size() < limit
+                && String.valueOf(row.getInt(EndpointInventory.SERVICE_ID)).equals(serviceId)
+                && row.getInt(EndpointInventory.DETECT_POINT) == DetectPoint.SERVER.ordinal()
+                && (StringUtils.isEmpty(keyword) || contains(row.getString(EndpointInventory.NAME), keyword))) {
+                Endpoint endpoint = new Endpoint();
+                endpoint.setId(row.getInt(EndpointInventory.SEQUENCE));
+                endpoint.setName(row.getString(EndpointInventory.NAME));
+                endpoints.add(endpoint);
+            }
+        });
+        return endpoints;
+    }
+
+    @Override public List<ServiceInstance> getServiceInstances(long startTimestamp, long endTimestamp,
+        String serviceId) throws IOException {
+        List<ServiceInstance> serviceInstances = new ArrayList<>();
+        client.getTable(ServiceInstanceInventory.MODEL_NAME).scan(row -> {
+            if (!isActive(row, startTimestamp, endTimestamp)
+                || !String.valueOf(row.getInt(ServiceInstanceInventory.SERVICE_ID)).equals(serviceId)) {
+                return;
+            }
+
+            ServiceInstance serviceInstance = new ServiceInstance();
+            serviceInstance.setId(String.valueOf(row.getInt(ServiceInstanceInventory.SEQUENCE)));
+            serviceInstance.setName(row.getString(ServiceInstanceInventory.NAME));
+            serviceInstance.setLanguage(LanguageTrans.INSTANCE.value(row.getInt(ServiceInstanceInventory.LANGUAGE)));
+
+            String osName = row.getString(ServiceInstanceInventory.OS_NAME);
+            if (StringUtils.isNotEmpty(osName)) {
+                serviceInstance.getAttributes().add(new Attribute(ServiceInstanceInventory.OS_NAME, osName));
+            }
+            String hostName = row.getString(ServiceInstanceInventory.HOST_NAME);
+            if (StringUtils.isNotEmpty(hostName)) {
+                serviceInstance.getAttributes().add(new Attribute(ServiceInstanceInventory.HOST_NAME, hostName));
+            }
+            serviceInstance.getAttributes().add(new Attribute(ServiceInstanceInventory.PROCESS_NO, String.valueOf(row.getInt(ServiceInstanceInventory.PROCESS_NO))));
+
+            List<String> ipv4s = ServiceInstanceInventory.AgentOsInfo.ipv4sDeserialize(row.getString(ServiceInstanceInventory.IPV4S));
+            for (String ipv4 : ipv4s) {
+                serviceInstance.getAttributes().add(new Attribute(ServiceInstanceInventory.IPV4S, ipv4));
+            }
+
+            serviceInstances.add(serviceInstance);
+        });
+        return serviceInstances;
+    }
+
+    /**
+     * The entity is active in the time range, when it has been registered before the end and has heartbeat after the
+     * start.
+     */
+    private boolean isActive(LocalRow row, long startTimestamp, long endTimestamp) {
+        return row.getLong(RegisterSource.REGISTER_TIME) <= endTimestamp
+            && row.getLong(RegisterSource.HEARTBEAT_TIME) >= startTimestamp;
+    }
+
+    private boolean contains(String name, String keyword) {
+        return name != null && name.contains(keyword);
+    }
+
+    private Service buildService(LocalRow row) {
+        Service service = new Service();
+        service.setId(row.getInt(ServiceInventory.SEQUENCE));
+        service.setName(row.getString(ServiceInventory.NAME));
+        return service;
+    }
+}
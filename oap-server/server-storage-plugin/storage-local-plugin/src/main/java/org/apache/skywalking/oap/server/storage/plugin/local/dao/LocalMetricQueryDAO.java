@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValue;
+import org.apache.skywalking.oap.server.core.analysis.indicator.IntKeyLongValueArray;
+import org.apache.skywalking.oap.server.core.analysis.indicator.ThermodynamicIndicator;
+import org.apache.skywalking.oap.server.core.query.entity.IntValues;
+import org.apache.skywalking.oap.server.core.query.entity.KVInt;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.entity.Thermodynamic;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.query.sql.KeyValues;
+import org.apache.skywalking.oap.server.core.query.sql.Where;
+import org.apache.skywalking.oap.server.core.storage.DownSamplingModelNameBuilder;
+import org.apache.skywalking.oap.server.core.storage.query.IMetricQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+
+public class LocalMetricQueryDAO implements IMetricQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalMetricQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public IntValues getValues(String indName, Step step, long startTB, long endTB, Where where, String valueCName,
+        Function function) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, indName);
+
+        List<String> ids = new ArrayList<>(20);
+        Map<String, Set<String>> conditions = new HashMap<>();
+        for (KeyValues keyValues : where.getKeyValues()) {
+            ids.addAll(keyValues.getValues());
+            conditions.computeIfAbsent(keyValues.getKey(), key -> new HashSet<>()).addAll(keyValues.getValues());
+        }
+
+        Map<String, double[]> sumAndCount = new HashMap<>();
+        client.getTable(tableName).scan(startTB, endTB, row -> {
+            if (matches(row, conditions)) {
+                double[] aggregation = sumAndCount.computeIfAbsent(row.getString(Indicator.ENTITY_ID), id -> new double[2]);
+                aggregation[0] += row.getDouble(valueCName);
+                aggregation[1]++;
+            }
+        });
+
+        IntValues intValues = new IntValues();
+        sumAndCount.forEach((id, aggregation) -> {
+            KVInt kv = new KVInt();
+            kv.setId(id);
+            kv.setValue((int)(Function.Avg.equals(function) ? aggregation[0] / aggregation[1] : aggregation[0]));
+            intValues.getValues().add(kv);
+        });
+        return orderWithDefault0(intValues, ids);
+    }
+
+    @Override public IntValues getLinearIntValues(String indName, Step step, List<String> ids,
+        String valueCName) throws IOException {
+        LocalTable table = client.getTable(DownSamplingModelNameBuilder.build(step, indName));
+
+        IntValues intValues = new IntValues();
+        for (String id : ids) {
+            LocalRow row = table.get(id);
+            if (row != null) {
+                KVInt kv = new KVInt();
+                kv.setId(id);
+                kv.setValue(row.getInt(valueCName));
+                intValues.getValues().add(kv);
+            }
+        }
+        return orderWithDefault0(intValues, ids);
+    }
+
+    @Override public Thermodynamic getThermodynamic(String indName, Step step, List<String> ids,
+        String valueCName) throws IOException {
+        LocalTable table = client.getTable(DownSamplingModelNameBuilder.build(step, indName));
+
+        List<List<Long>> thermodynamicValueCollection = new ArrayList<>();
+        int numOfSteps = 0;
+        int axisYStep = 0;
+        for (String id : ids) {
+            LocalRow row = table.get(id);
+            if (row == null) {
+                // try to add default values when there is no data in that time bucket.
+                thermodynamicValueCollection.add(new ArrayList<>());
+                continue;
+            }
+
+            axisYStep = row.getInt(ThermodynamicIndicator.STEP);
+            numOfSteps = row.getInt(ThermodynamicIndicator.NUM_OF_STEPS) + 1;
+            IntKeyLongValueArray intKeyLongValues = new IntKeyLongValueArray(5);
+            intKeyLongValues.toObject(row.getString(ThermodynamicIndicator.DETAIL_GROUP));
+
+            List<Long> axisYValues = new ArrayList<>();
+            for (int i = 0; i < numOfSteps; i++) {
+                axisYValues.add(0L);
+            }
+            for (IntKeyLongValue intKeyLongValue : intKeyLongValues) {
+                axisYValues.set(intKeyLongValue.getKey(), intKeyLongValue.getValue());
+            }
+            thermodynamicValueCollection.add(axisYValues);
+        }
+
+        Thermodynamic thermodynamic = new Thermodynamic();
+        thermodynamic.fromMatrixData(thermodynamicValueCollection, numOfSteps);
+        thermodynamic.setAxisYStep(axisYStep);
+        return thermodynamic;
+    }
+
+    private boolean matches(LocalRow row, Map<String, Set<String>> conditions) {
+        if (conditions.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<String, Set<String>> condition : conditions.entrySet()) {
+            Object value = row.get(condition.getKey());
+            if (value != null && condition.getValue().contains(String.valueOf(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Make sure the order is same as the expected order, and keep default value as 0. The ids read from the storage
+     * are kept as the existing ones.
+     */
+    private IntValues orderWithDefault0(IntValues origin, List<String> expectedOrder) {
+        IntValues intValues = new IntValues();
+
+        expectedOrder.forEach(id -> {
+            KVInt e = new KVInt();
+            e.setId(id);
+            e.setValue(origin.findValue(id, 0));
+            intValues.addKVInt(e);
+        });
+        origin.getValues().forEach(kvInt -> intValues.getExistingIds().add(kvInt.getId()));
+
+        return intValues;
+    }
+}
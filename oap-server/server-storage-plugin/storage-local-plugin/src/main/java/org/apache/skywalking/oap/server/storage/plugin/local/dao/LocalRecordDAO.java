@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import org.apache.skywalking.oap.server.core.analysis.record.Record;
+import org.apache.skywalking.oap.server.core.storage.IRecordDAO;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+
+public class LocalRecordDAO implements IRecordDAO<LocalWriteRequest> {
+    private final LocalStorageClient client;
+    private final StorageBuilder<Record> storageBuilder;
+
+    public LocalRecordDAO(LocalStorageClient client, StorageBuilder<Record> storageBuilder) {
+        this.client = client;
+        this.storageBuilder = storageBuilder;
+    }
+
+    @Override public LocalWriteRequest prepareBatchInsert(String modelName, Record record) throws IOException {
+        LocalTable table = client.getTable(modelName);
+        return new LocalWriteRequest(table, table.toRow(record.id(), storageBuilder.data2Map(record)));
+    }
+}
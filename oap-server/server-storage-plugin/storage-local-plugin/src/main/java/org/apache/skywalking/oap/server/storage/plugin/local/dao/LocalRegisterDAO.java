@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.Collections;
+import org.apache.skywalking.oap.server.core.register.RegisterSource;
+import org.apache.skywalking.oap.server.core.storage.IRegisterDAO;
+import org.apache.skywalking.oap.server.core.storage.StorageBuilder;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+
+public class LocalRegisterDAO implements IRegisterDAO {
+    private final LocalStorageClient client;
+    private final StorageBuilder<RegisterSource> storageBuilder;
+
+    public LocalRegisterDAO(LocalStorageClient client, StorageBuilder<RegisterSource> storageBuilder) {
+        this.client = client;
+        this.storageBuilder = storageBuilder;
+    }
+
+    @Override public int max(String modelName) throws IOException {
+        int maxId = client.getTable(modelName).getMaxSequence();
+        return maxId == 0 ? 1 : maxId;
+    }
+
+    @Override public RegisterSource get(String modelName, String id) throws IOException {
+        LocalRow row = client.getTable(modelName).get(id);
+        return row == null ? null : storageBuilder.map2Data(row.toMap());
+    }
+
+    @Override public void forceInsert(String modelName, RegisterSource source) throws IOException {
+        LocalTable table = client.getTable(modelName);
+        table.write(Collections.singletonList(table.toRow(source.id(), storageBuilder.data2Map(source))));
+    }
+
+    @Override public void forceUpdate(String modelName, RegisterSource source) throws IOException {
+        forceInsert(modelName, source);
+    }
+}
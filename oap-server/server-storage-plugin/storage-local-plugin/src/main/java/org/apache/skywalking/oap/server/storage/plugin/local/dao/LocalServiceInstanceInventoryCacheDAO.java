@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import org.apache.skywalking.oap.server.core.register.ServiceInstanceInventory;
+import org.apache.skywalking.oap.server.core.storage.cache.IServiceInstanceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalServiceInstanceInventoryCacheDAO extends LocalInventoryCacheDAO implements IServiceInstanceInventoryCacheDAO {
+
+    public LocalServiceInstanceInventoryCacheDAO(LocalStorageClient client) {
+        super(client);
+    }
+
+    @Override public ServiceInstanceInventory get(int serviceInstanceId) {
+        return getBySequence(ServiceInstanceInventory.MODEL_NAME, serviceInstanceId, new ServiceInstanceInventory.Builder());
+    }
+
+    @Override public int getServiceInstanceId(int serviceId, String uuid) {
+        return getSequenceByID(ServiceInstanceInventory.MODEL_NAME, ServiceInstanceInventory.buildId(serviceId, uuid));
+    }
+
+    @Override public int getServiceInstanceId(int serviceId, int addressId) {
+        return getSequenceByID(ServiceInstanceInventory.MODEL_NAME, ServiceInstanceInventory.buildId(serviceId, addressId));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.register.ServiceInventory;
+import org.apache.skywalking.oap.server.core.storage.cache.IServiceInventoryCacheDAO;
+import org.apache.skywalking.oap.server.library.util.BooleanUtils;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LocalServiceInventoryCacheDAO extends LocalInventoryCacheDAO implements IServiceInventoryCacheDAO {
+    private static final Logger logger = LoggerFactory.getLogger(LocalServiceInventoryCacheDAO.class);
+
+    public LocalServiceInventoryCacheDAO(LocalStorageClient client) {
+        super(client);
+    }
+
+    @Override public int getServiceId(String serviceName) {
+        return getSequenceByID(ServiceInventory.MODEL_NAME, ServiceInventory.buildId(serviceName));
+    }
+
+    @Override public int getServiceId(int addressId) {
+        return getSequenceByID(ServiceInventory.MODEL_NAME, ServiceInventory.buildId(addressId));
+    }
+
+    @Override public ServiceInventory get(int serviceId) {
+        return getBySequence(ServiceInventory.MODEL_NAME, serviceId, new ServiceInventory.Builder());
+    }
+
+    @Override public List<ServiceInventory> loadLastMappingUpdate() {
+        List<ServiceInventory> serviceInventories = new ArrayList<>();
+        try {
+            long lastUpdateTime = System.currentTimeMillis() - 10000;
+            ServiceInventory.Builder builder = new ServiceInventory.Builder();
+            client.getTable(ServiceInventory.MODEL_NAME).scan(row -> {
+                if (serviceInventories.size() < 50
+                    && row.getInt(ServiceInventory.IS_ADDRESS) == BooleanUtils.TRUE
+                    && row.getLong(ServiceInventory.MAPPING_LAST_UPDATE_TIME) > lastUpdateTime) {
+                    serviceInventories.add(builder.map2Data(row.toMap()));
+                }
+            });
+        } catch (Throwable e) {
+            logger.error(e.getMessage());
+        }
+        return serviceInventories;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import org.apache.skywalking.oap.server.core.storage.StorageException;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelInstaller;
+import org.apache.skywalking.oap.server.library.client.Client;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalTableInstaller extends ModelInstaller {
+
+    public LocalTableInstaller(ModuleManager moduleManager) {
+        super(moduleManager);
+    }
+
+    @Override protected boolean isExists(Client client, Model model) throws StorageException {
+        return ((LocalStorageClient)client).isExists(model.getName());
+    }
+
+    @Override protected void columnCheck(Client client, Model model) throws StorageException {
+
+    }
+
+    @Override protected void deleteTable(Client client, Model model) throws StorageException {
+        ((LocalStorageClient)client).dropTable(model.getName());
+    }
+
+    @Override protected void createTable(Client client, Model model) throws StorageException {
+        try {
+            ((LocalStorageClient)client).createTable(model);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+}
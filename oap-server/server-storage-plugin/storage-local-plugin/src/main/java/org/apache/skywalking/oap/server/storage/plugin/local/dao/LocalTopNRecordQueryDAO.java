@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.topn.TopNRecord;
+import org.apache.skywalking.oap.server.core.storage.query.ITopNRecordQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalTopNRecordQueryDAO implements ITopNRecordQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalTopNRecordQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<TopNRecord> getTopNRecords(String modelName, long startTB, long endTB) throws IOException {
+        List<TopNRecord> records = new ArrayList<>();
+        TopNRecord.Builder builder = new TopNRecord.Builder();
+        client.getTable(TopNRecord.INDEX_NAME).scan(startTB, endTB, row -> {
+            if (modelName.equals(row.getString(TopNRecord.MODEL_NAME))) {
+                records.add(builder.map2Data(row.toMap()));
+            }
+        });
+        return records;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.manual.endpointrelation.EndpointRelationServerSideIndicator;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.ServiceRelationClientSideIndicator;
+import org.apache.skywalking.oap.server.core.analysis.manual.servicerelation.ServiceRelationServerSideIndicator;
+import org.apache.skywalking.oap.server.core.query.entity.Call;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.source.DetectPoint;
+import org.apache.skywalking.oap.server.core.source.ServiceRelation;
+import org.apache.skywalking.oap.server.core.storage.DownSamplingModelNameBuilder;
+import org.apache.skywalking.oap.server.core.storage.query.ITopologyQueryDAO;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+
+public class LocalTopologyQueryDAO implements ITopologyQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalTopologyQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override public List<Call> loadSpecifiedServerSideServiceRelations(Step step, long startTB, long endTB,
+        List<Integer> serviceIds) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, ServiceRelationServerSideIndicator.INDEX_NAME);
+        return loadServiceCalls(tableName, startTB, endTB, serviceIds, DetectPoint.SERVER);
+    }
+
+    @Override public List<Call> loadSpecifiedClientSideServiceRelations(Step step, long startTB, long endTB,
+        List<Integer> serviceIds) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, ServiceRelationClientSideIndicator.INDEX_NAME);
+        return loadServiceCalls(tableName, startTB, endTB, serviceIds, DetectPoint.CLIENT);
+    }
+
+    @Override public List<Call> loadServerSideServiceRelations(Step step, long startTB, long endTB) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, ServiceRelationServerSideIndicator.INDEX_NAME);
+        return loadServiceCalls(tableName, startTB, endTB, new ArrayList<>(0), DetectPoint.SERVER);
+    }
+
+    @Override public List<Call> loadClientSideServiceRelations(Step step, long startTB, long endTB) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, ServiceRelationClientSideIndicator.INDEX_NAME);
+        return loadServiceCalls(tableName, startTB, endTB, new ArrayList<>(0), DetectPoint.CLIENT);
+    }
+
+    @Override public List<Call> loadSpecifiedDestOfServerSideEndpointRelations(Step step, long startTB, long endTB,
+        int destEndpointId) throws IOException {
+        String tableName = DownSamplingModelNameBuilder.build(step, EndpointRelationServerSideIndicator.INDEX_NAME);
+
+        Set<String> entityIds = new LinkedHashSet<>();
+        client.getTable(tableName).scan(startTB, endTB, row -> {
+            if (row.getInt(EndpointRelationServerSideIndicator.DEST_ENDPOINT_ID) == destEndpointId) {
+                entityIds.add(row.getString(Indicator.ENTITY_ID));
+            }
+        });
+        return buildCalls(entityIds, DetectPoint.SERVER);
+    }
+
+    private List<Call> loadServiceCalls(String tableName, long startTB, long endTB, List<Integer> serviceIds,
+        DetectPoint detectPoint) throws IOException {
+        Set<String> entityIds = new LinkedHashSet<>();
+        client.getTable(tableName).scan(startTB, endTB, row -> {
+            if (serviceIds.isEmpty()
+                || serviceIds.contains(row.getInt(ServiceRelationServerSideIndicator.SOURCE_SERVICE_ID))
+                || serviceIds.contains(row.getInt(ServiceRelationServerSideIndicator.DEST_SERVICE_ID))) {
+                entityIds.add(row.getString(Indicator.ENTITY_ID));
+            }
+        });
+        return buildCalls(entityIds, detectPoint);
+    }
+
+    private List<Call> buildCalls(Set<String> entityIds, DetectPoint detectPoint) {
+        List<Call> calls = new ArrayList<>(entityIds.size());
+        for (String entityId : entityIds) {
+            Integer[] ids = ServiceRelation.splitEntityId(entityId);
+
+            Call call = new Call();
+            call.setSource(ids[0]);
+            call.setTarget(ids[1]);
+            call.setComponentId(ids[2]);
+            call.setDetectPoint(detectPoint);
+            call.setId(entityId);
+            calls.add(call);
+        }
+        return calls;
+    }
+}
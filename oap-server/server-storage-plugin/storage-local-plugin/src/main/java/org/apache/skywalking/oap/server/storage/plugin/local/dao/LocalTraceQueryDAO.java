@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
+import org.apache.skywalking.oap.server.core.query.entity.BasicTrace;
+import org.apache.skywalking.oap.server.core.query.entity.QueryOrder;
+import org.apache.skywalking.oap.server.core.query.entity.TraceBrief;
+import org.apache.skywalking.oap.server.core.query.entity.TraceState;
+import org.apache.skywalking.oap.server.core.storage.query.ITraceQueryDAO;
+import org.apache.skywalking.oap.server.library.util.BooleanUtils;
+import org.apache.skywalking.oap.server.library.util.StringUtils;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalRow;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+
+public class LocalTraceQueryDAO implements ITraceQueryDAO {
+    private final LocalStorageClient client;
+
+    public LocalTraceQueryDAO(LocalStorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public TraceBrief queryBasicTraces(long startSecondTB, long endSecondTB, long minDuration, long maxDuration,
+        String endpointName, int serviceId, int endpointId, String traceId, int limit, int from, TraceState traceState,
+        QueryOrder queryOrder) throws IOException {
+        LocalTable table = client.getTable(SegmentRecord.INDEX_NAME);
+
+        List<LocalRow> segments = new ArrayList<>();
+        Consumer<LocalRow> filter = row -> {
+            if (minDuration != 0 && row.getLong(SegmentRecord.LATENCY) < minDuration) {
+                return;
+            }
+            if (maxDuration != 0 && row.getLong(SegmentRecord.LATENCY) > maxDuration) {
+                return;
+            }
+            if (StringUtils.isNotEmpty(endpointName)) {
+                String name = row.getString(SegmentRecord.ENDPOINT_NAME);
+                if (name == null || !name.contains(endpointName)) {
+                    return;
+                }
+            }
+            if (serviceId != 0 && row.getInt(SegmentRecord.SERVICE_ID) != serviceId) {
+                return;
+            }
+            if (endpointId != 0 && row.getInt(SegmentRecord.ENDPOINT_ID) != endpointId) {
+                return;
+            }
+            if (StringUtils.isNotEmpty(traceId) && !traceId.equals(row.getString(SegmentRecord.TRACE_ID))) {
+                return;
+            }
+            switch (traceState) {
+                case ERROR:
+                    if (row.getInt(SegmentRecord.IS_ERROR) != BooleanUtils.TRUE) {
+                        return;
+                    }
+                    break;
+                case SUCCESS:
+                    if (row.getInt(SegmentRecord.IS_ERROR) != BooleanUtils.FALSE) {
+                        return;
+                    }
+                    break;
+            }
+            segments.add(row);
+        };
+
+        if (StringUtils.isNotEmpty(traceId)) {
+            table.findBy(SegmentRecord.TRACE_ID, traceId).forEach(row -> {
+                long timeBucket = row.getLong(SegmentRecord.TIME_BUCKET);
+                if (startSecondTB == 0 || endSecondTB == 0 || (timeBucket >= startSecondTB && timeBucket <= endSecondTB)) {
+                    filter.accept(row);
+                }
+            });
+        } else if (startSecondTB != 0 && endSecondTB != 0) {
+            table.scan(startSecondTB, endSecondTB, filter);
+        } else {
+            table.scan(filter);
+        }
+
+        switch (queryOrder) {
+            case BY_START_TIME:
+                segments.sort(Comparator.comparingLong((LocalRow row) -> row.getLong(SegmentRecord.START_TIME)).reversed());
+                break;
+            case BY_DURATION:
+                segments.sort(Comparator.comparingLong((LocalRow row) -> row.getLong(SegmentRecord.LATENCY)).reversed());
+                break;
+        }
+
+        TraceBrief traceBrief = new TraceBrief();
+        traceBrief.setTotal(segments.size());
+        for (int i = from; i < segments.size() && i < from + limit; i++) {
+            LocalRow row = segments.get(i);
+
+            BasicTrace basicTrace = new BasicTrace();
+            basicTrace.setSegmentId(row.getString(SegmentRecord.SEGMENT_ID));
+            basicTrace.setStart(String.valueOf(row.getLong(SegmentRecord.START_TIME)));
+            basicTrace.getEndpointNames().add(row.getString(SegmentRecord.ENDPOINT_NAME));
+            basicTrace.setDuration(row.getInt(SegmentRecord.LATENCY));
+            basicTrace.setError(BooleanUtils.valueToBoolean(row.getInt(SegmentRecord.IS_ERROR)));
+            basicTrace.getTraceIds().add(row.getString(SegmentRecord.TRACE_ID));
+            traceBrief.getTraces().add(basicTrace);
+        }
+        return traceBrief;
+    }
+
+    @Override public List<SegmentRecord> queryByTraceId(String traceId) throws IOException {
+        List<SegmentRecord> segmentRecords = new ArrayList<>();
+        for (LocalRow row : client.getTable(SegmentRecord.INDEX_NAME).findBy(SegmentRecord.TRACE_ID, traceId)) {
+            SegmentRecord segmentRecord = new SegmentRecord();
+            segmentRecord.setSegmentId(row.getString(SegmentRecord.SEGMENT_ID));
+            segmentRecord.setTraceId(row.getString(SegmentRecord.TRACE_ID));
+            segmentRecord.setServiceId(row.getInt(SegmentRecord.SERVICE_ID));
+            segmentRecord.setEndpointName(row.getString(SegmentRecord.ENDPOINT_NAME));
+            segmentRecord.setStartTime(row.getLong(SegmentRecord.START_TIME));
+            segmentRecord.setEndTime(row.getLong(SegmentRecord.END_TIME));
+            segmentRecord.setLatency(row.getInt(SegmentRecord.LATENCY));
+            segmentRecord.setIsError(row.getInt(SegmentRecord.IS_ERROR));
+            byte[] dataBinary = row.getBytes(SegmentRecord.DATA_BINARY);
+            if (dataBinary != null && dataBinary.length > 0) {
+                segmentRecord.setDataBinary(dataBinary);
+            }
+            segmentRecords.add(segmentRecord);
+        }
+        return segmentRecords;
+    }
+}
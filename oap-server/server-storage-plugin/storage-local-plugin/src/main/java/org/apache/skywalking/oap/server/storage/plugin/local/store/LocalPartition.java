@@ -0,0 +1,404 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One append-only segment file of a table, holding the rows of one time partition.
+ *
+ * Every write appends one block, the block is column oriented: the length of the block, the number of rows, the ids,
+ * then the values of every column one after another, encoded by the type of the column. A block cut by a crash is
+ * detected by its length and truncated when the file is loaded.
+ *
+ * The values of the binary columns, e.g. the segment data binary, are not kept in memory, the rows hold their
+ * {@link Blob} positions in the file, read when they are queried.
+ */
+class LocalPartition {
+    private static final Logger logger = LoggerFactory.getLogger(LocalPartition.class);
+
+    static final String FILE_SUFFIX = ".seg";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final long key;
+    private final File file;
+    private final List<ModelColumn> columns;
+    private FileOutputStream outputStream;
+    private FileChannel reader;
+    private long length;
+    private int rowCount;
+    private boolean deleted;
+
+    LocalPartition(File directory, long key, List<ModelColumn> columns) {
+        this(key, new File(directory, key + FILE_SUFFIX), columns);
+    }
+
+    private LocalPartition(long key, File file, List<ModelColumn> columns) {
+        this.key = key;
+        this.file = file;
+        this.columns = columns;
+        this.length = file.length();
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    /**
+     * @return the number of rows in the file, the replaced versions included.
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Read all blocks of the file, rows are passed in written order, so a later version of the same id overrides the
+     * earlier one.
+     */
+    void load(RowConsumer consumer) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        long validLength = 0;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            long fileLength = randomAccessFile.length();
+            while (validLength + 4 <= fileLength) {
+                randomAccessFile.seek(validLength);
+                int blockLength = randomAccessFile.readInt();
+                if (blockLength <= 0 || validLength + 4 + blockLength > fileLength) {
+                    break;
+                }
+                byte[] block = new byte[blockLength];
+                randomAccessFile.readFully(block);
+                rowCount += readBlock(block, validLength + 4, consumer);
+                validLength += 4 + blockLength;
+            }
+
+            if (validLength != fileLength) {
+                logger.warn("segment file {} has an incomplete block, truncate from {} to {}", file.getAbsolutePath(), fileLength, validLength);
+                randomAccessFile.setLength(validLength);
+            }
+        }
+        length = validLength;
+    }
+
+    /**
+     * Append the rows as one block, then replace the binary values of the rows by their positions in the file.
+     */
+    synchronized void append(List<LocalRow> rows) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(rows.size() * 64 + 8);
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeInt(0);
+        output.writeInt(rows.size());
+        for (LocalRow row : rows) {
+            writeString(output, row.id());
+        }
+        List<Runnable> blobs = new ArrayList<>();
+        for (int c = 0; c < columns.size(); c++) {
+            Class<?> type = columns.get(c).getType();
+            for (LocalRow row : rows) {
+                if (byte[].class.equals(type)) {
+                    byte[] value = (byte[])row.getValue(c);
+                    writeBytes(output, value);
+                    if (value != null) {
+                        Object[] values = row.getValues();
+                        int column = c;
+                        Blob blob = new Blob(this, length + output.size() - value.length, value.length);
+                        blobs.add(() -> values[column] = blob);
+                    }
+                } else {
+                    writeValue(output, type, row.getValues()[c]);
+                }
+            }
+        }
+        output.flush();
+
+        byte[] block = buffer.toByteArray();
+        int blockLength = block.length - 4;
+        block[0] = (byte)(blockLength >>> 24);
+        block[1] = (byte)(blockLength >>> 16);
+        block[2] = (byte)(blockLength >>> 8);
+        block[3] = (byte)blockLength;
+
+        if (outputStream == null) {
+            outputStream = new FileOutputStream(file, true);
+        }
+        outputStream.write(block);
+        outputStream.flush();
+        length += block.length;
+        rowCount += rows.size();
+        blobs.forEach(Runnable::run);
+    }
+
+    /**
+     * Rewrite the file with the given rows only, dropping the replaced versions. The rows are written to a new file
+     * which then replaces this one, this partition is deleted, the returned one holds the file and should be loaded.
+     */
+    synchronized LocalPartition compact(Collection<LocalRow> rows) throws IOException {
+        File compacting = new File(file.getParentFile(), key + COMPACTING_SUFFIX);
+        Files.deleteIfExists(compacting.toPath());
+
+        /*
+         * The rows are copied, appending replaces the binary values by their positions, the live rows keep reading
+         * this file until they are reloaded.
+         */
+        List<LocalRow> copies = new ArrayList<>(rows.size());
+        for (LocalRow row : rows) {
+            copies.add(new LocalRow(row.id(), null, row.getValues().clone()));
+        }
+        LocalPartition compacted = new LocalPartition(key, compacting, columns);
+        try {
+            if (!copies.isEmpty()) {
+                compacted.append(copies);
+            }
+        } finally {
+            compacted.close();
+        }
+
+        close();
+        closeReader();
+        deleted = true;
+        Files.move(compacting.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new LocalPartition(key, file, columns);
+    }
+
+    synchronized void close() {
+        if (outputStream != null) {
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+            }
+            outputStream = null;
+        }
+    }
+
+    synchronized void delete() {
+        close();
+        closeReader();
+        deleted = true;
+        if (file.exists() && !file.delete()) {
+            logger.warn("segment file {} could not be deleted", file.getAbsolutePath());
+        }
+    }
+
+    synchronized void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+            }
+            reader = null;
+        }
+    }
+
+    /**
+     * Read the bytes at the position by a shared channel, a read interrupted by {@link #closeReader()} is retried
+     * once by a new channel.
+     */
+    byte[] read(long position, int length) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = reader();
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Unexpected end of segment file " + file.getAbsolutePath());
+                    }
+                }
+                return buffer.array();
+            } catch (ClosedChannelException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private synchronized FileChannel reader() throws IOException {
+        if (deleted) {
+            throw new IOException("Segment file " + file.getAbsolutePath() + " has been deleted");
+        }
+        if (reader == null) {
+            reader = new RandomAccessFile(file, "r").getChannel();
+        }
+        return reader;
+    }
+
+    /**
+     * @param blockPosition the position of the block in the file, after its length.
+     * @return the number of rows in the block.
+     */
+    private int readBlock(byte[] block, long blockPosition, RowConsumer consumer) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(block);
+        DataInputStream input = new DataInputStream(bytes);
+        int size = input.readInt();
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = readString(input);
+        }
+        Object[][] values = new Object[columns.size()][];
+        for (int c = 0; c < columns.size(); c++) {
+            Class<?> type = columns.get(c).getType();
+            values[c] = new Object[size];
+            for (int i = 0; i < size; i++) {
+                if (byte[].class.equals(type)) {
+                    int length = input.readInt();
+                    if (length >= 0) {
+                        values[c][i] = new Blob(this, blockPosition + block.length - bytes.available(), length);
+                        input.skipBytes(length);
+                    }
+                } else {
+                    values[c][i] = readValue(input, type);
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            Object[] row = new Object[columns.size()];
+            for (int c = 0; c < columns.size(); c++) {
+                row[c] = values[c][i];
+            }
+            consumer.accept(ids[i], row);
+        }
+        return size;
+    }
+
+    private void writeValue(DataOutputStream output, Class<?> type, Object value) throws IOException {
+        if (Integer.class.equals(type) || int.class.equals(type)) {
+            output.writeInt(value == null ? 0 : ((Number)value).intValue());
+        } else if (Long.class.equals(type) || long.class.equals(type)) {
+            output.writeLong(value == null ? 0 : ((Number)value).longValue());
+        } else if (Double.class.equals(type) || double.class.equals(type)) {
+            output.writeDouble(value == null ? 0 : ((Number)value).doubleValue());
+        } else if (byte[].class.equals(type)) {
+            writeBytes(output, (byte[])value);
+        } else {
+            writeString(output, (String)value);
+        }
+    }
+
+    private Object readValue(DataInputStream input, Class<?> type) throws IOException {
+        if (Integer.class.equals(type) || int.class.equals(type)) {
+            return input.readInt();
+        } else if (Long.class.equals(type) || long.class.equals(type)) {
+            return input.readLong();
+        } else if (Double.class.equals(type) || double.class.equals(type)) {
+            return input.readDouble();
+        } else if (byte[].class.equals(type)) {
+            return readBytes(input);
+        } else {
+            byte[] bytes = readBytes(input);
+            return bytes == null ? null : new String(bytes, LocalTable.CHARSET);
+        }
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException {
+        writeBytes(output, value == null ? null : value.getBytes(LocalTable.CHARSET));
+    }
+
+    private String readString(DataInputStream input) throws IOException {
+        byte[] bytes = readBytes(input);
+        return bytes == null ? null : new String(bytes, LocalTable.CHARSET);
+    }
+
+    private void writeBytes(DataOutputStream output, byte[] value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            output.writeInt(value.length);
+            output.write(value);
+        }
+    }
+
+    private byte[] readBytes(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    static List<Long> listKeys(File directory) {
+        List<Long> keys = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files != null) {
+            for (File segment : files) {
+                String name = segment.getName();
+                try {
+                    keys.add(Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("unknown file {} in {}, ignored", name, directory.getAbsolutePath());
+                }
+            }
+        }
+        return keys;
+    }
+
+    interface RowConsumer {
+        void accept(String id, Object[] row);
+    }
+
+    /**
+     * The position of a binary value in the segment file.
+     */
+    static class Blob {
+        private final LocalPartition partition;
+        private final long position;
+        private final int length;
+
+        private Blob(LocalPartition partition, long position, int length) {
+            this.partition = partition;
+            this.position = position;
+            this.length = length;
+        }
+
+        byte[] read() {
+            try {
+                return partition.read(position, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
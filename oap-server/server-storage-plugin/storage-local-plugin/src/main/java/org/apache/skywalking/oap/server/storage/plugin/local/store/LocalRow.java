@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.store;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One row of a {@link LocalTable}, values are kept in the column order of the model, the column positions are shared
+ * by all rows of the table. Binary values are read from the segment file of the row when they are got.
+ */
+public class LocalRow {
+    private final String id;
+    private final Map<String, Integer> columnIndex;
+    private final Object[] values;
+
+    LocalRow(String id, Map<String, Integer> columnIndex, Object[] values) {
+        this.id = id;
+        this.columnIndex = columnIndex;
+        this.values = values;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Object get(String columnName) {
+        Integer index = columnIndex.get(columnName);
+        return index == null ? null : getValue(index);
+    }
+
+    public String getString(String columnName) {
+        return (String)get(columnName);
+    }
+
+    public int getInt(String columnName) {
+        Object value = get(columnName);
+        return value == null ? 0 : ((Number)value).intValue();
+    }
+
+    public long getLong(String columnName) {
+        Object value = get(columnName);
+        return value == null ? 0 : ((Number)value).longValue();
+    }
+
+    public double getDouble(String columnName) {
+        Object value = get(columnName);
+        return value == null ? 0 : ((Number)value).doubleValue();
+    }
+
+    public byte[] getBytes(String columnName) {
+        return (byte[])get(columnName);
+    }
+
+    Object[] getValues() {
+        return values;
+    }
+
+    Object getValue(int index) {
+        Object value = values[index];
+        return value instanceof LocalPartition.Blob ? ((LocalPartition.Blob)value).read() : value;
+    }
+
+    /**
+     * @return the values as the map read by {@link org.apache.skywalking.oap.server.core.storage.StorageBuilder#map2Data(Map)},
+     * binary is exchanged as base64 text, as the other storage implementations do.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columnIndex.entrySet()) {
+            Object value = getValue(column.getValue());
+            if (value instanceof byte[]) {
+                map.put(column.getKey(), Base64.getEncoder().encodeToString((byte[])value));
+            } else {
+                map.put(column.getKey(), value);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.library.client.Client;
+import org.apache.skywalking.oap.server.library.client.ClientException;
+
+/**
+ * Holds the tables of the embedded local storage, every table is stored in its own directory under the root.
+ */
+public class LocalStorageClient implements Client {
+    private final File root;
+    private final Map<String, LocalTable> tables = new ConcurrentHashMap<>();
+
+    public LocalStorageClient(String directory) {
+        this.root = new File(directory);
+    }
+
+    @Override public void initialize() throws ClientException {
+        if (!root.exists() && !root.mkdirs()) {
+            throw new LocalStorageClientException("Can't create directory " + root.getAbsolutePath());
+        }
+    }
+
+    @Override public void shutdown() {
+        tables.values().forEach(LocalTable::close);
+    }
+
+    public boolean isExists(String modelName) {
+        return tables.containsKey(modelName);
+    }
+
+    /**
+     * Open the table of the model, the existing segment files are loaded into memory.
+     */
+    public void createTable(Model model) throws IOException {
+        LocalTable table = new LocalTable(root, model);
+        table.open();
+        tables.put(model.getName(), table);
+    }
+
+    public void dropTable(String modelName) {
+        LocalTable table = tables.remove(modelName);
+        if (table != null) {
+            table.drop();
+        }
+    }
+
+    public LocalTable getTable(String modelName) throws IOException {
+        LocalTable table = tables.get(modelName);
+        if (table == null) {
+            throw new IOException("Table " + modelName + " doesn't exist");
+        }
+        return table;
+    }
+}
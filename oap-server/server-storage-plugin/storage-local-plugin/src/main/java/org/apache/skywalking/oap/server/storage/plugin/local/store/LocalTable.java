@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
+import org.apache.skywalking.oap.server.core.register.RegisterSource;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.core.storage.type.StorageDataType;
+
+/**
+ * The storage of one model.
+ *
+ * All rows are held in memory, indexed by id, by time bucket and by a few columns looked up by equality. Every write
+ * is appended to the segment file of the time partition of the rows, the partition files are replayed when the table
+ * is opened, and the expired data is removed by deleting whole partitions. The models which aren't time series, e.g.
+ * the inventories, never expire, so their single partition is compacted once most of its rows have been replaced.
+ */
+public class LocalTable {
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private static final long NON_TIME_SERIES_PARTITION = 0;
+
+    /**
+     * The non time series partition is compacted when it holds more rows than the minimum, and more than the ratio
+     * times the live rows.
+     */
+    private static final int COMPACTION_MIN_ROWS = 10000;
+    private static final int COMPACTION_RATIO = 2;
+
+    /**
+     * Columns read by equality in the query and cache DAOs, any model having them keeps a hash index on them.
+     */
+    private static final Set<String> INDEXED_COLUMNS = new HashSet<>(Arrays.asList(SegmentRecord.TRACE_ID, RegisterSource.SEQUENCE));
+
+    private final String modelName;
+    private final List<ModelColumn> columns;
+    private final Map<String, Integer> columnIndex;
+    private final int timeBucketIndex;
+    private final int sequenceIndex;
+    private final File directory;
+
+    private final Map<String, LocalRow> rows = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<String>> timeBuckets = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Object, Set<String>>> secondaryIndexes = new HashMap<>();
+    private final ConcurrentSkipListMap<Long, LocalPartition> partitions = new ConcurrentSkipListMap<>();
+    private volatile int maxSequence;
+
+    LocalTable(File root, Model model) {
+        this.modelName = model.getName();
+        this.columns = model.getColumns();
+        this.directory = new File(root, modelName);
+
+        Map<String, Integer> columnIndex = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String columnName = columns.get(i).getColumnName().getName();
+            columnIndex.put(columnName, i);
+            if (INDEXED_COLUMNS.contains(columnName)) {
+                secondaryIndexes.put(columnName, new ConcurrentHashMap<>());
+            }
+        }
+        this.columnIndex = Collections.unmodifiableMap(columnIndex);
+        Integer timeBucket = columnIndex.get(Indicator.TIME_BUCKET);
+        this.timeBucketIndex = timeBucket == null ? -1 : timeBucket;
+        Integer sequence = columnIndex.get(RegisterSource.SEQUENCE);
+        this.sequenceIndex = sequence == null ? -1 : sequence;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    synchronized void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Can't create directory " + directory.getAbsolutePath());
+        }
+
+        List<Long> keys = LocalPartition.listKeys(directory);
+        Collections.sort(keys);
+        for (Long key : keys) {
+            LocalPartition partition = new LocalPartition(directory, key, columns);
+            partition.load((id, values) -> put(new LocalRow(id, columnIndex, values)));
+            partitions.put(key, partition);
+        }
+
+        LocalPartition nonTimeSeries = partitions.get(NON_TIME_SERIES_PARTITION);
+        if (nonTimeSeries != null) {
+            compactIfNeeded(nonTimeSeries);
+        }
+    }
+
+    /**
+     * Convert the map built by {@link org.apache.skywalking.oap.server.core.storage.StorageBuilder#data2Map(Object)}
+     * to a row, the values are normalized to the type of the columns.
+     */
+    public LocalRow toRow(String id, Map<String, Object> data) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            ModelColumn column = columns.get(i);
+            Object value = data.get(column.getColumnName().getName());
+            Class<?> type = column.getType();
+            if (value instanceof StorageDataType) {
+                value = ((StorageDataType)value).toStorageData();
+            }
+
+            if (value == null) {
+                values[i] = null;
+            } else if (Integer.class.equals(type) || int.class.equals(type)) {
+                values[i] = ((Number)value).intValue();
+            } else if (Long.class.equals(type) || long.class.equals(type)) {
+                values[i] = ((Number)value).longValue();
+            } else if (Double.class.equals(type) || double.class.equals(type)) {
+                values[i] = ((Number)value).doubleValue();
+            } else if (byte[].class.equals(type) && value instanceof String) {
+                values[i] = Base64.getDecoder().decode((String)value);
+            } else {
+                values[i] = value;
+            }
+        }
+        return new LocalRow(id, columnIndex, values);
+    }
+
+    /**
+     * Append the rows to the segment files of their partitions, then make them visible to the readers. Rows of an id
+     * which exists replace the old version.
+     */
+    public synchronized void write(List<LocalRow> batch) throws IOException {
+        Map<Long, List<LocalRow>> groups = new LinkedHashMap<>();
+        for (LocalRow row : batch) {
+            groups.computeIfAbsent(partitionKey(row), key -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<Long, List<LocalRow>> group : groups.entrySet()) {
+            LocalPartition partition = partitions.get(group.getKey());
+            if (partition == null) {
+                partition = new LocalPartition(directory, group.getKey(), columns);
+                partitions.put(group.getKey(), partition);
+            }
+            partition.append(group.getValue());
+
+            /*
+             * Only the latest partition keeps its file open, rows of the older ones arrive rarely, e.g. the late
+             * data of the last hour, which keeps the number of files open to write at one per table. The files of
+             * the binary values stay open to read until their partition is deleted.
+             */
+            if (partition.getKey() != partitions.lastKey()) {
+                partition.close();
+            } else {
+                ConcurrentNavigableMap<Long, LocalPartition> olders = partitions.headMap(partition.getKey());
+                if (!olders.isEmpty()) {
+                    olders.lastEntry().getValue().close();
+                }
+            }
+        }
+
+        for (LocalRow row : batch) {
+            put(row);
+        }
+
+        if (groups.containsKey(NON_TIME_SERIES_PARTITION)) {
+            compactIfNeeded(partitions.get(NON_TIME_SERIES_PARTITION));
+        }
+    }
+
+    /**
+     * Rewrite the non time series partition with the live rows, once the replaced versions outnumber them, so the
+     * file and the replay on open stay in proportion to the rows.
+     */
+    private void compactIfNeeded(LocalPartition partition) throws IOException {
+        if (timeBucketIndex >= 0) {
+            return;
+        }
+        int rowCount = partition.getRowCount();
+        if (rowCount <= COMPACTION_MIN_ROWS || rowCount <= (long)rows.size() * COMPACTION_RATIO) {
+            return;
+        }
+
+        LocalPartition compacted = partition.compact(rows.values());
+        compacted.load((id, values) -> put(new LocalRow(id, columnIndex, values)));
+        partitions.put(compacted.getKey(), compacted);
+    }
+
+    public LocalRow get(String id) {
+        return rows.get(id);
+    }
+
+    /**
+     * Find the rows by the value of a column, hash indexed columns are read from the index, others by a full scan.
+     */
+    public List<LocalRow> findBy(String columnName, Object value) {
+        List<LocalRow> result = new ArrayList<>();
+        Map<Object, Set<String>> index = secondaryIndexes.get(columnName);
+        if (index != null) {
+            Set<String> ids = index.get(value);
+            if (ids != null) {
+                for (String id : ids) {
+                    LocalRow row = rows.get(id);
+                    if (row != null) {
+                        result.add(row);
+                    }
+                }
+            }
+        } else {
+            for (LocalRow row : rows.values()) {
+                if (value.equals(row.get(columnName))) {
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void scan(Consumer<LocalRow> consumer) {
+        rows.values().forEach(consumer);
+    }
+
+    /**
+     * Scan the rows whose time bucket is in the given range, both inclusive, through the time bucket index.
+     */
+    public void scan(long startTimeBucket, long endTimeBucket, Consumer<LocalRow> consumer) {
+        if (timeBucketIndex < 0) {
+            scan(consumer);
+            return;
+        }
+
+        for (Set<String> ids : timeBuckets.subMap(startTimeBucket, true, endTimeBucket, true).values()) {
+            for (String id : ids) {
+                LocalRow row = rows.get(id);
+                if (row != null) {
+                    consumer.accept(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the smallest time bucket of the rows, or null if the table is empty or not a time series.
+     */
+    public Long getOldestTimeBucket() {
+        if (timeBucketIndex < 0) {
+            return null;
+        }
+        Map.Entry<Long, Set<String>> oldest = timeBuckets.firstEntry();
+        return oldest == null ? null : oldest.getKey();
+    }
+
+    /**
+     * @return the largest register sequence of the rows, or 0 if there is no row or the model has no sequence.
+     */
+    public int getMaxSequence() {
+        return maxSequence;
+    }
+
+    /**
+     * Remove the partitions which only hold time buckets before the given one. The partition containing the given time
+     * bucket is kept, so data lives at most one partition longer than the TTL.
+     */
+    public synchronized void deleteBefore(long timeBucketBefore) {
+        if (timeBucketIndex < 0) {
+            return;
+        }
+
+        long keyBefore = partitionKey(timeBucketBefore);
+        Iterator<Map.Entry<Long, Set<String>>> iterator = timeBuckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Set<String>> timeBucket = iterator.next();
+            if (partitionKey(timeBucket.getKey()) >= keyBefore) {
+                break;
+            }
+            for (String id : timeBucket.getValue()) {
+                remove(id);
+            }
+            iterator.remove();
+        }
+
+        ConcurrentNavigableMap<Long, LocalPartition> expired = partitions.headMap(keyBefore);
+        for (LocalPartition partition : expired.values()) {
+            partition.delete();
+        }
+        expired.clear();
+    }
+
+    synchronized void drop() {
+        for (LocalPartition partition : partitions.values()) {
+            partition.delete();
+        }
+        partitions.clear();
+        rows.clear();
+        timeBuckets.clear();
+        secondaryIndexes.values().forEach(Map::clear);
+        maxSequence = 0;
+    }
+
+    synchronized void close() {
+        for (LocalPartition partition : partitions.values()) {
+            partition.close();
+            partition.closeReader();
+        }
+    }
+
+    private void put(LocalRow row) {
+        LocalRow old = rows.put(row.id(), row);
+
+        for (Map.Entry<String, Map<Object, Set<String>>> index : secondaryIndexes.entrySet()) {
+            Object value = row.get(index.getKey());
+            if (old != null) {
+                Object oldValue = old.get(index.getKey());
+                if (oldValue != null && !oldValue.equals(value)) {
+                    removeFromIndex(index.getValue(), oldValue, row.id());
+                }
+            }
+            if (value != null) {
+                index.getValue().computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(row.id());
+            }
+        }
+
+        if (sequenceIndex >= 0) {
+            Object sequence = row.getValues()[sequenceIndex];
+            if (sequence != null && ((Number)sequence).intValue() > maxSequence) {
+                maxSequence = ((Number)sequence).intValue();
+            }
+        }
+
+        if (timeBucketIndex >= 0 && old == null) {
+            timeBuckets.computeIfAbsent(timeBucket(row), key -> ConcurrentHashMap.newKeySet()).add(row.id());
+        }
+    }
+
+    private void remove(String id) {
+        LocalRow row = rows.remove(id);
+        if (row == null) {
+            return;
+        }
+        for (Map.Entry<String, Map<Object, Set<String>>> index : secondaryIndexes.entrySet()) {
+            Object value = row.get(index.getKey());
+            if (value != null) {
+                removeFromIndex(index.getValue(), value, id);
+            }
+        }
+    }
+
+    private void removeFromIndex(Map<Object, Set<String>> index, Object value, String id) {
+        Set<String> ids = index.get(value);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private long timeBucket(LocalRow row) {
+        Object value = row.getValues()[timeBucketIndex];
+        return value == null ? 0 : ((Number)value).longValue();
+    }
+
+    private long partitionKey(LocalRow row) {
+        return timeBucketIndex < 0 ? NON_TIME_SERIES_PARTITION : partitionKey(timeBucket(row));
+    }
+
+    /**
+     * Time buckets in second and minute are partitioned by hour, hour by day, day by month and month by year, so one
+     * partition holds a few dozens of time buckets at most, whatever the downsampling of the model is.
+     */
+    static long partitionKey(long timeBucket) {
+        if (timeBucket > 9999999999L) {
+            while (timeBucket > 9999999999L) {
+                timeBucket /= 100;
+            }
+            return timeBucket;
+        }
+        return timeBucket / 100;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes 100k indicator rows into the local storage, and reports the throughput of the batch write path, the same
+ * workload as the H2BatchDAOBenchmark of the H2 storage plugin. Run by the benchmark profile only, e.g.
+ * mvn test -Pbenchmark.
+ */
+public class LocalBatchDAOBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBatchDAOBenchmark.class);
+
+    private static final int ROWS = 100000;
+    private static final String MODEL_NAME = "indicator_benchmark";
+    private static final String SUMMATION = "summation";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Model model;
+    private LocalStorageClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        List<ModelColumn> columns = new LinkedList<>();
+        columns.add(new ModelColumn(new ColumnName(Indicator.ENTITY_ID, Indicator.ENTITY_ID), String.class, false));
+        columns.add(new ModelColumn(new ColumnName(Indicator.TIME_BUCKET, Indicator.TIME_BUCKET), long.class, false));
+        columns.add(new ModelColumn(new ColumnName(SUMMATION, SUMMATION), long.class, false));
+        model = new Model(MODEL_NAME, columns, true, true);
+
+        client = openClient();
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void testBatchPersistence() throws Exception {
+        LocalBatchDAO batchDAO = new LocalBatchDAO();
+        LocalTable table = client.getTable(MODEL_NAME);
+
+        List<LocalWriteRequest> inserts = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            inserts.add(new LocalWriteRequest(table, table.toRow("201811011200_" + i, row(i, (long)i))));
+        }
+        long startTime = System.currentTimeMillis();
+        batchDAO.batchPersistence(inserts);
+        report("insert", startTime);
+        Assert.assertEquals(ROWS, count(client));
+
+        List<LocalWriteRequest> updates = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            updates.add(new LocalWriteRequest(table, table.toRow("201811011200_" + i, row(i, (long)i * 2))));
+        }
+        startTime = System.currentTimeMillis();
+        batchDAO.batchPersistence(updates);
+        report("update", startTime);
+        Assert.assertEquals((long)ROWS * (ROWS - 1), sum(client));
+
+        client.shutdown();
+        startTime = System.currentTimeMillis();
+        client = openClient();
+        report("load", startTime);
+        Assert.assertEquals(ROWS, count(client));
+        Assert.assertEquals((long)ROWS * (ROWS - 1), sum(client));
+    }
+
+    private LocalStorageClient openClient() throws Exception {
+        LocalStorageClient client = new LocalStorageClient(folder.getRoot().getAbsolutePath());
+        client.initialize();
+        client.createTable(model);
+        return client;
+    }
+
+    private Map<String, Object> row(int entityId, long summation) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(Indicator.ENTITY_ID, String.valueOf(entityId));
+        row.put(Indicator.TIME_BUCKET, 201811011200L);
+        row.put(SUMMATION, summation);
+        return row;
+    }
+
+    private void report(String operation, long startTime) {
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+        logger.info("batch {} {} rows in {} ms, {} rows/s", operation, ROWS, duration, ROWS * 1000L / duration);
+    }
+
+    private long count(LocalStorageClient client) throws Exception {
+        AtomicLong count = new AtomicLong();
+        client.getTable(MODEL_NAME).scan(row -> count.incrementAndGet());
+        return count.get();
+    }
+
+    private long sum(LocalStorageClient client) throws Exception {
+        AtomicLong sum = new AtomicLong();
+        client.getTable(MODEL_NAME).scan(row -> sum.addAndGet(row.getLong(SUMMATION)));
+        return sum.get();
+    }
+}
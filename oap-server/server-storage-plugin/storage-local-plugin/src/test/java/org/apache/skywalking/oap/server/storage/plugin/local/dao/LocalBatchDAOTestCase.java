@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.query.entity.IntValues;
+import org.apache.skywalking.oap.server.core.query.entity.Step;
+import org.apache.skywalking.oap.server.core.query.sql.Function;
+import org.apache.skywalking.oap.server.core.query.sql.KeyValues;
+import org.apache.skywalking.oap.server.core.query.sql.Where;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalStorageClient;
+import org.apache.skywalking.oap.server.storage.plugin.local.store.LocalTable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalBatchDAOTestCase {
+
+    private static final String MODEL_NAME = "indicator_test";
+    private static final String SUMMATION = "summation";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Model model;
+    private LocalStorageClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        List<ModelColumn> columns = new LinkedList<>();
+        columns.add(new ModelColumn(new ColumnName(Indicator.ENTITY_ID, Indicator.ENTITY_ID), String.class, false));
+        columns.add(new ModelColumn(new ColumnName(Indicator.TIME_BUCKET, Indicator.TIME_BUCKET), long.class, false));
+        columns.add(new ModelColumn(new ColumnName(SUMMATION, SUMMATION), long.class, false));
+        model = new Model(MODEL_NAME, columns, true, true);
+
+        client = openClient();
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    public void testBatchPersistence() throws Exception {
+        LocalBatchDAO batchDAO = new LocalBatchDAO();
+        LocalTable table = client.getTable(MODEL_NAME);
+
+        List<LocalWriteRequest> inserts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inserts.add(new LocalWriteRequest(table, table.toRow("201811011200_" + i, row(i, (long)i))));
+        }
+        batchDAO.batchPersistence(inserts);
+        Assert.assertEquals(10, count(client));
+
+        List<LocalWriteRequest> updates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            updates.add(new LocalWriteRequest(table, table.toRow("201811011200_" + i, row(i, (long)i * 2))));
+        }
+        batchDAO.batchPersistence(updates);
+        Assert.assertEquals(90, sum(client));
+
+        client.shutdown();
+        client = openClient();
+        Assert.assertEquals(10, count(client));
+        Assert.assertEquals(90, sum(client));
+    }
+
+    @Test
+    public void testGetValues() throws Exception {
+        LocalTable table = client.getTable(MODEL_NAME);
+        List<LocalWriteRequest> inserts = new ArrayList<>();
+        for (long timeBucket = 201811011200L; timeBucket < 201811011205L; timeBucket++) {
+            for (int i = 0; i < 3; i++) {
+                Map<String, Object> row = row(i, (long)i * 10);
+                row.put(Indicator.TIME_BUCKET, timeBucket);
+                inserts.add(new LocalWriteRequest(table, table.toRow(timeBucket + "_" + i, row)));
+            }
+        }
+        new LocalBatchDAO().batchPersistence(inserts);
+
+        Where where = new Where();
+        KeyValues keyValues = new KeyValues();
+        keyValues.setKey(Indicator.ENTITY_ID);
+        keyValues.getValues().add("2");
+        keyValues.getValues().add("1");
+        keyValues.getValues().add("9");
+        where.getKeyValues().add(keyValues);
+
+        LocalMetricQueryDAO metricQueryDAO = new LocalMetricQueryDAO(client);
+        IntValues sum = metricQueryDAO.getValues(MODEL_NAME, Step.MINUTE, 201811011201L, 201811011203L, where, SUMMATION, Function.Sum);
+        Assert.assertEquals(60, sum.findValue("2", -1));
+        Assert.assertEquals(30, sum.findValue("1", -1));
+        Assert.assertEquals(0, sum.findValue("9", -1));
+
+        IntValues avg = metricQueryDAO.getValues(MODEL_NAME, Step.MINUTE, 201811011201L, 201811011203L, where, SUMMATION, Function.Avg);
+        Assert.assertEquals(20, avg.findValue("2", -1));
+        Assert.assertEquals("2", avg.getValues().get(0).getId());
+    }
+
+    private LocalStorageClient openClient() throws Exception {
+        LocalStorageClient client = new LocalStorageClient(folder.getRoot().getAbsolutePath());
+        client.initialize();
+        client.createTable(model);
+        return client;
+    }
+
+    private Map<String, Object> row(int entityId, long summation) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(Indicator.ENTITY_ID, String.valueOf(entityId));
+        row.put(Indicator.TIME_BUCKET, 201811011200L);
+        row.put(SUMMATION, summation);
+        return row;
+    }
+
+    private long count(LocalStorageClient client) throws Exception {
+        AtomicLong count = new AtomicLong();
+        client.getTable(MODEL_NAME).scan(row -> count.incrementAndGet());
+        return count.get();
+    }
+
+    private long sum(LocalStorageClient client) throws Exception {
+        AtomicLong sum = new AtomicLong();
+        client.getTable(MODEL_NAME).scan(row -> sum.addAndGet(row.getLong(SUMMATION)));
+        return sum.get();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.local.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.oap.server.core.analysis.manual.segment.SegmentRecord;
+import org.apache.skywalking.oap.server.core.register.RegisterSource;
+import org.apache.skywalking.oap.server.core.storage.model.ColumnName;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.model.ModelColumn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalTableTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Model model;
+
+    @Before
+    public void setUp() {
+        List<ModelColumn> columns = new LinkedList<>();
+        columns.add(new ModelColumn(new ColumnName(SegmentRecord.TRACE_ID, SegmentRecord.TRACE_ID), String.class, false));
+        columns.add(new ModelColumn(new ColumnName(SegmentRecord.LATENCY, SegmentRecord.LATENCY), int.class, false));
+        columns.add(new ModelColumn(new ColumnName(SegmentRecord.DATA_BINARY, SegmentRecord.DATA_BINARY), byte[].class, false));
+        columns.add(new ModelColumn(new ColumnName(SegmentRecord.TIME_BUCKET, SegmentRecord.TIME_BUCKET), long.class, false));
+        model = new Model(SegmentRecord.INDEX_NAME, columns, false, true);
+    }
+
+    @Test
+    public void testPartitionKey() {
+        Assert.assertEquals(2018110112L, LocalTable.partitionKey(20181101125959L));
+        Assert.assertEquals(2018110112L, LocalTable.partitionKey(201811011259L));
+        Assert.assertEquals(20181101L, LocalTable.partitionKey(2018110112L));
+        Assert.assertEquals(201811L, LocalTable.partitionKey(20181101L));
+        Assert.assertEquals(2018L, LocalTable.partitionKey(201811L));
+    }
+
+    @Test
+    public void testWriteAndLoad() throws Exception {
+        LocalTable table = open();
+        table.write(Arrays.asList(
+            table.toRow("s1", row("t1", 10, "AQID", 20181101120001L)),
+            table.toRow("s2", row("t1", 20, "", 20181101130001L)),
+            table.toRow("s3", row("t2", 30, "BAU=", 20181101130002L))));
+        table.write(Arrays.asList(table.toRow("s2", row("t1", 25, "", 20181101130001L))));
+        table.close();
+
+        table = open();
+        Assert.assertEquals(2, table.findBy(SegmentRecord.TRACE_ID, "t1").size());
+        Assert.assertEquals(25, table.get("s2").getInt(SegmentRecord.LATENCY));
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, table.get("s1").getBytes(SegmentRecord.DATA_BINARY));
+        Assert.assertEquals("BAU=", table.get("s3").toMap().get(SegmentRecord.DATA_BINARY));
+
+        List<String> ids = new LinkedList<>();
+        table.scan(20181101130000L, 20181101135959L, row -> ids.add(row.id()));
+        Assert.assertEquals(2, ids.size());
+        Assert.assertTrue(ids.containsAll(Arrays.asList("s2", "s3")));
+    }
+
+    @Test
+    public void testBinaryReadFromSegmentFile() throws Exception {
+        LocalTable table = open();
+        table.write(Arrays.asList(
+            table.toRow("s1", row("t1", 10, "AQID", 20181101120001L)),
+            table.toRow("s2", row("t1", 20, "", 20181101120002L))));
+        table.write(Arrays.asList(table.toRow("s3", row("t2", 30, "BAU=", 20181101120003L))));
+
+        Assert.assertFalse(table.get("s1").getValues()[2] instanceof byte[]);
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, table.get("s1").getBytes(SegmentRecord.DATA_BINARY));
+        Assert.assertArrayEquals(new byte[0], table.get("s2").getBytes(SegmentRecord.DATA_BINARY));
+        Assert.assertArrayEquals(new byte[] {4, 5}, table.get("s3").getBytes(SegmentRecord.DATA_BINARY));
+        table.close();
+
+        table = open();
+        Assert.assertFalse(table.get("s3").getValues()[2] instanceof byte[]);
+        Assert.assertArrayEquals(new byte[] {4, 5}, table.get("s3").getBytes(SegmentRecord.DATA_BINARY));
+        table.close();
+    }
+
+    @Test
+    public void testTruncateIncompleteBlock() throws Exception {
+        LocalTable table = open();
+        table.write(Arrays.asList(table.toRow("s1", row("t1", 10, "", 20181101120001L))));
+        table.close();
+
+        File segment = new File(new File(folder.getRoot(), SegmentRecord.INDEX_NAME), 2018110112L + LocalPartition.FILE_SUFFIX);
+        long validLength = segment.length();
+        try (FileOutputStream outputStream = new FileOutputStream(segment, true)) {
+            outputStream.write(new byte[] {0, 0, 1, 0, 1, 2});
+        }
+
+        table = open();
+        Assert.assertNotNull(table.get("s1"));
+        Assert.assertEquals(validLength, segment.length());
+    }
+
+    @Test
+    public void testDeleteBefore() throws Exception {
+        LocalTable table = open();
+        table.write(Arrays.asList(
+            table.toRow("s1", row("t1", 10, "", 20181101100001L)),
+            table.toRow("s2", row("t1", 20, "", 20181101110001L)),
+            table.toRow("s3", row("t2", 30, "", 20181101120001L))));
+
+        table.deleteBefore(201811011130L);
+
+        Assert.assertNull(table.get("s1"));
+        Assert.assertNotNull(table.get("s2"));
+        Assert.assertNotNull(table.get("s3"));
+        Assert.assertEquals(1, table.findBy(SegmentRecord.TRACE_ID, "t1").size());
+
+        File directory = new File(folder.getRoot(), SegmentRecord.INDEX_NAME);
+        Assert.assertFalse(new File(directory, 2018110110L + LocalPartition.FILE_SUFFIX).exists());
+        Assert.assertTrue(new File(directory, 2018110111L + LocalPartition.FILE_SUFFIX).exists());
+        table.close();
+    }
+
+    @Test
+    public void testCompactNonTimeSeries() throws Exception {
+        List<ModelColumn> columns = new LinkedList<>();
+        columns.add(new ModelColumn(new ColumnName(RegisterSource.SEQUENCE, RegisterSource.SEQUENCE), int.class, false));
+        columns.add(new ModelColumn(new ColumnName("name", "name"), String.class, false));
+        Model inventory = new Model("inventory", columns, false, false);
+
+        LocalTable table = open(inventory);
+        List<LocalRow> batch = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            batch.add(table.toRow("i" + i % 2, inventory(i % 2 + 1, "name" + i)));
+        }
+        table.write(batch);
+        File segment = new File(new File(folder.getRoot(), "inventory"), 0 + LocalPartition.FILE_SUFFIX);
+        long uncompacted = segment.length();
+
+        table.write(Arrays.asList(table.toRow("i2", inventory(3, "name"))));
+        Assert.assertTrue(segment.length() < uncompacted / 100);
+        Assert.assertEquals(3, table.getMaxSequence());
+        Assert.assertEquals("name9999", table.get("i1").getString("name"));
+
+        table.write(Arrays.asList(table.toRow("i0", inventory(1, "renamed"))));
+        table.close();
+
+        table = open(inventory);
+        Assert.assertEquals("renamed", table.get("i0").getString("name"));
+        Assert.assertEquals("name9999", table.get("i1").getString("name"));
+        Assert.assertEquals(3, table.getMaxSequence());
+        Assert.assertEquals(1, table.findBy(RegisterSource.SEQUENCE, 2).size());
+        table.close();
+    }
+
+    private LocalTable open() throws Exception {
+        return open(model);
+    }
+
+    private LocalTable open(Model model) throws Exception {
+        LocalTable table = new LocalTable(folder.getRoot(), model);
+        table.open();
+        return table;
+    }
+
+    private Map<String, Object> row(String traceId, int latency, String dataBinary, long timeBucket) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(SegmentRecord.TRACE_ID, traceId);
+        row.put(SegmentRecord.LATENCY, latency);
+        row.put(SegmentRecord.DATA_BINARY, dataBinary);
+        row.put(SegmentRecord.TIME_BUCKET, timeBucket);
+        return row;
+    }
+
+    private Map<String, Object> inventory(int sequence, String name) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(RegisterSource.SEQUENCE, sequence);
+        row.put("name", name);
+        return row;
+    }
+}